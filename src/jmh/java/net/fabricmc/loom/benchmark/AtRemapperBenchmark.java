@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.util.srg.AtRemapper;
+import net.fabricmc.loom.util.srg.SrgMerger;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Remaps the access transformer of a jar using merged srg mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AtRemapperBenchmark {
+	private static final Logger LOGGER = Logging.getLogger(AtRemapperBenchmark.class);
+
+	@Param({"1000", "5000"})
+	public int classCount;
+
+	private Path directory;
+	private Path inputJar;
+	private Path workJar;
+	private MemoryMappingTree mappings;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("atremapper");
+		inputJar = BenchmarkFixtures.writeJar(directory.resolve("input.jar"), classCount);
+		workJar = directory.resolve("work.jar");
+		Path srg = BenchmarkFixtures.writeTsrgMappings(directory.resolve("mappings.tsrg"), classCount);
+		Path tiny = BenchmarkFixtures.writeTinyMappings(directory.resolve("mappings.tiny"), classCount);
+		mappings = SrgMerger.mergeSrg(srg, tiny, null, false);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyInput() throws IOException {
+		Files.copy(inputJar, workJar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void remap() throws IOException {
+		AtRemapper.remap(LOGGER, workJar, mappings);
+	}
+}
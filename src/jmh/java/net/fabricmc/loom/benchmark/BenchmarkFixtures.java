@@ -0,0 +1,244 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.DeletingFileVisitor;
+
+/**
+ * Generates synthetic, Minecraft-shaped inputs for the benchmarks.
+ *
+ * <p>Every input is derived from a fixed seed so that runs are comparable across machines and revisions,
+ * and nothing is ever downloaded.
+ *
+ * <p>A class {@code i} is named {@code c<i>} in the {@code official} namespace, {@code net/minecraft/class_<i>}
+ * in {@code intermediary}, {@code net/minecraft/Class<i>} in {@code named} and {@code srg}.
+ * Each class has an unmapped inner class {@code c<i>$1}.
+ */
+public final class BenchmarkFixtures {
+	public static final int FIELDS_PER_CLASS = 4;
+	public static final int METHODS_PER_CLASS = 8;
+	private static final long SEED = 0x4C6F6F6DL;
+
+	private BenchmarkFixtures() {
+	}
+
+	public static Path createTempDirectory(String name) throws IOException {
+		return Files.createTempDirectory("loom-jmh-" + name);
+	}
+
+	public static void deleteDirectory(Path directory) throws IOException {
+		if (Files.exists(directory)) {
+			Files.walkFileTree(directory, new DeletingFileVisitor());
+		}
+	}
+
+	public static String officialName(int i) {
+		return "c" + i;
+	}
+
+	public static String innerName(int i) {
+		return officialName(i) + "$1";
+	}
+
+	public static String intermediaryName(int i) {
+		return "net/minecraft/class_" + i;
+	}
+
+	public static String namedName(int i) {
+		return "net/minecraft/Class" + i;
+	}
+
+	/**
+	 * Writes a jar containing {@code classCount} outer classes, their inner classes and a few resources.
+	 */
+	public static Path writeJar(Path jar, int classCount) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+			for (int i = 0; i < classCount; i++) {
+				putEntry(out, officialName(i) + ".class", createClass(officialName(i), i));
+				putEntry(out, innerName(i) + ".class", createClass(innerName(i), i));
+			}
+
+			putEntry(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+			putEntry(out, Constants.Forge.ACCESS_TRANSFORMER_PATH, createAccessTransformer(classCount).getBytes(StandardCharsets.UTF_8));
+
+			byte[] data = new byte[64 * 1024];
+			new Random(SEED).nextBytes(data);
+			putEntry(out, "assets/data.bin", data);
+		}
+
+		return jar;
+	}
+
+	/**
+	 * Writes the classes of {@link #writeJar} as loose files into a directory, as produced by a decompiler.
+	 */
+	public static Path writeClassDirectory(Path directory, int classCount) throws IOException {
+		for (int i = 0; i < classCount; i++) {
+			Files.write(directory.resolve(officialName(i) + ".class"), createClass(officialName(i), i));
+			Files.write(directory.resolve(innerName(i) + ".class"), createClass(innerName(i), i));
+		}
+
+		return directory;
+	}
+
+	/**
+	 * Writes tiny v2 mappings with the {@code official, intermediary, named} namespaces.
+	 * Inner classes are deliberately left unmapped.
+	 */
+	public static Path writeTinyMappings(Path path, int classCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+			writer.write("tiny\t2\t0\tofficial\tintermediary\tnamed\n");
+
+			for (int i = 0; i < classCount; i++) {
+				writer.write("c\t" + officialName(i) + "\t" + intermediaryName(i) + "\t" + namedName(i) + "\n");
+
+				for (int j = 0; j < FIELDS_PER_CLASS; j++) {
+					writer.write("\tf\tI\tf" + j + "\tfield_" + i + "_" + j + "\tfield" + j + "\n");
+				}
+
+				for (int j = 0; j < METHODS_PER_CLASS; j++) {
+					writer.write("\tm\t(I)I\tm" + j + "\tmethod_" + i + "_" + j + "\tmethod" + j + "\n");
+					writer.write("\t\tp\t1\t\t\tvalue\n");
+				}
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Writes tsrg v1 mappings from {@code official} to {@code srg} matching {@link #writeTinyMappings}.
+	 */
+	public static Path writeTsrgMappings(Path path, int classCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+			for (int i = 0; i < classCount; i++) {
+				writer.write(officialName(i) + " " + namedName(i) + "\n");
+
+				for (int j = 0; j < FIELDS_PER_CLASS; j++) {
+					writer.write("\tf" + j + " f_" + i + "_" + j + "_\n");
+				}
+
+				for (int j = 0; j < METHODS_PER_CLASS; j++) {
+					writer.write("\tm" + j + " (I)I m_" + i + "_" + j + "_\n");
+				}
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Writes a line map in the format read by {@link net.fabricmc.loom.decompilers.LineNumberRemapper}.
+	 */
+	public static Path writeLineMap(Path path, int classCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+			for (int i = 0; i < classCount; i++) {
+				int maxLine = METHODS_PER_CLASS * 2;
+				writer.write(officialName(i) + "\t" + maxLine + "\t" + (maxLine + 10) + "\n");
+
+				for (int line = 1; line <= maxLine; line++) {
+					writer.write("\t" + line + "\t" + (line + 5) + "\n");
+				}
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Creates an access transformer in the {@code named} namespace that references every generated class.
+	 */
+	public static String createAccessTransformer(int classCount) {
+		StringBuilder builder = new StringBuilder("# Generated access transformer\n");
+
+		for (int i = 0; i < classCount; i++) {
+			String className = namedName(i).replace('/', '.');
+			builder.append("public ").append(className).append('\n');
+			builder.append("public-f ").append(className).append(" f_").append(i).append("_0_\n");
+			builder.append("public ").append(className).append(" m_").append(i).append("_0_(L").append(namedName((i + 1) % classCount)).append(";)V\n");
+		}
+
+		return builder.toString();
+	}
+
+	private static byte[] createClass(String name, int index) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+		writer.visitSource(name + ".java", null);
+
+		for (int j = 0; j < FIELDS_PER_CLASS; j++) {
+			writer.visitField(Opcodes.ACC_PRIVATE, "f" + j, "I", null, null).visitEnd();
+		}
+
+		MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(Opcodes.ALOAD, 0);
+		init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		init.visitInsn(Opcodes.RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+
+		for (int j = 0; j < METHODS_PER_CLASS; j++) {
+			MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + j, "(I)I", null, null);
+			method.visitCode();
+			Label start = new Label();
+			method.visitLabel(start);
+			method.visitLineNumber(j * 2 + 1, start);
+			method.visitVarInsn(Opcodes.ILOAD, 1);
+			method.visitLdcInsn(index * 31 + j);
+			method.visitInsn(Opcodes.IADD);
+			Label end = new Label();
+			method.visitLabel(end);
+			method.visitLineNumber(j * 2 + 2, end);
+			method.visitInsn(Opcodes.IRETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private static void putEntry(ZipOutputStream out, String name, byte[] bytes) throws IOException {
+		out.putNextEntry(new ZipEntry(name));
+		out.write(bytes);
+		out.closeEntry();
+	}
+}
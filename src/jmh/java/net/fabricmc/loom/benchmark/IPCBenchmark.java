@@ -0,0 +1,173 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.util.IOStringConsumer;
+import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
+import net.fabricmc.loom.util.ipc.IPCClient;
+import net.fabricmc.loom.util.ipc.IPCServer;
+
+/**
+ * Sends decompiler style progress messages from many threads to an {@link IPCServer} and waits for them to arrive.
+ *
+ * <p>{@link #lines()} is the previous protocol, a synchronized write per newline terminated message read with a
+ * {@link Scanner}. {@link #batched()} returns the number of received messages, as messages that don't fit
+ * in the client's queue are dropped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IPCBenchmark {
+	private static final int MESSAGES_PER_THREAD = 20000;
+
+	@Param({"4", "16"})
+	public int threads;
+
+	private Path directory;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("ipc");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public long batched() throws Exception {
+		final Path path = directory.resolve("batched.sock");
+		final AtomicLong received = new AtomicLong();
+		final long dropped;
+
+		try (IPCServer server = new IPCServer(path, message -> received.incrementAndGet());
+				IPCClient client = new IPCClient(path)) {
+			send(new ThreadedSimpleProgressLogger(client));
+			client.close();
+			dropped = client.getDroppedMessages();
+			awaitMessages(received, (long) threads * MESSAGES_PER_THREAD - dropped);
+		} finally {
+			Files.deleteIfExists(path);
+		}
+
+		return received.get();
+	}
+
+	@Benchmark
+	public long lines() throws Exception {
+		final Path path = directory.resolve("lines.sock");
+		final AtomicLong received = new AtomicLong();
+
+		try (ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			serverChannel.bind(UnixDomainSocketAddress.of(path));
+
+			Thread reader = new Thread(() -> {
+				try (SocketChannel channel = serverChannel.accept();
+						Scanner scanner = new Scanner(channel, StandardCharsets.UTF_8)) {
+					while (scanner.hasNextLine()) {
+						scanner.nextLine();
+						received.incrementAndGet();
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			reader.start();
+
+			try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(path))) {
+				send(new ThreadedSimpleProgressLogger(message -> {
+					synchronized (channel) {
+						ByteBuffer buf = ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8));
+
+						while (buf.hasRemaining()) {
+							channel.write(buf);
+						}
+					}
+				}));
+			}
+
+			reader.join();
+		} finally {
+			Files.deleteIfExists(path);
+		}
+
+		return received.get();
+	}
+
+	private void send(IOStringConsumer consumer) throws InterruptedException {
+		final List<Thread> senders = new ArrayList<>();
+
+		for (int i = 0; i < threads; i++) {
+			Thread sender = new Thread(() -> {
+				try {
+					for (int j = 0; j < MESSAGES_PER_THREAD; j++) {
+						consumer.accept("Decompiling net/minecraft/class_" + j);
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			sender.start();
+			senders.add(sender);
+		}
+
+		for (Thread sender : senders) {
+			sender.join();
+		}
+	}
+
+	private static void awaitMessages(AtomicLong received, long expected) throws InterruptedException {
+		while (received.get() < expected) {
+			Thread.sleep(0, 100_000);
+		}
+	}
+}
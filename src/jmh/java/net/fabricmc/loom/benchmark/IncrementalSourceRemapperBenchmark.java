@@ -0,0 +1,192 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.mercury.Mercury;
+import org.cadixdev.mercury.remapper.MercuryRemapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.helpers.NOPLogger;
+
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.IncrementalSourceRemapper;
+import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * Remaps the sources jar of a large mod after one of its files was edited, as done by {@code remapSourcesJar}.
+ *
+ * <p>{@link #legacy} is the previous behaviour, unpacking the jar and remapping all of it.
+ * {@link #incremental} starts from the output and index of the previous run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IncrementalSourceRemapperBenchmark {
+	private static final int CLASSES_PER_PACKAGE = 50;
+	private static final int LIBRARY_CLASSES = 100;
+
+	@Param({"1000", "3000"})
+	public int classCount;
+
+	private Path directory;
+	private Path libraryDir;
+	private Path sourcesJar;
+	private Path editedSourcesJar;
+	private Path previousOutput;
+	private Path previousIndex;
+	private Path output;
+	private Path index;
+	private MappingSet mappings;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("incrementalsources");
+		libraryDir = directory.resolve("library");
+		mappings = MappingSet.create();
+
+		// Stands in for Minecraft, the mod only references it
+		for (int i = 0; i < LIBRARY_CLASSES; i++) {
+			Path file = libraryDir.resolve("lib/Lib" + i + ".java");
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, "package lib;\n\npublic class Lib%d {\n}\n".formatted(i));
+			mappings.getOrCreateClassMapping("lib/Lib" + i).setDeobfuscatedName("lib/Renamed" + i);
+		}
+
+		Path sources = directory.resolve("sources");
+
+		for (int i = 0; i < classCount; i++) {
+			writeClass(sources, i, "");
+		}
+
+		sourcesJar = directory.resolve("sources.jar");
+		ZipUtils.pack(sources, sourcesJar);
+
+		// Edit a single file
+		writeClass(sources, classCount / 2, "\tpublic int edited;\n");
+		editedSourcesJar = directory.resolve("edited-sources.jar");
+		ZipUtils.pack(sources, editedSourcesJar);
+
+		previousOutput = directory.resolve("previous-output.jar");
+		previousIndex = directory.resolve("previous-index.json");
+		output = directory.resolve("output.jar");
+		index = directory.resolve("index.json");
+		IncrementalSourceRemapper.remap(sourcesJar, previousOutput, previousIndex, "key", this::rewrite);
+	}
+
+	@Setup(Level.Invocation)
+	public void restorePreviousRun() throws IOException {
+		Files.copy(previousOutput, output, StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(previousIndex, index, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void legacy() throws Exception {
+		Path srcPath = Files.createTempDirectory("fabric-loom-src");
+
+		try {
+			ZipUtils.unpackAll(editedSourcesJar, srcPath);
+			Files.delete(output);
+
+			try (FileSystemUtil.Delegate dstFs = FileSystemUtil.getJarFileSystem(output, true)) {
+				Path dstPath = dstFs.get().getPath("/");
+				createMercury().rewrite(srcPath, dstPath);
+				SourceRemapper.copyNonJavaFiles(srcPath, dstPath, NOPLogger.NOP_LOGGER, editedSourcesJar);
+			}
+		} finally {
+			BenchmarkFixtures.deleteDirectory(srcPath);
+		}
+	}
+
+	@Benchmark
+	public int incremental() throws IOException {
+		return IncrementalSourceRemapper.remap(editedSourcesJar, output, index, "key", this::rewrite);
+	}
+
+	private boolean rewrite(Path inputDir, Path sourceDir, Path outputDir) {
+		Mercury mercury = createMercury();
+
+		if (!inputDir.equals(sourceDir)) {
+			mercury.getSourcePath().add(sourceDir);
+		}
+
+		try {
+			mercury.rewrite(inputDir, outputDir);
+			return true;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Mercury createMercury() {
+		Mercury mercury = new Mercury();
+		mercury.setGracefulClasspathChecks(true);
+		mercury.getProcessors().add(MercuryRemapper.create(mappings.copy()));
+		mercury.getSourcePath().add(libraryDir);
+		return mercury;
+	}
+
+	private void writeClass(Path sources, int i, String extra) throws IOException {
+		String packageName = "test.p" + (i / CLASSES_PER_PACKAGE);
+		// Every class uses a class from the previous package, and a library class
+		int other = (i + classCount - CLASSES_PER_PACKAGE) % classCount;
+		String otherName = "test.p" + (other / CLASSES_PER_PACKAGE) + ".Class" + other;
+
+		Path file = sources.resolve(packageName.replace('.', '/')).resolve("Class" + i + ".java");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, """
+				package %s;
+
+				public class Class%d {
+					private %s other;
+					private lib.Lib%d library;
+				%s
+					public %s getOther() {
+						return other;
+					}
+				}
+				""".formatted(packageName, i, otherName, i % LIBRARY_CLASSES, extra, otherName));
+	}
+}
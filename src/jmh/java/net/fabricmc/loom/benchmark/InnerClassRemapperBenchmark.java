@@ -0,0 +1,166 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import dev.architectury.tinyremapper.IMappingProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.srg.InnerClassRemapper;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Reads the inner class names of a jar and loads the inner class mappings derived from them.
+ *
+ * <p>The {@code ZipFileSystem} and {@code BiMap} variants are the previous implementations, kept as baselines.
+ * The largest class count is about the size of a Minecraft jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InnerClassRemapperBenchmark {
+	@Param({"1000", "5000", "20000"})
+	public int classCount;
+
+	private Path directory;
+	private Path inputJar;
+	private MemoryMappingTree mappingTree;
+	private Set<String> classNames;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("innerclassremapper");
+		inputJar = BenchmarkFixtures.writeJar(directory.resolve("input.jar"), classCount);
+		mappingTree = new MemoryMappingTree();
+		MappingReader.read(BenchmarkFixtures.writeTinyMappings(directory.resolve("mappings.tiny"), classCount), mappingTree);
+		classNames = new HashSet<>();
+
+		for (int i = 0; i < classCount; i++) {
+			classNames.add(BenchmarkFixtures.innerName(i));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public Set<String> readClassNames() {
+		return InnerClassRemapper.readClassNames(inputJar);
+	}
+
+	@Benchmark
+	public Set<String> readClassNamesZipFileSystem() throws IOException {
+		Set<String> set = new HashSet<>();
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(inputJar, false);
+				Stream<Path> walk = Files.walk(fs.getPath("/"))) {
+			walk.forEach(path -> {
+				String name = path.toString().substring(1);
+
+				if (!Files.isDirectory(path) && name.contains("$") && name.endsWith(".class")) {
+					set.add(name.substring(0, name.length() - 6));
+				}
+			});
+		}
+
+		return set;
+	}
+
+	@Benchmark
+	public void of(Blackhole blackhole) throws IOException {
+		IMappingProvider provider = InnerClassRemapper.of(classNames, mappingTree, MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.NAMED.toString());
+		provider.load(new ConsumingAcceptor(blackhole));
+	}
+
+	@Benchmark
+	public void ofBiMap(Blackhole blackhole) {
+		String from = MappingsNamespace.OFFICIAL.toString();
+		String to = MappingsNamespace.NAMED.toString();
+		BiMap<String, String> availableClasses = HashBiMap.create(mappingTree.getClasses().stream()
+				.collect(Collectors.groupingBy(classDef -> classDef.getName(from),
+						Collectors.<MappingTree.ClassMapping, String>reducing(null, classDef -> classDef.getName(to), (first, last) -> last))));
+
+		for (String className : classNames) {
+			if (!availableClasses.containsKey(className)) {
+				String remappedParentName = availableClasses.getOrDefault(className.substring(0, className.indexOf('$')), className.substring(0, className.indexOf('$')));
+				String remappedName = remappedParentName + "$" + className.substring(className.indexOf('$') + 1);
+				blackhole.consume(availableClasses.containsValue(remappedName) ? remappedName + "_UNBREAK" : remappedName);
+			}
+		}
+	}
+
+	private record ConsumingAcceptor(Blackhole blackhole) implements IMappingProvider.MappingAcceptor {
+		@Override
+		public void acceptClass(String from, String to) {
+			blackhole.consume(to);
+		}
+
+		@Override
+		public void acceptMethod(IMappingProvider.Member from, String to) {
+			blackhole.consume(to);
+		}
+
+		@Override
+		public void acceptMethodArg(IMappingProvider.Member from, int lvIndex, String to) {
+			blackhole.consume(to);
+		}
+
+		@Override
+		public void acceptMethodVar(IMappingProvider.Member from, int lvIndex, int startOpIdx, int asmIndex, String to) {
+			blackhole.consume(to);
+		}
+
+		@Override
+		public void acceptField(IMappingProvider.Member from, String to) {
+			blackhole.consume(to);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor.InjectedInterface;
+import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjector;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * Injects interfaces into the classes of a jar.
+ *
+ * <p>{@link #legacy} is the previous implementation, rewriting each class in place through {@link ZipUtils#transform(Path, Map)}.
+ * {@link #inject} starts without a cache, {@link #injectChanged} starts from the cache of a previous run
+ * where one mod injected different interfaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InterfaceInjectionBenchmark {
+	private static final int CLASS_COUNT = 5000;
+	private static final int INTERFACES_PER_CLASS = 2;
+
+	@Param({"1000", "5000"})
+	public int injectedInterfaces;
+
+	private Path directory;
+	private Path inputJar;
+	private Path workJar;
+	private Path previousCache;
+	private Path cacheFile;
+	private Map<String, List<InjectedInterface>> injections;
+	private Map<String, List<InjectedInterface>> changedInjections;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("interfaceinjection");
+		inputJar = BenchmarkFixtures.writeJar(directory.resolve("input.jar"), CLASS_COUNT);
+		workJar = directory.resolve("work.jar");
+		previousCache = directory.resolve("previous.cache");
+		cacheFile = directory.resolve("work.cache");
+
+		injections = createInjections();
+		changedInjections = new HashMap<>(createInjections());
+
+		// Another version of the mod injecting into the first class changes its interfaces
+		String changedClass = BenchmarkFixtures.officialName(0);
+		changedInjections.put(changedClass + ".class", List.of(new InjectedInterface("modid", changedClass, "net/minecraft/ChangedIface")));
+
+		Files.copy(inputJar, workJar);
+		InterfaceInjector.inject(workJar, injections, previousCache);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyInput() throws IOException {
+		Files.copy(inputJar, workJar, StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(previousCache, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public int legacy() throws IOException {
+		Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms = new HashMap<>();
+
+		for (Map.Entry<String, List<InjectedInterface>> entry : injections.entrySet()) {
+			List<String> interfaces = entry.getValue().stream().map(InjectedInterface::ifaceName).toList();
+
+			transforms.put(entry.getKey(), (ZipUtils.AsmClassOperator) classVisitor -> new ClassVisitor(Constants.ASM_VERSION, classVisitor) {
+				@Override
+				public void visit(int version, int access, String name, String signature, String superName, String[] existing) {
+					List<String> merged = new ArrayList<>(List.of(existing));
+					merged.addAll(interfaces);
+					super.visit(version, access, name, signature, superName, merged.toArray(new String[0]));
+				}
+			});
+		}
+
+		return ZipUtils.transform(workJar, transforms);
+	}
+
+	@Benchmark
+	public int inject() throws IOException {
+		Files.delete(cacheFile);
+		return InterfaceInjector.inject(workJar, injections, cacheFile);
+	}
+
+	@Benchmark
+	public int injectChanged() throws IOException {
+		return InterfaceInjector.inject(workJar, changedInjections, cacheFile);
+	}
+
+	private Map<String, List<InjectedInterface>> createInjections() {
+		Map<String, List<InjectedInterface>> injections = new HashMap<>();
+
+		for (int i = 0; i < injectedInterfaces; i++) {
+			String className = BenchmarkFixtures.officialName(i / INTERFACES_PER_CLASS);
+			injections.computeIfAbsent(className + ".class", name -> new ArrayList<>())
+					.add(new InjectedInterface("modid", className, "net/minecraft/Iface" + i));
+		}
+
+		return injections;
+	}
+}
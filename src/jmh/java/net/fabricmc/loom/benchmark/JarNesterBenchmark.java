@@ -0,0 +1,150 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.helpers.NOPLogger;
+
+import net.fabricmc.loom.build.nesting.JarNester;
+import net.fabricmc.loom.util.ModPlatform;
+import net.fabricmc.loom.util.Pair;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * Nests a few large library jars into a mod jar with {@link JarNester}.
+ *
+ * <p>{@link #legacy} is the previous implementation, which read every nested jar into memory and rewrote the mod jar
+ * once to add them and once more to patch {@code fabric.mod.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JarNesterBenchmark {
+	private static final int LIBRARY_COUNT = 4;
+	private static final int CLASS_COUNT = 1000;
+
+	@Param({"8", "64"})
+	public int libraryMegabytes;
+
+	private Path directory;
+	private Path inputJar;
+	private Path workJar;
+	private List<File> libraries;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("jarnester");
+		inputJar = BenchmarkFixtures.writeJar(directory.resolve("input.jar"), CLASS_COUNT);
+		ZipUtils.add(inputJar, "fabric.mod.json", modJson("mod"));
+		workJar = directory.resolve("work.jar");
+		libraries = new ArrayList<>(LIBRARY_COUNT);
+
+		Random random = new Random(42);
+		byte[] payload = new byte[libraryMegabytes * 1024 * 1024];
+
+		for (int i = 0; i < LIBRARY_COUNT; i++) {
+			Path library = directory.resolve("library" + i + ".jar");
+			random.nextBytes(payload);
+
+			try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(library))) {
+				out.putNextEntry(new ZipEntry("fabric.mod.json"));
+				out.write(modJson("library" + i).getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+				out.putNextEntry(new ZipEntry("payload.bin"));
+				out.write(payload);
+				out.closeEntry();
+			}
+
+			libraries.add(library.toFile());
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void copyInput() throws IOException {
+		Files.copy(inputJar, workJar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void legacy() throws IOException {
+		List<Pair<String, byte[]>> files = new ArrayList<>();
+
+		for (File library : libraries) {
+			files.add(new Pair<>("META-INF/jars/" + library.getName(), Files.readAllBytes(library.toPath())));
+		}
+
+		ZipUtils.add(workJar, files);
+		ZipUtils.transformJson(JsonObject.class, workJar, Map.of("fabric.mod.json", json -> {
+			JsonArray nestedJars = new JsonArray();
+
+			for (File library : libraries) {
+				JsonObject jsonObject = new JsonObject();
+				jsonObject.addProperty("file", "META-INF/jars/" + library.getName());
+				nestedJars.add(jsonObject);
+			}
+
+			json.add("jars", nestedJars);
+			return json;
+		}));
+	}
+
+	@Benchmark
+	public void streaming() {
+		JarNester.nestJars(libraries, List.of(), workJar.toFile(), ModPlatform.FABRIC, NOPLogger.NOP_LOGGER);
+	}
+
+	private static String modJson(String id) {
+		return "{\"schemaVersion\": 1, \"id\": \"" + id + "\", \"version\": \"1.0.0\"}";
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import dev.architectury.tinyremapper.OutputConsumerPath;
+import dev.architectury.tinyremapper.TinyRemapper;
+import kotlin.KotlinVersion;
+import kotlin.Unit;
+import kotlinx.metadata.jvm.KotlinClassMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
+import net.fabricmc.loom.util.kotlin.KotlinMetadataTinyRemapperExtension;
+import net.fabricmc.loom.util.kotlin.KotlinPluginUtils;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
+import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
+
+/**
+ * Remaps several jars of Kotlin classes one after the other, as done when remapping Kotlin mods.
+ *
+ * <p>{@link #freshClassloader} creates a {@link KotlinRemapperClassloader} for every jar as was done before,
+ * {@link #sharedClassloader} uses the one shared by {@link KotlinRemapperClassloaderService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KotlinRemapperClassloaderBenchmark {
+	private static final int CLASSES_PER_JAR = 50;
+
+	@Param({"4", "16"})
+	public int jarCount;
+
+	private Path directory;
+	private List<Path> inputJars;
+	private Path outputJar;
+	private KotlinClasspathService kotlinClasspath;
+	private ScopedSharedServiceManager serviceManager;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, URISyntaxException {
+		directory = BenchmarkFixtures.createTempDirectory("kotlinremapper");
+		outputJar = directory.resolve("output.jar");
+
+		final URL stdlib = Unit.class.getProtectionDomain().getCodeSource().getLocation();
+		final URL metadata = KotlinClassMetadata.class.getProtectionDomain().getCodeSource().getLocation();
+		kotlinClasspath = new KotlinClasspathService(Set.of(stdlib, metadata), KotlinVersion.CURRENT.toString(), KotlinPluginUtils.getKotlinMetadataVersion());
+		inputJars = writeKotlinJars(Path.of(stdlib.toURI()));
+		serviceManager = new ScopedSharedServiceManager();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		serviceManager.close();
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void freshClassloader() throws IOException {
+		for (Path inputJar : inputJars) {
+			try (KotlinRemapperClassloader classloader = KotlinRemapperClassloader.create(kotlinClasspath)) {
+				remap(inputJar, classloader.getTinyRemapperExtension());
+			}
+		}
+	}
+
+	@Benchmark
+	public void sharedClassloader() throws IOException {
+		for (Path inputJar : inputJars) {
+			remap(inputJar, KotlinRemapperClassloaderService.getOrCreate(serviceManager, kotlinClasspath).getTinyRemapperExtension());
+		}
+	}
+
+	private void remap(Path inputJar, KotlinMetadataTinyRemapperExtension extension) throws IOException {
+		Files.deleteIfExists(outputJar);
+		TinyRemapper remapper = TinyRemapper.newRemapper()
+				.extension(extension)
+				.build();
+
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputJar).build()) {
+			remapper.readInputs(inputJar);
+			remapper.apply(outputConsumer);
+		} finally {
+			remapper.finish();
+		}
+	}
+
+	// Copies classes of the Kotlin standard library, which all carry Kotlin metadata, into several jars
+	private List<Path> writeKotlinJars(Path stdlib) throws IOException {
+		final List<Path> jars = new ArrayList<>();
+
+		try (ZipFile input = new ZipFile(stdlib.toFile())) {
+			final Enumeration<? extends ZipEntry> entries = input.entries();
+
+			for (int i = 0; i < jarCount; i++) {
+				final Path jar = directory.resolve("kotlin-" + i + ".jar");
+				int classes = 0;
+
+				try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+					while (classes < CLASSES_PER_JAR && entries.hasMoreElements()) {
+						final ZipEntry entry = entries.nextElement();
+
+						if (!entry.getName().endsWith(".class") || entry.getName().startsWith("META-INF/")) {
+							continue;
+						}
+
+						try (InputStream classInput = input.getInputStream(entry)) {
+							output.putNextEntry(new ZipEntry(entry.getName()));
+							output.write(classInput.readAllBytes());
+							output.closeEntry();
+						}
+						classes++;
+					}
+				}
+
+				jars.add(jar);
+			}
+		}
+
+		return jars;
+	}
+}
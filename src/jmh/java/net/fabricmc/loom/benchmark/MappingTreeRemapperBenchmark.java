@@ -0,0 +1,180 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import dev.architectury.tinyremapper.OutputConsumerPath;
+import dev.architectury.tinyremapper.TinyRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerRemapper;
+import net.fabricmc.accesswidener.TransitiveOnlyFilter;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.MappingTreeRemapper;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Reads the transitive access wideners of a modpack, remapping them from {@code intermediary} to {@code named}.
+ *
+ * <p>{@link #tinyRemapper} is how the jar processors used to do it, building a {@link TinyRemapper} with the Minecraft jar
+ * on its classpath for each invocation. {@link #mappingTreeRemapper} builds a {@link MappingTreeRemapper} instead, and
+ * {@link #sharedMappingTreeRemapper} reuses one, as it is shared between the processor invocations of a build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappingTreeRemapperBenchmark {
+	private static final int CLASS_COUNT = 5000;
+	private static final int ENTRIES_PER_MOD = 60;
+
+	@Param({"50", "250"})
+	public int modCount;
+
+	private Path directory;
+	private Path intermediaryJar;
+	private MemoryMappingTree mappingTree;
+	private List<byte[]> accessWideners;
+	private MappingTreeRemapper sharedRemapper;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("mappingtreeremapper");
+		Path officialJar = BenchmarkFixtures.writeJar(directory.resolve("official.jar"), CLASS_COUNT);
+		intermediaryJar = directory.resolve("intermediary.jar");
+		mappingTree = new MemoryMappingTree();
+		MappingReader.read(BenchmarkFixtures.writeTinyMappings(directory.resolve("mappings.tiny"), CLASS_COUNT), mappingTree);
+
+		TinyRemapper remapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperHelper.create(mappingTree, MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.INTERMEDIARY.toString(), true))
+				.build();
+
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(intermediaryJar).build()) {
+			remapper.readInputs(officialJar);
+			remapper.apply(outputConsumer);
+		} finally {
+			remapper.finish();
+		}
+
+		accessWideners = new ArrayList<>(modCount);
+		Random random = new Random(modCount);
+
+		for (int i = 0; i < modCount; i++) {
+			accessWideners.add(createAccessWidener(random));
+		}
+
+		sharedRemapper = createMappingTreeRemapper();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public AccessWidener tinyRemapper() throws IOException {
+		TinyRemapper tinyRemapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperHelper.create(mappingTree, MappingsNamespace.INTERMEDIARY.toString(), MappingsNamespace.NAMED.toString(), true))
+				.threads(Runtime.getRuntime().availableProcessors())
+				.build();
+
+		try {
+			tinyRemapper.readClassPath(intermediaryJar);
+			return readAccessWideners(tinyRemapper.getEnvironment().getRemapper());
+		} finally {
+			tinyRemapper.finish();
+		}
+	}
+
+	@Benchmark
+	public AccessWidener mappingTreeRemapper() {
+		return readAccessWideners(createMappingTreeRemapper());
+	}
+
+	@Benchmark
+	public AccessWidener sharedMappingTreeRemapper() {
+		return readAccessWideners(sharedRemapper);
+	}
+
+	private MappingTreeRemapper createMappingTreeRemapper() {
+		return MappingTreeRemapper.create(
+				mappingTree,
+				MappingsNamespace.INTERMEDIARY.toString(),
+				MappingsNamespace.NAMED.toString(),
+				() -> MappingTreeRemapper.readHierarchy(List.of(intermediaryJar))
+		);
+	}
+
+	private AccessWidener readAccessWideners(Remapper remapper) {
+		AccessWidener accessWidener = new AccessWidener();
+
+		for (byte[] data : accessWideners) {
+			var visitor = new AccessWidenerRemapper(new TransitiveOnlyFilter(accessWidener), remapper, MappingsNamespace.INTERMEDIARY.toString(), MappingsNamespace.NAMED.toString());
+			new AccessWidenerReader(visitor).read(data);
+		}
+
+		return accessWidener;
+	}
+
+	private static byte[] createAccessWidener(Random random) {
+		StringBuilder builder = new StringBuilder("accessWidener\tv2\tintermediary\n");
+
+		for (int i = 0; i < ENTRIES_PER_MOD; i++) {
+			int index = random.nextInt(CLASS_COUNT);
+			String owner = BenchmarkFixtures.intermediaryName(index);
+			String prefix = random.nextBoolean() ? "transitive-" : "";
+
+			switch (i % 3) {
+			case 0 -> builder.append(prefix).append("accessible\tclass\t").append(owner).append('\n');
+			case 1 -> builder.append(prefix).append("accessible\tmethod\t").append(owner).append("\tmethod_").append(index).append('_')
+					.append(random.nextInt(BenchmarkFixtures.METHODS_PER_CLASS)).append("\t(I)I\n");
+			default -> builder.append(prefix).append("mutable\tfield\t").append(owner).append("\tfield_").append(index).append('_')
+					.append(random.nextInt(BenchmarkFixtures.FIELDS_PER_CLASS)).append("\tI\n");
+			}
+		}
+
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
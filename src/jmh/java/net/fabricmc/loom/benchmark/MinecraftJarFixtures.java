@@ -0,0 +1,89 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.download.Download;
+
+/**
+ * The real Minecraft client and server jars used by {@code MinecraftJarSplitterTest}, for the benchmarks that
+ * need the shape of an actual Minecraft jar rather than a synthetic one.
+ *
+ * <p>Unlike {@link BenchmarkFixtures} these are downloaded once, and kept in {@code build/jmh-fixtures}.
+ */
+public final class MinecraftJarFixtures {
+	private static final String CLIENT_JAR_URL = "https://launcher.mojang.com/v1/objects/7e46fb47609401970e2818989fa584fd467cd036/client.jar";
+	private static final String CLIENT_JAR_SHA1 = "7e46fb47609401970e2818989fa584fd467cd036";
+	private static final String SERVER_BUNDLE_JAR_URL = "https://launcher.mojang.com/v1/objects/125e5adf40c659fd3bce3e66e67a16bb49ecc1b9/server.jar";
+	private static final String SERVER_BUNDLE_JAR_SHA1 = "125e5adf40c659fd3bce3e66e67a16bb49ecc1b9";
+
+	private static final Path DIRECTORY = Paths.get("build", "jmh-fixtures");
+
+	private MinecraftJarFixtures() {
+	}
+
+	public static Path clientJar() throws IOException {
+		return download(CLIENT_JAR_URL, CLIENT_JAR_SHA1, "client.jar");
+	}
+
+	/**
+	 * @return the server jar, extracted from the server bundle
+	 */
+	public static Path serverJar() throws IOException {
+		Path serverJar = DIRECTORY.resolve("server.jar");
+
+		if (Files.notExists(serverJar)) {
+			Path bundle = download(SERVER_BUNDLE_JAR_URL, SERVER_BUNDLE_JAR_SHA1, "server_bundle.jar");
+			BundleMetadata metadata = BundleMetadata.fromJar(bundle);
+
+			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(bundle)) {
+				Files.copy(fs.getPath(metadata.versions().get(0).path()), serverJar, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		return serverJar;
+	}
+
+	private static Path download(String url, String sha1, String name) throws IOException {
+		Path path = DIRECTORY.resolve(name);
+		Files.createDirectories(DIRECTORY);
+
+		try {
+			Download.create(url).sha1(sha1).downloadPath(path);
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+
+		return path;
+	}
+}
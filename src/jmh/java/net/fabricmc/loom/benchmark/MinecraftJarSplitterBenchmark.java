@@ -0,0 +1,129 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarSplitter;
+import net.fabricmc.loom.util.FileSystemUtil;
+
+/**
+ * Splits a real client and server jar pair into client only and common jars.
+ *
+ * <p>{@link #zipFileSystem()} is the previous implementation, which copied every entry through zip file systems.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MinecraftJarSplitterBenchmark {
+	private Path directory;
+	private Path clientJar;
+	private Path serverJar;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("splitter");
+		clientJar = MinecraftJarFixtures.clientJar();
+		serverJar = MinecraftJarFixtures.serverJar();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void rawCopy() throws Exception {
+		try (MinecraftJarSplitter splitter = new MinecraftJarSplitter(clientJar, serverJar)) {
+			splitter.sharedEntry("version.json");
+			splitter.split(directory.resolve("client-only.jar"), directory.resolve("common.jar"));
+		}
+	}
+
+	@Benchmark
+	public void zipFileSystem() throws IOException {
+		Set<String> clientEntries = getJarEntries(clientJar);
+		Set<String> serverEntries = getJarEntries(serverJar);
+
+		Set<String> commonEntries = new HashSet<>(clientEntries);
+		commonEntries.retainAll(serverEntries);
+		commonEntries.add("version.json");
+
+		Set<String> clientOnlyEntries = new HashSet<>(clientEntries);
+		clientOnlyEntries.removeAll(serverEntries);
+		clientOnlyEntries.add("version.json");
+
+		copyEntriesToJar(commonEntries, serverJar, directory.resolve("common-zipfs.jar"));
+		copyEntriesToJar(clientOnlyEntries, clientJar, directory.resolve("client-only-zipfs.jar"));
+	}
+
+	private static Set<String> getJarEntries(Path input) throws IOException {
+		Set<String> entries = new HashSet<>();
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
+				Stream<Path> walk = Files.walk(fs.getPath("/"))) {
+			walk.filter(Files::isRegularFile)
+					.map(path -> fs.getPath("/").relativize(path).toString())
+					.filter(path -> !path.startsWith("META-INF/"))
+					.forEach(entries::add);
+		}
+
+		return entries;
+	}
+
+	private static void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar) throws IOException {
+		Files.deleteIfExists(outputJar);
+
+		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
+				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
+			for (String entry : entries) {
+				Path outputPath = outputFs.getPath(entry);
+
+				if (outputPath.getParent() != null) {
+					Files.createDirectories(outputPath.getParent());
+				}
+
+				Files.copy(inputFs.getPath(entry), outputPath, StandardCopyOption.COPY_ATTRIBUTES);
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import dev.architectury.loom.metadata.ArchitecturyCommonJson;
+import dev.architectury.loom.metadata.ModsToml;
+import dev.architectury.loom.metadata.QuiltModJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.util.ModPlatform;
+import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
+import net.fabricmc.loom.util.fmj.FabricModJsonSource;
+import net.fabricmc.loom.util.fmj.ModMetadataProbe;
+
+/**
+ * Classifies a directory of mod jars the way dependency processing does: checks whether each jar is a mod and reads its metadata.
+ *
+ * <p>{@link #legacy} mounts a zip file system per lookup, as before {@link ModMetadataProbe}. {@link #probe} opens each
+ * jar once, and {@link #probeCached} is a repeated lookup of the same jars, for example from another project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModMetadataProbeBenchmark {
+	private static final int CLASSES_PER_JAR = 50;
+
+	@Param({"100", "500"})
+	public int jarCount;
+
+	private Path directory;
+	private List<Path> jars;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("modmetadataprobe");
+		jars = new ArrayList<>(jarCount);
+
+		for (int i = 0; i < jarCount; i++) {
+			Path jar = BenchmarkFixtures.writeJar(directory.resolve("mod" + i + ".jar"), CLASSES_PER_JAR);
+
+			// A mix of Fabric, Quilt and Forge mods, and plain libraries
+			switch (i % 4) {
+			case 0 -> ZipUtils.add(jar, "fabric.mod.json", "{\"schemaVersion\": 1, \"id\": \"mod" + i + "\", \"version\": \"1.0.0\"}");
+			case 1 -> ZipUtils.add(jar, QuiltModJson.FILE_NAME, "{\"schema_version\": 1, \"quilt_loader\": {\"id\": \"mod" + i + "\", \"version\": \"1.0.0\"}}");
+			case 2 -> ZipUtils.add(jar, ModsToml.FILE_PATH, "modLoader=\"javafml\"\nloaderVersion=\"[40,)\"\nlicense=\"MIT\"\n[[mods]]\nmodId=\"mod" + i + "\"\nversion=\"1.0.0\"\n");
+			default -> { }
+			}
+
+			jars.add(jar);
+		}
+
+		ModMetadataProbe.clearCache();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public int legacy() throws IOException {
+		int mods = 0;
+
+		for (Path jar : jars) {
+			ZipUtils.contains(jar, "fabric.mod.json");
+
+			if (legacyRead(jar) != null) {
+				mods++;
+			}
+		}
+
+		return mods;
+	}
+
+	@Benchmark
+	public int probe() {
+		ModMetadataProbe.clearCache();
+		return classify();
+	}
+
+	@Benchmark
+	public int probeCached() {
+		return classify();
+	}
+
+	private int classify() {
+		int mods = 0;
+
+		for (Path jar : jars) {
+			FabricModJsonFactory.isModJar(jar, ModPlatform.FABRIC);
+
+			if (FabricModJsonFactory.createFromZipNullable(jar) != null) {
+				mods++;
+			}
+		}
+
+		return mods;
+	}
+
+	// FabricModJsonFactory.createFromZipNullable and ModMetadataFiles.fromJar as they were before the probe
+	private static Object legacyRead(Path jar) throws IOException {
+		JsonObject jsonObject = ZipUtils.unpackGsonNullable(jar, "fabric.mod.json", JsonObject.class);
+
+		if (jsonObject != null) {
+			return FabricModJsonFactory.create(jsonObject, new FabricModJsonSource.ZipSource(jar));
+		}
+
+		byte[] bytes = ZipUtils.unpackNullable(jar, QuiltModJson.FILE_NAME);
+
+		if (bytes != null) {
+			return QuiltModJson.of(bytes);
+		}
+
+		bytes = ZipUtils.unpackNullable(jar, ArchitecturyCommonJson.FILE_NAME);
+
+		if (bytes != null) {
+			return ArchitecturyCommonJson.of(bytes);
+		}
+
+		bytes = ZipUtils.unpackNullable(jar, ModsToml.FILE_PATH);
+
+		if (bytes != null) {
+			return ModsToml.of(bytes);
+		}
+
+		return null;
+	}
+}
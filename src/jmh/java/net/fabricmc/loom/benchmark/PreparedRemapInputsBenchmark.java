@@ -0,0 +1,130 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dev.architectury.tinyremapper.TinyRemapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.task.service.PreparedRemapInputs;
+
+/**
+ * Reads the jars of a multi-project build into one tiny remapper, as the prepare remap tasks do, where only one of the
+ * projects changed since the previous build.
+ *
+ * <p>{@link #readInputs} reads every jar directly, {@link #readPreparedInputs} goes through {@link PreparedRemapInputs}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PreparedRemapInputsBenchmark {
+	private static final int CLASSES_PER_PROJECT = 500;
+
+	@Param({"10", "50"})
+	public int projectCount;
+
+	private Path directory;
+	private List<Path> inputJars;
+	private List<Path> cacheDirs;
+	private Path[] changedVariants;
+	private int build = 0;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("preparedremapinputs");
+		inputJars = new ArrayList<>(projectCount);
+		cacheDirs = new ArrayList<>(projectCount);
+
+		for (int i = 0; i < projectCount; i++) {
+			inputJars.add(BenchmarkFixtures.writeJar(directory.resolve("project" + i + ".jar"), CLASSES_PER_PROJECT));
+			cacheDirs.add(directory.resolve("cache/project" + i));
+		}
+
+		// Two different builds of the changed project, so that its hash changes on every build
+		changedVariants = new Path[] {
+				BenchmarkFixtures.writeJar(directory.resolve("changed0.jar"), CLASSES_PER_PROJECT),
+				BenchmarkFixtures.writeJar(directory.resolve("changed1.jar"), CLASSES_PER_PROJECT + 1)
+		};
+
+		// Two previous builds, after which the unchanged projects have a prepared copy
+		for (int build = 0; build < 2; build++) {
+			for (int i = 0; i < projectCount; i++) {
+				PreparedRemapInputs.getInput(cacheDirs.get(i), inputJars.get(i));
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void changeProject() throws IOException {
+		Files.copy(changedVariants[build++ % 2], inputJars.get(0), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void readInputs() {
+		TinyRemapper remapper = TinyRemapper.newRemapper().threads(Runtime.getRuntime().availableProcessors()).build();
+
+		try {
+			for (Path inputJar : inputJars) {
+				remapper.readInputs(remapper.createInputTag(), inputJar);
+			}
+		} finally {
+			remapper.finish();
+		}
+	}
+
+	@Benchmark
+	public void readPreparedInputs() {
+		TinyRemapper remapper = TinyRemapper.newRemapper().threads(Runtime.getRuntime().availableProcessors()).build();
+
+		try {
+			for (int i = 0; i < projectCount; i++) {
+				remapper.readInputs(remapper.createInputTag(), PreparedRemapInputs.getInput(cacheDirs.get(i), inputJars.get(i)));
+			}
+		} finally {
+			remapper.finish();
+		}
+	}
+}
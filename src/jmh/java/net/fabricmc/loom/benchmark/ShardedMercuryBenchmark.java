@@ -0,0 +1,135 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.mercury.Mercury;
+import org.cadixdev.mercury.remapper.MercuryRemapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.util.ShardedMercury;
+
+/**
+ * Remaps a generated source tree, as done by {@code migrateMappings}.
+ *
+ * <p>{@link #singleInstance()} is the previous behaviour, one Mercury instance over the whole tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedMercuryBenchmark {
+	private static final int CLASSES_PER_PACKAGE = 50;
+
+	@Param({"2000", "5000"})
+	public int classCount;
+
+	private Path directory;
+	private Path input;
+	private Path output;
+	private MappingSet mappings;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("mercury");
+		input = directory.resolve("input");
+		output = directory.resolve("output");
+		mappings = MappingSet.create();
+
+		for (int i = 0; i < classCount; i++) {
+			String packageName = packageName(i);
+			// Every class uses a class from the previous package, and every other class is renamed
+			int other = (i + classCount - CLASSES_PER_PACKAGE) % classCount;
+			String otherName = packageName(other) + ".Class" + other;
+
+			Path file = input.resolve(packageName.replace('.', '/')).resolve("Class" + i + ".java");
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, """
+					package %s;
+
+					public class Class%d {
+						private %s other;
+
+						public %s getOther() {
+							return other;
+						}
+
+						public void setOther(%s other) {
+							this.other = other;
+						}
+					}
+					""".formatted(packageName, i, otherName, otherName, otherName));
+
+			if (i % 2 == 0) {
+				String name = packageName.replace('.', '/') + "/Class" + i;
+				mappings.getOrCreateClassMapping(name).setDeobfuscatedName(name.replace("Class", "Renamed"));
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void deleteOutput() throws IOException {
+		BenchmarkFixtures.deleteDirectory(output);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void singleInstance() throws Exception {
+		createMercury().rewrite(input, output);
+	}
+
+	@Benchmark
+	public void sharded() throws Exception {
+		new ShardedMercury(this::createMercury, Runtime.getRuntime().availableProcessors()).rewrite(input, output);
+	}
+
+	private Mercury createMercury() {
+		Mercury mercury = new Mercury();
+		mercury.setGracefulClasspathChecks(true);
+		mercury.getProcessors().add(MercuryRemapper.create(mappings.copy()));
+		return mercury;
+	}
+
+	private static String packageName(int i) {
+		return "test.p" + (i / CLASSES_PER_PACKAGE);
+	}
+}
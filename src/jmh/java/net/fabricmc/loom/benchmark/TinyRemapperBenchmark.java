@@ -0,0 +1,101 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import dev.architectury.tinyremapper.OutputConsumerPath;
+import dev.architectury.tinyremapper.TinyRemapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Remaps a jar from {@code official} to {@code named} with a mapping provider from {@link TinyRemapperHelper#create}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TinyRemapperBenchmark {
+	@Param({"1000", "5000"})
+	public int classCount;
+
+	private Path directory;
+	private Path inputJar;
+	private Path outputJar;
+	private MemoryMappingTree mappingTree;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = BenchmarkFixtures.createTempDirectory("tinyremapper");
+		inputJar = BenchmarkFixtures.writeJar(directory.resolve("input.jar"), classCount);
+		outputJar = directory.resolve("output.jar");
+		mappingTree = new MemoryMappingTree();
+		MappingReader.read(BenchmarkFixtures.writeTinyMappings(directory.resolve("mappings.tiny"), classCount), mappingTree);
+	}
+
+	@Setup(Level.Invocation)
+	public void deleteOutput() throws IOException {
+		Files.deleteIfExists(outputJar);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public void remap() throws IOException {
+		TinyRemapper remapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperHelper.create(mappingTree, MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.NAMED.toString(), true))
+				.threads(Runtime.getRuntime().availableProcessors())
+				.renameInvalidLocals(true)
+				.rebuildSourceFilenames(true)
+				.build();
+
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputJar).build()) {
+			outputConsumer.addNonClassFiles(inputJar);
+			remapper.readInputs(inputJar);
+			remapper.apply(outputConsumer);
+		} finally {
+			remapper.finish();
+		}
+	}
+}
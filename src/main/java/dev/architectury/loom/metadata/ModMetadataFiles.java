@@ -14,7 +14,7 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.SourceSet;
 import org.jetbrains.annotations.Nullable;
 
-import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.fmj.ModMetadataProbe;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 
 /**
@@ -46,8 +46,18 @@ public final class ModMetadataFiles {
 	 * @return the mod metadata file, or {@code null} if not found
 	 */
 	public static @Nullable ModMetadataFile fromJar(Path jar) throws IOException {
+		return fromProbe(ModMetadataProbe.probe(jar));
+	}
+
+	/**
+	 * Reads the mod metadata file from the files found by {@link ModMetadataProbe}.
+	 *
+	 * @param probe the metadata files of a jar
+	 * @return the mod metadata file, or {@code null} if not found
+	 */
+	public static @Nullable ModMetadataFile fromProbe(ModMetadataProbe.Result probe) {
 		for (final String filePath : SINGLE_FILE_METADATA_TYPES.keySet()) {
-			final byte @Nullable [] bytes = ZipUtils.unpackNullable(jar, filePath);
+			final byte @Nullable [] bytes = probe.read(filePath);
 
 			if (bytes != null) {
 				return SINGLE_FILE_METADATA_TYPES.get(filePath).apply(bytes);
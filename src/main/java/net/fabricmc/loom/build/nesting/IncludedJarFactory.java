@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -40,7 +41,6 @@ import java.util.function.Supplier;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
 import com.google.gson.JsonObject;
-import org.apache.commons.io.FileUtils;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
@@ -60,7 +60,6 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.task.RemapTaskConfiguration;
 import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 
 public final class IncludedJarFactory {
@@ -174,32 +173,18 @@ public final class IncludedJarFactory {
 		}
 
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
-		File tempDir = new File(extension.getFiles().getUserCache(), "temp/modprocessing");
-
-		if (!tempDir.exists()) {
-			tempDir.mkdirs();
-		}
-
-		File tempFile = new File(tempDir, input.getName());
-
-		if (tempFile.exists()) {
-			tempFile.delete();
-		}
+		Path cacheDirectory = extension.getFiles().getUserCache().toPath().resolve("nestable-jars");
 
 		try {
-			FileUtils.copyFile(input, tempFile);
-
 			// TODO generate Quilt qmjs natively
-			ZipUtils.add(tempFile.toPath(), "fabric.mod.json", generateModForDependency(metadata).getBytes(StandardCharsets.UTF_8));
+			return NestableJarCache.getOrCreate(cacheDirectory, input.toPath(), metadata, generateModForDependency(metadata)).toFile();
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to add dummy mod while including %s".formatted(input), e);
 		}
-
-		return tempFile;
 	}
 
 	// Generates a barebones mod for a dependency
-	private static String generateModForDependency(Metadata metadata) {
+	static String generateModForDependency(Metadata metadata) {
 		String modId = (metadata.group() + "_" + metadata.name() + metadata.classifier())
 				.replaceAll("\\.", "_")
 				.toLowerCase(Locale.ENGLISH);
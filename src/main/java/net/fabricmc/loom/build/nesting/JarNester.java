@@ -26,27 +26,40 @@ package net.fabricmc.loom.build.nesting;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import org.gradle.api.UncheckedIOException;
+import dev.architectury.loom.metadata.ModsToml;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.build.nesting.IncludedJarFactory.NestedFile;
 import net.fabricmc.loom.util.ModPlatform;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 
+/**
+ * Nests jars into a mod jar, rewriting it in a single pass.
+ *
+ * <p>The entries of the mod jar are copied without being recompressed, its metadata is patched on the way, and the nested
+ * jars are streamed in as stored entries. Nested jars are already compressed, and are never read into memory as a whole.
+ */
 public class JarNester {
+	private static final String NESTED_JARS_DIRECTORY = "META-INF/jars/";
+	private static final String FORGE_JAR_JAR_METADATA = "META-INF/jarjar/metadata.json";
+
 	public static void nestJars(Collection<File> jars, List<NestedFile> forgeJars, File modJar, ModPlatform platform, Logger logger) {
 		if (jars.isEmpty()) {
 			logger.debug("Nothing to nest into " + modJar.getName());
@@ -56,99 +69,147 @@ public class JarNester {
 		Preconditions.checkArgument(FabricModJsonFactory.isModJar(modJar, platform), "Cannot nest jars into none mod jar " + modJar.getName());
 
 		try {
-			ZipUtils.add(modJar.toPath(), jars.stream().map(file -> {
-				try {
-					return new Pair<>("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
-				} catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			}).collect(Collectors.toList()));
+			nestJars(jars, forgeJars, modJar.toPath(), platform, logger);
+		} catch (IOException e) {
+			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		}
+	}
 
-			if (platform == ModPlatform.FORGE) {
-				handleForgeJarJar(forgeJars, modJar, logger);
-				return;
-			}
+	private static void nestJars(Collection<File> jars, List<NestedFile> forgeJars, Path modJar, ModPlatform platform, Logger logger) throws IOException {
+		final String metadataPath = switch (platform) {
+		case FABRIC -> "fabric.mod.json";
+		case QUILT -> "quilt.mod.json";
+		case FORGE -> ModsToml.FILE_PATH;
+		};
+		final Set<String> replacedPaths = new HashSet<>();
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(platform == ModPlatform.FABRIC ? new Pair<>("fabric.mod.json", json -> {
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+		for (File file : jars) {
+			replacedPaths.add(NESTED_JARS_DIRECTORY + file.getName());
+		}
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+		if (platform == ModPlatform.FORGE) {
+			replacedPaths.add(FORGE_JAR_JAR_METADATA);
+		}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
+		final Path tempJar = Files.createTempFile(modJar.toAbsolutePath().getParent(), modJar.getFileName().toString(), ".tmp");
 
-					for (JsonElement nestedJar : nestedJars) {
-						JsonObject jsonObject = nestedJar.getAsJsonObject();
+		try {
+			try (RawZipFile input = RawZipFile.open(modJar);
+					RawZipWriter writer = new RawZipWriter(tempJar)) {
+				@Nullable RawZipFile.Entry metadataEntry = input.getEntry(metadataPath);
+				long lastModifiedTime = metadataEntry != null ? metadataEntry.lastModifiedTime() : System.currentTimeMillis();
+
+				for (RawZipFile.Entry entry : input.entries()) {
+					if (replacedPaths.contains(entry.name())) {
+						// Overwritten by the nested jars below
+						continue;
+					}
+
+					if (entry == metadataEntry && platform != ModPlatform.FORGE) {
+						JsonObject json = LoomGradlePlugin.GSON.fromJson(new String(input.readBytes(entry), StandardCharsets.UTF_8), JsonObject.class);
 
-						if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
+						if (platform == ModPlatform.FABRIC) {
+							addFabricNestedJars(json, jars, modJar, logger);
+						} else {
+							addQuiltNestedJars(json, jars, modJar, logger);
 						}
+
+						writer.write(entry.name(), LoomGradlePlugin.GSON.toJson(json).getBytes(StandardCharsets.UTF_8), entry.lastModifiedTime());
+					} else {
+						writer.copy(input, entry);
 					}
+				}
 
-					JsonObject jsonObject = new JsonObject();
-					jsonObject.addProperty("file", nestedJarPath);
-					nestedJars.add(jsonObject);
+				Preconditions.checkState(metadataEntry != null || platform == ModPlatform.FORGE, "Failed to transform " + metadataPath);
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+				for (File file : jars) {
+					writer.writeStored(NESTED_JARS_DIRECTORY + file.getName(), file.toPath(), lastModifiedTime);
 				}
 
-				json.add("jars", nestedJars);
+				if (platform == ModPlatform.FORGE) {
+					JsonObject json = createForgeJarJarMetadata(forgeJars, modJar, logger);
+					writer.write(FORGE_JAR_JAR_METADATA, LoomGradlePlugin.GSON.toJson(json).getBytes(StandardCharsets.UTF_8), lastModifiedTime);
+				}
+			}
 
-				return json;
-			}) : platform == ModPlatform.QUILT ? new Pair<>("quilt.mod.json", json -> {
-				JsonObject loader;
+			Files.move(tempJar, modJar, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+	}
 
-				if (json.has("quilt_loader")) {
-					loader = json.getAsJsonObject("quilt_loader");
-				} else {
-					json.add("quilt_loader", loader = new JsonObject());
-				}
+	private static void addFabricNestedJars(JsonObject json, Collection<File> jars, Path modJar, Logger logger) {
+		JsonArray nestedJars = json.getAsJsonArray("jars");
 
-				JsonArray nestedJars = loader.getAsJsonArray("jars");
+		if (nestedJars == null || !json.has("jars")) {
+			nestedJars = new JsonArray();
+		}
+
+		for (File file : jars) {
+			String nestedJarPath = NESTED_JARS_DIRECTORY + file.getName();
+			Preconditions.checkArgument(FabricModJsonFactory.isModJar(file, ModPlatform.FABRIC), "Cannot nest none mod jar: " + file.getName());
 
-				if (nestedJars == null || !loader.has("jars")) {
-					nestedJars = new JsonArray();
+			for (JsonElement nestedJar : nestedJars) {
+				JsonObject jsonObject = nestedJar.getAsJsonObject();
+
+				if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
 				}
+			}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
+			JsonObject jsonObject = new JsonObject();
+			jsonObject.addProperty("file", nestedJarPath);
+			nestedJars.add(jsonObject);
 
-					for (JsonElement nestedJar : nestedJars) {
-						String nestedJarString = nestedJar.getAsString();
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getFileName());
+		}
 
-						if (nestedJarPath.equals(nestedJarString)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarString);
-						}
-					}
+		json.add("jars", nestedJars);
+	}
 
-					nestedJars.add(nestedJarPath);
+	private static void addQuiltNestedJars(JsonObject json, Collection<File> jars, Path modJar, Logger logger) {
+		JsonObject loader;
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
-				}
+		if (json.has("quilt_loader")) {
+			loader = json.getAsJsonObject("quilt_loader");
+		} else {
+			json.add("quilt_loader", loader = new JsonObject());
+		}
 
-				loader.add("jars", nestedJars);
+		JsonArray nestedJars = loader.getAsJsonArray("jars");
 
-				return json;
-			}) : null));
+		if (nestedJars == null || !loader.has("jars")) {
+			nestedJars = new JsonArray();
+		}
 
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
-		} catch (IOException e) {
-			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		for (File file : jars) {
+			String nestedJarPath = NESTED_JARS_DIRECTORY + file.getName();
+			Preconditions.checkArgument(FabricModJsonFactory.isModJar(file, ModPlatform.QUILT), "Cannot nest none mod jar: " + file.getName());
+
+			for (JsonElement nestedJar : nestedJars) {
+				String nestedJarString = nestedJar.getAsString();
+
+				if (nestedJarPath.equals(nestedJarString)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarString);
+				}
+			}
+
+			nestedJars.add(nestedJarPath);
+
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getFileName());
 		}
+
+		loader.add("jars", nestedJars);
 	}
 
-	private static void handleForgeJarJar(List<NestedFile> forgeJars, File modJar, Logger logger) throws IOException {
+	private static JsonObject createForgeJarJarMetadata(List<NestedFile> forgeJars, Path modJar, Logger logger) {
 		JsonObject json = new JsonObject();
 		JsonArray nestedJars = new JsonArray();
 
 		for (NestedFile nestedFile : forgeJars) {
 			IncludedJarFactory.Metadata metadata = nestedFile.metadata();
 			File file = nestedFile.file();
-			String nestedJarPath = "META-INF/jars/" + file.getName();
+			String nestedJarPath = NESTED_JARS_DIRECTORY + file.getName();
 
 			for (JsonElement nestedJar : nestedJars) {
 				JsonObject jsonObject = nestedJar.getAsJsonObject();
@@ -170,11 +231,10 @@ public class JarNester {
 			jsonObject.addProperty("path", nestedJarPath);
 			nestedJars.add(jsonObject);
 
-			logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getFileName());
 		}
 
 		json.add("jars", nestedJars);
-
-		ZipUtils.add(modJar.toPath(), "META-INF/jarjar/metadata.json", LoomGradlePlugin.GSON.toJson(json));
+		return json;
 	}
 }
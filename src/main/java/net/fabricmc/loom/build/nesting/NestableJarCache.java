@@ -0,0 +1,144 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.build.nesting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * A machine wide cache of non-mod jars wrapped with a generated {@code fabric.mod.json} so that they can be nested.
+ *
+ * <p>Jars are stored in a directory named after the hash of the input jar and the generated mod json, keeping the
+ * file name of the input jar as it ends up in {@code META-INF/jars}. A jar is written to a temporary file first and
+ * then atomically moved in place, so concurrent builds never see a partially written jar, and identical jars are
+ * only produced once.
+ *
+ * <p>Each use of a jar touches its directory. Directories that have not been used for {@link #MAX_AGE} are deleted
+ * the first time the cache is used by a Gradle daemon.
+ */
+public final class NestableJarCache {
+	private static final int VERSION = 1;
+	static final Duration MAX_AGE = Duration.ofDays(30);
+	// The cache directories that have been cleaned up by this daemon
+	private static final Set<Path> CLEANED = ConcurrentHashMap.newKeySet();
+
+	private NestableJarCache() {
+	}
+
+	public static Path getOrCreate(Path cacheDirectory, Path input, IncludedJarFactory.Metadata metadata, String modJson) throws IOException {
+		if (CLEANED.add(cacheDirectory.toAbsolutePath())) {
+			cleanup(cacheDirectory, Instant.now().minus(MAX_AGE));
+		}
+
+		final Path directory = cacheDirectory.resolve(getKey(input, metadata, modJson));
+		final Path output = directory.resolve(input.getFileName().toString());
+
+		if (Files.exists(output)) {
+			markUsed(directory);
+			return output;
+		}
+
+		Files.createDirectories(directory);
+		final Path tempFile = Files.createTempFile(directory, "nestable", ".tmp");
+
+		try {
+			Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
+			ZipUtils.add(tempFile, "fabric.mod.json", modJson.getBytes(StandardCharsets.UTF_8));
+			publish(tempFile, output);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		return output;
+	}
+
+	private static void publish(Path tempFile, Path output) throws IOException {
+		try {
+			Files.move(tempFile, output, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException e) {
+			// Another build published the same jar first, its content is identical.
+		} catch (AtomicMoveNotSupportedException e) {
+			if (Files.notExists(output)) {
+				Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the jars that have not been used since the given instant.
+	 */
+	static void cleanup(Path cacheDirectory, Instant unusedSince) throws IOException {
+		if (Files.notExists(cacheDirectory)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory, Files::isDirectory)) {
+			for (Path directory : stream) {
+				if (Files.getLastModifiedTime(directory).toInstant().isBefore(unusedSince)) {
+					FileUtils.deleteDirectory(directory.toFile());
+				}
+			}
+		}
+	}
+
+	private static void markUsed(Path directory) {
+		try {
+			Files.setLastModifiedTime(directory, FileTime.from(Instant.now()));
+		} catch (IOException e) {
+			// Only used to decide when to delete the jar
+		}
+	}
+
+	private static String getKey(Path input, IncludedJarFactory.Metadata metadata, String modJson) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putInt(VERSION);
+		hasher.putBytes(Checksum.sha256(input.toFile()));
+
+		for (String value : new String[] {metadata.group(), metadata.name(), metadata.version(), metadata.classifier(), modJson}) {
+			hasher.putString(String.valueOf(value), StandardCharsets.UTF_8);
+			hasher.putByte((byte) 0);
+		}
+
+		return hasher.hash().toString();
+	}
+}
@@ -26,11 +26,10 @@ package net.fabricmc.loom.configuration.accesswidener;
 
 import java.io.IOException;
 
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
-import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
 
 public interface AccessWidenerEntry {
@@ -44,5 +43,5 @@ public interface AccessWidenerEntry {
 
 	String getSortKey();
 
-	void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException;
+	void read(AccessWidenerVisitor visitor, Remapper remapper) throws IOException;
 }
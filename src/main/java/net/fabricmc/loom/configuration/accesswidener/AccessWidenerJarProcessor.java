@@ -35,16 +35,15 @@ import java.util.List;
 
 import javax.inject.Inject;
 
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.gradle.api.file.RegularFileProperty;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
-import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
 
@@ -133,10 +132,10 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 
 		final var accessWidener = new AccessWidener();
 
-		try (LazyCloseable<TinyRemapper> remapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
-			for (AccessWidenerEntry widener : accessWideners) {
-				widener.read(accessWidener, remapper);
-			}
+		final Remapper remapper = context.getMappingsRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED);
+
+		for (AccessWidenerEntry widener : accessWideners) {
+			widener.read(accessWidener, remapper);
 		}
 
 		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
@@ -0,0 +1,357 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesswidener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.RawZipFile;
+
+/**
+ * A persistent index of the classes in a set of jars, along with their super types and declared fields and methods.
+ *
+ * <p>The index is built once for a given set of jars and is then memory mapped, so that answering whether a class
+ * or member exists doesn't require parsing any class files. It is stored as a sorted table of UTF-8 records,
+ * which are looked up with a binary search:
+ * <ul>
+ *     <li>{@code C owner} for every class</li>
+ *     <li>{@code S owner \0 superType} for the super class and every interface</li>
+ *     <li>{@code F owner \0 name \0 descriptor} for every field</li>
+ *     <li>{@code M owner \0 name \0 descriptor} for every method</li>
+ * </ul>
+ */
+public final class ClassMemberIndex {
+	private static final int MAGIC = 0x4C4D4958; // LMIX
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".idx";
+	private static final int HEADER_SIZE = 12;
+
+	private final ByteBuffer buffer;
+	private final int count;
+	private final int dataOffset;
+
+	private ClassMemberIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Invalid class member index");
+		}
+
+		this.count = buffer.getInt(8);
+		this.dataOffset = HEADER_SIZE + (count + 1) * Integer.BYTES;
+	}
+
+	/**
+	 * Opens the index for the given jars in the given directory, building it first if it doesn't exist yet.
+	 * Indexes for other versions of the jars are deleted.
+	 */
+	public static ClassMemberIndex getOrCreate(Path directory, List<Path> jars) throws IOException {
+		final Path indexFile = directory.resolve(getKey(jars) + EXTENSION);
+
+		if (Files.notExists(indexFile)) {
+			Files.createDirectories(directory);
+
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : files.toList()) {
+					if (file.getFileName().toString().endsWith(EXTENSION)) {
+						try {
+							Files.deleteIfExists(file);
+						} catch (IOException e) {
+							// Still mapped by another build on Windows, it will be cleaned up next time
+						}
+					}
+				}
+			}
+
+			final Path tempFile = Files.createTempFile(directory, "index", ".tmp");
+
+			try {
+				write(jars, tempFile);
+				Files.move(tempFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+
+		return open(indexFile);
+	}
+
+	public static ClassMemberIndex open(Path indexFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new ClassMemberIndex(buffer);
+		}
+	}
+
+	/**
+	 * The key identifies the content of the jars from their central directories, which include the CRC of every entry.
+	 */
+	static String getKey(List<Path> jars) throws IOException {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putInt(VERSION);
+
+		for (Path jar : jars) {
+			try (RawZipFile zip = RawZipFile.open(jar)) {
+				hasher.putString(zip.getCentralDirectoryHash(), StandardCharsets.UTF_8);
+			}
+		}
+
+		return hasher.hash().toString();
+	}
+
+	static void write(List<Path> jars, Path output) throws IOException {
+		final Set<String> classes = new HashSet<>();
+		final TreeSet<byte[]> records = new TreeSet<>(Arrays::compareUnsigned);
+
+		for (Path jar : jars) {
+			try (RawZipFile zip = RawZipFile.open(jar)) {
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (!entry.name().endsWith(".class")) {
+						continue;
+					}
+
+					final ClassReader reader = new ClassReader(zip.readBytes(entry));
+
+					// Like a classpath, the first jar to contain a class wins
+					if (classes.add(reader.getClassName())) {
+						reader.accept(new IndexingClassVisitor(records), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+					}
+				}
+			}
+		}
+
+		try (OutputStream out = Files.newOutputStream(output); DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeInt(records.size());
+
+			int offset = 0;
+
+			for (byte[] record : records) {
+				data.writeInt(offset);
+				offset += record.length;
+			}
+
+			data.writeInt(offset);
+
+			for (byte[] record : records) {
+				data.write(record);
+			}
+		}
+	}
+
+	public boolean hasClass(String name) {
+		return find(record('C', name)) >= 0;
+	}
+
+	/**
+	 * @return the name of the class declaring the field, which is either the owner or one of its super types, or null if it cannot be found
+	 */
+	@Nullable
+	public String resolveField(String owner, String name, String descriptor) {
+		return resolve('F', owner, name, descriptor);
+	}
+
+	/**
+	 * @return the name of the class declaring the method, which is either the owner or one of its super types, or null if it cannot be found
+	 */
+	@Nullable
+	public String resolveMethod(String owner, String name, String descriptor) {
+		return resolve('M', owner, name, descriptor);
+	}
+
+	/**
+	 * @return the direct super class and interfaces of a class, in no particular order
+	 */
+	public List<String> getSuperTypes(String name) {
+		final byte[] prefix = record('S', name, "");
+		final List<String> superTypes = new ArrayList<>();
+
+		for (int i = lowerBound(prefix); i < count && startsWith(i, prefix); i++) {
+			final int start = dataOffset + offset(i) + prefix.length;
+			final byte[] superType = new byte[dataOffset + offset(i + 1) - start];
+			buffer.get(start, superType);
+			superTypes.add(new String(superType, StandardCharsets.UTF_8));
+		}
+
+		return superTypes;
+	}
+
+	@Nullable
+	private String resolve(char type, String owner, String name, String descriptor) {
+		if (find(record(type, owner, name, descriptor)) >= 0) {
+			return owner;
+		}
+
+		final Set<String> visited = new HashSet<>();
+		final Queue<String> queue = new ArrayDeque<>();
+		queue.add(owner);
+
+		while (!queue.isEmpty()) {
+			for (String superType : getSuperTypes(queue.remove())) {
+				if (!visited.add(superType)) {
+					continue;
+				}
+
+				if (find(record(type, superType, name, descriptor)) >= 0) {
+					return superType;
+				}
+
+				queue.add(superType);
+			}
+		}
+
+		return null;
+	}
+
+	private int find(byte[] key) {
+		final int index = lowerBound(key);
+		return index < count && compare(index, key) == 0 ? index : -1;
+	}
+
+	// The index of the first record that is not less than the key
+	private int lowerBound(byte[] key) {
+		int low = 0;
+		int high = count;
+
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+
+			if (compare(mid, key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	private int compare(int index, byte[] key) {
+		final int start = dataOffset + offset(index);
+		final int length = offset(index + 1) - offset(index);
+		final int common = Math.min(length, key.length);
+
+		for (int i = 0; i < common; i++) {
+			final int cmp = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+
+		return Integer.compare(length, key.length);
+	}
+
+	private boolean startsWith(int index, byte[] prefix) {
+		final int start = dataOffset + offset(index);
+
+		if (offset(index + 1) - offset(index) < prefix.length) {
+			return false;
+		}
+
+		for (int i = 0; i < prefix.length; i++) {
+			if (buffer.get(start + i) != prefix[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private int offset(int index) {
+		return buffer.getInt(HEADER_SIZE + index * Integer.BYTES);
+	}
+
+	private static byte[] record(char type, String... parts) {
+		return (type + String.join("\0", parts)).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static final class IndexingClassVisitor extends ClassVisitor {
+		private final Set<byte[]> records;
+		private String className;
+
+		private IndexingClassVisitor(Set<byte[]> records) {
+			super(Constants.ASM_VERSION);
+			this.records = records;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			className = name;
+			records.add(record('C', name));
+
+			if (superName != null) {
+				records.add(record('S', name, superName));
+			}
+
+			if (interfaces != null) {
+				for (String anInterface : interfaces) {
+					records.add(record('S', name, anInterface));
+				}
+			}
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			records.add(record('F', className, name, descriptor));
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			records.add(record('M', className, name, descriptor));
+			return null;
+		}
+	}
+}
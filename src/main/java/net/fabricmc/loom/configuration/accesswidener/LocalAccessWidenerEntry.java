@@ -29,13 +29,12 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.util.Checksum;
-import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
 
 public record LocalAccessWidenerEntry(Path path, String hash) implements AccessWidenerEntry {
@@ -48,7 +47,7 @@ public record LocalAccessWidenerEntry(Path path, String hash) implements AccessW
 	}
 
 	@Override
-	public void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException {
+	public void read(AccessWidenerVisitor visitor, Remapper remapper) throws IOException {
 		var reader = new AccessWidenerReader(visitor);
 		reader.read(Files.readAllBytes(path));
 	}
@@ -30,15 +30,14 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerRemapper;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.accesswidener.TransitiveOnlyFilter;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
 
@@ -67,7 +66,7 @@ public record ModAccessWidenerEntry(FabricModJson mod, String path, ModEnvironme
 	}
 
 	@Override
-	public void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException {
+	public void read(AccessWidenerVisitor visitor, Remapper remapper) throws IOException {
 		if (transitiveOnly) {
 			// Filter for only transitive rules
 			visitor = new TransitiveOnlyFilter(visitor);
@@ -78,17 +77,17 @@ public record ModAccessWidenerEntry(FabricModJson mod, String path, ModEnvironme
 
 		if (!header.getNamespace().equals(MappingsNamespace.NAMED.toString())) {
 			// Remap the AW if needed
-			visitor = getRemapper(visitor, remapper.get());
+			visitor = getRemapper(visitor, remapper);
 		}
 
 		var reader = new AccessWidenerReader(visitor);
 		reader.read(data);
 	}
 
-	private static AccessWidenerRemapper getRemapper(AccessWidenerVisitor visitor, TinyRemapper tinyRemapper) {
+	private static AccessWidenerRemapper getRemapper(AccessWidenerVisitor visitor, Remapper remapper) {
 		return new AccessWidenerRemapper(
 				visitor,
-				tinyRemapper.getEnvironment().getRemapper(),
+				remapper,
 				MappingsNamespace.INTERMEDIARY.toString(),
 				MappingsNamespace.NAMED.toString()
 		);
@@ -27,8 +27,9 @@ package net.fabricmc.loom.configuration.accesswidener;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
-import dev.architectury.tinyremapper.TinyRemapper;
+import org.objectweb.asm.commons.Remapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +38,8 @@ import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MappingProcessorContext;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
-import net.fabricmc.loom.util.LazyCloseable;
+import net.fabricmc.loom.configuration.processors.MappingProcessorContextImpl;
+import net.fabricmc.loom.util.MappingTreeRemapper;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -61,7 +63,12 @@ public final class TransitiveAccessWidenerMappingsProcessor implements Minecraft
 			throw new IllegalStateException("Mapping tree must have intermediary src mappings not " + mappings.getSrcNamespace());
 		}
 
-		try (LazyCloseable<TinyRemapper> remapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
+		// Any other context only gets the mappings being transformed, which are enough for names declared on their owner
+		final Remapper remapper = context instanceof MappingProcessorContextImpl impl
+				? impl.getMappingsRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)
+				: MappingTreeRemapper.create(mappings, MappingsNamespace.INTERMEDIARY.toString(), MappingsNamespace.NAMED.toString(), Map::of);
+
+		try {
 			for (AccessWidenerEntry accessWidener : accessWideners) {
 				var visitor = new MappingCommentVisitor(accessWidener.mappingId(), mappings);
 				accessWidener.read(visitor, remapper);
@@ -75,6 +75,7 @@ public class RunConfig {
 	public SourceSet sourceSet;
 	public Map<String, Object> environmentVariables;
 	public String projectName;
+	public boolean appCds;
 
 	public Element genRuns(Element doc) {
 		Element root = this.addXml(doc, "component", ImmutableMap.of("name", "ProjectRunConfigurationManager"));
@@ -185,6 +186,7 @@ public class RunConfig {
 		runConfig.environmentVariables = new HashMap<>();
 		runConfig.environmentVariables.putAll(settings.getEnvironmentVariables());
 		runConfig.projectName = project.getName();
+		runConfig.appCds = settings.isAppCds();
 
 		for (Consumer<RunConfig> consumer : extension.getSettingsPostEdit()) {
 			consumer.accept(runConfig);
@@ -100,6 +100,15 @@ public final class RunConfigSettings implements Named {
 	 */
 	private boolean ideConfigGenerated;
 
+	/**
+	 * When true the run task maintains a dynamic AppCDS archive, to speed up launching the game.
+	 *
+	 * <p>The archive is created on the first launch and reused until the runtime classpath or the Java runtime
+	 * changes. Requires Java 13 or later, and only applies to the Gradle run task, not to IDE run configurations.
+	 * Directories are moved after the jars on the classpath, as the JVM cannot use the archive otherwise.
+	 */
+	private boolean appCds = false;
+
 	private final Map<String, Object> environmentVariables = new HashMap<>();
 
 	private final Project project;
@@ -273,6 +282,10 @@ public final class RunConfigSettings implements Named {
 		this.ideConfigGenerated = ideConfigGenerated;
 	}
 
+	public void appCds(boolean appCds) {
+		this.appCds = appCds;
+	}
+
 	public Map<String, Object> getEnvironmentVariables() {
 		return environmentVariables;
 	}
@@ -373,6 +386,7 @@ public final class RunConfigSettings implements Named {
 		defaultMainClass = parent.defaultMainClass;
 		source = parent.source;
 		ideConfigGenerated = parent.ideConfigGenerated;
+		appCds = parent.appCds;
 	}
 
 	public void makeRunDir() {
@@ -390,4 +404,12 @@ public final class RunConfigSettings implements Named {
 	public void setIdeConfigGenerated(boolean ideConfigGenerated) {
 		this.ideConfigGenerated = ideConfigGenerated;
 	}
+
+	public boolean isAppCds() {
+		return appCds;
+	}
+
+	public void setAppCds(boolean appCds) {
+		this.appCds = appCds;
+	}
 }
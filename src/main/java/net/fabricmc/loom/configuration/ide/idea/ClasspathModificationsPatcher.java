@@ -0,0 +1,180 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.ide.idea;
+
+import java.util.List;
+
+/**
+ * Replaces the {@code classpathModifications} of an IntelliJ run configuration in a single pass over its XML.
+ *
+ * <p>Only the replaced element is touched, everything else is copied as is, including the formatting, comments and
+ * attribute order that a DOM round trip would lose.
+ */
+final class ClasspathModificationsPatcher {
+	private static final String CONFIGURATION = "configuration";
+	private static final String CLASSPATH_MODIFICATIONS = "classpathModifications";
+
+	private ClasspathModificationsPatcher() {
+	}
+
+	static String patch(String input, List<String> exclusions) {
+		final StringBuilder output = new StringBuilder(input.length() + exclusions.size() * 64);
+		// The number of open elements before the current tag
+		int depth = 0;
+		int configurationDepth = -1;
+		int skippedDepth = -1;
+		int configurations = 0;
+		int copyFrom = 0;
+		int index = 0;
+
+		while ((index = input.indexOf('<', index)) >= 0) {
+			if (input.startsWith("<!--", index)) {
+				index = skipPast(input, "-->", index);
+				continue;
+			} else if (input.startsWith("<![CDATA[", index)) {
+				index = skipPast(input, "]]>", index);
+				continue;
+			} else if (input.startsWith("<?", index)) {
+				index = skipPast(input, "?>", index);
+				continue;
+			} else if (input.startsWith("<!", index)) {
+				index = skipPast(input, ">", index);
+				continue;
+			}
+
+			final int tagEnd = findTagEnd(input, index);
+			final boolean closing = input.charAt(index + 1) == '/';
+			final boolean selfClosing = !closing && input.charAt(tagEnd - 1) == '/';
+			final String name = readName(input, index + (closing ? 2 : 1));
+
+			if (closing) {
+				depth--;
+
+				if (depth == skippedDepth) {
+					// End of an existing classpathModifications element, drop it
+					skippedDepth = -1;
+					copyFrom = tagEnd + 1;
+				} else if (skippedDepth < 0 && depth == configurationDepth && name.equals(CONFIGURATION)) {
+					output.append(input, copyFrom, index);
+					appendClasspathModifications(output, exclusions);
+					copyFrom = index;
+					configurationDepth = -1;
+				}
+			} else {
+				if (skippedDepth < 0 && configurationDepth >= 0 && depth == configurationDepth + 1 && name.equals(CLASSPATH_MODIFICATIONS)) {
+					output.append(input, copyFrom, index);
+
+					if (selfClosing) {
+						copyFrom = tagEnd + 1;
+					} else {
+						skippedDepth = depth;
+					}
+				} else if (skippedDepth < 0 && name.equals(CONFIGURATION)) {
+					configurations++;
+					configurationDepth = depth;
+				}
+
+				if (!selfClosing) {
+					depth++;
+				}
+			}
+
+			index = tagEnd + 1;
+		}
+
+		if (configurations != 1 || configurationDepth >= 0 || skippedDepth >= 0) {
+			throw new IllegalArgumentException("Expected a single complete configuration element");
+		}
+
+		output.append(input, copyFrom, input.length());
+		return output.toString();
+	}
+
+	private static void appendClasspathModifications(StringBuilder output, List<String> exclusions) {
+		output.append('<').append(CLASSPATH_MODIFICATIONS).append('>');
+
+		for (String exclusion : exclusions) {
+			output.append("<entry exclude=\"true\" path=\"");
+			appendEscaped(output, exclusion);
+			output.append("\"/>");
+		}
+
+		output.append("</").append(CLASSPATH_MODIFICATIONS).append('>');
+	}
+
+	private static void appendEscaped(StringBuilder output, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+
+			switch (c) {
+			case '&' -> output.append("&amp;");
+			case '<' -> output.append("&lt;");
+			case '>' -> output.append("&gt;");
+			case '"' -> output.append("&quot;");
+			default -> output.append(c);
+			}
+		}
+	}
+
+	private static int skipPast(String input, String terminator, int from) {
+		final int end = input.indexOf(terminator, from);
+
+		if (end < 0) {
+			throw new IllegalArgumentException("Unterminated markup at offset " + from);
+		}
+
+		return end + terminator.length();
+	}
+
+	private static int findTagEnd(String input, int from) {
+		char quote = 0;
+
+		for (int i = from + 1; i < input.length(); i++) {
+			final char c = input.charAt(i);
+
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				return i;
+			}
+		}
+
+		throw new IllegalArgumentException("Unterminated tag at offset " + from);
+	}
+
+	private static String readName(String input, int from) {
+		int end = from;
+
+		while (end < input.length() && !Character.isWhitespace(input.charAt(end)) && input.charAt(end) != '/' && input.charAt(end) != '>') {
+			end++;
+		}
+
+		return input.substring(from, end);
+	}
+}
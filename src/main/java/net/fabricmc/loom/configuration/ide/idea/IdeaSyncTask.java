@@ -26,30 +26,15 @@ package net.fabricmc.loom.configuration.ide.idea;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.List;
 
 import javax.inject.Inject;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.apache.commons.io.FileUtils;
+
 import org.gradle.api.Project;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.jetbrains.annotations.VisibleForTesting;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.ide.RunConfig;
@@ -57,9 +42,17 @@ import net.fabricmc.loom.configuration.ide.RunConfigSettings;
 import net.fabricmc.loom.task.AbstractLoomTask;
 
 public abstract class IdeaSyncTask extends AbstractLoomTask {
+	/**
+	 * The file where the fingerprints of the generated run configurations are kept between syncs.
+	 */
+	@Internal
+	public abstract RegularFileProperty getRunConfigFingerprints();
+
 	@Inject
 	public IdeaSyncTask() {
-		// Always re-run this task.
+		getRunConfigFingerprints().set(new File(getExtension().getFiles().getProjectPersistentCache(), "idea-run-configs.json"));
+
+		// Always re-run this task, run configurations that have not changed are skipped using their fingerprints.
 		getOutputs().upToDateWhen(element -> false);
 	}
 
@@ -77,6 +70,7 @@ public abstract class IdeaSyncTask extends AbstractLoomTask {
 		LoomGradleExtension extension = LoomGradleExtension.get(getProject());
 		String projectPath = getProject() == rootProject ? "" : getProject().getPath().replace(':', '_');
 		File runConfigsDir = new File(rootProject.file(".idea"), "runConfigurations");
+		RunConfigFingerprints fingerprints = RunConfigFingerprints.read(getRunConfigFingerprints().get().getAsFile().toPath());
 
 		if (!runConfigsDir.exists()) {
 			runConfigsDir.mkdirs();
@@ -93,85 +87,24 @@ public abstract class IdeaSyncTask extends AbstractLoomTask {
 			File runConfigs = new File(runConfigsDir, name + projectPath + ".xml");
 			String runConfigXml = config.fromDummy("idea_run_config_template.xml", true, getProject());
 
-			if (!runConfigs.exists()) {
-				FileUtils.writeStringToFile(runConfigs, runConfigXml, StandardCharsets.UTF_8);
-			}
-
 			settings.makeRunDir();
 
 			final List<String> excludedLibraryPaths = config.getExcludedLibraryPaths(getProject());
+			final boolean setClasspathModifications = !excludedLibraryPaths.isEmpty() && IdeaUtils.supportsCustomizableClasspath();
 
-			if (!excludedLibraryPaths.isEmpty()) {
-				try {
-					setClasspathModifications(runConfigs.toPath(), excludedLibraryPaths);
-				} catch (Exception e) {
-					getProject().getLogger().error("Failed to modify run configuration xml", e);
-				}
+			try {
+				RunConfigFingerprints.Result result = fingerprints.sync(runConfigs.toPath(), runConfigXml, setClasspathModifications ? excludedLibraryPaths : null);
+				getLogger().info("Run configuration {}: {}", runConfigs.getName(), result);
+			} catch (Exception e) {
+				getProject().getLogger().error("Failed to modify run configuration xml", e);
 			}
 		}
-	}
-
-	private void setClasspathModifications(Path runConfig, List<String> exclusions) throws IOException {
-		if (!IdeaUtils.supportsCustomizableClasspath()) {
-			return;
-		}
-
-		final String inputXml = Files.readString(runConfig, StandardCharsets.UTF_8);
-		final String outputXml;
 
-		try {
-			outputXml = setClasspathModificationsInXml(inputXml, exclusions);
-		} catch (Exception e) {
-			getLogger().error("Failed to modify idea xml", e);
-
-			return;
-		}
-
-		if (!inputXml.equals(outputXml)) {
-			Files.writeString(runConfig, outputXml, StandardCharsets.UTF_8);
-		}
+		fingerprints.write();
 	}
 
 	@VisibleForTesting
-	public static String setClasspathModificationsInXml(String input, List<String> exclusions) throws Exception {
-		final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-		final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-		final Document document = documentBuilder.parse(new InputSource(new StringReader(input)));
-		final Element root = document.getDocumentElement();
-
-		final NodeList nodeList = root.getElementsByTagName("configuration");
-		assert nodeList.getLength() == 1;
-
-		final Element configuration = (Element) nodeList.item(0);
-		final NodeList classpathModificationsList = configuration.getElementsByTagName("classpathModifications");
-
-		// Remove all the existing exclusions
-		for (int i = 0; i < classpathModificationsList.getLength(); i++) {
-			configuration.removeChild(classpathModificationsList.item(i));
-		}
-
-		final Element classpathModifications = document.createElement("classpathModifications");
-
-		for (String exclusionPath : exclusions) {
-			final Element exclusion = document.createElement("entry");
-
-			exclusion.setAttribute("exclude", "true");
-			exclusion.setAttribute("path", exclusionPath);
-
-			classpathModifications.appendChild(exclusion);
-		}
-
-		configuration.appendChild(classpathModifications);
-
-		final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		final Transformer transformer = transformerFactory.newTransformer();
-		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-
-		final DOMSource source = new DOMSource(document);
-
-		final StringWriter writer = new StringWriter();
-		transformer.transform(source, new StreamResult(writer));
-
-		return writer.toString().replace("\r", "");
+	public static String setClasspathModificationsInXml(String input, List<String> exclusions) {
+		return ClasspathModificationsPatcher.patch(input, exclusions);
 	}
 }
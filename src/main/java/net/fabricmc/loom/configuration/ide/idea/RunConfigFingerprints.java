@@ -0,0 +1,175 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.ide.idea;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.CacheIndexFile;
+
+/**
+ * Remembers what each generated IntelliJ run configuration was generated from, so that an IDE sync only rewrites the
+ * ones whose settings or classpath exclusions changed.
+ *
+ * <p>Along with the fingerprint of the inputs, the size and modification time of the written file are recorded. A run
+ * configuration that still matches them has not been edited since, and is regenerated from the template when its
+ * inputs change. One that was edited, for example from the IDE, keeps its content and only gets its classpath
+ * modifications updated, as before.
+ */
+public final class RunConfigFingerprints {
+	private final Path indexFile;
+	private final Map<String, Entry> entries;
+	private boolean dirty = false;
+
+	private RunConfigFingerprints(Path indexFile, Map<String, Entry> entries) {
+		this.indexFile = indexFile;
+		this.entries = entries;
+	}
+
+	public static RunConfigFingerprints read(Path indexFile) {
+		return new RunConfigFingerprints(indexFile, CacheIndexFile.read(indexFile, new TypeToken<Map<String, Entry>>() {
+		}));
+	}
+
+	/**
+	 * @param generatedXml the run configuration rendered from the template
+	 * @param exclusions the classpath exclusions to set, or {@code null} to leave the classpath modifications alone
+	 */
+	public static String fingerprint(String generatedXml, @Nullable List<String> exclusions) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(generatedXml, StandardCharsets.UTF_8);
+		hasher.putBoolean(exclusions != null);
+
+		if (exclusions != null) {
+			hasher.putInt(exclusions.size());
+
+			for (String exclusion : exclusions) {
+				hasher.putInt(exclusion.length());
+				hasher.putString(exclusion, StandardCharsets.UTF_8);
+			}
+		}
+
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Brings a run configuration file up to date.
+	 *
+	 * @param exclusions the classpath exclusions to set, or {@code null} to leave the classpath modifications alone
+	 */
+	public Result sync(Path runConfig, String generatedXml, @Nullable List<String> exclusions) throws IOException {
+		final String key = runConfig.getFileName().toString();
+		final String fingerprint = fingerprint(generatedXml, exclusions);
+		final Entry previous = entries.get(key);
+		final BasicFileAttributes attributes = readAttributes(runConfig);
+		final boolean unmodified = previous != null && attributes != null && previous.matches(attributes);
+
+		if (unmodified && previous.fingerprint().equals(fingerprint)) {
+			return Result.UP_TO_DATE;
+		}
+
+		final boolean generate = attributes == null || unmodified;
+		final String input = generate ? generatedXml : Files.readString(runConfig, StandardCharsets.UTF_8);
+		final String output = exclusions != null ? ClasspathModificationsPatcher.patch(input, exclusions) : input;
+		final Result result;
+
+		if (generate) {
+			Files.createDirectories(runConfig.toAbsolutePath().getParent());
+			Files.writeString(runConfig, output, StandardCharsets.UTF_8);
+			result = Result.GENERATED;
+		} else if (!output.equals(input)) {
+			Files.writeString(runConfig, output, StandardCharsets.UTF_8);
+			result = Result.PATCHED;
+		} else {
+			result = Result.UNCHANGED;
+		}
+
+		entries.put(key, Entry.of(fingerprint, Files.readAttributes(runConfig, BasicFileAttributes.class)));
+		dirty = true;
+		return result;
+	}
+
+	public void write() {
+		if (!dirty) {
+			return;
+		}
+
+		try {
+			CacheIndexFile.write(indexFile, entries);
+			dirty = false;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write run configuration fingerprints", e);
+		}
+	}
+
+	@Nullable
+	private static BasicFileAttributes readAttributes(Path path) throws IOException {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		return Files.readAttributes(path, BasicFileAttributes.class);
+	}
+
+	public enum Result {
+		/**
+		 * The inputs and the file are unchanged since the last sync, nothing was done.
+		 */
+		UP_TO_DATE,
+		/**
+		 * The file was missing or not edited since the last sync, and was written from the template.
+		 */
+		GENERATED,
+		/**
+		 * The file was edited since the last sync, and only its classpath modifications were updated.
+		 */
+		PATCHED,
+		/**
+		 * The file was edited since the last sync, and already had the right classpath modifications.
+		 */
+		UNCHANGED
+	}
+
+	private record Entry(String fingerprint, long size, long lastModified) {
+		static Entry of(String fingerprint, BasicFileAttributes attributes) {
+			return new Entry(fingerprint, attributes.size(), attributes.lastModifiedTime().toMillis());
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+}
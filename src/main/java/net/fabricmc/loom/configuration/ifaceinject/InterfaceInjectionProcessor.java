@@ -28,10 +28,8 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -41,9 +39,6 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.jetbrains.annotations.Nullable;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,8 +47,6 @@ import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModMetadataFabricModJson;
 import net.fabricmc.mappingio.tree.MappingTree;
@@ -108,8 +101,11 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 				.map(injectedInterface -> remap(injectedInterface, s -> mappings.mapClassName(s, intermediaryIndex, namedIndex)))
 				.toList();
 
+		// Transformed classes are cached next to the jar, so that only classes with different injections are transformed again
+		final Path cacheFile = jar.resolveSibling(jar.getFileName() + ".interface-injection-cache");
+
 		try {
-			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
+			InterfaceInjector.inject(jar, getInjections(remappedInjectedInterfaces), cacheFile);
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
 		}
@@ -123,25 +119,9 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		);
 	}
 
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(List<InjectedInterface> injectedInterfaces) {
+	private static Map<String, List<InjectedInterface>> getInjections(List<InjectedInterface> injectedInterfaces) {
 		return injectedInterfaces.stream()
-				.collect(Collectors.groupingBy(InjectedInterface::className))
-				.entrySet()
-				.stream()
-				.map(entry -> {
-					final String zipEntry = entry.getKey().replaceAll("\\.", "/") + ".class";
-					return new Pair<>(zipEntry, getTransformer(entry.getValue()));
-				}).toList();
-	}
-
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(List<InjectedInterface> injectedInterfaces) {
-		return input -> {
-			final ClassReader reader = new ClassReader(input);
-			final ClassWriter writer = new ClassWriter(0);
-			final ClassVisitor classVisitor = new InjectingClassVisitor(Constants.ASM_VERSION, writer, injectedInterfaces);
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
-		};
+				.collect(Collectors.groupingBy(injectedInterface -> injectedInterface.className().replace('.', '/') + ".class"));
 	}
 
 	@Override
@@ -224,40 +204,4 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 					.toList();
 		}
 	}
-
-	private static class InjectingClassVisitor extends ClassVisitor {
-		private final List<InjectedInterface> injectedInterfaces;
-
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
-			this.injectedInterfaces = injectedInterfaces;
-		}
-
-		@Override
-		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-			Set<String> modifiedInterfaces = new LinkedHashSet<>(interfaces.length + injectedInterfaces.size());
-			Collections.addAll(modifiedInterfaces, interfaces);
-
-			for (InjectedInterface injectedInterface : injectedInterfaces) {
-				modifiedInterfaces.add(injectedInterface.ifaceName());
-			}
-
-			// See JVMS: https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html#jvms-ClassSignature
-			if (signature != null) {
-				var resultingSignature = new StringBuilder(signature);
-
-				for (InjectedInterface injectedInterface : injectedInterfaces) {
-					String superinterfaceSignature = "L" + injectedInterface.ifaceName() + ";";
-
-					if (resultingSignature.indexOf(superinterfaceSignature) == -1) {
-						resultingSignature.append(superinterfaceSignature);
-					}
-				}
-
-				signature = resultingSignature.toString();
-			}
-
-			super.visit(version, access, name, signature, superName, modifiedInterfaces.toArray(new String[0]));
-		}
-	}
 }
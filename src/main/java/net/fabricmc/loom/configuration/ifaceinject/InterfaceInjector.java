@@ -0,0 +1,278 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.ifaceinject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor.InjectedInterface;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
+
+/**
+ * Injects interfaces into the classes of a jar, transforming the targeted classes in parallel.
+ *
+ * <p>The injected classes are also written to a cache zip, along with a fingerprint of the original class and of the
+ * interfaces injected into it. When the injections change, only the classes with a different fingerprint are transformed
+ * again, the others are copied from the cache without being decompressed.
+ */
+public final class InterfaceInjector {
+	private static final String FINGERPRINTS_PATH = "fingerprints.json";
+	// Bump when the injected output changes, to invalidate existing caches
+	private static final int VERSION = 1;
+
+	private InterfaceInjector() {
+	}
+
+	/**
+	 * @param injections the interfaces to inject, keyed by the entry name of the class
+	 * @param cacheFile the cache zip, which is created or replaced
+	 * @return the number of classes that had to be transformed
+	 */
+	public static int inject(Path jar, Map<String, List<InjectedInterface>> injections, Path cacheFile) throws IOException {
+		final Path tempJar = Files.createTempFile(jar.toAbsolutePath().getParent(), "interface-injection", ".jar.tmp");
+		final Path tempCache = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "interface-injection", ".cache.tmp");
+		final int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		int transformed = 0;
+
+		try {
+			try (RawZipFile input = RawZipFile.open(jar);
+					Cache cache = Cache.read(cacheFile);
+					RawZipWriter writer = new RawZipWriter(tempJar);
+					RawZipWriter cacheWriter = new RawZipWriter(tempCache)) {
+				final Map<String, String> fingerprints = new TreeMap<>();
+				// Keep a bounded window of entries in flight, so that injected classes are written as soon as possible.
+				final int window = threads * 4;
+				final Queue<Future<Output>> pending = new ArrayDeque<>();
+
+				for (RawZipFile.Entry entry : input.entries()) {
+					final List<InjectedInterface> injectedInterfaces = injections.get(entry.name());
+
+					if (injectedInterfaces == null) {
+						pending.add(CompletableFuture.completedFuture(new Output(input, entry, null, false)));
+					} else {
+						final String fingerprint = fingerprint(entry, injectedInterfaces);
+						final RawZipFile.Entry cached = cache.getEntry(entry.name(), fingerprint);
+						fingerprints.put(entry.name(), fingerprint);
+
+						if (cached != null) {
+							pending.add(CompletableFuture.completedFuture(new Output(cache.zip(), cached, null, true)));
+						} else {
+							pending.add(executor.submit(() -> new Output(null, null, inject(input, entry, injectedInterfaces), true)));
+							transformed++;
+						}
+					}
+
+					if (pending.size() >= window) {
+						write(writer, cacheWriter, pending.remove());
+					}
+				}
+
+				while (!pending.isEmpty()) {
+					write(writer, cacheWriter, pending.remove());
+				}
+
+				cacheWriter.write(FINGERPRINTS_PATH, LoomGradlePlugin.GSON.toJson(fingerprints).getBytes(StandardCharsets.UTF_8), 0);
+			}
+
+			Files.move(tempJar, jar, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tempCache, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			executor.shutdownNow();
+			Files.deleteIfExists(tempJar);
+			Files.deleteIfExists(tempCache);
+		}
+
+		return transformed;
+	}
+
+	private static String fingerprint(RawZipFile.Entry entry, List<InjectedInterface> injectedInterfaces) {
+		final Hasher hasher = Hashing.sha256().newHasher()
+				.putInt(VERSION)
+				.putLong(entry.crc())
+				.putLong(entry.size());
+
+		for (InjectedInterface injectedInterface : injectedInterfaces) {
+			hasher.putString(injectedInterface.ifaceName(), StandardCharsets.UTF_8).putByte((byte) 0);
+		}
+
+		return hasher.hash().toString();
+	}
+
+	private static RawZipWriter.Compressed inject(RawZipFile input, RawZipFile.Entry entry, List<InjectedInterface> injectedInterfaces) throws IOException {
+		final ClassReader reader = new ClassReader(input.readBytes(entry));
+		final ClassWriter writer = new ClassWriter(0);
+		reader.accept(new InjectingClassVisitor(Constants.ASM_VERSION, writer, injectedInterfaces), 0);
+		return RawZipWriter.compress(entry.name(), writer.toByteArray(), entry.lastModifiedTime());
+	}
+
+	private static void write(RawZipWriter writer, RawZipWriter cacheWriter, Future<Output> future) throws IOException {
+		final Output output;
+
+		try {
+			output = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while injecting interfaces", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to inject interfaces", e.getCause());
+		}
+
+		output.write(writer);
+
+		if (output.injected()) {
+			output.write(cacheWriter);
+		}
+	}
+
+	private record Output(RawZipFile source, RawZipFile.Entry entry, RawZipWriter.Compressed compressed, boolean injected) {
+		void write(RawZipWriter writer) throws IOException {
+			if (compressed != null) {
+				writer.write(compressed);
+			} else {
+				writer.copy(source, entry);
+			}
+		}
+	}
+
+	private record Cache(@Nullable RawZipFile zip, Map<String, String> fingerprints) implements Closeable {
+		private static final Cache EMPTY = new Cache(null, Collections.emptyMap());
+
+		static Cache read(Path cacheFile) {
+			if (Files.notExists(cacheFile)) {
+				return EMPTY;
+			}
+
+			RawZipFile zip = null;
+
+			try {
+				zip = RawZipFile.open(cacheFile);
+				final RawZipFile.Entry entry = zip.getEntry(FINGERPRINTS_PATH);
+
+				if (entry != null) {
+					final String json = new String(zip.readBytes(entry), StandardCharsets.UTF_8);
+					final Map<String, String> fingerprints = LoomGradlePlugin.GSON.fromJson(json, new TypeToken<Map<String, String>>() {
+					}.getType());
+
+					if (fingerprints != null) {
+						return new Cache(zip, fingerprints);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// Only a cache
+			}
+
+			try {
+				if (zip != null) {
+					zip.close();
+				}
+			} catch (IOException e) {
+				// Only a cache
+			}
+
+			return EMPTY;
+		}
+
+		@Nullable
+		RawZipFile.Entry getEntry(String name, String fingerprint) {
+			if (zip == null || !fingerprint.equals(fingerprints.get(name))) {
+				return null;
+			}
+
+			return zip.getEntry(name);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (zip != null) {
+				zip.close();
+			}
+		}
+	}
+
+	private static class InjectingClassVisitor extends ClassVisitor {
+		private final List<InjectedInterface> injectedInterfaces;
+
+		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, writer);
+			this.injectedInterfaces = injectedInterfaces;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			Set<String> modifiedInterfaces = new LinkedHashSet<>(interfaces.length + injectedInterfaces.size());
+			Collections.addAll(modifiedInterfaces, interfaces);
+
+			for (InjectedInterface injectedInterface : injectedInterfaces) {
+				modifiedInterfaces.add(injectedInterface.ifaceName());
+			}
+
+			// See JVMS: https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html#jvms-ClassSignature
+			if (signature != null) {
+				var resultingSignature = new StringBuilder(signature);
+
+				for (InjectedInterface injectedInterface : injectedInterfaces) {
+					String superinterfaceSignature = "L" + injectedInterface.ifaceName() + ";";
+
+					if (resultingSignature.indexOf(superinterfaceSignature) == -1) {
+						resultingSignature.append(superinterfaceSignature);
+					}
+				}
+
+				signature = resultingSignature.toString();
+			}
+
+			super.visit(version, access, name, signature, superName, modifiedInterfaces.toArray(new String[0]));
+		}
+	}
+}
@@ -24,30 +24,50 @@
 
 package net.fabricmc.loom.configuration.mods;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonParseException;
 import org.jetbrains.annotations.Nullable;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.task.AbstractRemapJarTask;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
 
+/**
+ * Splits a mod jar built with split source sets into its common and client parts.
+ *
+ * <p>The input jar is read once, and both outputs are written at the same time by copying the entries still compressed.
+ * The outputs remember which input they were split from, so splitting the same input again into the same outputs
+ * does nothing.
+ */
 public class JarSplitter {
 	public static final String MANIFEST_SPLIT_ENV_NAME_KEY = "Fabric-Loom-Split-Environment-Name";
+	// Bump this when the output of the splitter changes
+	private static final int CACHE_VERSION = 1;
 
 	final Path inputJar;
 
@@ -57,55 +77,30 @@ public class JarSplitter {
 
 	@Nullable
 	public Target analyseTarget() {
-		try (FileSystemUtil.Delegate input = FileSystemUtil.getJarFileSystem(inputJar)) {
-			final Manifest manifest = input.fromInputStream(Manifest::new, AbstractRemapJarTask.MANIFEST_PATH);
+		try (RawZipFile input = RawZipFile.open(inputJar)) {
+			final Manifest manifest = readManifest(input);
 
 			if (!Boolean.parseBoolean(manifest.getMainAttributes().getValue(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_KEY))) {
 				// Jar was not built with splitting enabled.
 				return null;
 			}
 
-			final HashSet<String> clientEntries = new HashSet<>(readClientEntries(manifest));
+			final Set<String> clientEntries = new HashSet<>(readClientEntries(manifest));
 
 			if (clientEntries.isEmpty()) {
 				// No client entries.
 				return Target.COMMON_ONLY;
 			}
 
-			final List<String> entries = new LinkedList<>();
-
-			// Must collect all the input entries to see if this might be a client only jar.
-			try (Stream<Path> walk = Files.walk(input.get().getPath("/"))) {
-				final Iterator<Path> iterator = walk.iterator();
-
-				while (iterator.hasNext()) {
-					final Path entry = iterator.next();
-
-					if (!Files.isRegularFile(entry)) {
-						continue;
-					}
-
-					final Path relativePath = input.get().getPath("/").relativize(entry);
-
-					if (relativePath.startsWith("META-INF")) {
-						if (isSignatureData(relativePath)) {
-							// Ignore any signature data
-							continue;
-						}
-
-						if (relativePath.endsWith("MANIFEST.MF")) {
-							// Ignore the manifest
-							continue;
-						}
-					}
-
-					entries.add(relativePath.toString());
+			// Must look at all the input entries to see if this might be a client only jar.
+			for (String entry : input.getFileNames()) {
+				if (entry.equals(AbstractRemapJarTask.MANIFEST_PATH) || isSignatureData(entry)) {
+					// Ignore the manifest and any signature data
+					continue;
 				}
-			}
 
-			for (String entry : entries) {
 				if (!clientEntries.contains(entry)) {
-					// Found a common entry, we need to split,.
+					// Found a common entry, we need to split.
 					return Target.SPLIT;
 				}
 			}
@@ -117,12 +112,12 @@ public class JarSplitter {
 		}
 	}
 
+	/**
+	 * @return {@code false} if the outputs were already split from the same input, and were left untouched
+	 */
 	public boolean split(Path commonOutputJar, Path clientOutputJar) throws IOException {
-		Files.deleteIfExists(commonOutputJar);
-		Files.deleteIfExists(clientOutputJar);
-
-		try (FileSystemUtil.Delegate input = FileSystemUtil.getJarFileSystem(inputJar)) {
-			final Manifest manifest = input.fromInputStream(Manifest::new, AbstractRemapJarTask.MANIFEST_PATH);
+		try (RawZipFile input = RawZipFile.open(inputJar)) {
+			final Manifest manifest = readManifest(input);
 
 			if (!Boolean.parseBoolean(manifest.getMainAttributes().getValue(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_KEY))) {
 				throw new UnsupportedOperationException("Cannot split jar that has not been built with a split env");
@@ -134,66 +129,107 @@ public class JarSplitter {
 				throw new IllegalStateException("Expected to split jar with no client entries");
 			}
 
-			try (FileSystemUtil.Delegate commonOutput = FileSystemUtil.getJarFileSystem(commonOutputJar, true);
-					FileSystemUtil.Delegate clientOutput = FileSystemUtil.getJarFileSystem(clientOutputJar, true);
-					Stream<Path> walk = Files.walk(input.get().getPath("/"))) {
-				final Iterator<Path> iterator = walk.iterator();
+			final Path cacheFile = getCacheFile(commonOutputJar);
+			final String cacheKey = getCacheKey(input, clientEntries);
 
-				while (iterator.hasNext()) {
-					final Path entry = iterator.next();
-
-					if (!Files.isRegularFile(entry)) {
-						continue;
-					}
-
-					final Path relativePath = input.get().getPath("/").relativize(entry);
+			if (isUpToDate(cacheFile, cacheKey, commonOutputJar, clientOutputJar)) {
+				return false;
+			}
 
-					if (relativePath.startsWith("META-INF")) {
-						if (isSignatureData(relativePath)) {
-							// Strip any signature data
-							continue;
-						}
-					}
+			Files.deleteIfExists(cacheFile);
+			Files.deleteIfExists(commonOutputJar);
+			Files.deleteIfExists(clientOutputJar);
 
-					final String entryPath = relativePath.toString();
+			// Sort the entries in a single pass over the central directory
+			final Set<String> clientEntrySet = new HashSet<>(clientEntries);
+			final List<RawZipFile.Entry> commonOutputEntries = new ArrayList<>();
+			final List<RawZipFile.Entry> clientOutputEntries = new ArrayList<>();
 
-					if (entryPath.equals(AbstractRemapJarTask.MANIFEST_PATH)) {
-						continue;
-					}
+			for (RawZipFile.Entry entry : input.entries()) {
+				final String name = entry.name();
 
-					final FileSystemUtil.Delegate target = clientEntries.contains(entryPath) ? clientOutput : commonOutput;
-					final Path outputEntry = target.getPath(entryPath);
-					final Path outputParent = outputEntry.getParent();
+				if (entry.isDirectory() || name.equals(AbstractRemapJarTask.MANIFEST_PATH) || isSignatureData(name)) {
+					// Strip any signature data, the manifest is written again below
+					continue;
+				}
 
-					if (outputParent != null) {
-						Files.createDirectories(outputParent);
-					}
+				(clientEntrySet.contains(name) ? clientOutputEntries : commonOutputEntries).add(entry);
+			}
 
-					Files.copy(entry, outputEntry, StandardCopyOption.COPY_ATTRIBUTES);
+			/*
+			Write the manifest to both jars
+			- Remove signature data
+			- Remove split data as its already been split.
+			- Add env name.
+			 */
+			final Manifest outManifest = new Manifest(manifest);
+			final Attributes attributes = outManifest.getMainAttributes();
+			stripSignatureData(outManifest);
+
+			attributes.remove(Attributes.Name.SIGNATURE_VERSION);
+			Objects.requireNonNull(attributes.remove(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_NAME));
+			Objects.requireNonNull(attributes.remove(AbstractRemapJarTask.MANIFEST_CLIENT_ENTRIES_NAME));
+
+			final long manifestTime = input.getEntry(AbstractRemapJarTask.MANIFEST_PATH).lastModifiedTime();
+			final byte[] commonManifest = writeWithEnvironment(outManifest, "common");
+			final byte[] clientManifest = writeWithEnvironment(outManifest, "client");
+
+			// Write the common jar on another thread while the client jar is written on this one
+			final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+			try {
+				final Future<?> common = executor.submit(() -> {
+					writeJar(input, commonOutputEntries, commonManifest, manifestTime, commonOutputJar);
+					return null;
+				});
+
+				writeJar(input, clientOutputEntries, clientManifest, manifestTime, clientOutputJar);
+				common.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while splitting " + inputJar, e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException ioException) {
+					throw ioException;
 				}
 
-				/*
-				Write the manifest to both jars
-				- Remove signature data
-				- Remove split data as its already been split.
-				- Add env name.
-				 */
-				final Manifest outManifest = new Manifest(manifest);
-				final Attributes attributes = outManifest.getMainAttributes();
-				stripSignatureData(outManifest);
-
-				attributes.remove(Attributes.Name.SIGNATURE_VERSION);
-				Objects.requireNonNull(attributes.remove(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_NAME));
-				Objects.requireNonNull(attributes.remove(AbstractRemapJarTask.MANIFEST_CLIENT_ENTRIES_NAME));
-
-				writeBytes(writeWithEnvironment(outManifest, "common"), commonOutput.getPath(AbstractRemapJarTask.MANIFEST_PATH));
-				writeBytes(writeWithEnvironment(outManifest, "client"), clientOutput.getPath(AbstractRemapJarTask.MANIFEST_PATH));
+				throw new RuntimeException("Failed to split " + inputJar, e.getCause());
+			} finally {
+				executor.shutdownNow();
 			}
+
+			writeCacheState(cacheFile, cacheKey, commonOutputJar, clientOutputJar);
 		}
 
 		return true;
 	}
 
+	private static void writeJar(RawZipFile input, List<RawZipFile.Entry> entries, byte[] manifest, long manifestTime, Path outputJar) throws IOException {
+		final Path parent = outputJar.getParent();
+
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		try (RawZipWriter writer = new RawZipWriter(outputJar)) {
+			writer.write(AbstractRemapJarTask.MANIFEST_PATH, manifest, manifestTime);
+
+			for (RawZipFile.Entry entry : entries) {
+				writer.copy(input, entry);
+			}
+		}
+	}
+
+	private static Manifest readManifest(RawZipFile input) throws IOException {
+		final RawZipFile.Entry entry = input.getEntry(AbstractRemapJarTask.MANIFEST_PATH);
+
+		if (entry == null) {
+			throw new NoSuchFileException(AbstractRemapJarTask.MANIFEST_PATH, null, "Missing from " + input.getPath());
+		}
+
+		return new Manifest(new ByteArrayInputStream(input.readBytes(entry)));
+	}
+
 	private byte[] writeWithEnvironment(Manifest in, String value) throws IOException {
 		final Manifest manifest = new Manifest(in);
 		final Attributes attributes = manifest.getMainAttributes();
@@ -215,8 +251,12 @@ public class JarSplitter {
 		return Arrays.stream(clientEntriesValue.split(";")).toList();
 	}
 
-	private boolean isSignatureData(Path path) {
-		final String fileName = path.getFileName().toString();
+	private static boolean isSignatureData(String path) {
+		if (!path.startsWith("META-INF/")) {
+			return false;
+		}
+
+		final String fileName = path.substring(path.lastIndexOf('/') + 1);
 		return fileName.endsWith(".SF")
 				|| fileName.endsWith(".DSA")
 				|| fileName.endsWith(".RSA")
@@ -241,14 +281,60 @@ public class JarSplitter {
 		}
 	}
 
-	private static void writeBytes(byte[] bytes, Path path) throws IOException {
-		final Path parent = path.getParent();
+	private static Path getCacheFile(Path commonOutputJar) {
+		return commonOutputJar.resolveSibling(commonOutputJar.getFileName() + ".split.json");
+	}
 
-		if (parent != null) {
-			Files.createDirectories(parent);
+	/**
+	 * The central directory covers the name, size and CRC of every entry, including the manifest with the split rules.
+	 */
+	private static String getCacheKey(RawZipFile input, List<String> clientEntries) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putInt(CACHE_VERSION);
+		hasher.putString(input.getCentralDirectoryHash(), StandardCharsets.UTF_8);
+
+		for (String entry : clientEntries) {
+			hasher.putString(entry, StandardCharsets.UTF_8).putByte((byte) 0);
 		}
 
-		Files.write(path, bytes);
+		return hasher.hash().toString();
+	}
+
+	private static boolean isUpToDate(Path cacheFile, String cacheKey, Path commonOutputJar, Path clientOutputJar) throws IOException {
+		if (!Files.exists(cacheFile)) {
+			return false;
+		}
+
+		final CacheState state;
+
+		try {
+			state = LoomGradlePlugin.GSON.fromJson(Files.readString(cacheFile), CacheState.class);
+		} catch (JsonParseException e) {
+			return false;
+		}
+
+		return state != null
+				&& cacheKey.equals(state.key())
+				&& state.common() != null && state.common().matches(commonOutputJar)
+				&& state.client() != null && state.client().matches(clientOutputJar);
+	}
+
+	private static void writeCacheState(Path cacheFile, String cacheKey, Path commonOutputJar, Path clientOutputJar) throws IOException {
+		final CacheState state = new CacheState(cacheKey, OutputState.of(commonOutputJar), OutputState.of(clientOutputJar));
+		Files.writeString(cacheFile, LoomGradlePlugin.GSON.toJson(state));
+	}
+
+	private record CacheState(String key, OutputState common, OutputState client) {
+	}
+
+	private record OutputState(long size, long lastModified) {
+		static OutputState of(Path path) throws IOException {
+			return new OutputState(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+		}
+
+		boolean matches(Path path) throws IOException {
+			return Files.exists(path) && equals(of(path));
+		}
 	}
 
 	public enum Target {
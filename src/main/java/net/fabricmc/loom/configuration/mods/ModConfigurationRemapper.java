@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
@@ -42,17 +43,12 @@ import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.FileCollectionDependency;
 import org.gradle.api.artifacts.MutableVersionConstraint;
 import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
-import org.gradle.api.artifacts.query.ArtifactResolutionQuery;
-import org.gradle.api.artifacts.result.ArtifactResult;
-import org.gradle.api.artifacts.result.ComponentArtifactsResult;
-import org.gradle.api.artifacts.result.ResolvedArtifactResult;
 import org.gradle.api.attributes.Usage;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.tasks.SourceSet;
-import org.gradle.jvm.JvmLibrary;
-import org.gradle.language.base.artifact.SourcesArtifact;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
@@ -125,6 +121,7 @@ public class ModConfigurationRemapper {
 		// the installer data. The installer data has to be added before
 		// any mods are remapped since remapping needs the dependencies provided by that data.
 		final Map<Configuration, List<ModDependency>> dependenciesBySourceConfig = new HashMap<>();
+		final SourcesResolver sourcesResolver = SourcesResolver.create(project);
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
 			/*
 			sourceConfig - The source configuration where the intermediary named artifacts come from. i.e "modApi"
@@ -133,7 +130,7 @@ public class ModConfigurationRemapper {
 			final Configuration clientRemappedConfig = clientConfigsToRemap.get(sourceConfig);
 			final List<ModDependency> modDependencies = new ArrayList<>();
 
-			for (ArtifactRef artifact : resolveArtifacts(project, sourceConfig)) {
+			for (ArtifactRef artifact : resolveArtifacts(project, sourceConfig, sourcesResolver)) {
 				final ArtifactMetadata artifactMetadata;
 
 				try {
@@ -225,12 +222,16 @@ public class ModConfigurationRemapper {
 		}
 	}
 
-	private static List<ArtifactRef> resolveArtifacts(Project project, Configuration configuration) {
+	private static List<ArtifactRef> resolveArtifacts(Project project, Configuration configuration, SourcesResolver sourcesResolver) {
 		final List<ArtifactRef> artifacts = new ArrayList<>();
-
-		for (ResolvedArtifact artifact : configuration.getResolvedConfiguration().getResolvedArtifacts()) {
-			final Path sources = findSources(project, artifact);
-			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact, sources));
+		final Set<ResolvedArtifact> resolvedArtifacts = configuration.getResolvedConfiguration().getResolvedArtifacts();
+		// Resolve the sources of every component in one go
+		final Map<ComponentIdentifier, Path> sources = sourcesResolver.findSources(resolvedArtifacts.stream()
+				.map(artifact -> artifact.getId().getComponentIdentifier())
+				.toList());
+
+		for (ResolvedArtifact artifact : resolvedArtifacts) {
+			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact, sources.get(artifact.getId().getComponentIdentifier())));
 		}
 
 		// FileCollectionDependency (files/fileTree) doesn't resolve properly,
@@ -257,21 +258,13 @@ public class ModConfigurationRemapper {
 
 	@Nullable
 	public static Path findSources(Project project, ResolvedArtifact artifact) {
-		final DependencyHandler dependencies = project.getDependencies();
-
-		@SuppressWarnings("unchecked") ArtifactResolutionQuery query = dependencies.createArtifactResolutionQuery()
-				.forComponents(artifact.getId().getComponentIdentifier())
-				.withArtifacts(JvmLibrary.class, SourcesArtifact.class);
-
-		for (ComponentArtifactsResult result : query.execute().getResolvedComponents()) {
-			for (ArtifactResult srcArtifact : result.getArtifacts(SourcesArtifact.class)) {
-				if (srcArtifact instanceof ResolvedArtifactResult) {
-					return ((ResolvedArtifactResult) srcArtifact).getFile().toPath();
-				}
-			}
-		}
+		return findSources(SourcesResolver.create(project), artifact);
+	}
 
-		return null;
+	@Nullable
+	public static Path findSources(SourcesResolver sourcesResolver, ResolvedArtifact artifact) {
+		final ComponentIdentifier component = artifact.getId().getComponentIdentifier();
+		return sourcesResolver.findSources(List.of(component)).get(component);
 	}
 
 	private static void scheduleSourcesRemapping(Project project, SourceRemapper sourceRemapper, ModDependency dependency) {
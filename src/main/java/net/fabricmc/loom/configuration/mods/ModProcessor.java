@@ -63,7 +63,7 @@ import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
-import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.AtRemapper;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
@@ -170,11 +170,9 @@ public class ModProcessor {
 				.renameInvalidLocals(false);
 
 		final KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(serviceManager, project);
-		KotlinRemapperClassloader kotlinRemapperClassloader = null;
 
 		if (kotlinClasspathService != null) {
-			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspathService);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+			builder.extension(KotlinRemapperClassloaderService.getOrCreate(serviceManager, kotlinClasspathService).getTinyRemapperExtension());
 		}
 
 		final TinyRemapper remapper = builder.build();
@@ -235,10 +233,6 @@ public class ModProcessor {
 			}
 		} finally {
 			remapper.finish();
-
-			if (kotlinRemapperClassloader != null) {
-				kotlinRemapperClassloader.close();
-			}
 		}
 
 		project.getLogger().lifecycle(":remapped {} mods ({} -> {}) in {}", remapList.size(), fromM, toM, stopwatch.stop());
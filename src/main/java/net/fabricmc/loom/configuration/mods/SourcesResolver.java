@@ -0,0 +1,175 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.mods;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.reflect.TypeToken;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.query.ArtifactResolutionQuery;
+import org.gradle.api.artifacts.result.ArtifactResult;
+import org.gradle.api.artifacts.result.ComponentArtifactsResult;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.artifacts.result.UnresolvedArtifactResult;
+import org.gradle.jvm.JvmLibrary;
+import org.gradle.language.base.artifact.SourcesArtifact;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.util.CacheIndexFile;
+
+/**
+ * Finds the sources artifacts of components, resolving all unknown components with a single query.
+ *
+ * <p>The results for released module versions are kept in a persistent index keyed on the module coordinates,
+ * including modules known to have no sources, so that later builds don't query the repositories again.
+ * Snapshots, project and file components are never indexed, and neither are failed or unresolved lookups
+ * or any missing sources while Gradle is offline. The index is ignored when refreshing dependencies.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public final class SourcesResolver {
+	// Marks a module without sources in the index
+	private static final String NO_SOURCES = "";
+
+	private final Project project;
+	private final Path indexFile;
+	private final Map<String, String> index;
+	private boolean dirty = false;
+
+	public SourcesResolver(Project project, Path indexFile, boolean refresh) {
+		this.project = project;
+		this.indexFile = indexFile;
+		this.index = refresh ? new TreeMap<>() : CacheIndexFile.read(indexFile, new TypeToken<Map<String, String>>() {
+		});
+	}
+
+	public static SourcesResolver create(Project project) {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final Path indexFile = extension.getFiles().getProjectPersistentCache().toPath().resolve("sources-index.json");
+		return new SourcesResolver(project, indexFile, extension.refreshDeps());
+	}
+
+	/**
+	 * @return the sources of the components that have them
+	 */
+	public Map<ComponentIdentifier, Path> findSources(Iterable<ComponentIdentifier> components) {
+		final Map<ComponentIdentifier, Path> sources = new HashMap<>();
+		final Set<ComponentIdentifier> toResolve = new LinkedHashSet<>();
+
+		for (ComponentIdentifier component : components) {
+			final String key = getIndexKey(component);
+			final String indexed = key != null ? index.get(key) : null;
+
+			if (indexed == null) {
+				toResolve.add(component);
+			} else if (!indexed.equals(NO_SOURCES)) {
+				final Path path = Paths.get(indexed);
+
+				if (Files.exists(path)) {
+					sources.put(component, path);
+				} else {
+					// Removed from the Gradle cache since
+					toResolve.add(component);
+				}
+			}
+		}
+
+		if (!toResolve.isEmpty()) {
+			resolve(toResolve, sources);
+		}
+
+		if (dirty) {
+			writeIndex();
+		}
+
+		return sources;
+	}
+
+	private void resolve(Set<ComponentIdentifier> components, Map<ComponentIdentifier, Path> sources) {
+		project.getLogger().info("Resolving sources of {} components", components.size());
+
+		@SuppressWarnings("unchecked") ArtifactResolutionQuery query = project.getDependencies().createArtifactResolutionQuery()
+				.forComponents(components)
+				.withArtifacts(JvmLibrary.class, SourcesArtifact.class);
+
+		// Offline, a missing artifact may just not be cached yet
+		final boolean offline = project.getGradle().getStartParameter().isOffline();
+
+		for (ComponentArtifactsResult result : query.execute().getResolvedComponents()) {
+			Path path = null;
+			boolean failed = false;
+
+			for (ArtifactResult srcArtifact : result.getArtifacts(SourcesArtifact.class)) {
+				if (srcArtifact instanceof ResolvedArtifactResult resolved) {
+					path = resolved.getFile().toPath();
+					break;
+				} else if (srcArtifact instanceof UnresolvedArtifactResult) {
+					failed = true;
+				}
+			}
+
+			final String key = getIndexKey(result.getId());
+
+			if (path != null) {
+				sources.put(result.getId(), path);
+
+				if (key != null) {
+					index.put(key, path.toAbsolutePath().toString());
+					dirty = true;
+				}
+			} else if (key != null && !failed && !offline) {
+				index.put(key, NO_SOURCES);
+				dirty = true;
+			}
+		}
+	}
+
+	private static String getIndexKey(ComponentIdentifier component) {
+		if (component instanceof ModuleComponentIdentifier module && !module.getVersion().endsWith("-SNAPSHOT")) {
+			return module.getGroup() + ":" + module.getModule() + ":" + module.getVersion();
+		}
+
+		return null;
+	}
+
+	private void writeIndex() {
+		try {
+			CacheIndexFile.write(indexFile, index);
+			dirty = false;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write sources index", e);
+		}
+	}
+}
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.processors;
 
 import dev.architectury.tinyremapper.TinyRemapper;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MappingProcessorContext;
@@ -36,4 +37,11 @@ public record MappingProcessorContextImpl(ConfigContext configContext) implement
 	public LazyCloseable<TinyRemapper> createRemapper(MappingsNamespace from, MappingsNamespace to) {
 		return ContextImplHelper.createRemapper(configContext, from, to);
 	}
+
+	/**
+	 * Returns the remapper shared for the whole build, see {@link net.fabricmc.loom.api.processor.ProcessorContext#getMappingsRemapper}.
+	 */
+	public Remapper getMappingsRemapper(MappingsNamespace from, MappingsNamespace to) {
+		return MappingTreeRemapperService.getOrCreate(configContext, from, to).getRemapper();
+	}
 }
@@ -0,0 +1,68 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.util.MappingTreeRemapper;
+import net.fabricmc.loom.util.service.SharedService;
+
+/**
+ * Shares a {@link MappingTreeRemapper} between all the processors using the same Minecraft version and mappings,
+ * so that the index is only built once per build rather than for every processor invocation.
+ */
+public final class MappingTreeRemapperService implements SharedService {
+	private final MappingTreeRemapper remapper;
+
+	private MappingTreeRemapperService(MappingTreeRemapper remapper) {
+		this.remapper = remapper;
+	}
+
+	public static synchronized MappingTreeRemapperService getOrCreate(ConfigContext configContext, MappingsNamespace from, MappingsNamespace to) {
+		final LoomGradleExtension extension = configContext.extension();
+		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
+		final String id = "MappingTreeRemapperService:%s:%s:%s:%s".formatted(extension.getMinecraftProvider().minecraftVersion(), mappingConfiguration.mappingsIdentifier(), from, to);
+
+		return configContext.serviceManager().getOrCreateService(id, () -> {
+			final List<Path> minecraftJars = extension.getMinecraftJars(from);
+			final MappingTreeRemapper remapper = MappingTreeRemapper.create(
+					mappingConfiguration.getMappingsService(configContext.serviceManager()).getMappingTree(),
+					from.toString(),
+					to.toString(),
+					() -> MappingTreeRemapper.readHierarchy(minecraftJars)
+			);
+			return new MappingTreeRemapperService(remapper);
+		});
+	}
+
+	public MappingTreeRemapper getRemapper() {
+		return remapper;
+	}
+}
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.processors;
 
 import dev.architectury.tinyremapper.TinyRemapper;
+import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -61,6 +62,11 @@ public record ProcessorContextImpl(ConfigContext configContext, MinecraftJar min
 		return ContextImplHelper.createRemapper(configContext, from, to);
 	}
 
+	@Override
+	public Remapper getMappingsRemapper(MappingsNamespace from, MappingsNamespace to) {
+		return MappingTreeRemapperService.getOrCreate(configContext, from, to).getRemapper();
+	}
+
 	@Override
 	public MemoryMappingTree getMappings() {
 		LoomGradleExtension extension = LoomGradleExtension.get(configContext().project());
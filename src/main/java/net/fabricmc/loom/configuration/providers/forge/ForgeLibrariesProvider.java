@@ -43,6 +43,7 @@ import org.gradle.api.artifacts.ResolvedConfiguration;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.mods.ModConfigurationRemapper;
+import net.fabricmc.loom.configuration.mods.SourcesResolver;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.util.Constants;
@@ -89,6 +90,7 @@ public class ForgeLibrariesProvider {
 		final ResolvedConfiguration config = project.getConfigurations()
 				.detachedConfiguration(dependencies.toArray(new Dependency[0]))
 				.getResolvedConfiguration();
+		final SourcesResolver sourcesResolver = SourcesResolver.create(project);
 
 		for (ResolvedArtifact artifact : config.getResolvedArtifacts()) {
 			final ModuleVersionIdentifier id = artifact.getModuleVersion().getId();
@@ -97,7 +99,7 @@ public class ForgeLibrariesProvider {
 			if (FML_LOADER_GROUP.equals(id.getGroup()) && FML_LOADER_NAME.equals(id.getName())) {
 				// If FML, remap it.
 				try {
-					dep = remapFmlLoader(project, artifact, mappingConfiguration);
+					dep = remapFmlLoader(project, artifact, mappingConfiguration, sourcesResolver);
 				} catch (IOException e) {
 					throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Could not remap FML", e);
 				}
@@ -116,7 +118,7 @@ public class ForgeLibrariesProvider {
 	}
 
 	// Returns a Gradle dependency notation.
-	private static Object remapFmlLoader(Project project, ResolvedArtifact artifact, MappingConfiguration mappingConfiguration) throws IOException {
+	private static Object remapFmlLoader(Project project, ResolvedArtifact artifact, MappingConfiguration mappingConfiguration, SourcesResolver sourcesResolver) throws IOException {
 		project.getLogger().info(":remapping FML loader");
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 
@@ -154,7 +156,7 @@ public class ForgeLibrariesProvider {
 
 			// Copy sources when not running under CI.
 			if (!OperatingSystem.isCIBuild()) {
-				final Path sourcesJar = ModConfigurationRemapper.findSources(project, artifact);
+				final Path sourcesJar = ModConfigurationRemapper.findSources(sourcesResolver, artifact);
 
 				if (sourcesJar != null) {
 					mavenHelper.copyToMaven(sourcesJar, "sources");
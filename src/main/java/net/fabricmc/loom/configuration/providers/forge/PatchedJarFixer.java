@@ -0,0 +1,202 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import de.oceanlabs.mcp.mcinjector.adaptors.ParameterAnnotationFixer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Applies the fixups needed after binary patching to a patched Minecraft jar in a single pass.
+ *
+ * <p>Each class of the patched jar, and each class of the clean jar that the patcher did not emit,
+ * is read once, transformed by one chained visitor and written to the output jar once.
+ * Non-class entries are copied as-is.
+ */
+public final class PatchedJarFixer {
+	private static final Pattern VIGNETTE_PARAMETERS = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?");
+
+	private PatchedJarFixer() {
+	}
+
+	/**
+	 * @param clean the jar that was patched, used to restore classes missing from the patched jar
+	 * @param patched the output of the binary patcher
+	 * @param output the jar to write
+	 * @param fixParameterAnnotations whether to run {@link ParameterAnnotationFixer} on every class
+	 */
+	public static void fix(Path clean, Path patched, Path output, boolean fixParameterAnnotations) throws IOException {
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (ZipFile patchedZip = new ZipFile(patched.toFile());
+				ZipFile cleanZip = new ZipFile(clean.toFile());
+				ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+			List<Source> sources = new ArrayList<>();
+			Set<String> names = new HashSet<>();
+
+			patchedZip.stream().forEach(entry -> {
+				sources.add(new Source(patchedZip, entry));
+				names.add(entry.getName());
+			});
+
+			cleanZip.stream()
+					.filter(entry -> entry.getName().endsWith(".class") && !names.contains(entry.getName()))
+					.forEach(entry -> sources.add(new Source(cleanZip, entry)));
+
+			// Keep a bounded window of classes in flight so the jar is never held in memory as a whole.
+			int window = threads * 4;
+			Queue<Pending> pending = new ArrayDeque<>();
+
+			for (Source source : sources) {
+				pending.add(submit(executor, source, fixParameterAnnotations));
+
+				if (pending.size() >= window) {
+					write(out, pending.remove());
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				write(out, pending.remove());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Pending submit(ExecutorService executor, Source source, boolean fixParameterAnnotations) {
+		if (source.entry().isDirectory() || !source.entry().getName().endsWith(".class")) {
+			return new Pending(source, null);
+		}
+
+		return new Pending(source, executor.submit(() -> {
+			try (InputStream input = source.zip().getInputStream(source.entry())) {
+				return transform(input.readAllBytes(), fixParameterAnnotations);
+			}
+		}));
+	}
+
+	private static void write(ZipOutputStream out, Pending pending) throws IOException {
+		ZipEntry entry = pending.source().entry();
+		ZipEntry outEntry = new ZipEntry(entry.getName());
+		outEntry.setTime(entry.getTime());
+		out.putNextEntry(outEntry);
+
+		if (pending.bytes() != null) {
+			try {
+				out.write(pending.bytes().get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while fixing " + entry.getName(), e);
+			} catch (ExecutionException e) {
+				throw new IOException("Failed to fix " + entry.getName(), e.getCause());
+			}
+		} else if (!entry.isDirectory()) {
+			try (InputStream input = pending.source().zip().getInputStream(entry)) {
+				input.transferTo(out);
+			}
+		}
+
+		out.closeEntry();
+	}
+
+	private static byte[] transform(byte[] bytes, boolean fixParameterAnnotations) {
+		ClassReader reader = new ClassReader(bytes);
+
+		if (fixParameterAnnotations) {
+			ClassNode node = new ClassNode();
+			reader.accept(new ParameterNameStripper(new ParameterAnnotationFixer(node, null)), 0);
+
+			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+			node.accept(writer);
+			return writer.toByteArray();
+		}
+
+		ClassWriter writer = new ClassWriter(0);
+		reader.accept(new ParameterNameStripper(writer), 0);
+		return writer.toByteArray();
+	}
+
+	private record Source(ZipFile zip, ZipEntry entry) {
+	}
+
+	private record Pending(Source source, Future<byte[]> bytes) {
+	}
+
+	/**
+	 * Removes the SRG ("vignette") parameter names, which are not useful once the jar is remapped.
+	 */
+	private static final class ParameterNameStripper extends ClassVisitor {
+		ParameterNameStripper(ClassVisitor classVisitor) {
+			super(Opcodes.ASM9, classVisitor);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+				@Override
+				public void visitParameter(String name, int access) {
+					if (name != null && VIGNETTE_PARAMETERS.matcher(name).matches()) {
+						super.visitParameter(null, access);
+					} else {
+						super.visitParameter(name, access);
+					}
+				}
+
+				@Override
+				public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+					if (!VIGNETTE_PARAMETERS.matcher(name).matches()) {
+						super.visitLocalVariable(name, descriptor, signature, start, end, index);
+					}
+				}
+			};
+		}
+	}
+}
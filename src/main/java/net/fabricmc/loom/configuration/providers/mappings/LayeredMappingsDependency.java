@@ -24,18 +24,23 @@
 
 package net.fabricmc.loom.configuration.providers.mappings;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.gradle.api.Action;
 import org.gradle.api.Project;
@@ -60,7 +65,6 @@ import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.Tiny2Writer;
@@ -90,14 +94,18 @@ public class LayeredMappingsDependency extends AbstractModuleDependency implemen
 
 		if (!Files.exists(mappingsFile) || mappingContext.refreshDeps()) {
 			try {
-				var processor = new LayeredMappingsProcessor(layeredMappingSpec);
+				// Prefix layers are not reused when refreshing, but are still written for the next build.
+				var processor = new LayeredMappingsProcessor(layeredMappingSpec, mappingContext.refreshDeps() ? null : mappingsDir.resolve("cache"));
 				List<MappingLayer> layers = processor.resolveLayers(mappingContext);
+				Path tempFile = mappingsDir.resolve(mappingsFile.getFileName() + ".tmp");
 
-				Files.deleteIfExists(mappingsFile);
+				try (ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					writeMapping(processor, layers, zipOutputStream);
+					writeSignatureFixes(processor, layers, zipOutputStream);
+					writeUnpickData(processor, layers, zipOutputStream);
+				}
 
-				writeMapping(processor, layers, mappingsFile);
-				writeSignatureFixes(processor, layers, mappingsFile);
-				writeUnpickData(processor, layers, mappingsFile);
+				Files.move(tempFile, mappingsFile, StandardCopyOption.REPLACE_EXISTING);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to resolve layered mappings", e);
 			}
@@ -106,22 +114,24 @@ public class LayeredMappingsDependency extends AbstractModuleDependency implemen
 		return Collections.singleton(mappingsFile.toFile());
 	}
 
-	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
+	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, ZipOutputStream zipOutputStream) throws IOException {
 		MemoryMappingTree mappings = processor.getMappings(layers);
 
-		try (Writer writer = new StringWriter()) {
-			Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
+		zipOutputStream.putNextEntry(new ZipEntry("mappings/mappings.tiny"));
 
-			MappingDstNsReorder nsReorder = new MappingDstNsReorder(tiny2Writer, Collections.singletonList(MappingsNamespace.NAMED.toString()));
-			MappingSourceNsSwitch nsSwitch = new MappingSourceNsSwitch(nsReorder, MappingsNamespace.INTERMEDIARY.toString(), true);
-			mappings.accept(nsSwitch);
+		// Not closed, as that would close the zip stream.
+		Writer writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8));
+		Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
 
-			Files.deleteIfExists(mappingsFile);
-			ZipUtils.add(mappingsFile, "mappings/mappings.tiny", writer.toString().getBytes(StandardCharsets.UTF_8));
-		}
+		MappingDstNsReorder nsReorder = new MappingDstNsReorder(tiny2Writer, Collections.singletonList(MappingsNamespace.NAMED.toString()));
+		MappingSourceNsSwitch nsSwitch = new MappingSourceNsSwitch(nsReorder, MappingsNamespace.INTERMEDIARY.toString(), true);
+		mappings.accept(nsSwitch);
+
+		writer.flush();
+		zipOutputStream.closeEntry();
 	}
 
-	private void writeSignatureFixes(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
+	private void writeSignatureFixes(LayeredMappingsProcessor processor, List<MappingLayer> layers, ZipOutputStream zipOutputStream) throws IOException {
 		Map<String, String> signatureFixes = processor.getSignatureFixes(layers);
 
 		if (signatureFixes == null) {
@@ -130,18 +140,24 @@ public class LayeredMappingsDependency extends AbstractModuleDependency implemen
 
 		byte[] data = LoomGradlePlugin.OBJECT_MAPPER.writeValueAsString(signatureFixes).getBytes(StandardCharsets.UTF_8);
 
-		ZipUtils.add(mappingsFile, "extras/record_signatures.json", data);
+		writeEntry(zipOutputStream, "extras/record_signatures.json", data);
 	}
 
-	private void writeUnpickData(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
+	private void writeUnpickData(LayeredMappingsProcessor processor, List<MappingLayer> layers, ZipOutputStream zipOutputStream) throws IOException {
 		UnpickLayer.UnpickData unpickData = processor.getUnpickData(layers);
 
 		if (unpickData == null) {
 			return;
 		}
 
-		ZipUtils.add(mappingsFile, "extras/definitions.unpick", unpickData.definitions());
-		ZipUtils.add(mappingsFile, "extras/unpick.json", unpickData.metadata().asJson());
+		writeEntry(zipOutputStream, "extras/definitions.unpick", unpickData.definitions());
+		writeEntry(zipOutputStream, "extras/unpick.json", unpickData.metadata().asJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeEntry(ZipOutputStream zipOutputStream, String name, byte[] data) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		zipOutputStream.write(data);
+		zipOutputStream.closeEntry();
 	}
 
 	@Override
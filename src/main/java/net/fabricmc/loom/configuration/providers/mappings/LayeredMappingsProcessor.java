@@ -25,6 +25,11 @@
 package net.fabricmc.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +38,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
@@ -40,14 +47,33 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
 import net.fabricmc.loom.configuration.providers.mappings.extras.signatures.SignatureFixesLayer;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.Tiny2Writer;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class LayeredMappingsProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LayeredMappingsProcessor.class);
+	// Bump when the way layers are merged changes, to invalidate existing cache entries.
+	private static final int CACHE_VERSION = 1;
+
 	private final LayeredMappingSpec layeredMappingSpec;
+	@Nullable
+	private final Path cacheDirectory;
 
 	public LayeredMappingsProcessor(LayeredMappingSpec spec) {
+		this(spec, null);
+	}
+
+	/**
+	 * @param cacheDirectory a directory used to cache the merged mappings of each prefix of the layers,
+	 *                       keyed by the hash of the specs in that prefix. When null nothing is cached.
+	 */
+	public LayeredMappingsProcessor(LayeredMappingSpec spec, @Nullable Path cacheDirectory) {
 		this.layeredMappingSpec = spec;
+		this.cacheDirectory = cacheDirectory;
 	}
 
 	public List<MappingLayer> resolveLayers(MappingContext context) {
@@ -71,42 +97,118 @@ public class LayeredMappingsProcessor {
 	}
 
 	public MemoryMappingTree getMappings(List<MappingLayer> layers) throws IOException {
+		// The cache keys come from the specs, so they can only be used for the layers resolved from them.
+		final boolean useCache = cacheDirectory != null && layers.size() == layeredMappingSpec.layers().size();
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
+		int firstLayer = 0;
+
+		if (useCache) {
+			// Find the longest prefix of layers that has already been merged, the full set is cached by the caller.
+			for (int i = layers.size() - 1; i > 0; i--) {
+				MemoryMappingTree cached = readCachedLayers(i);
+
+				if (cached != null) {
+					LOGGER.info("Reusing {} of {} cached mapping layers", i, layers.size());
+					mappingTree = cached;
+					firstLayer = i;
+					break;
+				}
+			}
+		}
 
-		for (MappingLayer layer : layers) {
-			// We have to rebuild a new tree to work on when a layer doesnt merge into layered
-			boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
-			MemoryMappingTree workingTree;
+		for (int i = firstLayer; i < layers.size(); i++) {
+			mappingTree = visitLayer(mappingTree, layers.get(i));
 
-			if (rebuild) {
-				var tempTree = new MemoryMappingTree();
+			if (useCache && i + 1 < layers.size()) {
+				writeCachedLayers(i + 1, mappingTree);
+			}
+		}
 
-				// This can be null on the first layer
-				if (mappingTree.getSrcNamespace() != null) {
-					var sourceNsSwitch = new MappingSourceNsSwitch(tempTree, layer.getSourceNamespace().toString());
-					mappingTree.accept(sourceNsSwitch);
-				}
+		return mappingTree;
+	}
 
-				workingTree = tempTree;
-			} else {
-				workingTree = mappingTree;
-			}
+	private MemoryMappingTree visitLayer(MemoryMappingTree mappingTree, MappingLayer layer) throws IOException {
+		// We have to rebuild a new tree to work on when a layer doesnt merge into layered
+		boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
+		MemoryMappingTree workingTree;
 
-			try {
-				layer.visit(workingTree);
-			} catch (IOException e) {
-				throw new IOException("Failed to visit: " + layer.getClass(), e);
-			}
+		if (rebuild) {
+			var tempTree = new MemoryMappingTree();
 
-			if (rebuild) {
-				mappingTree = new MemoryMappingTree();
-				workingTree.accept(new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
+			// This can be null on the first layer
+			if (mappingTree.getSrcNamespace() != null) {
+				var sourceNsSwitch = new MappingSourceNsSwitch(tempTree, layer.getSourceNamespace().toString());
+				mappingTree.accept(sourceNsSwitch);
 			}
+
+			workingTree = tempTree;
+		} else {
+			workingTree = mappingTree;
+		}
+
+		try {
+			layer.visit(workingTree);
+		} catch (IOException e) {
+			throw new IOException("Failed to visit: " + layer.getClass(), e);
+		}
+
+		if (rebuild) {
+			mappingTree = new MemoryMappingTree();
+			workingTree.accept(new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
 		}
 
 		return mappingTree;
 	}
 
+	/**
+	 * Returns the hash identifying the first {@code layerCount} layers, based on the hash codes of their specs.
+	 */
+	public String getLayersHash(int layerCount) {
+		StringBuilder key = new StringBuilder("v").append(CACHE_VERSION);
+
+		for (MappingsSpec<?> spec : layeredMappingSpec.layers().subList(0, layerCount)) {
+			key.append('|').append(spec.getClass().getName()).append('#').append(spec.hashCode());
+		}
+
+		return Checksum.toHex(Checksum.sha256(key.toString())).substring(0, 32);
+	}
+
+	private Path getCachedLayersPath(int layerCount) {
+		return cacheDirectory.resolve(getLayersHash(layerCount) + ".tiny");
+	}
+
+	@Nullable
+	private MemoryMappingTree readCachedLayers(int layerCount) {
+		final Path path = getCachedLayersPath(layerCount);
+
+		if (!Files.exists(path)) {
+			return null;
+		}
+
+		try {
+			MemoryMappingTree mappingTree = new MemoryMappingTree();
+			MappingReader.read(path, MappingFormat.TINY_2, mappingTree);
+			return mappingTree;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to read cached mapping layers from {}, ignoring", path, e);
+			return null;
+		}
+	}
+
+	private void writeCachedLayers(int layerCount, MemoryMappingTree mappingTree) throws IOException {
+		final Path path = getCachedLayersPath(layerCount);
+		final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.createDirectories(path.getParent());
+
+		try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8);
+				Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false)) {
+			mappingTree.accept(tiny2Writer);
+		}
+
+		// Move into place atomically so a concurrent build never sees a partially written file.
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
 	@Nullable
 	public Map<String, String> getSignatureFixes(List<MappingLayer> layers) {
 		Map<String, String> signatureFixes = new HashMap<>();
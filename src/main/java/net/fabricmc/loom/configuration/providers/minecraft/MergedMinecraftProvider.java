@@ -32,7 +32,6 @@ import java.util.List;
 import java.util.Objects;
 
 import net.fabricmc.loom.configuration.ConfigContext;
-import net.fabricmc.stitch.merge.JarMerger;
 
 public class MergedMinecraftProvider extends MinecraftProvider {
 	private Path minecraftMergedJar;
@@ -86,7 +85,7 @@ public class MergedMinecraftProvider extends MinecraftProvider {
 
 		Objects.requireNonNull(jarToMerge, "Cannot merge null input jar?");
 
-		try (JarMerger jarMerger = new JarMerger(getMinecraftClientJar(), jarToMerge, minecraftMergedJar.toFile())) {
+		try (MinecraftJarMerger jarMerger = new MinecraftJarMerger(getMinecraftClientJar().toPath(), jarToMerge.toPath(), minecraftMergedJar)) {
 			jarMerger.enableSyntheticParamsOffset();
 			jarMerger.merge();
 		}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
+import net.fabricmc.stitch.merge.ClassMerger;
+import net.fabricmc.stitch.util.SyntheticParameterClassVisitor;
+
+/**
+ * Merges the client and server jars into a single jar, producing the same output as stitch's {@code JarMerger}.
+ *
+ * <p>Classes are read, merged and compressed in parallel, and then written in order. Entries that are not changed
+ * by merging, such as assets, are copied without being decompressed.
+ */
+public class MinecraftJarMerger implements AutoCloseable {
+	private static final ClassMerger CLASS_MERGER = new ClassMerger();
+	private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+	private static final byte[] MANIFEST = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+
+	private final RawZipFile inputClient;
+	private final RawZipFile inputServer;
+	private final Path output;
+	private boolean offsetSyntheticsParams = false;
+
+	public MinecraftJarMerger(Path inputClient, Path inputServer, Path output) throws IOException {
+		this.output = Objects.requireNonNull(output);
+		this.inputClient = RawZipFile.open(inputClient);
+
+		try {
+			this.inputServer = RawZipFile.open(inputServer);
+		} catch (IOException e) {
+			this.inputClient.close();
+			throw e;
+		}
+	}
+
+	public void enableSyntheticParamsOffset() {
+		offsetSyntheticsParams = true;
+	}
+
+	public void merge() throws IOException {
+		Map<String, RawZipFile.Entry> entriesClient = readEntries(inputClient);
+		Map<String, RawZipFile.Entry> entriesServer = readEntries(inputServer);
+		TreeSet<String> entriesAll = new TreeSet<>(entriesClient.keySet());
+		entriesAll.addAll(entriesServer.keySet());
+
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Files.deleteIfExists(output);
+
+		try (RawZipWriter writer = new RawZipWriter(output)) {
+			// Keep a bounded window of entries in flight, so that merged classes are written as soon as possible.
+			int window = threads * 4;
+			Queue<Future<Output>> pending = new ArrayDeque<>();
+
+			for (String name : entriesAll) {
+				RawZipFile.Entry client = entriesClient.get(name);
+				RawZipFile.Entry server = entriesServer.get(name);
+				pending.add(executor.submit(() -> mergeEntry(name, client, server)));
+
+				if (pending.size() >= window) {
+					write(writer, pending.remove());
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				write(writer, pending.remove());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Map<String, RawZipFile.Entry> readEntries(RawZipFile zip) {
+		Map<String, RawZipFile.Entry> entries = new HashMap<>();
+
+		for (RawZipFile.Entry entry : zip.entries()) {
+			String name = entry.name();
+
+			if (entry.isDirectory()) {
+				continue;
+			}
+
+			if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"))) {
+				continue;
+			}
+
+			entries.put(name, entry);
+		}
+
+		return entries;
+	}
+
+	@Nullable
+	private Output mergeEntry(String name, @Nullable RawZipFile.Entry client, @Nullable RawZipFile.Entry server) throws IOException {
+		if (name.equals(MANIFEST_PATH)) {
+			RawZipFile.Entry entry = client != null ? client : server;
+			return Output.of(RawZipWriter.compress(name, MANIFEST, entry.lastModifiedTime()));
+		}
+
+		boolean isClass = name.endsWith(".class");
+		boolean isMinecraft = client != null || name.startsWith("net/minecraft") || !name.contains("/");
+
+		if (!isClass) {
+			// Non-class files present in both jars are taken from the client
+			return client != null ? Output.copy(inputClient, client) : Output.copy(inputServer, server);
+		}
+
+		String side = null;
+		RawZipFile source;
+		RawZipFile.Entry entry;
+		byte[] data;
+
+		if (client != null && server != null) {
+			source = inputClient;
+			entry = client;
+			data = inputClient.readBytes(client);
+			byte[] serverData = inputServer.readBytes(server);
+
+			if (!Arrays.equals(data, serverData)) {
+				data = CLASS_MERGER.merge(data, serverData);
+				source = null;
+			}
+		} else if (client != null) {
+			side = "CLIENT";
+			source = inputClient;
+			entry = client;
+			data = null;
+		} else {
+			side = "SERVER";
+			source = inputServer;
+			entry = server;
+			data = null;
+
+			if (!isMinecraft) {
+				// Server bundles libraries, client doesn't - skip them
+				return null;
+			}
+		}
+
+		if (isMinecraft && (side != null || offsetSyntheticsParams)) {
+			if (data == null) {
+				data = source.readBytes(entry);
+			}
+
+			ClassReader reader = new ClassReader(data);
+			ClassWriter writer = new ClassWriter(0);
+			ClassVisitor visitor = writer;
+
+			if (side != null) {
+				visitor = new ClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
+			}
+
+			if (offsetSyntheticsParams) {
+				visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
+			}
+
+			reader.accept(visitor, 0);
+			data = writer.toByteArray();
+			source = null;
+		}
+
+		if (source != null) {
+			// Unchanged, so copy it still compressed
+			return Output.copy(source, entry);
+		}
+
+		return Output.of(RawZipWriter.compress(name, data, entry.lastModifiedTime()));
+	}
+
+	private static void write(RawZipWriter writer, Future<Output> future) throws IOException {
+		Output output;
+
+		try {
+			output = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging jars", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to merge jars", e.getCause());
+		}
+
+		if (output == null) {
+			return;
+		}
+
+		if (output.compressed() != null) {
+			writer.write(output.compressed());
+		} else {
+			writer.copy(output.source(), output.entry());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			inputClient.close();
+		} finally {
+			inputServer.close();
+		}
+	}
+
+	private record Output(RawZipFile source, RawZipFile.Entry entry, RawZipWriter.Compressed compressed) {
+		static Output copy(RawZipFile source, RawZipFile.Entry entry) {
+			return new Output(source, entry, null);
+		}
+
+		static Output of(RawZipWriter.Compressed compressed) {
+			return new Output(null, null, compressed);
+		}
+	}
+}
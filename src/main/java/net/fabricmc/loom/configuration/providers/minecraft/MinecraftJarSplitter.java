@@ -27,22 +27,22 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
-
-import com.google.common.collect.Sets;
 
 import net.fabricmc.loom.configuration.mods.JarSplitter;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
 
 public class MinecraftJarSplitter implements AutoCloseable {
+	private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+
 	private final Path clientInputJar;
 	private final Path serverInputJar;
 
@@ -59,15 +59,18 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		Objects.requireNonNull(clientOnlyOutputJar);
 		Objects.requireNonNull(commonOutputJar);
 
-		if (entryData == null) {
-			entryData = new EntryData(getJarEntries(clientInputJar), getJarEntries(serverInputJar));
-		}
+		try (RawZipFile clientZip = RawZipFile.open(clientInputJar);
+				RawZipFile serverZip = RawZipFile.open(serverInputJar)) {
+			if (entryData == null) {
+				entryData = new EntryData(getJarEntries(clientZip), getJarEntries(serverZip));
+			}
 
-		// Not something we expect, will require 3 jars, server, client and common.
-		assert entryData.serverOnlyEntries.isEmpty();
+			// Not something we expect, will require 3 jars, server, client and common.
+			assert entryData.serverOnlyEntries.isEmpty();
 
-		copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common");
-		copyEntriesToJar(entryData.clientOnlyEntries, clientInputJar, clientOnlyOutputJar, "client");
+			copyEntriesToJar(entryData.commonEntries, serverZip, commonOutputJar, "common");
+			copyEntriesToJar(entryData.clientOnlyEntries, clientZip, clientOnlyOutputJar, "client");
+		}
 	}
 
 	public void sharedEntry(String path) {
@@ -78,65 +81,47 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
-	private Set<String> getJarEntries(Path input) throws IOException {
-		Set<String> entries = Sets.newHashSet();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
-
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
+	private Set<String> getJarEntries(RawZipFile input) {
+		Set<String> entries = new LinkedHashSet<>();
 
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
-
-				if (entryPath.startsWith("META-INF/")) {
-					continue;
-				}
-
-				entries.add(entryPath);
+		for (String entryPath : input.getFileNames()) {
+			if (entryPath.startsWith("META-INF/")) {
+				continue;
 			}
+
+			entries.add(entryPath);
 		}
 
 		return entries;
 	}
 
-	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
+	// Entries are copied still compressed, in the order of the input jar.
+	private void copyEntriesToJar(Set<String> entries, RawZipFile inputJar, Path outputJar, String env) throws IOException {
 		Files.deleteIfExists(outputJar);
+		Set<String> remaining = new HashSet<>(entries);
 
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
+		try (RawZipWriter writer = new RawZipWriter(outputJar)) {
+			writeManifest(writer, env);
 
-				assert Files.isRegularFile(inputPath);
-
-				Path outputPathParent = outputPath.getParent();
-
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
+			for (RawZipFile.Entry entry : inputJar.entries()) {
+				if (remaining.remove(entry.name())) {
+					writer.copy(inputJar, entry);
 				}
-
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
 			}
+		}
 
-			writeManifest(outputFs, env);
+		if (!remaining.isEmpty()) {
+			throw new NoSuchFileException(remaining.iterator().next(), null, "Missing from " + inputJar.getPath());
 		}
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private void writeManifest(RawZipWriter writer, String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(JarSplitter.MANIFEST_SPLIT_ENV_NAME_KEY, env);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath("META-INF/MANIFEST.MF"), out.toByteArray());
+		writer.write(MANIFEST_PATH, out.toByteArray(), System.currentTimeMillis());
 	}
 
 	@Override
@@ -154,17 +139,17 @@ public class MinecraftJarSplitter implements AutoCloseable {
 			this.clientEntries = clientEntries;
 			this.serverEntries = serverEntries;
 
-			this.commonEntries = Sets.newHashSet(clientEntries);
+			this.commonEntries = new LinkedHashSet<>(clientEntries);
 			this.commonEntries.retainAll(serverEntries);
 			this.commonEntries.addAll(sharedEntries);
 			this.commonEntries.removeAll(forcedClientEntries);
 
-			this.clientOnlyEntries = Sets.newHashSet(clientEntries);
+			this.clientOnlyEntries = new LinkedHashSet<>(clientEntries);
 			this.clientOnlyEntries.removeAll(serverEntries);
 			this.clientOnlyEntries.addAll(sharedEntries);
 			this.clientOnlyEntries.addAll(forcedClientEntries);
 
-			this.serverOnlyEntries = Sets.newHashSet(serverEntries);
+			this.serverOnlyEntries = new LinkedHashSet<>(serverEntries);
 			this.serverOnlyEntries.removeAll(clientEntries);
 		}
 	}
@@ -35,14 +35,18 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.JavaExec;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
 
+import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.ide.RunConfig;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.gradle.GradleUtils;
@@ -133,14 +137,25 @@ public abstract class AbstractRunTask extends JavaExec {
 		final List<String> args = new ArrayList<>();
 
 		if (canUseArgFile()) {
-			final String content = "-classpath\n" + this.classpath.getFiles().stream()
+			List<File> classpath = new ArrayList<>(this.classpath.getFiles());
+
+			if (canUseAppCds()) {
+				classpath = AppCdsArchive.orderClasspath(classpath);
+				args.addAll(getAppCdsArgs(classpath));
+			}
+
+			final String content = "-classpath\n" + classpath.stream()
 					.map(File::getAbsolutePath)
 					.map(AbstractRunTask::quoteArg)
 					.collect(Collectors.joining(System.getProperty("path.separator")));
 
 			try {
-				final Path argsFile = Files.createTempFile("loom-classpath", ".args");
-				Files.writeString(argsFile, content, StandardCharsets.UTF_8);
+				final Path argsFile = LoomGradleExtension.get(getProject()).getFiles().getProjectPersistentCache().toPath().resolve("argfiles/" + getName() + ".args");
+
+				if (writeArgFile(argsFile, content)) {
+					getProject().getLogger().debug("Classpath of {} changed, updated {}", getName(), argsFile);
+				}
+
 				args.add("@" + argsFile.toAbsolutePath());
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to create classpath file", e);
@@ -151,6 +166,57 @@ public abstract class AbstractRunTask extends JavaExec {
 		return args;
 	}
 
+	/**
+	 * Writes the arg file, unless it already has the same content.
+	 *
+	 * @return whether the file was written
+	 */
+	@VisibleForTesting
+	public static boolean writeArgFile(Path argsFile, String content) throws IOException {
+		if (Files.isRegularFile(argsFile) && Files.readString(argsFile, StandardCharsets.UTF_8).equals(content)) {
+			return false;
+		}
+
+		Files.createDirectories(argsFile.getParent());
+		Files.writeString(argsFile, content, StandardCharsets.UTF_8);
+		return true;
+	}
+
+	private boolean canUseAppCds() {
+		if (!config.appCds) {
+			return false;
+		}
+
+		if (!getJavaVersion().isCompatibleWith(JavaVersion.toVersion(AppCdsArchive.MIN_JAVA_VERSION))) {
+			getProject().getLogger().warn("AppCDS requires Java {} or later, not using it for {}", AppCdsArchive.MIN_JAVA_VERSION, getName());
+			return false;
+		}
+
+		return true;
+	}
+
+	private List<String> getAppCdsArgs(List<File> classpath) {
+		final Path directory = LoomGradleExtension.get(getProject()).getFiles().getProjectPersistentCache().toPath().resolve("appcds");
+		final AppCdsArchive archive = new AppCdsArchive(directory, getName());
+		final String key = AppCdsArchive.computeKey(classpath, getJavaRuntime());
+
+		try {
+			return archive.getJvmArgs(key);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to prepare AppCDS archive", e);
+		}
+	}
+
+	// Identifies the exact JVM build, as an archive can only be used by the JVM that created it.
+	private String getJavaRuntime() {
+		if (getJavaLauncher().isPresent()) {
+			final JavaInstallationMetadata metadata = getJavaLauncher().get().getMetadata();
+			return metadata.getInstallationPath().getAsFile().getAbsolutePath() + " " + metadata.getJavaRuntimeVersion();
+		}
+
+		return getExecutable() + " " + getJavaVersion();
+	}
+
 	// Based off https://github.com/JetBrains/intellij-community/blob/295dd68385a458bdfde638152e36d19bed18b666/platform/util/src/com/intellij/execution/CommandLineWrapperUtil.java#L87
 	private static String quoteArg(String arg) {
 		final String specials = " #'\"\n\r\t\f";
@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Maintains a dynamic AppCDS archive for a run configuration.
+ *
+ * <p>The archive is keyed on the runtime classpath and the Java runtime. The first launch with a given key dumps the
+ * loaded classes into the archive when the game exits, later launches with the same key map the archive to skip
+ * loading and verifying those classes again. Archives for older keys are deleted.
+ */
+public final class AppCdsArchive {
+	/**
+	 * Dynamic archives ({@code -XX:ArchiveClassesAtExit}) were added in Java 13.
+	 */
+	public static final int MIN_JAVA_VERSION = 13;
+	private static final int KEY_LENGTH = 16;
+
+	private final Path directory;
+	private final String name;
+	private final Pattern archivePattern;
+
+	public AppCdsArchive(Path directory, String name) {
+		this.directory = directory;
+		this.name = name;
+		this.archivePattern = Pattern.compile(Pattern.quote(name) + "-[0-9a-f]{" + KEY_LENGTH + "}\\.jsa");
+	}
+
+	/**
+	 * Computes the key of an archive. Jars are identified by their path, size and last modified time, as that is
+	 * what the JVM validates before using an archive. Classes from directories are never archived, so only their
+	 * path is part of the key.
+	 */
+	public static String computeKey(List<File> classpath, String javaRuntime) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(javaRuntime, StandardCharsets.UTF_8);
+
+		for (File file : classpath) {
+			hasher.putString(file.getAbsolutePath(), StandardCharsets.UTF_8);
+
+			if (file.isFile()) {
+				hasher.putLong(file.length());
+				hasher.putLong(file.lastModified());
+			}
+
+			hasher.putByte((byte) 0);
+		}
+
+		return hasher.hash().toString().substring(0, KEY_LENGTH);
+	}
+
+	/**
+	 * The JVM only maps an archive when no non-empty directory comes before the last jar that classes were archived
+	 * from, so directories are moved after the jars. The relative order of jars and of directories is kept.
+	 */
+	public static List<File> orderClasspath(Collection<File> classpath) {
+		final List<File> jars = new ArrayList<>();
+		final List<File> directories = new ArrayList<>();
+
+		for (File file : classpath) {
+			(file.isDirectory() ? directories : jars).add(file);
+		}
+
+		jars.addAll(directories);
+		return jars;
+	}
+
+	public Path getArchive(String key) {
+		return directory.resolve(name + "-" + key + ".jsa");
+	}
+
+	/**
+	 * Returns the JVM arguments to use the archive for the key, or to create it when there is none yet.
+	 * Archives of this run configuration with any other key are out of date and are deleted.
+	 */
+	public List<String> getJvmArgs(String key) throws IOException {
+		Files.createDirectories(directory);
+		final Path archive = getArchive(key);
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path path : stream) {
+				if (!path.equals(archive) && archivePattern.matcher(path.getFileName().toString()).matches()) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+
+		if (Files.isRegularFile(archive) && Files.size(archive) > 0) {
+			return List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath());
+		}
+
+		// An empty file is left over from a launch that didn't exit cleanly
+		Files.deleteIfExists(archive);
+		return List.of("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath());
+	}
+}
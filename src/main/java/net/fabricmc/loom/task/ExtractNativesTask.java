@@ -25,26 +25,51 @@
 package net.fabricmc.loom.task;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 import javax.inject.Inject;
 
-import org.gradle.api.tasks.Sync;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
 
-import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.util.Constants;
 
-public abstract class ExtractNativesTask extends Sync {
+/**
+ * Extracts the natives into a directory shared by every project using the same Minecraft version.
+ *
+ * <p>The directory isn't declared as an output, as it is shared. Instead the task always runs, and
+ * {@link NativesExtractor} only unpacks the jars that changed since the last run.
+ */
+public abstract class ExtractNativesTask extends AbstractLoomTask {
+	@InputFiles
+	@PathSensitive(PathSensitivity.ABSOLUTE)
+	public abstract ConfigurableFileCollection getNativeJars();
+
+	@Internal
+	public abstract DirectoryProperty getNativesDirectory();
+
 	@Inject
 	public ExtractNativesTask() {
-		// Is there a lazy way to do this for many files? - Doesnt seem there is...
-		for (File nativeFile : getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_NATIVES).getFiles()) {
-			from(getProject().zipTree(nativeFile), copySpec -> {
-				copySpec.exclude("META-INF/**");
-			});
-		}
-
-		into(LoomGradleExtension.get(getProject()).getFiles().getNativesDirectory(getProject()));
+		getNativeJars().from(getProject().getConfigurations().named(Constants.Configurations.MINECRAFT_NATIVES));
+		getNativesDirectory().set(getExtension().getFiles().getNativesDirectory(getProject()));
 
 		setDescription("Downloads and extracts the minecraft natives");
 	}
+
+	@TaskAction
+	public void run() throws IOException {
+		final List<Path> nativeJars = getNativeJars().getFiles().stream().map(File::toPath).toList();
+		final int extracted = new NativesExtractor(getNativesDirectory().get().getAsFile().toPath()).extract(nativeJars);
+
+		if (extracted == 0) {
+			getLogger().info("Natives are up to date");
+		}
+	}
 }
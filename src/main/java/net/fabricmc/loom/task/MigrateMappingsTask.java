@@ -26,9 +26,13 @@ package net.fabricmc.loom.task;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -53,9 +57,12 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.LayeredMappingSpecBuilder;
 import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.ShardedMercury;
 import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
+import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.lorenztiny.TinyMappingsJoiner;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
@@ -65,6 +72,7 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 	private Path inputDir;
 	private Path outputDir;
 	private String mappings;
+	private int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
 
 	public MigrateMappingsTask() {
 		inputDir = getProject().file("src/main/java").toPath();
@@ -89,6 +97,11 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		this.mappings = mappings;
 	}
 
+	@Option(option = "threads", description = "Number of source shards remapped in parallel")
+	public void setThreads(String threads) {
+		this.threads = Integer.parseInt(threads);
+	}
+
 	@InputFiles
 	public abstract ConfigurableFileCollection getCompileClasspath();
 
@@ -109,9 +122,8 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 
 		try (var serviceManager = new ScopedSharedServiceManager()) {
-			MemoryMappingTree currentMappings = mappingConfiguration.getMappingsService(serviceManager).getMappingTree();
-			MemoryMappingTree targetMappings = getMappings(mappings);
-			migrateMappings(project, extension, inputDir, outputDir, currentMappings, targetMappings);
+			MappingSet mappingSet = getJoinedMappings(project, serviceManager, mappingConfiguration, mappings);
+			migrateMappings(project, extension, inputDir, outputDir, mappingSet, threads);
 			project.getLogger().lifecycle(":remapped project written to " + outputDir.toAbsolutePath());
 		} catch (IOException e) {
 			throw new IllegalArgumentException("Error while loading mappings", e);
@@ -167,41 +179,59 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		return mappingTree;
 	}
 
-	private static void migrateMappings(Project project, LoomGradleExtension extension,
-										Path inputDir, Path outputDir, MemoryMappingTree currentMappings, MemoryMappingTree targetMappings
-	) throws IOException {
-		project.getLogger().info(":joining mappings");
+	private static MappingSet getJoinedMappings(Project project, ScopedSharedServiceManager serviceManager, MappingConfiguration mappingConfiguration, File mappings) throws IOException {
+		final String id = "JoinedMappings:" + mappingConfiguration.mappingsIdentifier() + "->" + Checksum.sha1Hex(mappings.toPath());
 
-		MappingSet mappingSet = new TinyMappingsJoiner(
-				currentMappings, MappingsNamespace.NAMED.toString(),
-				targetMappings, MappingsNamespace.NAMED.toString(),
-				MappingsNamespace.INTERMEDIARY.toString()
-		).read();
+		try {
+			return serviceManager.getOrCreateService(id, () -> {
+				try {
+					MemoryMappingTree currentMappings = mappingConfiguration.getMappingsService(serviceManager).getMappingTree();
+					MemoryMappingTree targetMappings = getMappings(mappings);
+
+					project.getLogger().info(":joining mappings");
+
+					return new JoinedMappings(new TinyMappingsJoiner(
+							currentMappings, MappingsNamespace.NAMED.toString(),
+							targetMappings, MappingsNamespace.NAMED.toString(),
+							MappingsNamespace.INTERMEDIARY.toString()
+					).read());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).mappingSet();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
+	private static void migrateMappings(Project project, LoomGradleExtension extension,
+										Path inputDir, Path outputDir, MappingSet mappingSet, int threads
+	) throws IOException {
 		project.getLogger().lifecycle(":remapping");
-		Mercury mercury = SourceRemapper.createMercuryWithClassPath(project, false);
 
-		final JavaVersion javaVersion = project.getExtensions().getByType(JavaPluginExtension.class).getSourceCompatibility();
-		mercury.setSourceCompatibility(javaVersion.toString());
-
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
-
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.NAMED)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
+		// Resolve the classpath once, it's shared by the Mercury instance of every shard
+		final List<Path> classPath = new ArrayList<>(SourceRemapper.createMercuryWithClassPath(project, false).getClassPath());
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY));
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.NAMED));
 
 		if (extension.isForge()) {
-			for (Path srgJar : extension.getMinecraftJars(MappingsNamespace.SRG)) {
-				mercury.getClassPath().add(srgJar);
-			}
+			classPath.addAll(extension.getMinecraftJars(MappingsNamespace.SRG));
 		}
 
-		mercury.getProcessors().add(MercuryRemapper.create(mappingSet));
+		final JavaVersion javaVersion = project.getExtensions().getByType(JavaPluginExtension.class).getSourceCompatibility();
+
+		final Supplier<Mercury> mercuryFactory = () -> {
+			Mercury mercury = new Mercury();
+			mercury.setGracefulClasspathChecks(true);
+			mercury.setSourceCompatibility(javaVersion.toString());
+			mercury.getClassPath().addAll(classPath);
+			// Mapping sets complete themselves lazily while remapping, so every instance gets its own copy
+			mercury.getProcessors().add(MercuryRemapper.create(mappingSet.copy()));
+			return mercury;
+		};
 
 		try {
-			mercury.rewrite(inputDir, outputDir);
+			new ShardedMercury(mercuryFactory, threads).rewrite(inputDir, outputDir);
 		} catch (Exception e) {
 			project.getLogger().warn("Could not remap fully!", e);
 		}
@@ -209,4 +239,8 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		project.getLogger().info(":cleaning file descriptors");
 		System.gc();
 	}
+
+	// Kept by the service manager of the task rather than statically, so that it is freed afterwards
+	private record JoinedMappings(MappingSet mappingSet) implements SharedService {
+	}
 }
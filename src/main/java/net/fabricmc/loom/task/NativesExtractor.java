@@ -0,0 +1,224 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.Checksum;
+
+/**
+ * Extracts native jars into a directory, only unpacking the jars that changed since the last extraction.
+ *
+ * <p>A state file in the directory records the size, modification time and content hash of every extracted jar,
+ * and the files that came from it. A jar whose size and modification time are unchanged is not read at all, so an
+ * up-to-date directory costs a few file stats. Files from jars that were removed or changed are deleted.
+ */
+public final class NativesExtractor {
+	private static final Logger LOGGER = Logging.getLogger(NativesExtractor.class);
+	private static final String STATE_FILE = ".loom-natives.json";
+	private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+	private final Path directory;
+
+	public NativesExtractor(Path directory) {
+		this.directory = directory.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * @return the number of jars that had to be unpacked
+	 */
+	public int extract(Collection<Path> nativeJars) throws IOException {
+		// The natives directory is shared by all projects of the build that use the same Minecraft version
+		synchronized (LOCKS.computeIfAbsent(directory, path -> new Object())) {
+			return extractLocked(nativeJars);
+		}
+	}
+
+	private int extractLocked(Collection<Path> nativeJars) throws IOException {
+		final Path stateFile = directory.resolve(STATE_FILE);
+		final State previous = readState(stateFile);
+
+		if (previous == null && Files.exists(directory)) {
+			// Left over from an older version of Loom, the origin of the files is unknown.
+			LOGGER.info("Clearing natives directory {}", directory);
+			deleteContents(directory);
+		}
+
+		Files.createDirectories(directory);
+
+		final Map<String, JarState> previousJars = previous != null ? previous.jars() : Map.of();
+		final Map<String, JarState> jars = new TreeMap<>();
+		int extracted = 0;
+
+		for (Path nativeJar : nativeJars) {
+			final String key = nativeJar.toAbsolutePath().toString();
+			final long size = Files.size(nativeJar);
+			final long lastModified = Files.getLastModifiedTime(nativeJar).toMillis();
+			final JarState jarState = previousJars.get(key);
+
+			if (jarState != null && jarState.size() == size && jarState.lastModified() == lastModified && filesExist(jarState)) {
+				jars.put(key, jarState);
+				continue;
+			}
+
+			final String hash = Checksum.toHex(Checksum.sha256(nativeJar.toFile()));
+
+			if (jarState != null && jarState.hash().equals(hash) && filesExist(jarState)) {
+				// Only touched, the contents are the same
+				jars.put(key, new JarState(size, lastModified, hash, jarState.files()));
+				continue;
+			}
+
+			jars.put(key, new JarState(size, lastModified, hash, unpack(nativeJar)));
+			extracted++;
+		}
+
+		// Delete the files that no current jar provides anymore
+		final Set<String> currentFiles = new HashSet<>();
+		jars.values().forEach(jarState -> currentFiles.addAll(jarState.files()));
+
+		for (JarState jarState : previousJars.values()) {
+			for (String file : jarState.files()) {
+				if (!currentFiles.contains(file)) {
+					Files.deleteIfExists(resolve(file));
+				}
+			}
+		}
+
+		final State state = new State(jars);
+
+		if (!state.equals(previous)) {
+			Files.writeString(stateFile, LoomGradlePlugin.GSON.toJson(state), StandardCharsets.UTF_8);
+		}
+
+		return extracted;
+	}
+
+	private List<String> unpack(Path nativeJar) throws IOException {
+		LOGGER.info("Extracting natives from {}", nativeJar);
+		final List<String> files = new ArrayList<>();
+
+		try (ZipFile zip = new ZipFile(nativeJar.toFile())) {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+
+				if (entry.isDirectory() || entry.getName().startsWith("META-INF/")) {
+					continue;
+				}
+
+				final Path target = resolve(entry.getName());
+				Files.createDirectories(target.getParent());
+
+				try (InputStream input = zip.getInputStream(entry)) {
+					Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+
+				files.add(entry.getName());
+			}
+		}
+
+		return files;
+	}
+
+	private Path resolve(String name) throws IOException {
+		final Path path = directory.resolve(name).normalize();
+
+		if (!path.startsWith(directory) || path.equals(directory)) {
+			throw new IOException("Native entry %s is outside of %s".formatted(name, directory));
+		}
+
+		return path;
+	}
+
+	private boolean filesExist(JarState jarState) throws IOException {
+		for (String file : jarState.files()) {
+			if (!Files.isRegularFile(resolve(file))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void deleteContents(Path directory) throws IOException {
+		try (var stream = Files.list(directory)) {
+			for (Path path : stream.toList()) {
+				if (Files.isDirectory(path)) {
+					FileUtils.deleteDirectory(path.toFile());
+				} else {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	private static State readState(Path stateFile) {
+		if (Files.notExists(stateFile)) {
+			return null;
+		}
+
+		try {
+			final State state = LoomGradlePlugin.GSON.fromJson(Files.readString(stateFile, StandardCharsets.UTF_8), State.class);
+			return state != null && state.jars() != null ? state : null;
+		} catch (Exception e) {
+			LOGGER.warn("Failed to read natives state {}, extracting again", stateFile, e);
+			return null;
+		}
+	}
+
+	private record State(Map<String, JarState> jars) {
+	}
+
+	private record JarState(long size, long lastModified, String hash, List<String> files) {
+		JarState {
+			Objects.requireNonNull(hash);
+			files = List.copyOf(files);
+		}
+	}
+}
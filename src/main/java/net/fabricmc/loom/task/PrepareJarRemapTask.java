@@ -24,19 +24,23 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.File;
 import java.nio.file.Path;
 
 import javax.inject.Inject;
 
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 import org.gradle.workers.WorkQueue;
 import org.gradle.workers.WorkerExecutor;
 
+import net.fabricmc.loom.task.service.PreparedRemapInputs;
 import net.fabricmc.loom.task.service.TinyRemapperService;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
 
@@ -48,11 +52,18 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 	@InputFile
 	public abstract RegularFileProperty getInputFile();
 
+	/**
+	 * Holds the prepared copy of the input, see {@link PreparedRemapInputs}.
+	 */
+	@Internal
+	public abstract DirectoryProperty getPreparedInputDirectory();
+
 	@Inject
 	public PrepareJarRemapTask(RemapJarTask remapJarTask) {
 		this.remapJarTask = remapJarTask;
 
 		getInputFile().set(remapJarTask.getInputFile());
+		getPreparedInputDirectory().set(new File(getExtension().getFiles().getProjectBuildCache(), "prepared-remap-inputs/" + getName()));
 		// TODO can this be up-to-date when the main task is up-to date?
 		getOutputs().upToDateWhen((o) -> false);
 
@@ -77,12 +88,14 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		workQueue.submit(ReadInputsAction.class, params -> {
 			params.getTinyRemapperBuildServiceUuid().set(UnsafeWorkQueueHelper.create(remapJarTask.getTinyRemapperService()));
 			params.getInputFile().set(getInputFile());
+			params.getPreparedInputDirectory().set(getPreparedInputDirectory());
 		});
 	}
 
 	public interface ReadInputsParams extends WorkParameters {
 		Property<String> getTinyRemapperBuildServiceUuid();
 		RegularFileProperty getInputFile();
+		DirectoryProperty getPreparedInputDirectory();
 	}
 
 	public abstract static class ReadInputsAction implements WorkAction<ReadInputsParams> {
@@ -95,11 +108,19 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		@Override
 		public void execute() {
 			final Path inputFile = getParameters().getInputFile().getAsFile().get().toPath();
-			prepare(tinyRemapperService, inputFile);
+			final Path preparedDirectory = getParameters().getPreparedInputDirectory().getAsFile().get().toPath();
+			prepare(tinyRemapperService, inputFile, PreparedRemapInputs.getInput(preparedDirectory, inputFile));
 		}
 	}
 
 	static void prepare(TinyRemapperService tinyRemapperService, Path inputFile) {
-		tinyRemapperService.getTinyRemapperForInputs().readInputs(tinyRemapperService.getOrCreateTag(inputFile), inputFile);
+		prepare(tinyRemapperService, inputFile, inputFile);
+	}
+
+	/**
+	 * @param readFile the file to read the classes of the input from, which may be a prepared copy of it
+	 */
+	static void prepare(TinyRemapperService tinyRemapperService, Path inputFile, Path readFile) {
+		tinyRemapperService.getTinyRemapperForInputs().readInputs(tinyRemapperService.getOrCreateTag(inputFile), readFile);
 	}
 }
@@ -24,15 +24,18 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.List;
 
 import javax.inject.Inject;
 
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskAction;
 import org.slf4j.Logger;
@@ -45,18 +48,26 @@ import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
 public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 	private final Provider<BuildSharedServiceManager> serviceManagerProvider;
 
+	/**
+	 * Records the remapped files of the previous run, so that only the files that need it are remapped again.
+	 */
+	@Internal
+	public abstract RegularFileProperty getRemapIndexFile();
+
 	@Inject
 	public RemapSourcesJarTask() {
 		super();
 		serviceManagerProvider = BuildSharedServiceManager.createForTask(this, getBuildEventsListenerRegistry());
 
 		getClasspath().from(getProject().getConfigurations().getByName(JavaPlugin.COMPILE_CLASSPATH_CONFIGURATION_NAME));
+		getRemapIndexFile().set(new File(getLoomExtension().getFiles().getProjectBuildCache(), "remapped-sources/" + getName() + ".json"));
 	}
 
 	@TaskAction
 	public void run() {
 		submitWork(RemapSourcesAction.class, params -> {
 			params.getSourcesRemapperServiceUuid().set(UnsafeWorkQueueHelper.create(SourceRemapperService.create(serviceManagerProvider.get().get(), this)));
+			params.getRemapIndexFile().set(getRemapIndexFile());
 		});
 	}
 
@@ -69,6 +80,7 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 
 	public interface RemapSourcesParams extends AbstractRemapParams {
 		Property<String> getSourcesRemapperServiceUuid();
+		RegularFileProperty getRemapIndexFile();
 	}
 
 	public abstract static class RemapSourcesAction extends AbstractRemapAction<RemapSourcesParams> {
@@ -85,7 +97,7 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 		@Override
 		public void execute() {
 			try {
-				sourceRemapperService.remapSourcesJar(inputFile, outputFile);
+				sourceRemapperService.remapSourcesJar(inputFile, outputFile, getParameters().getRemapIndexFile().getAsFile().get().toPath());
 
 				modifyJarManifest();
 				rewriteJar();
@@ -30,24 +30,28 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import javax.inject.Inject;
 
-import dev.architectury.tinyremapper.TinyRemapper;
-import dev.architectury.tinyremapper.api.TrEnvironment;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.accesswidener.AccessWidenerFormatException;
 import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.accesswidener.ClassMemberIndex;
 
 public abstract class ValidateAccessWidenerTask extends DefaultTask {
 	@SkipWhenEmpty
@@ -57,12 +61,17 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 	@InputFiles
 	public abstract ConfigurableFileCollection getTargetJars();
 
+	// The index is keyed by the content of the target jars, so it doesn't need to be tracked
+	@Internal
+	public abstract DirectoryProperty getMemberIndexDirectory();
+
 	@Inject
 	public ValidateAccessWidenerTask() {
 		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
 
 		getAccessWidener().convention(extension.getAccessWidenerPath()).finalizeValueOnRead();
 		getTargetJars().from(extension.getMinecraftJarsCollection(MappingsNamespace.NAMED)).finalizeValueOnRead();
+		getMemberIndexDirectory().set(new File(extension.getFiles().getProjectPersistentCache(), "access-widener-member-index"));
 
 		// Ignore outputs for up-to-date checks as there aren't any (so only inputs are checked)
 		getOutputs().upToDateWhen(task -> true);
@@ -70,13 +79,16 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 
 	@TaskAction
 	public void run() {
-		final TinyRemapper tinyRemapper = TinyRemapper.newRemapper().build();
+		final List<Path> targetJars = getTargetJars().getFiles().stream().map(File::toPath).toList();
+		final ClassMemberIndex index;
 
-		for (File file : getTargetJars().getFiles()) {
-			tinyRemapper.readClassPath(file.toPath());
+		try {
+			index = ClassMemberIndex.getOrCreate(getMemberIndexDirectory().get().getAsFile().toPath(), targetJars);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to index the target jars", e);
 		}
 
-		final AccessWidenerValidator validator = new AccessWidenerValidator(tinyRemapper.getEnvironment());
+		final AccessWidenerValidator validator = new AccessWidenerValidator(index);
 		final AccessWidenerReader accessWidenerReader = new AccessWidenerReader(validator);
 
 		try (BufferedReader reader = Files.newBufferedReader(getAccessWidener().get().getAsFile().toPath(), StandardCharsets.UTF_8)) {
@@ -86,33 +98,38 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 			throw e;
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read access widener", e);
-		} finally {
-			tinyRemapper.finish();
 		}
 	}
 
 	/**
 	 * Validates that all entries in an access-widner file relate to a class/method/field in the mc jar.
 	 */
-	private record AccessWidenerValidator(TrEnvironment environment) implements AccessWidenerVisitor {
+	private record AccessWidenerValidator(ClassMemberIndex index) implements AccessWidenerVisitor {
 		@Override
 		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getClass(name) == null) {
+			if (!index().hasClass(name)) {
 				throw new RuntimeException("Could not find class (%s)".formatted(name));
 			}
 		}
 
 		@Override
 		public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getMethod(owner, name, descriptor) == null) {
-				throw new RuntimeException("Could not find method (%s%s) in class (%s)".formatted(name, descriptor, owner));
-			}
+			checkDeclared("method", owner, name, descriptor, index().resolveMethod(owner, name, descriptor));
 		}
 
 		@Override
 		public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getField(owner, name, descriptor) == null) {
-				throw new RuntimeException("Could not find field (%s%s) in class (%s)".formatted(name, descriptor, owner));
+			checkDeclared("field", owner, name, descriptor, index().resolveField(owner, name, descriptor));
+		}
+
+		// Access wideners only apply to the class declaring the member, so inherited members are still an error.
+		private static void checkDeclared(String type, String owner, String name, String descriptor, @Nullable String declaringClass) {
+			if (declaringClass == null) {
+				throw new RuntimeException("Could not find %s (%s%s) in class (%s)".formatted(type, name, descriptor, owner));
+			}
+
+			if (!declaringClass.equals(owner)) {
+				throw new RuntimeException("Could not find %s (%s%s) in class (%s), it is inherited from (%s)".formatted(type, name, descriptor, owner, declaringClass));
 			}
 		}
 	}
@@ -28,22 +28,43 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.UncheckedIOException;
-import java.util.LinkedList;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 import javax.inject.Inject;
 
+import com.google.gson.reflect.TypeToken;
 import dev.architectury.tinyremapper.extension.mixin.common.data.Constant;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileType;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 import org.gradle.workers.WorkQueue;
@@ -59,7 +80,9 @@ import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ThreadingUtils;
 
 /**
  * Task to validate mixin names.
@@ -70,11 +93,32 @@ import net.fabricmc.loom.util.Constants;
  * 		softFailures = false
  * }
  * }</pre>
+ *
+ * <p>The task is incremental: the result for every class is kept in {@link #getResultsFile()}, so only the classes
+ * that were added or changed since the last run are read again.
  */
 public abstract class ValidateMixinNameTask extends SourceTask {
+	private static final String VALID = "";
+
 	@Input
 	abstract Property<Boolean> getSoftFailures();
 
+	/**
+	 * The class files of {@link #getSource()}, tracked for incremental changes.
+	 */
+	@InputFiles
+	@SkipWhenEmpty
+	@IgnoreEmptyDirectories
+	@Incremental
+	@PathSensitive(PathSensitivity.ABSOLUTE)
+	protected abstract ConfigurableFileCollection getClassFiles();
+
+	/**
+	 * The validation result of every class from the last run, keyed by path.
+	 */
+	@OutputFile
+	public abstract RegularFileProperty getResultsFile();
+
 	@Inject
 	protected abstract WorkerExecutor getWorkerExecutor();
 
@@ -83,20 +127,52 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 		setGroup("verification");
 		getProject().getTasks().getByName("check").dependsOn(this);
 		getSoftFailures().convention(false);
+		getClassFiles().from(getProject().provider(() -> getSource().matching(pattern -> pattern.include("**/*.class"))));
+		getResultsFile().convention(getProject().getLayout().getBuildDirectory().file("loom-cache/" + getName() + "/results.json"));
+	}
+
+	@Override
+	@Internal
+	public FileTree getSource() {
+		return super.getSource();
 	}
 
 	@TaskAction
-	public void run() {
+	public void run(InputChanges inputChanges) {
 		final WorkQueue workQueue = getWorkerExecutor().noIsolation();
+		final List<File> changedClasses = new ArrayList<>();
+		final List<String> removedClasses = new ArrayList<>();
+
+		if (inputChanges.isIncremental()) {
+			for (FileChange change : inputChanges.getFileChanges(getClassFiles())) {
+				if (change.getFileType() != FileType.FILE) {
+					continue;
+				}
+
+				if (change.getChangeType() == ChangeType.REMOVED) {
+					removedClasses.add(change.getFile().getAbsolutePath());
+				} else {
+					changedClasses.add(change.getFile());
+				}
+			}
+		} else {
+			changedClasses.addAll(getClassFiles().getFiles());
+		}
 
 		workQueue.submit(ValidateMixinAction.class, params -> {
-			params.getInputClasses().from(getSource().matching(pattern -> pattern.include("**/*.class")));
+			params.getInputClasses().from(changedClasses);
+			params.getRemovedClasses().set(removedClasses);
+			params.getIncremental().set(inputChanges.isIncremental());
+			params.getResultsFile().set(getResultsFile());
 			params.getSoftFailures().set(getSoftFailures());
 		});
 	}
 
 	public interface ValidateMixinsParams extends WorkParameters {
 		ConfigurableFileCollection getInputClasses();
+		ListProperty<String> getRemovedClasses();
+		Property<Boolean> getIncremental();
+		RegularFileProperty getResultsFile();
 		Property<Boolean> getSoftFailures();
 	}
 
@@ -105,42 +181,109 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 
 		@Override
 		public void execute() {
-			final Set<File> files = getParameters().getInputClasses().getAsFileTree().getFiles();
-			final List<String> errors = new LinkedList<>();
+			final Path resultsFile = getParameters().getResultsFile().get().getAsFile().toPath();
+			final Map<String, String> previous = getParameters().getIncremental().get() ? readResults(resultsFile) : Map.of();
+			final Map<String, String> results = validate(previous, getParameters().getInputClasses().getFiles(), getParameters().getRemovedClasses().get());
+			writeResults(resultsFile, results);
 
-			for (File file : files) {
-				final Mixin mixin = getMixin(file);
-
-				if (mixin == null) {
-					continue;
-				}
-
-				final String mixinClassName = toSimpleName(mixin.className);
-				final String expectedMixinClassName = mixin.expectedClassName();
-
-				if (expectedMixinClassName.startsWith("class_")) {
-					// Don't enforce intermediary named mixins.
-					continue;
-				}
-
-				if (!expectedMixinClassName.equals(mixinClassName)) {
-					errors.add("%s -> %s".formatted(mixin.className, expectedMixinClassName));
-				}
-			}
+			final List<String> errors = getErrors(results);
 
 			if (errors.isEmpty()) {
 				return;
 			}
 
-			final String message = "Mixin name validation failed: " + errors.stream().collect(Collectors.joining(System.lineSeparator()));
+			final String message = "Mixin name validation failed: " + String.join(System.lineSeparator(), errors);
 
 			if (getParameters().getSoftFailures().get()) {
 				LOGGER.warn(message);
 				return;
 			}
 
-			throw new GradleException("Mixin name validation failed: " + errors.stream().collect(Collectors.joining(System.lineSeparator())));
+			throw new GradleException(message);
+		}
+
+		private static Map<String, String> readResults(Path path) {
+			if (Files.notExists(path)) {
+				return Map.of();
+			}
+
+			try (Reader reader = Files.newBufferedReader(path)) {
+				return Objects.requireNonNullElse(LoomGradlePlugin.GSON.fromJson(reader, new TypeToken<Map<String, String>>() {
+				}.getType()), Map.of());
+			} catch (IOException | RuntimeException e) {
+				// Validate every class again when the results can't be read, e.g. after a crash while writing them
+				LOGGER.info("Failed to read mixin validation results, validating all classes", e);
+				return Map.of();
+			}
+		}
+
+		private static void writeResults(Path path, Map<String, String> results) {
+			try {
+				Files.createDirectories(path.getParent());
+
+				try (Writer writer = Files.newBufferedWriter(path)) {
+					LoomGradlePlugin.GSON.toJson(results, writer);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to write mixin validation results", e);
+			}
+		}
+	}
+
+	/**
+	 * Updates the results of a previous run with the classes that changed since.
+	 *
+	 * @param previous the results of the previous run, keyed by absolute path
+	 * @param changedClasses the classes that were added or modified, these are read in parallel
+	 * @param removedClasses the absolute paths of the classes that were removed
+	 * @return the updated results, with an empty string for every valid class
+	 */
+	@VisibleForTesting
+	public static Map<String, String> validate(Map<String, String> previous, Collection<File> changedClasses, Collection<String> removedClasses) {
+		final Map<String, String> results = new TreeMap<>(previous);
+		removedClasses.forEach(results::remove);
+
+		final List<File> files = List.copyOf(changedClasses);
+
+		if (!files.isEmpty()) {
+			final List<String> changedResults = ThreadingUtils.get(files, ValidateMixinNameTask::validate);
+
+			for (int i = 0; i < files.size(); i++) {
+				results.put(files.get(i).getAbsolutePath(), changedResults.get(i));
+			}
 		}
+
+		return results;
+	}
+
+	@VisibleForTesting
+	public static List<String> getErrors(Map<String, String> results) {
+		return results.values().stream()
+				.filter(error -> !error.equals(VALID))
+				.sorted()
+				.toList();
+	}
+
+	private static String validate(File file) {
+		final Mixin mixin = getMixin(file);
+
+		if (mixin == null) {
+			return VALID;
+		}
+
+		final String mixinClassName = toSimpleName(mixin.className);
+		final String expectedMixinClassName = mixin.expectedClassName();
+
+		if (expectedMixinClassName.startsWith("class_")) {
+			// Don't enforce intermediary named mixins.
+			return VALID;
+		}
+
+		if (!expectedMixinClassName.equals(mixinClassName)) {
+			return "%s -> %s".formatted(mixin.className, expectedMixinClassName);
+		}
+
+		return VALID;
 	}
 
 	private static String toSimpleName(String internalName) {
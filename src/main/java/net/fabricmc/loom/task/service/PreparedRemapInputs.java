@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.RawZipFile;
+import net.fabricmc.loom.util.RawZipWriter;
+
+/**
+ * Keeps prepared copies of the jars read into the shared tiny remapper by the prepare remap tasks.
+ *
+ * <p>A prepared copy only contains the classes of a jar, stored without compression, so that tiny remapper does not
+ * have to inflate them again. Copies are keyed by the hash of the jar's central directory, which covers the name, size
+ * and CRC of every entry. A copy is only made once the same jar has been seen in two builds in a row, so that the
+ * project being worked on, whose jar changes on every build, does not pay for copies that are never reused.
+ *
+ * <p>The prepared copy does not depend on the mappings, the remapper still parses and maps its classes every build.
+ */
+public final class PreparedRemapInputs {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PreparedRemapInputs.class);
+	private static final String PREPARED_EXTENSION = ".jar";
+	private static final String SEEN_EXTENSION = ".seen";
+
+	private PreparedRemapInputs() {
+	}
+
+	/**
+	 * @param cacheDir  the directory holding the prepared copies of this input
+	 * @param inputFile the jar to read into the remapper
+	 * @return the jar that should be read in place of the input, which may be the input itself
+	 */
+	public static Path getInput(Path cacheDir, Path inputFile) {
+		try {
+			return prepare(cacheDir, inputFile);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to prepare remap input {}, reading it directly", inputFile, e);
+			return inputFile;
+		}
+	}
+
+	private static Path prepare(Path cacheDir, Path inputFile) throws IOException {
+		try (RawZipFile zip = RawZipFile.open(inputFile)) {
+			final String hash = zip.getCentralDirectoryHash();
+			final Path prepared = cacheDir.resolve(hash + PREPARED_EXTENSION);
+
+			if (Files.exists(prepared)) {
+				return prepared;
+			}
+
+			final Path seen = cacheDir.resolve(hash + SEEN_EXTENSION);
+
+			if (Files.notExists(seen)) {
+				// First time this jar is seen, it may well change again before the next build
+				deleteOthers(cacheDir, null);
+				Files.createDirectories(cacheDir);
+				Files.createFile(seen);
+				return inputFile;
+			}
+
+			write(zip, prepared);
+			deleteOthers(cacheDir, prepared);
+			return prepared;
+		}
+	}
+
+	private static void write(RawZipFile zip, Path prepared) throws IOException {
+		final Path tempFile = Files.createTempFile(prepared.getParent(), prepared.getFileName().toString(), ".tmp");
+
+		try {
+			try (RawZipWriter writer = new RawZipWriter(tempFile)) {
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (!entry.isDirectory() && entry.name().endsWith(".class")) {
+						writer.writeStored(entry.name(), zip.readBytes(entry), entry.lastModifiedTime());
+					}
+				}
+			}
+
+			try {
+				Files.move(tempFile, prepared, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, prepared, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static void deleteOthers(Path cacheDir, Path keep) throws IOException {
+		if (Files.notExists(cacheDir)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+			for (Path path : stream) {
+				if (!path.equals(keep)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+}
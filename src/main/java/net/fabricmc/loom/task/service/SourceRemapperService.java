@@ -27,16 +27,21 @@ package net.fabricmc.loom.task.service;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +49,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.task.RemapSourcesJarTask;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.IncrementalSourceRemapper;
 import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.service.SharedService;
@@ -60,28 +66,46 @@ public final class SourceRemapperService implements SharedService {
 		final int javaCompileRelease = SourceRemapper.getJavaCompileRelease(project);
 
 		return serviceManager.getOrCreateService(id, () ->
-				new SourceRemapperService(MappingsService.createDefault(project, serviceManager, from, to), task.getClasspath(), javaCompileRelease));
+				new SourceRemapperService(id, MappingsService.createDefault(project, serviceManager, from, to), task.getClasspath(), javaCompileRelease));
 	}
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SourceRemapperService.class);
 
+	private final String id;
 	private final MappingsService mappingsService;
 	private final ConfigurableFileCollection classpath;
 	private final int javaCompileRelease;
 
 	private final Supplier<Mercury> mercury = Suppliers.memoize(this::createMercury);
+	private final Supplier<String> cacheKey = Suppliers.memoize(this::createCacheKey);
 
-	private SourceRemapperService(MappingsService mappingsService, ConfigurableFileCollection classpath, int javaCompileRelease) {
+	private SourceRemapperService(String id, MappingsService mappingsService, ConfigurableFileCollection classpath, int javaCompileRelease) {
+		this.id = id;
 		this.mappingsService = mappingsService;
 		this.classpath = classpath;
 		this.javaCompileRelease = javaCompileRelease;
 	}
 
 	public void remapSourcesJar(Path source, Path destination) throws IOException {
+		remapSourcesJar(source, destination, null);
+	}
+
+	/**
+	 * @param indexFile the index of the previous run, used to only remap the files that need it when remapping a jar into a jar.
+	 *                  When null, every file is remapped.
+	 */
+	public void remapSourcesJar(Path source, Path destination, @Nullable Path indexFile) throws IOException {
 		if (source.equals(destination)) {
 			throw new UnsupportedOperationException("Cannot remap in place");
 		}
 
+		if (indexFile != null && !Files.isDirectory(source) && !Files.isDirectory(destination)) {
+			final int remapped = IncrementalSourceRemapper.remap(source, destination, indexFile, cacheKey.get(),
+					(inputDir, sourceDir, outputDir) -> doRemap(inputDir, sourceDir, outputDir, source));
+			LOGGER.info("Remapped {} source files of {}", remapped, source);
+			return;
+		}
+
 		Path srcPath = source;
 		boolean isSrcTmp = false;
 
@@ -99,7 +123,7 @@ public final class SourceRemapperService implements SharedService {
 		try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
 			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
 
-			doRemap(srcPath, dstPath, source);
+			doRemap(srcPath, srcPath, dstPath, source);
 			SourceRemapper.copyNonJavaFiles(srcPath, dstPath, LOGGER, source);
 		} finally {
 			if (isSrcTmp) {
@@ -108,14 +132,63 @@ public final class SourceRemapperService implements SharedService {
 		}
 	}
 
-	private synchronized void doRemap(Path srcPath, Path dstPath, Path source) {
+	/**
+	 * @param sourceDir the complete source tree, which is added to the source path when only a part of it is remapped
+	 */
+	private synchronized boolean doRemap(Path srcPath, Path sourceDir, Path dstPath, Path source) {
+		final Mercury mercury = this.mercury.get();
+		final boolean partial = !srcPath.equals(sourceDir);
+
+		if (partial) {
+			mercury.getSourcePath().add(sourceDir);
+		}
+
 		try {
-			mercury.get().rewrite(srcPath, dstPath);
+			mercury.rewrite(srcPath, dstPath);
+			return true;
 		} catch (Exception e) {
 			LOGGER.warn("Could not remap " + source + " fully!", e);
+			return false;
+		} finally {
+			if (partial) {
+				mercury.getSourcePath().remove(sourceDir);
+			}
 		}
 	}
 
+	/**
+	 * Covers the mappings, the java release and the classpath, which all affect how sources are remapped.
+	 */
+	private String createCacheKey() {
+		final Hasher hasher = Hashing.sha256().newHasher()
+				.putString(id, StandardCharsets.UTF_8)
+				.putInt(javaCompileRelease);
+
+		try {
+			for (File file : classpath.getFiles()) {
+				if (file.isDirectory()) {
+					try (Stream<Path> stream = Files.walk(file.toPath())) {
+						for (Path path : stream.filter(Files::isRegularFile).sorted().toList()) {
+							putFile(hasher, path);
+						}
+					}
+				} else if (file.exists()) {
+					putFile(hasher, file.toPath());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to fingerprint the source remapping classpath", e);
+		}
+
+		return hasher.hash().toString();
+	}
+
+	private static void putFile(Hasher hasher, Path path) throws IOException {
+		hasher.putString(path.toString(), StandardCharsets.UTF_8)
+				.putLong(Files.size(path))
+				.putLong(Files.getLastModifiedTime(path).toMillis());
+	}
+
 	private MappingSet getMappings() throws IOException {
 		return new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFromNamespace(), mappingsService.getToNamespace()).read();
 	}
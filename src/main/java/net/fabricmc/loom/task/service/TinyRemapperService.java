@@ -50,9 +50,8 @@ import net.fabricmc.loom.build.mixin.AnnotationProcessorInvoker;
 import net.fabricmc.loom.task.AbstractRemapJarTask;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
-import net.fabricmc.loom.util.kotlin.KotlinClasspath;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
-import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
@@ -92,7 +91,8 @@ public class TinyRemapperService implements SharedService {
 				mappings.add(gradleMixinMappingProvider(serviceManager, project.getGradle(), extension.getMappingConfiguration().mappingsIdentifier, from, to));
 			}
 
-			return new TinyRemapperService(mappings, !legacyMixin, kotlinClasspathService);
+			final KotlinRemapperClassloaderService kotlinRemapper = kotlinClasspathService != null ? KotlinRemapperClassloaderService.getOrCreate(serviceManager, kotlinClasspathService) : null;
+			return new TinyRemapperService(mappings, !legacyMixin, kotlinRemapper);
 		});
 
 		service.readClasspath(remapJarTask.getClasspath().getFiles().stream().map(File::toPath).filter(Files::exists).toList());
@@ -125,14 +125,12 @@ public class TinyRemapperService implements SharedService {
 	}
 
 	private TinyRemapper tinyRemapper;
-	@Nullable
-	private KotlinRemapperClassloader kotlinRemapperClassloader;
 	private final Map<String, InputTag> inputTagMap = new HashMap<>();
 	private final HashSet<Path> classpath = new HashSet<>();
 	// Set to true once remapping has started, once set no inputs can be read.
 	private boolean isRemapping = false;
 
-	public TinyRemapperService(List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinClasspath kotlinClasspath) {
+	public TinyRemapperService(List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinRemapperClassloaderService kotlinRemapper) {
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper();
 
 		for (IMappingProvider provider : mappings) {
@@ -143,9 +141,9 @@ public class TinyRemapperService implements SharedService {
 			builder.extension(new dev.architectury.tinyremapper.extension.mixin.MixinExtension());
 		}
 
-		if (kotlinClasspath != null) {
-			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspath);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+		if (kotlinRemapper != null) {
+			// The classloader is shared with other remappers, and closed by its own service
+			builder.extension(kotlinRemapper.getTinyRemapperExtension());
 		}
 
 		tinyRemapper = builder.build();
@@ -197,9 +195,5 @@ public class TinyRemapperService implements SharedService {
 			tinyRemapper.finish();
 			tinyRemapper = null;
 		}
-
-		if (kotlinRemapperClassloader != null) {
-			kotlinRemapperClassloader.close();
-		}
 	}
 }
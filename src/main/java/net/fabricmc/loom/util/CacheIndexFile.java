@@ -0,0 +1,68 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.reflect.TypeToken;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Reads and writes the JSON index files that are kept next to some caches, mapping string keys to entries.
+ */
+public final class CacheIndexFile {
+	private CacheIndexFile() {
+	}
+
+	/**
+	 * Reads an index. As it is only a cache, a missing or unreadable file results in an empty index.
+	 *
+	 * @return a mutable copy of the index, sorted by key
+	 */
+	public static <V> Map<String, V> read(Path indexFile, TypeToken<Map<String, V>> type) {
+		if (Files.notExists(indexFile)) {
+			return new TreeMap<>();
+		}
+
+		try {
+			final Map<String, V> index = LoomGradlePlugin.GSON.fromJson(Files.readString(indexFile, StandardCharsets.UTF_8), type);
+			return index != null ? new TreeMap<>(index) : new TreeMap<>();
+		} catch (IOException | RuntimeException e) {
+			// Only a cache, start over
+			return new TreeMap<>();
+		}
+	}
+
+	public static void write(Path indexFile, Map<String, ?> index) throws IOException {
+		Files.createDirectories(indexFile.toAbsolutePath().getParent());
+		Files.writeString(indexFile, LoomGradlePlugin.GSON.toJson(index), StandardCharsets.UTF_8);
+	}
+}
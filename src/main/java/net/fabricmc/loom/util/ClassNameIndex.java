@@ -0,0 +1,78 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The names of the classes in a jar, read from its central directory without opening a zip file system.
+ *
+ * <p>Indexes are cached by {@link RawZipFile#getCentralDirectoryHash()}, so reading the index of a jar
+ * that has not changed, or of an identical copy of it, only costs reading its central directory.
+ *
+ * @param classNames the internal names of all classes
+ * @param innerClassNames the internal names of the classes that contain a {@code $}
+ */
+public record ClassNameIndex(Set<String> classNames, Set<String> innerClassNames) {
+	private static final int MAX_CACHED_INDEXES = 16;
+	private static final Map<String, ClassNameIndex> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ClassNameIndex> eldest) {
+			return size() > MAX_CACHED_INDEXES;
+		}
+	});
+
+	public static ClassNameIndex of(Path jar) throws IOException {
+		try (RawZipFile zip = RawZipFile.open(jar)) {
+			return CACHE.computeIfAbsent(zip.getCentralDirectoryHash(), hash -> create(zip));
+		}
+	}
+
+	private static ClassNameIndex create(RawZipFile zip) {
+		Set<String> classNames = new HashSet<>();
+		Set<String> innerClassNames = new HashSet<>();
+
+		for (String name : zip.getFileNames()) {
+			if (!name.endsWith(".class")) {
+				continue;
+			}
+
+			String className = name.substring(name.startsWith("/") ? 1 : 0, name.length() - 6);
+			classNames.add(className);
+
+			if (className.contains("$")) {
+				innerClassNames.add(className);
+			}
+		}
+
+		return new ClassNameIndex(Collections.unmodifiableSet(classNames), Collections.unmodifiableSet(innerClassNames));
+	}
+}
@@ -178,6 +178,7 @@ public class Constants {
 		public static final String DONT_REMAP = "fabric.loom.dontRemap";
 		public static final String DISABLE_REMAPPED_VARIANTS = "fabric.loom.disableRemappedVariants";
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
+		public static final String PERSISTENT_DEPENDENCY_RESOLUTIONS = "fabric.loom.persistentDependencyResolutions";
 	}
 
 	public static final class Forge {
@@ -27,18 +27,29 @@ package net.fabricmc.loom.util;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import org.gradle.api.Named;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
+import org.gradle.api.artifacts.repositories.ArtifactRepository;
+import org.gradle.api.artifacts.repositories.FlatDirectoryArtifactRepository;
+import org.gradle.api.artifacts.repositories.UrlArtifactRepository;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.file.FileCollection;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 /**
  * Simplified but powerful dependency downloading.
@@ -116,12 +127,40 @@ public final class DependencyDownloader {
 	/**
 	 * Resolves a dependency as well as its transitive dependencies into a {@link FileCollection}.
 	 *
+	 * <p>When only dependency notations were added, the result is memoized by {@link DependencyResolutionCache}.
+	 *
 	 * @param transitive whether to include transitive dependencies
 	 * @param resolve    whether to eagerly resolve the file collection
 	 * @return the resolved files
 	 */
-	@SuppressWarnings("unchecked")
 	public FileCollection download(boolean transitive, boolean resolve) {
+		final String cacheKey = getCacheKey(transitive);
+
+		if (cacheKey == null) {
+			// Dependencies added from a configuration can change, so they are resolved every time
+			FileCollection files = createConfiguration(transitive).fileCollection(dep -> true);
+
+			if (resolve) {
+				files = project.files(files.getFiles());
+			}
+
+			return files;
+		}
+
+		final DependencyResolutionCache cache = DependencyResolutionCache.get(project).get();
+		// The versions of transitive dependencies may be dynamic, so only intransitive resolutions are kept across builds
+		final boolean persistent = !transitive && dependencies.stream().allMatch(entry -> entry instanceof DependencyEntry.Notation notation && isFixedVersion(notation.notation()));
+		final Supplier<List<File>> files = () -> cache.resolve(cacheKey, persistent, () -> resolveArtifacts(transitive));
+
+		if (resolve) {
+			return project.files(files.get());
+		}
+
+		return project.files((Callable<List<File>>) files::get);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Configuration createConfiguration(boolean transitive) {
 		Dependency[] dependencies = this.dependencies.stream()
 				.map(entry -> entry.getDependency(project.getDependencies(), transitive))
 				.toArray(Dependency[]::new);
@@ -133,13 +172,77 @@ public final class DependencyDownloader {
 				attributes.attribute((Attribute<Object>) attribute, value);
 			});
 		});
-		FileCollection files = config.fileCollection(dep -> true);
+		return config;
+	}
 
-		if (resolve) {
-			files = project.files(files.getFiles());
+	private DependencyResolutionCache.Resolution resolveArtifacts(boolean transitive) {
+		final List<File> files = new ArrayList<>();
+		final Set<String> modules = new LinkedHashSet<>();
+
+		for (ResolvedArtifactResult artifact : createConfiguration(transitive).getIncoming().getArtifacts()) {
+			files.add(artifact.getFile());
+
+			if (artifact.getId().getComponentIdentifier() instanceof ModuleComponentIdentifier module) {
+				modules.add(module.getGroup() + ":" + module.getModule() + ":" + module.getVersion());
+			}
+		}
+
+		return new DependencyResolutionCache.Resolution(files, List.copyOf(modules));
+	}
+
+	/**
+	 * @return a key identifying what is resolved, or {@code null} if it cannot be cached
+	 */
+	@Nullable
+	private String getCacheKey(boolean transitive) {
+		final StringBuilder key = new StringBuilder(transitive ? "transitive" : "intransitive");
+
+		for (DependencyEntry entry : dependencies) {
+			if (!(entry instanceof DependencyEntry.Notation notation)) {
+				return null;
+			}
+
+			key.append(' ').append(notation.notation());
 		}
 
-		return files;
+		final Map<String, String> sortedAttributes = new TreeMap<>();
+		attributes.forEach((attribute, value) -> sortedAttributes.put(attribute.getName(), value instanceof Named named ? named.getName() : String.valueOf(value)));
+		sortedAttributes.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+
+		// The same notation may resolve differently from other repositories
+		for (ArtifactRepository repository : project.getRepositories()) {
+			key.append(" repository=");
+
+			if (repository instanceof UrlArtifactRepository urlRepository) {
+				key.append(urlRepository.getUrl());
+			} else if (repository instanceof FlatDirectoryArtifactRepository flatDirectory) {
+				key.append(flatDirectory.getDirs());
+			} else {
+				key.append(repository.getName());
+			}
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * @return whether the notation requests a fixed version, which always resolves to the same module
+	 */
+	@VisibleForTesting
+	public static boolean isFixedVersion(String notation) {
+		final String[] parts = notation.split("@", 2)[0].split(":");
+
+		if (parts.length < 3) {
+			return false;
+		}
+
+		final String version = parts[2];
+
+		return !version.isEmpty()
+				&& !version.endsWith("-SNAPSHOT")
+				&& !version.startsWith("latest.")
+				&& !version.contains("+")
+				&& version.chars().noneMatch(c -> c == '[' || c == ']' || c == '(' || c == ')' || c == ',');
 	}
 
 	/**
@@ -0,0 +1,168 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.google.gson.reflect.TypeToken;
+import org.gradle.api.Project;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.extension.LoomFiles;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+
+/**
+ * Remembers what the detached configurations of {@link DependencyDownloader} resolved to, so that helper tools looked
+ * up repeatedly are only resolved by Gradle once.
+ *
+ * <p>Every resolution is kept for the rest of the build, across all projects.
+ *
+ * <p>When the Gradle property {@code fabric.loom.persistentDependencyResolutions} is set to {@code true}, intransitive
+ * resolutions of fixed versions are also kept in an index in the root project's persistent cache, and are reused by
+ * later builds for as long as the resolved files exist. The index skips Gradle's resolution, including repository
+ * content filters and offline checks, so it is opt-in and is never used when the build has dependency verification
+ * metadata. Transitive resolutions are never indexed, as the versions of their transitive dependencies may be ranges
+ * or dynamic. Refreshing dependencies ignores the index.
+ */
+public abstract class DependencyResolutionCache implements BuildService<DependencyResolutionCache.Params> {
+	public interface Params extends BuildServiceParameters {
+		RegularFileProperty getIndexFile();
+		Property<Boolean> getPersistent();
+		Property<Boolean> getRefresh();
+	}
+
+	private final Map<String, List<File>> resolutions = new ConcurrentHashMap<>();
+	private Map<String, Entry> index;
+
+	public static synchronized Provider<DependencyResolutionCache> get(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent("LoomDependencyResolutionCache", DependencyResolutionCache.class, spec -> {
+			spec.parameters(params -> {
+				params.getIndexFile().set(new File(LoomFiles.create(project).getRootProjectPersistentCache(), "dependency-resolutions.json"));
+				// Resolving through the index would skip the verification of the resolved files
+				params.getPersistent().set(GradleUtils.getBooleanProperty(project, Constants.Properties.PERSISTENT_DEPENDENCY_RESOLUTIONS)
+						&& !new File(project.getRootDir(), "gradle/verification-metadata.xml").exists());
+				params.getRefresh().set(project.getGradle().getStartParameter().isRefreshDependencies() || Boolean.getBoolean("loom.refresh"));
+			});
+		});
+	}
+
+	/**
+	 * @param key        identifies the resolution, including the requested dependencies, transitivity, attributes and repositories
+	 * @param persistent whether the resolution may be kept across builds, which is only the case for intransitive fixed versions,
+	 *                   and only when enabled for the build
+	 * @param resolver   resolves the dependencies when they are not cached
+	 * @return the resolved files
+	 */
+	public List<File> resolve(String key, boolean persistent, Supplier<Resolution> resolver) {
+		final List<File> cached = resolutions.get(key);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		final boolean useIndex = persistent && getParameters().getPersistent().get();
+		final List<File> indexed = useIndex && !getParameters().getRefresh().get() ? getIndexed(key) : null;
+
+		if (indexed != null) {
+			resolutions.putIfAbsent(key, indexed);
+			return indexed;
+		}
+
+		final Resolution resolution = resolver.get();
+		final List<File> files = List.copyOf(resolution.files());
+
+		if (useIndex && resolution.modules().stream().noneMatch(module -> module.endsWith("-SNAPSHOT"))) {
+			putIndexed(key, new Entry(files.stream().map(File::getAbsolutePath).toList(), resolution.modules()));
+		}
+
+		final List<File> previous = resolutions.putIfAbsent(key, files);
+		return previous != null ? previous : files;
+	}
+
+	@Nullable
+	private synchronized List<File> getIndexed(String key) {
+		final Entry entry = getIndex().get(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		final List<File> files = entry.files().stream().map(File::new).toList();
+
+		if (!files.stream().allMatch(File::exists)) {
+			// Removed from the Gradle cache since
+			return null;
+		}
+
+		return files;
+	}
+
+	private synchronized void putIndexed(String key, Entry entry) {
+		final Map<String, Entry> index = getIndex();
+
+		if (entry.equals(index.put(key, entry))) {
+			return;
+		}
+
+		final Path indexFile = getParameters().getIndexFile().get().getAsFile().toPath();
+
+		try {
+			CacheIndexFile.write(indexFile, index);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write dependency resolution index", e);
+		}
+	}
+
+	private Map<String, Entry> getIndex() {
+		if (index == null) {
+			index = CacheIndexFile.read(getParameters().getIndexFile().get().getAsFile().toPath(), new TypeToken<Map<String, Entry>>() {
+			});
+		}
+
+		return index;
+	}
+
+	/**
+	 * @param files   the resolved files, in resolution order
+	 * @param modules the {@code group:name:version} of every resolved module
+	 */
+	public record Resolution(List<File> files, List<String> modules) {
+	}
+
+	private record Entry(List<String> files, List<String> modules) {
+	}
+}
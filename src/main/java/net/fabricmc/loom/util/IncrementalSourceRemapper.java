@@ -0,0 +1,257 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Remaps a sources jar, only rewriting the Java files that need it since the previous run.
+ *
+ * <p>An index records the content hash of every Java file, along with the CRC and size of its remapped output.
+ * When a Java file was added, removed or changed, every file is rewritten, as the remapping of a file can depend on
+ * the declarations of any other one. Otherwise only the files without a matching entry in the previous output are
+ * rewritten, and the others are copied from the previous output jar without being decompressed.
+ *
+ * <p>Everything is rewritten when the cache key changes, so it must cover the mappings and the classpath.
+ */
+public final class IncrementalSourceRemapper {
+	private IncrementalSourceRemapper() {
+	}
+
+	@FunctionalInterface
+	public interface Rewriter {
+		/**
+		 * Rewrites every Java file in {@code inputDir} into {@code outputDir}.
+		 *
+		 * @param sourceDir the complete source tree, to resolve references to files that are not rewritten
+		 * @return whether all the files were rewritten successfully
+		 */
+		boolean rewrite(Path inputDir, Path sourceDir, Path outputDir);
+	}
+
+	/**
+	 * @param indexFile the index of the previous run, which is replaced
+	 * @return the number of Java files that were rewritten
+	 */
+	public static int remap(Path source, Path destination, Path indexFile, String cacheKey, Rewriter rewriter) throws IOException {
+		final Index previous = readIndex(indexFile);
+		final Map<String, FileEntry> files = new TreeMap<>();
+		final Set<String> changed = new LinkedHashSet<>();
+		final Path tempDir = Files.createTempDirectory("fabric-loom-src");
+		final Path tempJar = Files.createTempFile(destination.toAbsolutePath().getParent(), "remapped-sources", ".jar.tmp");
+		boolean success;
+
+		try {
+			try (RawZipFile input = RawZipFile.open(source);
+					RawZipFile previousOutput = cacheKey.equals(previous.key()) ? openPreviousOutput(destination) : null) {
+				final Path sourceDir = tempDir.resolve("sources");
+				final Path changedDir = tempDir.resolve("changed");
+				final Path outputDir = tempDir.resolve("output");
+				final Map<String, RawZipFile.Entry> javaFiles = new LinkedHashMap<>();
+				final Map<String, String> hashes = new HashMap<>();
+				final Map<String, RawZipFile.Entry> reusable = new LinkedHashMap<>();
+
+				// All the sources are needed to resolve references, even when only some of them are rewritten
+				for (RawZipFile.Entry entry : input.entries()) {
+					if (entry.isDirectory() || !entry.name().endsWith(".java")) {
+						continue;
+					}
+
+					final byte[] bytes = input.readBytes(entry);
+					final Path path = resolve(sourceDir, entry.name());
+					Files.createDirectories(path.getParent());
+					Files.write(path, bytes);
+
+					javaFiles.put(entry.name(), entry);
+					hashes.put(entry.name(), Hashing.sha256().hashBytes(bytes).toString());
+				}
+
+				boolean sourcesChanged = !javaFiles.keySet().containsAll(previous.files().keySet());
+
+				for (String name : javaFiles.keySet()) {
+					final FileEntry previousEntry = previous.files().get(name);
+
+					if (previousEntry == null || !hashes.get(name).equals(previousEntry.hash())) {
+						sourcesChanged = true;
+						changed.add(name);
+						continue;
+					}
+
+					final RawZipFile.Entry output = previousOutput != null ? previousOutput.getEntry(name) : null;
+
+					if (output != null && output.crc() == previousEntry.outputCrc() && output.size() == previousEntry.outputSize()) {
+						reusable.put(name, output);
+					} else {
+						changed.add(name);
+					}
+				}
+
+				if (sourcesChanged) {
+					// A change to a declaration can change how any other file is remapped, through inherited members,
+					// chained calls or types that are not declared in a file of the same name
+					changed.addAll(reusable.keySet());
+					reusable.clear();
+				}
+
+				if (changed.isEmpty()) {
+					success = true;
+				} else if (reusable.isEmpty()) {
+					success = rewriter.rewrite(sourceDir, sourceDir, outputDir);
+				} else {
+					for (String name : changed) {
+						final Path path = resolve(changedDir, name);
+						Files.createDirectories(path.getParent());
+						Files.copy(resolve(sourceDir, name), path);
+					}
+
+					success = rewriter.rewrite(changedDir, sourceDir, outputDir);
+				}
+
+				try (RawZipWriter writer = new RawZipWriter(tempJar)) {
+					for (RawZipFile.Entry entry : input.entries()) {
+						final String name = entry.name();
+
+						if (!javaFiles.containsKey(name)) {
+							writer.copy(input, entry);
+							continue;
+						}
+
+						final RawZipFile.Entry reused = reusable.get(name);
+
+						if (reused != null) {
+							writer.copy(previousOutput, reused);
+							files.put(name, new FileEntry(hashes.get(name), reused.crc(), reused.size()));
+							continue;
+						}
+
+						final Path remapped = resolve(outputDir, name);
+
+						if (Files.exists(remapped)) {
+							final RawZipWriter.Compressed compressed = RawZipWriter.compress(name, Files.readAllBytes(remapped), entry.lastModifiedTime());
+							writer.write(compressed);
+							files.put(name, new FileEntry(hashes.get(name), compressed.crc(), compressed.size()));
+						}
+					}
+
+					if (Files.isDirectory(outputDir)) {
+						// Files moved by Mercury, when a class of the sources is renamed
+						try (Stream<Path> stream = Files.walk(outputDir)) {
+							for (Path path : stream.filter(Files::isRegularFile).sorted().toList()) {
+								final String name = outputDir.relativize(path).toString().replace(File.separatorChar, '/');
+
+								if (!javaFiles.containsKey(name)) {
+									writer.write(name, Files.readAllBytes(path), Files.getLastModifiedTime(path).toMillis());
+								}
+							}
+						}
+					}
+				}
+			}
+
+			Files.move(tempJar, destination, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempJar);
+			Files.walkFileTree(tempDir, new DeletingFileVisitor());
+		}
+
+		if (success) {
+			Files.createDirectories(indexFile.toAbsolutePath().getParent());
+			Files.writeString(indexFile, LoomGradlePlugin.GSON.toJson(new Index(cacheKey, files)), StandardCharsets.UTF_8);
+		} else {
+			// Don't keep partially remapped files
+			Files.deleteIfExists(indexFile);
+		}
+
+		return changed.size();
+	}
+
+	private static Path resolve(Path directory, String name) throws IOException {
+		final Path path = directory.resolve(name).normalize();
+
+		if (!path.startsWith(directory)) {
+			throw new IOException("Invalid entry name: " + name);
+		}
+
+		return path;
+	}
+
+	@Nullable
+	private static RawZipFile openPreviousOutput(Path destination) {
+		if (!Files.isRegularFile(destination)) {
+			return null;
+		}
+
+		try {
+			return RawZipFile.open(destination);
+		} catch (IOException e) {
+			// Only a cache, remap everything again
+			return null;
+		}
+	}
+
+	private static Index readIndex(Path indexFile) {
+		if (Files.notExists(indexFile)) {
+			return Index.EMPTY;
+		}
+
+		try {
+			final Index index = LoomGradlePlugin.GSON.fromJson(Files.readString(indexFile, StandardCharsets.UTF_8), Index.class);
+			return index != null && index.key() != null && index.files() != null ? index : Index.EMPTY;
+		} catch (IOException | RuntimeException e) {
+			// Only a cache, remap everything again
+			return Index.EMPTY;
+		}
+	}
+
+	private record Index(String key, Map<String, FileEntry> files) {
+		private static final Index EMPTY = new Index("", Collections.emptyMap());
+	}
+
+	/**
+	 * @param hash the hash of the source file
+	 * @param outputCrc the CRC of the remapped file
+	 * @param outputSize the size of the remapped file
+	 */
+	private record FileEntry(String hash, long outputCrc, long outputSize) {
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.google.common.base.Suppliers;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.commons.Remapper;
+
+import net.fabricmc.mappingio.tree.MappingTree;
+
+/**
+ * A {@link Remapper} that looks names up in an index built from a {@link MappingTree}, without reading any class files.
+ *
+ * <p>Members are first looked up on the given owner, which is what access wideners and similar files reference.
+ * Only when a member with a mapped name is not found there is the class hierarchy consulted, which is read lazily,
+ * in the order the JVM resolves fields and methods.
+ */
+public final class MappingTreeRemapper extends Remapper {
+	private final Map<String, String> classes = new HashMap<>();
+	private final Map<String, String> fields = new HashMap<>();
+	private final Map<String, String> methods = new HashMap<>();
+	// The source names of all the members with a mapping, a member with a name not in here is never remapped.
+	private final Set<String> mappedMemberNames = new HashSet<>();
+	private final Supplier<Map<String, String[]>> hierarchy;
+
+	private MappingTreeRemapper(Supplier<Map<String, String[]>> hierarchy) {
+		this.hierarchy = Suppliers.memoize(hierarchy::get);
+	}
+
+	/**
+	 * @param hierarchy supplies the direct super types of every class, keyed by the class name in the source namespace,
+	 *                  with the interfaces first and the super class last
+	 */
+	public static MappingTreeRemapper create(MappingTree mappingTree, String from, String to, Supplier<Map<String, String[]>> hierarchy) {
+		final int fromId = mappingTree.getNamespaceId(from);
+		final int toId = mappingTree.getNamespaceId(to);
+
+		if (fromId == MappingTree.NULL_NAMESPACE_ID || toId == MappingTree.NULL_NAMESPACE_ID) {
+			throw new IllegalArgumentException("Mappings do not contain the namespaces %s and %s".formatted(from, to));
+		}
+
+		final MappingTreeRemapper remapper = new MappingTreeRemapper(hierarchy);
+
+		for (MappingTree.ClassMapping classMapping : mappingTree.getClasses()) {
+			final String owner = classMapping.getName(fromId);
+
+			if (owner == null) {
+				continue;
+			}
+
+			final String className = classMapping.getName(toId);
+
+			if (className != null && !className.equals(owner)) {
+				remapper.classes.put(owner, className);
+			}
+
+			for (MappingTree.FieldMapping field : classMapping.getFields()) {
+				remapper.putMember(remapper.fields, owner, field.getName(fromId), "", field.getName(toId));
+			}
+
+			for (MappingTree.MethodMapping method : classMapping.getMethods()) {
+				remapper.putMember(remapper.methods, owner, method.getName(fromId), method.getDesc(fromId), method.getName(toId));
+			}
+		}
+
+		return remapper;
+	}
+
+	/**
+	 * Reads the direct super types of every class in the given jars, for use with {@link #create}.
+	 */
+	public static Map<String, String[]> readHierarchy(List<Path> jars) {
+		final Map<String, String[]> hierarchy = new HashMap<>();
+
+		for (Path jar : jars) {
+			try (RawZipFile zip = RawZipFile.open(jar)) {
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (!entry.name().endsWith(".class")) {
+						continue;
+					}
+
+					final ClassReader reader = new ClassReader(zip.readBytes(entry));
+					final String superName = reader.getSuperName();
+					final String[] interfaces = reader.getInterfaces();
+					final String[] superTypes = new String[interfaces.length + (superName != null ? 1 : 0)];
+					System.arraycopy(interfaces, 0, superTypes, 0, interfaces.length);
+
+					if (superName != null) {
+						superTypes[interfaces.length] = superName;
+					}
+
+					hierarchy.putIfAbsent(reader.getClassName(), superTypes);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read class hierarchy from " + jar, e);
+			}
+		}
+
+		return hierarchy;
+	}
+
+	private void putMember(Map<String, String> members, String owner, @Nullable String name, @Nullable String desc, @Nullable String newName) {
+		if (name == null || desc == null || newName == null || newName.equals(name)) {
+			return;
+		}
+
+		members.put(memberKey(owner, name, desc), newName);
+		mappedMemberNames.add(name);
+	}
+
+	@Override
+	public String map(String internalName) {
+		return classes.getOrDefault(internalName, internalName);
+	}
+
+	@Override
+	public String mapFieldName(String owner, String name, String descriptor) {
+		final String newName = fields.get(memberKey(owner, name, ""));
+
+		if (newName != null) {
+			return newName;
+		}
+
+		if (!mappedMemberNames.contains(name)) {
+			return name;
+		}
+
+		final String inherited = findField(hierarchy.get(), owner, name, new HashSet<>());
+		return inherited != null ? inherited : name;
+	}
+
+	@Override
+	public String mapMethodName(String owner, String name, String descriptor) {
+		final String newName = methods.get(memberKey(owner, name, descriptor));
+
+		if (newName != null) {
+			return newName;
+		}
+
+		if (!mappedMemberNames.contains(name)) {
+			return name;
+		}
+
+		final String inherited = findMethod(hierarchy.get(), owner, name, descriptor);
+		return inherited != null ? inherited : name;
+	}
+
+	@Override
+	public String mapRecordComponentName(String owner, String name, String descriptor) {
+		return mapFieldName(owner, name, descriptor);
+	}
+
+	/**
+	 * Searches like the JVM resolves fields: the class itself, then its super interfaces, then its super class.
+	 */
+	@Nullable
+	private String findField(Map<String, String[]> superTypes, @Nullable String owner, String name, Set<String> visited) {
+		if (owner == null || !visited.add(owner)) {
+			return null;
+		}
+
+		final String newName = fields.get(memberKey(owner, name, ""));
+
+		if (newName != null) {
+			return newName;
+		}
+
+		for (String superInterface : getInterfaces(superTypes, owner)) {
+			final String inherited = findField(superTypes, superInterface, name, visited);
+
+			if (inherited != null) {
+				return inherited;
+			}
+		}
+
+		return findField(superTypes, getSuperClass(superTypes, owner), name, visited);
+	}
+
+	/**
+	 * Searches like the JVM resolves methods: the super class chain first, and only then the super interfaces.
+	 */
+	@Nullable
+	private String findMethod(Map<String, String[]> superTypes, String owner, String name, String desc) {
+		final Set<String> visited = new HashSet<>();
+		final Queue<String> interfaces = new ArrayDeque<>();
+
+		for (String type = owner; type != null && visited.add(type); type = getSuperClass(superTypes, type)) {
+			final String newName = methods.get(memberKey(type, name, desc));
+
+			if (newName != null) {
+				return newName;
+			}
+
+			interfaces.addAll(getInterfaces(superTypes, type));
+		}
+
+		while (!interfaces.isEmpty()) {
+			final String type = interfaces.remove();
+
+			if (!visited.add(type)) {
+				continue;
+			}
+
+			final String newName = methods.get(memberKey(type, name, desc));
+
+			if (newName != null) {
+				return newName;
+			}
+
+			interfaces.addAll(getInterfaces(superTypes, type));
+		}
+
+		return null;
+	}
+
+	@Nullable
+	private static String getSuperClass(Map<String, String[]> superTypes, String type) {
+		final String[] supers = superTypes.get(type);
+		return supers != null && supers.length > 0 ? supers[supers.length - 1] : null;
+	}
+
+	private static List<String> getInterfaces(Map<String, String[]> superTypes, String type) {
+		final String[] supers = superTypes.get(type);
+		return supers != null && supers.length > 1 ? Arrays.asList(supers).subList(0, supers.length - 1) : List.of();
+	}
+
+	private static String memberKey(String owner, String name, String desc) {
+		return owner + '.' + name + desc;
+	}
+}
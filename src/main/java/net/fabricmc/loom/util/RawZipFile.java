@@ -0,0 +1,300 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A read-only view of a zip file's central directory that gives access to the raw, still compressed entry records.
+ *
+ * <p>Used together with {@link RawZipWriter} to copy entries between jars without inflating and deflating them again.
+ * Zip64 archives are not supported, which is fine for the jars Loom produces and consumes.
+ */
+public final class RawZipFile implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_SIGNATURE = 0x06054b50;
+	static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_SIZE = 22;
+
+	static final int STORED = 0;
+	static final int DEFLATED = 8;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private String centralDirectoryHash;
+
+	private RawZipFile(Path path, FileChannel channel) {
+		this.path = path;
+		this.channel = channel;
+	}
+
+	public static RawZipFile open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			RawZipFile zip = new RawZipFile(path, channel);
+			zip.readCentralDirectory();
+			return zip;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return every entry of the zip, in central directory order
+	 */
+	public Iterable<Entry> entries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	@Nullable
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * @return the names of all regular file entries, in central directory order
+	 */
+	public List<String> getFileNames() {
+		List<String> names = new ArrayList<>(entries.size());
+
+		for (Entry entry : entries.values()) {
+			if (!entry.isDirectory()) {
+				names.add(entry.name());
+			}
+		}
+
+		return names;
+	}
+
+	/**
+	 * Reads and decompresses the data of an entry. This is thread safe.
+	 */
+	public byte[] readBytes(Entry entry) throws IOException {
+		ByteBuffer compressed = read(channel, getDataOffset(entry), Math.toIntExact(entry.compressedSize()));
+
+		switch (entry.method()) {
+		case STORED:
+			return compressed.array();
+		case DEFLATED:
+			Inflater inflater = new Inflater(true);
+
+			try {
+				// Inflater may need an extra dummy byte when nowrap is used
+				inflater.setInput(Arrays.copyOf(compressed.array(), compressed.limit() + 1));
+				byte[] data = new byte[Math.toIntExact(entry.size())];
+				int length = 0;
+
+				while (length < data.length) {
+					int read = inflater.inflate(data, length, data.length - length);
+
+					if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+						throw new ZipException("Truncated data for " + entry.name() + " in " + path);
+					}
+
+					length += read;
+				}
+
+				return data;
+			} catch (DataFormatException e) {
+				throw new ZipException("Invalid data for " + entry.name() + " in " + path + ": " + e.getMessage());
+			} finally {
+				inflater.end();
+			}
+		default:
+			throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name() + " in " + path);
+		}
+	}
+
+	long getDataOffset(Entry entry) throws IOException {
+		ByteBuffer localHeader = read(channel, entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+
+		if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry.name() + " in " + path);
+		}
+
+		int nameLength = Short.toUnsignedInt(localHeader.getShort(26));
+		int extraLength = Short.toUnsignedInt(localHeader.getShort(28));
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	/**
+	 * A hash of the central directory, which covers the name, size, CRC and timestamp of every entry.
+	 * This identifies the content of the zip without having to read all of it.
+	 */
+	public String getCentralDirectoryHash() {
+		return centralDirectoryHash;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	FileChannel channel() {
+		return channel;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long size = channel.size();
+
+		// The end of central directory record is followed by a comment of at most 65535 bytes.
+		int tailSize = (int) Math.min(size, END_SIZE + 0xFFFF);
+		ByteBuffer tail = read(channel, size - tailSize, tailSize);
+		int endOffset = -1;
+
+		for (int i = tailSize - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				endOffset = i;
+				break;
+			}
+		}
+
+		if (endOffset < 0) {
+			throw new ZipException("Could not find the end of central directory in " + path);
+		}
+
+		int entryCount = Short.toUnsignedInt(tail.getShort(endOffset + 10));
+		long directorySize = Integer.toUnsignedLong(tail.getInt(endOffset + 12));
+		long directoryOffset = Integer.toUnsignedLong(tail.getInt(endOffset + 16));
+
+		if (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+			throw new ZipException("Zip64 is not supported: " + path);
+		}
+
+		ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+		centralDirectoryHash = Hashing.sha256().hashBytes(directory.array()).toString();
+
+		while (directory.remaining() >= CENTRAL_HEADER_SIZE) {
+			int start = directory.position();
+
+			if (directory.getInt(start) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + path);
+			}
+
+			int flags = Short.toUnsignedInt(directory.getShort(start + 8));
+			int method = Short.toUnsignedInt(directory.getShort(start + 10));
+			long crc = Integer.toUnsignedLong(directory.getInt(start + 16));
+			long compressedSize = Integer.toUnsignedLong(directory.getInt(start + 20));
+			long uncompressedSize = Integer.toUnsignedLong(directory.getInt(start + 24));
+			int nameLength = Short.toUnsignedInt(directory.getShort(start + 28));
+			int extraLength = Short.toUnsignedInt(directory.getShort(start + 30));
+			int commentLength = Short.toUnsignedInt(directory.getShort(start + 32));
+			long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(start + 42));
+
+			if (compressedSize == 0xFFFFFFFFL || uncompressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+				throw new ZipException("Zip64 is not supported: " + path);
+			}
+
+			byte[] nameBytes = new byte[nameLength];
+			directory.get(start + CENTRAL_HEADER_SIZE, nameBytes);
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			byte[] header = new byte[CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength];
+			directory.get(start, header);
+			directory.position(start + header.length);
+
+			entries.put(name, new Entry(name, flags, method, crc, compressedSize, uncompressedSize, localHeaderOffset, header));
+		}
+	}
+
+	static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+
+		return buffer.flip();
+	}
+
+	/**
+	 * @param centralHeader the entry's central directory record, including the name, extra field and comment
+	 */
+	public record Entry(String name, int flags, int method, long crc, long compressedSize, long size, long localHeaderOffset, byte[] centralHeader) {
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		boolean hasDataDescriptor() {
+			return (flags & 0x8) != 0;
+		}
+
+		/**
+		 * @return the last modified time stored in the entry's MS-DOS date and time fields
+		 */
+		public long lastModifiedTime() {
+			int dosTime = ByteBuffer.wrap(centralHeader).order(ByteOrder.LITTLE_ENDIAN).getInt(12);
+
+			try {
+				return LocalDateTime.of(
+						((dosTime >> 25) & 0x7F) + 1980,
+						(dosTime >> 21) & 0x0F,
+						(dosTime >> 16) & 0x1F,
+						(dosTime >> 11) & 0x1F,
+						(dosTime >> 5) & 0x3F,
+						(dosTime << 1) & 0x3E
+				).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			} catch (DateTimeException e) {
+				return 0;
+			}
+		}
+	}
+}
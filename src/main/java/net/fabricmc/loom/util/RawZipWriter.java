@@ -0,0 +1,322 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file from raw entries copied out of {@link RawZipFile}s, and from new entries.
+ *
+ * <p>Copied entries keep their local header, compressed data and central directory record byte for byte,
+ * only the local header offset is updated. This avoids inflating and deflating entries that are not changed.
+ */
+public final class RawZipWriter implements Closeable {
+	private static final int VERSION = 20;
+	private static final int UTF8_FLAG = 0x800;
+
+	private final FileChannel channel;
+	private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+	private final Set<String> names = new HashSet<>();
+	private int entryCount = 0;
+
+	public RawZipWriter(Path output) throws IOException {
+		this.channel = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Copies an entry without decompressing it.
+	 */
+	public void copy(RawZipFile source, RawZipFile.Entry entry) throws IOException {
+		addName(entry.name());
+
+		FileChannel input = source.channel();
+		long offset = entry.localHeaderOffset();
+		long end = source.getDataOffset(entry) + entry.compressedSize();
+
+		if (entry.hasDataDescriptor()) {
+			// The data descriptor signature is optional
+			boolean signed = RawZipFile.read(input, end, 4).getInt(0) == RawZipFile.DATA_DESCRIPTOR_SIGNATURE;
+			end += signed ? 16 : 12;
+		}
+
+		long newOffset = checkOffset(channel.position());
+		transfer(input, offset, end, source.getPath() + " while copying " + entry.name());
+
+		ByteBuffer centralHeader = ByteBuffer.wrap(entry.centralHeader().clone()).order(ByteOrder.LITTLE_ENDIAN);
+		centralHeader.putShort(34, (short) 0);
+		centralHeader.putInt(42, (int) newOffset);
+		centralDirectory.write(centralHeader.array());
+	}
+
+	/**
+	 * Writes a new deflated entry.
+	 */
+	public void write(String name, byte[] data, long lastModifiedTime) throws IOException {
+		write(compress(name, data, lastModifiedTime));
+	}
+
+	/**
+	 * Writes an entry compressed ahead of time with {@link #compress}.
+	 */
+	public void write(Compressed entry) throws IOException {
+		addName(entry.name());
+
+		byte[] nameBytes = entry.name().getBytes(StandardCharsets.UTF_8);
+		long offset = checkOffset(channel.position());
+		int dosTime = toDosTime(entry.lastModifiedTime());
+
+		writeFully(createLocalHeader(nameBytes, RawZipFile.DEFLATED, dosTime, entry.crc(), entry.data().length, entry.size()));
+		writeFully(ByteBuffer.wrap(entry.data()));
+		centralDirectory.write(createCentralHeader(nameBytes, RawZipFile.DEFLATED, dosTime, entry.crc(), entry.data().length, entry.size(), offset));
+	}
+
+	/**
+	 * Writes a new stored entry, without compressing it.
+	 */
+	public void writeStored(String name, byte[] data, long lastModifiedTime) throws IOException {
+		addName(name);
+
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		long offset = checkOffset(channel.position());
+		int dosTime = toDosTime(lastModifiedTime);
+
+		writeFully(createLocalHeader(nameBytes, RawZipFile.STORED, dosTime, crc.getValue(), data.length, data.length));
+		writeFully(ByteBuffer.wrap(data));
+		centralDirectory.write(createCentralHeader(nameBytes, RawZipFile.STORED, dosTime, crc.getValue(), data.length, data.length, offset));
+	}
+
+	/**
+	 * Writes the content of a file as a stored entry, without compressing it again.
+	 *
+	 * <p>The file is streamed twice, once to compute its CRC and once to copy it, so that it never has to be held in memory.
+	 * This is meant for entries that are already compressed, such as nested jars.
+	 */
+	public void writeStored(String name, Path file, long lastModifiedTime) throws IOException {
+		try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = input.size();
+
+			if (size >= 0xFFFFFFFFL) {
+				throw new ZipException("Zip64 is not supported, " + file + " is too large");
+			}
+
+			long crc = crc32(input, size, file);
+			addName(name);
+
+			byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			long offset = checkOffset(channel.position());
+			int dosTime = toDosTime(lastModifiedTime);
+
+			writeFully(createLocalHeader(nameBytes, RawZipFile.STORED, dosTime, crc, size, size));
+			transfer(input, 0, size, file.toString());
+			centralDirectory.write(createCentralHeader(nameBytes, RawZipFile.STORED, dosTime, crc, size, size, offset));
+		}
+	}
+
+	/**
+	 * Deflates an entry so that it can be written later. This is thread safe, unlike writing.
+	 */
+	public static Compressed compress(String name, byte[] data, long lastModifiedTime) {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return new Compressed(name, deflate(data), crc.getValue(), data.length, lastModifiedTime);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (channel) {
+			long offset = checkOffset(channel.position());
+			byte[] directory = centralDirectory.toByteArray();
+			writeFully(ByteBuffer.wrap(directory));
+
+			ByteBuffer end = ByteBuffer.allocate(RawZipFile.END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(RawZipFile.END_SIGNATURE);
+			end.putShort((short) 0); // Disk number
+			end.putShort((short) 0); // Disk with the central directory
+			end.putShort((short) entryCount);
+			end.putShort((short) entryCount);
+			end.putInt(directory.length);
+			end.putInt((int) offset);
+			end.putShort((short) 0); // Comment length
+			writeFully(end.flip());
+		}
+	}
+
+	private void addName(String name) throws ZipException {
+		if (!names.add(name)) {
+			throw new ZipException("Duplicate entry: " + name);
+		}
+
+		if (++entryCount >= 0xFFFF) {
+			throw new ZipException("Zip64 is not supported, too many entries");
+		}
+	}
+
+	private static ByteBuffer createLocalHeader(byte[] nameBytes, int method, int dosTime, long crc, long compressedSize, long size) {
+		ByteBuffer localHeader = ByteBuffer.allocate(RawZipFile.LOCAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		localHeader.putInt(RawZipFile.LOCAL_HEADER_SIGNATURE);
+		localHeader.putShort((short) VERSION);
+		localHeader.putShort((short) UTF8_FLAG);
+		localHeader.putShort((short) method);
+		localHeader.putInt(dosTime);
+		localHeader.putInt((int) crc);
+		localHeader.putInt((int) compressedSize);
+		localHeader.putInt((int) size);
+		localHeader.putShort((short) nameBytes.length);
+		localHeader.putShort((short) 0);
+		localHeader.put(nameBytes);
+		return localHeader.flip();
+	}
+
+	private static byte[] createCentralHeader(byte[] nameBytes, int method, int dosTime, long crc, long compressedSize, long size, long offset) {
+		ByteBuffer centralHeader = ByteBuffer.allocate(RawZipFile.CENTRAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		centralHeader.putInt(RawZipFile.CENTRAL_HEADER_SIGNATURE);
+		centralHeader.putShort((short) VERSION);
+		centralHeader.putShort((short) VERSION);
+		centralHeader.putShort((short) UTF8_FLAG);
+		centralHeader.putShort((short) method);
+		centralHeader.putInt(dosTime);
+		centralHeader.putInt((int) crc);
+		centralHeader.putInt((int) compressedSize);
+		centralHeader.putInt((int) size);
+		centralHeader.putShort((short) nameBytes.length);
+		centralHeader.putShort((short) 0); // Extra field length
+		centralHeader.putShort((short) 0); // Comment length
+		centralHeader.putShort((short) 0); // Disk number
+		centralHeader.putShort((short) 0); // Internal attributes
+		centralHeader.putInt(0); // External attributes
+		centralHeader.putInt((int) offset);
+		centralHeader.put(nameBytes);
+		return centralHeader.array();
+	}
+
+	private void transfer(FileChannel input, long position, long end, String source) throws IOException {
+		while (position < end) {
+			long transferred = input.transferTo(position, end - position, channel);
+
+			if (transferred <= 0) {
+				throw new EOFException("Unexpected end of " + source);
+			}
+
+			position += transferred;
+		}
+	}
+
+	private static long crc32(FileChannel input, long size, Path source) throws IOException {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		long position = 0;
+
+		while (position < size) {
+			int read = input.read(buffer.clear(), position);
+
+			if (read < 0) {
+				throw new EOFException("Unexpected end of " + source);
+			}
+
+			crc.update(buffer.flip());
+			position += read;
+		}
+
+		return crc.getValue();
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static long checkOffset(long offset) throws ZipException {
+		if (offset >= 0xFFFFFFFFL) {
+			throw new ZipException("Zip64 is not supported, output is too large");
+		}
+
+		return offset;
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+			byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				out.write(buffer, 0, length);
+			}
+
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static int toDosTime(long time) {
+		LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+
+		if (dateTime.getYear() < 1980) {
+			// 1980-01-01, the earliest date that can be represented
+			return (1 << 21) | (1 << 16);
+		}
+
+		return (dateTime.getYear() - 1980) << 25
+				| dateTime.getMonthValue() << 21
+				| dateTime.getDayOfMonth() << 16
+				| dateTime.getHour() << 11
+				| dateTime.getMinute() << 5
+				| dateTime.getSecond() >> 1;
+	}
+
+	/**
+	 * @param data the deflated data
+	 * @param size the uncompressed size
+	 */
+	public record Compressed(String name, byte[] data, long crc, int size, long lastModifiedTime) {
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.cadixdev.mercury.Mercury;
+
+/**
+ * Rewrites a source tree with several Mercury instances in parallel.
+ *
+ * <p>The tree is split into shards of whole packages, as classes of a package can use each other without imports
+ * and through package private members. Each shard is rewritten by its own Mercury instance, with the complete tree
+ * on the source path so that references to other shards still resolve.
+ */
+public final class ShardedMercury {
+	private final Supplier<Mercury> mercuryFactory;
+	private final int shardCount;
+
+	/**
+	 * @param mercuryFactory creates a configured Mercury instance for every shard, the instances must not share
+	 *                       processors or mappings that aren't thread safe
+	 * @param shardCount the maximum number of shards, and of threads
+	 */
+	public ShardedMercury(Supplier<Mercury> mercuryFactory, int shardCount) {
+		this.mercuryFactory = mercuryFactory;
+		this.shardCount = Math.max(1, shardCount);
+	}
+
+	public void rewrite(Path inputDir, Path outputDir) throws Exception {
+		final List<List<Path>> shards = shard(inputDir, shardCount);
+
+		if (shards.size() <= 1) {
+			mercuryFactory.get().rewrite(inputDir, outputDir);
+			return;
+		}
+
+		final Path shardsDir = Files.createTempDirectory("loom-mercury");
+		final ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+
+			for (int i = 0; i < shards.size(); i++) {
+				final Path shardDir = shardsDir.resolve(Integer.toString(i));
+
+				for (Path file : shards.get(i)) {
+					final Path target = shardDir.resolve(file.toString());
+					Files.createDirectories(target.getParent());
+					Files.copy(inputDir.resolve(file), target);
+				}
+
+				futures.add(executor.submit(() -> {
+					final Mercury mercury = mercuryFactory.get();
+					mercury.getSourcePath().add(inputDir);
+					mercury.rewrite(shardDir, outputDir);
+					return null;
+				}));
+			}
+
+			Exception failure = null;
+
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					final Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+
+					if (failure == null) {
+						failure = cause;
+					} else {
+						failure.addSuppressed(cause);
+					}
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			executor.shutdownNow();
+			Files.walkFileTree(shardsDir, new DeletingFileVisitor());
+		}
+	}
+
+	/**
+	 * Splits the files of a source tree into at most {@code count} shards of about the same size, keeping the files
+	 * of a package together. Larger packages are placed first, each into the smallest shard so far.
+	 *
+	 * @return the paths of the files relative to the input directory, grouped by shard
+	 */
+	public static List<List<Path>> shard(Path inputDir, int count) throws IOException {
+		final Map<Path, List<Path>> packages = new TreeMap<>();
+		final Map<Path, Long> packageSizes = new TreeMap<>();
+
+		try (Stream<Path> stream = Files.walk(inputDir)) {
+			for (Path path : stream.filter(Files::isRegularFile).sorted().toList()) {
+				final Path file = inputDir.relativize(path);
+				final Path packageDir = file.getParent() != null ? file.getParent() : Path.of("");
+				packages.computeIfAbsent(packageDir, p -> new ArrayList<>()).add(file);
+				packageSizes.merge(packageDir, Files.size(path), Long::sum);
+			}
+		}
+
+		final List<Path> largestFirst = new ArrayList<>(packages.keySet());
+		largestFirst.sort(Comparator.comparing(packageSizes::get).reversed());
+
+		final int shardCount = Math.max(1, Math.min(count, packages.size()));
+		final PriorityQueue<Shard> queue = new PriorityQueue<>(Comparator.comparingLong(Shard::size).thenComparingInt(Shard::index));
+
+		for (int i = 0; i < shardCount; i++) {
+			queue.add(new Shard(i, 0, new ArrayList<>()));
+		}
+
+		for (Path packageDir : largestFirst) {
+			final Shard smallest = queue.remove();
+			smallest.files().addAll(packages.get(packageDir));
+			queue.add(new Shard(smallest.index(), smallest.size() + packageSizes.get(packageDir), smallest.files()));
+		}
+
+		return queue.stream()
+				.filter(shard -> !shard.files().isEmpty())
+				.sorted(Comparator.comparingInt(Shard::index))
+				.map(Shard::files)
+				.toList();
+	}
+
+	private record Shard(int index, long size, List<Path> files) {
+	}
+}
@@ -76,8 +76,9 @@ public final class Download {
 	private final DownloadProgressListener progressListener;
 	private final HttpClient.Version httpVersion;
 	private final int downloadAttempt;
+	private final boolean ranged;
 
-	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt) {
+	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt, boolean ranged) {
 		this.url = url;
 		this.expectedHash = expectedHash;
 		this.useEtag = useEtag;
@@ -87,6 +88,7 @@ public final class Download {
 		this.progressListener = progressListener;
 		this.httpVersion = httpVersion;
 		this.downloadAttempt = downloadAttempt;
+		this.ranged = ranged;
 	}
 
 	private HttpClient getHttpClient() throws DownloadException {
@@ -100,26 +102,38 @@ public final class Download {
 				.build();
 	}
 
-	private HttpRequest getRequest() {
+	HttpRequest.Builder requestBuilder() {
 		return HttpRequest.newBuilder(url)
 				.version(httpVersion)
-				.GET()
-				.build();
+				.GET();
+	}
+
+	private HttpRequest getRequest() {
+		return requestBuilder().build();
 	}
 
 	private HttpRequest getETagRequest(String etag) {
-		return HttpRequest.newBuilder(url)
-				.version(httpVersion)
-				.GET()
+		return requestBuilder()
 				.header("If-None-Match", etag)
 				.build();
 	}
 
+	// Requests the first chunk only, a server supporting ranges will tell us the full length of the file.
+	private HttpRequest getFirstChunkRequest(Optional<String> etag) {
+		final HttpRequest.Builder builder = requestBuilder()
+				.header("Range", RangedDownload.rangeHeader(0, RangedDownload.CHUNK_SIZE - 1));
+		etag.ifPresent(value -> builder.header("If-None-Match", value));
+		return builder.build();
+	}
+
 	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
 		progressListener.onStart();
+		return send(getHttpClient(), httpRequest, bodyHandler);
+	}
 
+	private <T> HttpResponse<T> send(HttpClient httpClient, HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
 		try {
-			return getHttpClient().send(httpRequest, bodyHandler);
+			return httpClient.send(httpRequest, bodyHandler);
 		} catch (IOException | InterruptedException e) {
 			throw error(e, "Failed to download (%s)", url);
 		}
@@ -174,15 +188,27 @@ public final class Download {
 			throw error(e, "Failed to create parent directories");
 		}
 
-		final HttpRequest httpRequest = eTag
-				.map(this::getETagRequest)
-				.orElseGet(this::getRequest);
+		final HttpRequest httpRequest = ranged
+				? getFirstChunkRequest(eTag)
+				: eTag.map(this::getETagRequest).orElseGet(this::getRequest);
+
+		progressListener.onStart();
+		final HttpClient httpClient = getHttpClient();
 
 		// Create a .lock file, this allows us to re-download if the download was forcefully aborted part way through.
 		createLock(output);
-		HttpResponse<InputStream> response = send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+		HttpResponse<InputStream> response = send(httpClient, httpRequest, HttpResponse.BodyHandlers.ofInputStream());
 		getAndResetLock(output);
 
+		if (ranged && response.statusCode() != HttpURLConnection.HTTP_NOT_MODIFIED && (response.statusCode() < 200 || response.statusCode() >= 300)) {
+			// Some servers reject range requests, such as with 416 for an empty file. Retry without a range.
+			LOGGER.debug("Ranged request to ({}) returned status ({}), downloading the whole file", url, response.statusCode());
+			closeQuietly(response);
+			createLock(output);
+			response = send(httpClient, eTag.map(this::getETagRequest).orElseGet(this::getRequest), HttpResponse.BodyHandlers.ofInputStream());
+			getAndResetLock(output);
+		}
+
 		final int statusCode = response.statusCode();
 		boolean success = statusCode == HttpURLConnection.HTTP_NOT_MODIFIED || (statusCode >= 200 && statusCode < 300);
 
@@ -191,45 +217,35 @@ public final class Download {
 			return;
 		}
 
-		if (success) {
-			try {
-				Files.deleteIfExists(output);
-			} catch (IOException e) {
-				throw error(e, "Failed to delete existing file");
-			}
-
-			final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
-			AtomicLong totalBytes = new AtomicLong(0);
-
-			try (OutputStream outputStream = Files.newOutputStream(output, StandardOpenOption.CREATE_NEW)) {
-				copyWithCallback(decodeOutput(response), outputStream, value -> {
-					if (length < 0) {
-						return;
-					}
+		if (!success) {
+			throw error("HTTP request returned unsuccessful status (%d)", statusCode);
+		}
 
-					progressListener.onProgress(totalBytes.addAndGet(value), length);
-				});
-			} catch (IOException e) {
-				throw error(e, "Failed to decode and write download output");
-			}
+		try {
+			Files.deleteIfExists(output);
+		} catch (IOException e) {
+			throw error(e, "Failed to delete existing file");
+		}
 
-			if (Files.notExists(output)) {
-				throw error("No file was downloaded");
-			}
+		if (statusCode == HttpURLConnection.HTTP_PARTIAL) {
+			final Optional<RangedDownload> rangedDownload = RangedDownload.fromResponse(this, httpClient, output, response);
 
-			if (length > 0) {
-				try {
-					final long actualLength = Files.size(output);
+			if (rangedDownload.isPresent()) {
+				rangedDownload.get().download(response);
+			} else {
+				// The server sent a range we cannot make use of, fall back to downloading the whole file.
+				LOGGER.debug("Unusable ranged response from ({}), downloading the whole file", url);
+				closeQuietly(response);
+				response = send(httpClient, getRequest(), HttpResponse.BodyHandlers.ofInputStream());
 
-					if (actualLength != length) {
-						throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(actualLength, length));
-					}
-				} catch (IOException e) {
-					throw error(e);
+				if (response.statusCode() < 200 || response.statusCode() >= 300) {
+					throw error("HTTP request returned unsuccessful status (%d)", response.statusCode());
 				}
+
+				writeResponse(response, output);
 			}
 		} else {
-			throw error("HTTP request returned unsuccessful status (%d)", statusCode);
+			writeResponse(response, output);
 		}
 
 		if (useEtag) {
@@ -261,6 +277,39 @@ public final class Download {
 		}
 	}
 
+	private void writeResponse(HttpResponse<InputStream> response, Path output) throws DownloadException {
+		final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
+		AtomicLong totalBytes = new AtomicLong(0);
+
+		try (OutputStream outputStream = Files.newOutputStream(output, StandardOpenOption.CREATE_NEW)) {
+			copyWithCallback(decodeOutput(response), outputStream, value -> {
+				if (length < 0) {
+					return;
+				}
+
+				progressListener.onProgress(totalBytes.addAndGet(value), length);
+			});
+		} catch (IOException e) {
+			throw error(e, "Failed to decode and write download output");
+		}
+
+		if (Files.notExists(output)) {
+			throw error("No file was downloaded");
+		}
+
+		if (length > 0) {
+			try {
+				final long actualLength = Files.size(output);
+
+				if (actualLength != length) {
+					throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(actualLength, length));
+				}
+			} catch (IOException e) {
+				throw error(e);
+			}
+		}
+	}
+
 	private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
 		byte[] buffer = new byte[1024];
 		int length;
@@ -388,6 +437,14 @@ public final class Download {
 		}
 	}
 
+	private static void closeQuietly(HttpResponse<InputStream> response) {
+		try {
+			response.body().close();
+		} catch (IOException ignored) {
+			// ignored
+		}
+	}
+
 	private void tryCleanup(Path output) {
 		try {
 			Files.deleteIfExists(output);
@@ -435,7 +492,15 @@ public final class Download {
 		}
 	}
 
-	private DownloadException error(String message, Object... args) {
+	URI url() {
+		return url;
+	}
+
+	DownloadProgressListener progressListener() {
+		return progressListener;
+	}
+
+	DownloadException error(String message, Object... args) {
 		return new DownloadException(String.format(Locale.ENGLISH, message, args));
 	}
 
@@ -443,7 +508,7 @@ public final class Download {
 		return new DownloadException(throwable);
 	}
 
-	private DownloadException error(Throwable throwable, String message, Object... args) {
+	DownloadException error(Throwable throwable, String message, Object... args) {
 		return new DownloadException(message.formatted(args), throwable);
 	}
 }
@@ -48,6 +48,7 @@ public class DownloadBuilder {
 	private int maxRetries = 3;
 	private boolean allowInsecureProtocol = false;
 	private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+	private boolean ranged = true;
 
 	private DownloadBuilder(URI url) {
 		this.url = url;
@@ -107,12 +108,21 @@ public class DownloadBuilder {
 		return this;
 	}
 
+	/**
+	 * Whether files may be downloaded as parallel range requests, this allows interrupted downloads to be resumed.
+	 * Servers that do not support range requests are handled transparently.
+	 */
+	public DownloadBuilder ranged(boolean ranged) {
+		this.ranged = ranged;
+		return this;
+	}
+
 	private Download build(int downloadAttempt) {
 		if (!allowInsecureProtocol && !isSecureUrl(url)) {
 			throw new IllegalArgumentException("Cannot create download for url (%s) with insecure protocol".formatted(url.toString()));
 		}
 
-		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt);
+		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt, ranged);
 	}
 
 	public void downloadPathAsync(Path path, DownloadExecutor executor) {
@@ -0,0 +1,396 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Downloads a file as a set of HTTP range requests that are fetched in parallel.
+ *
+ * <p>The data is written to a {@code .part} file next to the output, alongside a {@code .part.json} manifest
+ * listing the completed chunks. When a download is interrupted, the next attempt reuses the completed chunks
+ * as long as the url, length and ETag of the remote file are unchanged.
+ */
+final class RangedDownload {
+	static final long CHUNK_SIZE = 4L * 1024 * 1024;
+	private static final int MAX_PARALLEL_CHUNKS = 4;
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+	private static final Pattern CONTENT_RANGE = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+)$");
+	private static final Logger LOGGER = LoggerFactory.getLogger(RangedDownload.class);
+
+	private final Download download;
+	private final HttpClient httpClient;
+	private final Path output;
+	private final Path partFile;
+	private final Path manifestFile;
+	private final long length;
+	private final int chunkCount;
+	private final @Nullable String eTag;
+	private final BitSet completedChunks;
+	private final AtomicLong transferredBytes = new AtomicLong(0);
+
+	private RangedDownload(Download download, HttpClient httpClient, Path output, long length, @Nullable String eTag) {
+		this.download = download;
+		this.httpClient = httpClient;
+		this.output = output;
+		this.partFile = output.resolveSibling(output.getFileName() + ".part");
+		this.manifestFile = output.resolveSibling(output.getFileName() + ".part.json");
+		this.length = length;
+		this.chunkCount = (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		this.eTag = eTag;
+		this.completedChunks = readCompletedChunks();
+	}
+
+	/**
+	 * Creates a ranged download from the response to the first chunk request.
+	 *
+	 * @return the ranged download, or empty when the response cannot be used as the first chunk of the file
+	 */
+	static Optional<RangedDownload> fromResponse(Download download, HttpClient httpClient, Path output, HttpResponse<InputStream> response) {
+		if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+			return Optional.empty();
+		}
+
+		final HttpHeaders headers = response.headers();
+
+		if (!headers.firstValue("Content-Encoding").orElse("").isEmpty()) {
+			// Ranges of encoded content cannot be stitched together.
+			return Optional.empty();
+		}
+
+		final ContentRange contentRange = ContentRange.parse(headers).orElse(null);
+
+		if (contentRange == null || contentRange.start() != 0) {
+			return Optional.empty();
+		}
+
+		final String eTag = headers.firstValue("ETag").orElse(null);
+		return Optional.of(new RangedDownload(download, httpClient, output, contentRange.length(), eTag));
+	}
+
+	static String rangeHeader(long start, long end) {
+		return "bytes=%d-%d".formatted(start, end);
+	}
+
+	void download(HttpResponse<InputStream> firstResponse) throws DownloadException {
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			for (int i = completedChunks.nextSetBit(0); i >= 0; i = completedChunks.nextSetBit(i + 1)) {
+				transferredBytes.addAndGet(chunkEnd(i) - chunkStart(i) + 1);
+			}
+
+			if (completedChunks.get(0)) {
+				closeQuietly(firstResponse);
+			} else {
+				// The server may have sent less than a chunk, the remainder is then requested separately.
+				final ContentRange firstRange = ContentRange.parse(firstResponse.headers()).orElseThrow();
+				final long written = writeBody(firstResponse, channel, 0, Math.min(firstRange.end(), chunkEnd(0)));
+				fetchChunk(channel, 0, written);
+			}
+
+			fetchRemainingChunks(channel);
+		} catch (DownloadException e) {
+			throw e;
+		} catch (IOException e) {
+			throw download.error(e, "Failed to write ranged download to (%s)", partFile);
+		}
+
+		try {
+			Files.move(partFile, output, StandardCopyOption.REPLACE_EXISTING);
+			Files.deleteIfExists(manifestFile);
+		} catch (IOException e) {
+			throw download.error(e, "Failed to move (%s) to (%s)", partFile, output);
+		}
+	}
+
+	private void fetchRemainingChunks(FileChannel channel) throws DownloadException {
+		final int remaining = chunkCount - completedChunks.cardinality();
+
+		if (remaining == 0) {
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(remaining, MAX_PARALLEL_CHUNKS));
+		final List<Future<?>> futures = new ArrayList<>();
+
+		try {
+			for (int i = completedChunks.nextClearBit(0); i < chunkCount; i = completedChunks.nextClearBit(i + 1)) {
+				final int chunk = i;
+				futures.add(executor.submit(() -> {
+					fetchChunk(channel, chunk, 0);
+					return null;
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof DownloadException downloadException) {
+				throw downloadException;
+			}
+
+			throw download.error(e.getCause(), "Failed to download chunk");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw download.error(e, "Interrupted while downloading chunks");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fetches a chunk, resuming from the last written byte when the connection drops.
+	 */
+	private void fetchChunk(FileChannel channel, int chunk, long alreadyWritten) throws DownloadException {
+		final long end = chunkEnd(chunk);
+		long position = chunkStart(chunk) + alreadyWritten;
+		int failedAttempts = 0;
+
+		while (position <= end) {
+			final HttpResponse<InputStream> response = sendChunkRequest(position, end);
+			final ContentRange contentRange = ContentRange.parse(response.headers()).orElse(null);
+
+			if (response.statusCode() == HttpURLConnection.HTTP_OK) {
+				// The If-Range condition failed, the chunks downloaded so far cannot be trusted.
+				closeQuietly(response);
+				deletePartialState();
+				throw download.error("Server returned the whole file for range %d-%d, the remote file may have changed", position, end);
+			}
+
+			if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+				closeQuietly(response);
+				throw download.error("Server returned unsuccessful status (%d) for range %d-%d", response.statusCode(), position, end);
+			}
+
+			if (contentRange == null || contentRange.start() != position || contentRange.length() != length) {
+				closeQuietly(response);
+				throw download.error("Server returned unexpected content range (%s) for range %d-%d", response.headers().firstValue("Content-Range").orElse(""), position, end);
+			}
+
+			long written;
+
+			try {
+				written = writeBody(response, channel, position, end);
+			} catch (IOException e) {
+				LOGGER.debug("Failed to download range {}-{} of {}", position, end, output, e);
+				written = 0;
+			}
+
+			if (written == 0 && ++failedAttempts >= MAX_CHUNK_ATTEMPTS) {
+				throw download.error("Failed to download range %d-%d after %d attempts", position, end, failedAttempts);
+			}
+
+			position += written;
+		}
+
+		markCompleted(chunk);
+	}
+
+	private HttpResponse<InputStream> sendChunkRequest(long start, long end) throws DownloadException {
+		try {
+			return httpClient.send(getChunkRequest(start, end), HttpResponse.BodyHandlers.ofInputStream());
+		} catch (IOException e) {
+			throw download.error(e, "Failed to request range %d-%d", start, end);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw download.error(e, "Interrupted while requesting range %d-%d", start, end);
+		}
+	}
+
+	/**
+	 * Writes a response body at the given position, stopping at {@code end} inclusive.
+	 *
+	 * @return the number of bytes written, which may be less than requested if the connection dropped
+	 */
+	private long writeBody(HttpResponse<InputStream> response, FileChannel channel, long position, long end) throws IOException {
+		final byte[] buffer = new byte[64 * 1024];
+		long written = 0;
+
+		try (InputStream inputStream = response.body()) {
+			int read;
+
+			while (position + written <= end && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position - written + 1))) > 0) {
+				final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer, position + written + byteBuffer.position());
+				}
+
+				written += read;
+				reportProgress(read);
+			}
+		} catch (IOException e) {
+			if (written == 0) {
+				throw e;
+			}
+
+			// Keep what was written, the caller resumes from there.
+			LOGGER.debug("Connection dropped after {} bytes while downloading {}", written, output, e);
+		}
+
+		return written;
+	}
+
+	// Progress listeners are not expected to be thread safe.
+	private synchronized void reportProgress(int bytes) {
+		download.progressListener().onProgress(transferredBytes.addAndGet(bytes), length);
+	}
+
+	private HttpRequest getChunkRequest(long start, long end) {
+		final HttpRequest.Builder builder = download.requestBuilder()
+				.header("Range", rangeHeader(start, end));
+
+		if (eTag != null && !eTag.startsWith("W/")) {
+			// Only send the range when the file is unchanged, weak ETags cannot be used for this.
+			builder.header("If-Range", eTag);
+		}
+
+		return builder.build();
+	}
+
+	private long chunkStart(int chunk) {
+		return chunk * CHUNK_SIZE;
+	}
+
+	private long chunkEnd(int chunk) {
+		return Math.min(length, (chunk + 1) * CHUNK_SIZE) - 1;
+	}
+
+	private BitSet readCompletedChunks() {
+		if (eTag == null || !Files.exists(partFile) || !Files.exists(manifestFile)) {
+			// Without an ETag we cannot tell if the remote file changed since the last attempt.
+			deletePartialState();
+			return new BitSet(chunkCount);
+		}
+
+		try {
+			final Manifest manifest = LoomGradlePlugin.GSON.fromJson(Files.readString(manifestFile, StandardCharsets.UTF_8), Manifest.class);
+
+			if (manifest != null && manifest.matches(download.url().toString(), length, CHUNK_SIZE, eTag)) {
+				final BitSet completed = new BitSet(chunkCount);
+
+				for (int chunk : manifest.completedChunks()) {
+					if (chunk >= 0 && chunk < chunkCount) {
+						completed.set(chunk);
+					}
+				}
+
+				LOGGER.info("Resuming download of {} with {}/{} chunks already downloaded", output, completed.cardinality(), chunkCount);
+				return completed;
+			}
+		} catch (IOException | JsonParseException e) {
+			LOGGER.debug("Failed to read download manifest {}", manifestFile, e);
+		}
+
+		deletePartialState();
+		return new BitSet(chunkCount);
+	}
+
+	private synchronized void markCompleted(int chunk) throws DownloadException {
+		completedChunks.set(chunk);
+
+		if (chunkCount == 1) {
+			// Nothing to resume for single chunk downloads.
+			return;
+		}
+
+		final Manifest manifest = new Manifest(download.url().toString(), length, CHUNK_SIZE, eTag, completedChunks.stream().toArray());
+
+		try {
+			Files.writeString(manifestFile, LoomGradlePlugin.GSON.toJson(manifest), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw download.error(e, "Failed to write download manifest (%s)", manifestFile);
+		}
+	}
+
+	private static void closeQuietly(HttpResponse<InputStream> response) {
+		try {
+			response.body().close();
+		} catch (IOException ignored) {
+			// ignored
+		}
+	}
+
+	private void deletePartialState() {
+		try {
+			Files.deleteIfExists(manifestFile);
+			Files.deleteIfExists(partFile);
+		} catch (IOException ignored) {
+			// ignored
+		}
+	}
+
+	record ContentRange(long start, long end, long length) {
+		static Optional<ContentRange> parse(HttpHeaders headers) {
+			return headers.firstValue("Content-Range").flatMap(value -> {
+				final Matcher matcher = CONTENT_RANGE.matcher(value.trim());
+
+				if (!matcher.matches()) {
+					// Also rejects an unknown complete length (*), which cannot be split into chunks.
+					return Optional.empty();
+				}
+
+				return Optional.of(new ContentRange(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))));
+			});
+		}
+	}
+
+	private record Manifest(String url, long length, long chunkSize, String eTag, int[] completedChunks) {
+		boolean matches(String url, long length, long chunkSize, String eTag) {
+			return url.equals(this.url) && length == this.length && chunkSize == this.chunkSize && eTag.equals(this.eTag) && completedChunks != null;
+		}
+	}
+}
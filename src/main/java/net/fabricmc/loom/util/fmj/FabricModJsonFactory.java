@@ -32,12 +32,15 @@ import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Optional;
 
 import com.google.gson.JsonObject;
 import dev.architectury.loom.metadata.ModMetadataFile;
 import dev.architectury.loom.metadata.ModMetadataFiles;
+import dev.architectury.loom.metadata.ModsToml;
+import dev.architectury.loom.metadata.QuiltModJson;
 import org.gradle.api.tasks.SourceSet;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -45,7 +48,6 @@ import org.jetbrains.annotations.VisibleForTesting;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 
 public final class FabricModJsonFactory {
@@ -72,51 +74,32 @@ public final class FabricModJsonFactory {
 	}
 
 	public static FabricModJson createFromZip(Path zipPath) {
-		try {
-			return create(ZipUtils.unpackGson(zipPath, FABRIC_MOD_JSON, JsonObject.class), new FabricModJsonSource.ZipSource(zipPath));
-		} catch (IOException e) {
-			// Try another mod metadata file if fabric.mod.json wasn't found.
-			try {
-				@Nullable ModMetadataFile modMetadata = ModMetadataFiles.fromJar(zipPath);
-
-				if (modMetadata != null) {
-					return new ModMetadataFabricModJson(modMetadata, new FabricModJsonSource.ZipSource(zipPath));
-				}
-			} catch (IOException e2) {
-				var unchecked = new UncheckedIOException("Failed to read mod metadata file in zip: " + zipPath, e2);
-				unchecked.addSuppressed(e);
-				throw unchecked;
-			}
+		final @Nullable FabricModJson modJson = createFromZipNullable(zipPath);
 
-			throw new UncheckedIOException("Failed to read fabric.mod.json file in zip: " + zipPath, e);
+		if (modJson == null) {
+			throw new UncheckedIOException(new NoSuchFileException(zipPath.toString(), null, "Failed to find fabric.mod.json or another mod metadata file in zip"));
 		}
+
+		return modJson;
 	}
 
 	@Nullable
 	public static FabricModJson createFromZipNullable(Path zipPath) {
-		JsonObject jsonObject;
-
-		try {
-			jsonObject = ZipUtils.unpackGsonNullable(zipPath, FABRIC_MOD_JSON, JsonObject.class);
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to read zip: " + zipPath, e);
-		}
+		final ModMetadataProbe.Result probe = probe(zipPath);
+		final byte @Nullable [] fabricModJson = probe.read(FABRIC_MOD_JSON);
 
-		if (jsonObject == null) {
+		if (fabricModJson == null) {
 			// Try another mod metadata file if fabric.mod.json wasn't found.
-			try {
-				final @Nullable ModMetadataFile modMetadata = ModMetadataFiles.fromJar(zipPath);
-
-				if (modMetadata != null) {
-					return new ModMetadataFabricModJson(modMetadata, new FabricModJsonSource.ZipSource(zipPath));
-				}
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to read mod metadata file in zip: " + zipPath, e);
+			final @Nullable ModMetadataFile modMetadata = ModMetadataFiles.fromProbe(probe);
+
+			if (modMetadata != null) {
+				return new ModMetadataFabricModJson(modMetadata, new FabricModJsonSource.ZipSource(zipPath));
 			}
 
 			return null;
 		}
 
+		final JsonObject jsonObject = LoomGradlePlugin.GSON.fromJson(new String(fabricModJson, StandardCharsets.UTF_8), JsonObject.class);
 		return create(jsonObject, new FabricModJsonSource.ZipSource(zipPath));
 	}
 
@@ -166,13 +149,23 @@ public final class FabricModJsonFactory {
 	}
 
 	public static boolean isModJar(Path input, ModPlatform platform) {
+		final ModMetadataProbe.Result probe = probe(input);
+
 		if (platform == ModPlatform.FORGE) {
-			return ZipUtils.contains(input, "META-INF/mods.toml");
+			return probe.contains(ModsToml.FILE_PATH);
 		} else if (platform == ModPlatform.QUILT) {
-			return ZipUtils.contains(input, "quilt.mod.json") || isModJar(input, ModPlatform.FABRIC);
+			return probe.contains(QuiltModJson.FILE_NAME) || probe.contains(FABRIC_MOD_JSON);
 		}
 
-		return ZipUtils.contains(input, FABRIC_MOD_JSON);
+		return probe.contains(FABRIC_MOD_JSON);
+	}
+
+	private static ModMetadataProbe.Result probe(Path zipPath) {
+		try {
+			return ModMetadataProbe.probe(zipPath);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read zip: " + zipPath, e);
+		}
 	}
 
 	public static boolean containsMod(FileSystemUtil.Delegate fs, ModPlatform platform) {
@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.fmj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.architectury.loom.metadata.ArchitecturyCommonJson;
+import dev.architectury.loom.metadata.ModsToml;
+import dev.architectury.loom.metadata.QuiltModJson;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Finds all the mod metadata files in a jar, opening it only once.
+ *
+ * <p>Results are remembered for as long as the jar's size and last modified time don't change, so classifying the same
+ * dependency again, for example from another project or task, doesn't need to open the jar at all. Only the most
+ * recently probed jars are kept.
+ */
+public final class ModMetadataProbe {
+	private static final String FABRIC_MOD_JSON = "fabric.mod.json";
+	private static final List<String> METADATA_FILES = List.of(
+			FABRIC_MOD_JSON,
+			QuiltModJson.FILE_NAME,
+			ArchitecturyCommonJson.FILE_NAME,
+			ModsToml.FILE_PATH
+	);
+	// Bounded, as it lives as long as the Gradle daemon
+	private static final Cache<Path, Result> CACHE = CacheBuilder.newBuilder()
+			.maximumSize(2048)
+			.build();
+
+	private ModMetadataProbe() {
+	}
+
+	public static Result probe(Path jar) throws IOException {
+		final Path key = jar.toAbsolutePath().normalize();
+		final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		final Result cached = CACHE.getIfPresent(key);
+
+		if (cached != null && cached.size == attributes.size() && cached.lastModified == lastModified) {
+			return cached;
+		}
+
+		final Result result = new Result(attributes.size(), lastModified, readMetadataFiles(key));
+		CACHE.put(key, result);
+		return result;
+	}
+
+	@VisibleForTesting
+	public static void clearCache() {
+		CACHE.invalidateAll();
+	}
+
+	private static Map<String, byte[]> readMetadataFiles(Path jar) throws IOException {
+		final Map<String, byte[]> files = new HashMap<>();
+
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			for (String name : METADATA_FILES) {
+				final ZipEntry entry = zip.getEntry(name);
+
+				if (entry == null || entry.isDirectory()) {
+					continue;
+				}
+
+				try (InputStream input = zip.getInputStream(entry)) {
+					files.put(name, input.readAllBytes());
+				}
+			}
+		}
+
+		return files;
+	}
+
+	public static final class Result {
+		private final long size;
+		private final long lastModified;
+		private final Map<String, byte[]> files;
+
+		private Result(long size, long lastModified, Map<String, byte[]> files) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.files = files;
+		}
+
+		public boolean contains(String path) {
+			return files.containsKey(path);
+		}
+
+		/**
+		 * @return a copy of the content of a metadata file, or null if the jar doesn't contain it
+		 */
+		public byte @Nullable [] read(String path) {
+			final byte[] bytes = files.get(path);
+			return bytes != null ? bytes.clone() : null;
+		}
+	}
+}
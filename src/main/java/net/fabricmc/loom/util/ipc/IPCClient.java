@@ -28,18 +28,47 @@ import java.io.IOException;
 import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.fabricmc.loom.util.IOStringConsumer;
 
+/**
+ * Sends messages to an {@link IPCServer}.
+ *
+ * <p>Messages are put on a bounded queue and written in batches by a background thread, see {@link IPCFrames}.
+ * Accepting a message never blocks: when the queue is full the message is dropped, as these are only log messages.
+ * For the same reason, a message too long for a single frame is truncated.
+ */
 public final class IPCClient implements IOStringConsumer, AutoCloseable {
+	public static final int DEFAULT_QUEUE_CAPACITY = 16384;
+	private static final int MAX_BATCH_SIZE = 1024;
+
 	private final Path path;
 	private final SocketChannel socketChannel;
+	private final BlockingQueue<String> queue;
+	private final Thread writerThread;
+	private final AtomicLong droppedMessages = new AtomicLong();
+	private volatile boolean closed = false;
+	private volatile IOException writeFailure;
 
 	public IPCClient(Path path) throws IOException {
+		this(path, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public IPCClient(Path path, int queueCapacity) throws IOException {
 		this.path = path;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
 		socketChannel = setupChannel();
+
+		writerThread = new Thread(this::writeLoop, "Loom IPC writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
 	}
 
 	private SocketChannel setupChannel() throws IOException {
@@ -49,19 +78,88 @@ public final class IPCClient implements IOStringConsumer, AutoCloseable {
 
 	@Override
 	public void accept(String s) throws IOException {
-		synchronized (socketChannel) {
-			ByteBuffer buf = ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8));
+		if (writeFailure != null) {
+			throw new IOException("Failed to write IPC messages", writeFailure);
+		}
+
+		if (closed || !queue.offer(s)) {
+			droppedMessages.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of messages dropped because the queue was full
+	 */
+	public long getDroppedMessages() {
+		return droppedMessages.get();
+	}
+
+	private void writeLoop() {
+		final List<String> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		final List<byte[]> frame = new ArrayList<>(MAX_BATCH_SIZE);
 
-			while (buf.hasRemaining()) {
-				socketChannel.write(buf);
+		try {
+			while (true) {
+				final String first = queue.poll(50, TimeUnit.MILLISECONDS);
+
+				if (first == null) {
+					if (closed && queue.isEmpty()) {
+						return;
+					}
+
+					continue;
+				}
+
+				batch.add(first);
+				queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+				int frameLength = Integer.BYTES;
+
+				for (String message : batch) {
+					final byte[] bytes = IPCFrames.encodeMessage(message);
+
+					// Start a new frame when this message would make the current one too long
+					if (!frame.isEmpty() && frameLength + IPCFrames.getEncodedLength(bytes) > IPCFrames.MAX_FRAME_LENGTH) {
+						write(IPCFrames.encodeFrame(frame));
+						frame.clear();
+						frameLength = Integer.BYTES;
+					}
+
+					frame.add(bytes);
+					frameLength += IPCFrames.getEncodedLength(bytes);
+				}
+
+				write(IPCFrames.encodeFrame(frame));
+				frame.clear();
+				batch.clear();
 			}
+		} catch (IOException e) {
+			writeFailure = e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			socketChannel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes the queued messages and closes the connection.
+	 */
 	@Override
 	public void close() throws Exception {
-		synchronized (socketChannel) {
+		closed = true;
+
+		try {
+			writerThread.join();
+		} finally {
 			socketChannel.close();
 		}
+
+		if (writeFailure != null) {
+			throw new IOException("Failed to write IPC messages", writeFailure);
+		}
 	}
 }
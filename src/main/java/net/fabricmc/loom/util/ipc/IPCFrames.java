@@ -0,0 +1,166 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.ipc;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The framing used between {@link IPCClient} and {@link IPCServer}.
+ *
+ * <p>Each frame carries a batch of messages: the length of the rest of the frame, the number of messages,
+ * and then the length and UTF-8 bytes of each message. All numbers are big endian ints.
+ * Frames are at most {@link #MAX_FRAME_LENGTH} bytes long, so longer batches are split by the sender.
+ */
+public final class IPCFrames {
+	public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+	// Leaves room for the message count and the length of a single message
+	public static final int MAX_MESSAGE_LENGTH = MAX_FRAME_LENGTH - 2 * Integer.BYTES;
+
+	private IPCFrames() {
+	}
+
+	public static ByteBuffer encode(List<String> messages) {
+		final List<byte[]> encoded = new ArrayList<>(messages.size());
+
+		for (String message : messages) {
+			encoded.add(encodeMessage(message));
+		}
+
+		return encodeFrame(encoded);
+	}
+
+	/**
+	 * Encodes a single message, truncating it to {@link #MAX_MESSAGE_LENGTH} bytes so that it always fits in a frame.
+	 */
+	public static byte[] encodeMessage(String message) {
+		final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+
+		if (bytes.length <= MAX_MESSAGE_LENGTH) {
+			return bytes;
+		}
+
+		int end = MAX_MESSAGE_LENGTH;
+
+		// Don't cut a character in half
+		while ((bytes[end] & 0xC0) == 0x80) {
+			end--;
+		}
+
+		return Arrays.copyOf(bytes, end);
+	}
+
+	/**
+	 * @return the number of bytes an encoded message takes up in a frame
+	 */
+	public static int getEncodedLength(byte[] message) {
+		return Integer.BYTES + message.length;
+	}
+
+	/**
+	 * Encodes messages from {@link #encodeMessage(String)} into a single frame.
+	 *
+	 * @throws IllegalArgumentException when the frame would be longer than {@link #MAX_FRAME_LENGTH}
+	 */
+	public static ByteBuffer encodeFrame(List<byte[]> messages) {
+		long length = Integer.BYTES;
+
+		for (byte[] bytes : messages) {
+			length += getEncodedLength(bytes);
+		}
+
+		if (length > MAX_FRAME_LENGTH) {
+			throw new IllegalArgumentException("IPC frame of %d bytes is too long".formatted(length));
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + (int) length);
+		buffer.putInt((int) length);
+		buffer.putInt(messages.size());
+
+		for (byte[] bytes : messages) {
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+		}
+
+		return buffer.flip();
+	}
+
+	/**
+	 * Reads the next frame.
+	 *
+	 * @return the messages of the frame, or null when the stream ended cleanly between two frames
+	 * @throws EOFException when the stream ended inside a frame
+	 */
+	@Nullable
+	public static List<String> read(DataInputStream input) throws IOException {
+		final int first = input.read();
+
+		if (first < 0) {
+			return null;
+		}
+
+		final int length = (first << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedShort());
+
+		if (length < Integer.BYTES || length > MAX_FRAME_LENGTH) {
+			throw new StreamCorruptedException("Invalid IPC frame length: " + length);
+		}
+
+		final byte[] frame = new byte[length];
+		input.readFully(frame);
+		return decode(ByteBuffer.wrap(frame));
+	}
+
+	private static List<String> decode(ByteBuffer frame) throws IOException {
+		final int count = frame.getInt();
+
+		if (count < 0 || count > frame.remaining() / Integer.BYTES) {
+			throw new StreamCorruptedException("Invalid IPC message count: " + count);
+		}
+
+		final List<String> messages = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			final int length = frame.remaining() >= Integer.BYTES ? frame.getInt() : -1;
+
+			if (length < 0 || length > frame.remaining()) {
+				throw new StreamCorruptedException("Invalid IPC message length: " + length);
+			}
+
+			messages.add(new String(frame.array(), frame.position(), length, StandardCharsets.UTF_8));
+			frame.position(frame.position() + length);
+		}
+
+		return messages;
+	}
+}
@@ -24,29 +24,41 @@
 
 package net.fabricmc.loom.util.ipc;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Scanner;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives messages sent by an {@link IPCClient}, see {@link IPCFrames} for the protocol.
+ */
 public class IPCServer implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IPCServer.class);
+
 	private final ExecutorService loggerReceiverService = Executors.newSingleThreadExecutor();
 	private final Path path;
 	private final Consumer<String> consumer;
 
 	private final CountDownLatch startupLock = new CountDownLatch(1);
 
-	private boolean receivedMessage = false;
+	private volatile boolean receivedMessage = false;
 
 	public IPCServer(Path path, Consumer<String> consumer) {
 		this.path = path;
@@ -70,14 +82,19 @@ public class IPCServer implements AutoCloseable {
 			startupLock.countDown();
 
 			try (SocketChannel clientChannel = serverChannel.accept();
-					Scanner scanner = new Scanner(clientChannel, StandardCharsets.UTF_8)) {
-				while (!Thread.currentThread().isInterrupted()) {
-					if (scanner.hasNextLine()) {
-						receivedMessage = true;
-						this.consumer.accept(scanner.nextLine());
-					}
+					DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(clientChannel)))) {
+				List<String> messages;
+
+				while ((messages = IPCFrames.read(input)) != null) {
+					receivedMessage = true;
+					messages.forEach(consumer);
 				}
+			} catch (EOFException e) {
+				// The worker died while writing a frame, the messages received before that were already handled.
+				LOGGER.debug("IPC client disconnected in the middle of a message");
 			}
+		} catch (ClosedByInterruptException e) {
+			// Closed
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to listen for IPC messages", e);
 		}
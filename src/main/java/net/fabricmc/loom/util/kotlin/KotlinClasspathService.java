@@ -37,7 +37,7 @@ import org.jetbrains.annotations.Nullable;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
-public record KotlinClasspathService(Set<URL> classpath, String version) implements KotlinClasspath, SharedService {
+public record KotlinClasspathService(Set<URL> classpath, String version, String metadataVersion) implements KotlinClasspath, SharedService {
 	@Nullable
 	public static KotlinClasspathService getOrCreateIfRequired(SharedServiceManager sharedServiceManager, Project project) {
 		if (!KotlinPluginUtils.hasKotlinPlugin(project)) {
@@ -69,6 +69,6 @@ public record KotlinClasspathService(Set<URL> classpath, String version) impleme
 					}
 				}).collect(Collectors.toSet());;
 
-		return new KotlinClasspathService(classpath, kotlinVersion);
+		return new KotlinClasspathService(classpath, kotlinVersion, kotlinMetadataVersion);
 	}
 }
@@ -0,0 +1,61 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.kotlin;
+
+import java.io.IOException;
+
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+
+/**
+ * Shares a {@link KotlinRemapperClassloader} between all the remappers using the same Kotlin and kotlinx-metadata versions,
+ * so that the Kotlin classes are only loaded and JIT compiled once. The classloader is closed along with the service manager.
+ */
+public final class KotlinRemapperClassloaderService implements SharedService {
+	private final KotlinRemapperClassloader classloader;
+	private final KotlinMetadataTinyRemapperExtension tinyRemapperExtension;
+
+	private KotlinRemapperClassloaderService(KotlinRemapperClassloader classloader) {
+		this.classloader = classloader;
+		this.tinyRemapperExtension = classloader.getTinyRemapperExtension();
+	}
+
+	public static synchronized KotlinRemapperClassloaderService getOrCreate(SharedServiceManager sharedServiceManager, KotlinClasspathService kotlinClasspath) {
+		final String id = "kotlinremapperclassloader:%s:%s".formatted(kotlinClasspath.version(), kotlinClasspath.metadataVersion());
+		return sharedServiceManager.getOrCreateService(id, () -> new KotlinRemapperClassloaderService(KotlinRemapperClassloader.create(kotlinClasspath)));
+	}
+
+	/**
+	 * The extension holds no state, the same instance can be used by any number of remappers at the same time.
+	 */
+	public KotlinMetadataTinyRemapperExtension getTinyRemapperExtension() {
+		return tinyRemapperExtension;
+	}
+
+	@Override
+	public void close() throws IOException {
+		classloader.close();
+	}
+}
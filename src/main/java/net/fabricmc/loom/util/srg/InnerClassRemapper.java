@@ -25,19 +25,20 @@
 package net.fabricmc.loom.util.srg;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import dev.architectury.tinyremapper.IMappingProvider;
 
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.ClassNameIndex;
 import net.fabricmc.mappingio.tree.MappingTree;
 
 public class InnerClassRemapper {
@@ -48,37 +49,34 @@ public class InnerClassRemapper {
 	}
 
 	public static Set<String> readClassNames(Path jar) {
-		Set<String> set = new HashSet<>();
+		try {
+			return ClassNameIndex.of(jar).innerClassNames();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void remapInnerClass(Set<String> classNames, MappingTree mappingsWithSrg, String from, String to, BiConsumer<String, String> action) {
+		// Only the inner classes of the jar and their outer classes are looked up, not every class in the mappings
+		Set<String> lookedUp = new HashSet<>(classNames);
 
-		try (FileSystemUtil.Delegate system = FileSystemUtil.getJarFileSystem(jar, false)) {
-			Iterator<Path> iterator = Files.walk(system.get().getPath("/")).iterator();
+		for (String className : classNames) {
+			lookedUp.add(className.substring(0, className.indexOf('$')));
+		}
 
-			while (iterator.hasNext()) {
-				Path path = iterator.next();
-				String name = path.toString();
-				if (name.startsWith("/")) name = name.substring(1);
+		Map<String, String> mapped = new HashMap<>();
 
-				if (!Files.isDirectory(path) && name.contains("$") && name.endsWith(".class")) {
-					String className = name.substring(0, name.length() - 6);
-					set.add(className);
-				}
+		for (MappingTree.ClassMapping classDef : mappingsWithSrg.getClasses()) {
+			String name = classDef.getName(from);
+
+			if (lookedUp.contains(name)) {
+				mapped.put(name, classDef.getName(to));
 			}
-		} catch (IOException e) {
-			throw new RuntimeException(e);
 		}
 
-		return set;
-	}
-
-	private static void remapInnerClass(Set<String> classNames, MappingTree mappingsWithSrg, String from, String to, BiConsumer<String, String> action) {
-		BiMap<String, String> availableClasses = HashBiMap.create(mappingsWithSrg.getClasses().stream()
-				.collect(Collectors.groupingBy(classDef -> classDef.getName(from),
-						Collectors.<MappingTree.ClassMapping, String>reducing(
-								null,
-								classDef -> classDef.getName(to),
-								(first, last) -> last
-						))
-				));
+		// Fails when two of these classes have the same name in the target namespace
+		BiMap<String, String> availableClasses = HashBiMap.create(mapped);
+		Map<String, String> remappedNames = new LinkedHashMap<>();
 
 		for (String className : classNames) {
 			if (!availableClasses.containsKey(className)) {
@@ -88,14 +86,29 @@ public class InnerClassRemapper {
 				String remappedName = remappedParentName + "$" + childName;
 
 				if (!className.equals(remappedName)) {
-					if (availableClasses.containsValue(remappedName)) {
-						// https://github.com/MinecraftForge/MinecraftForge/blob/b027a92dd287d6810a9fdae4d4b1e1432d7dc9cc/patches/minecraft/net/minecraft/Util.java.patch#L8
-						action.accept(className, remappedName + "_UNBREAK");
-					} else {
-						action.accept(className, remappedName);
-					}
+					remappedNames.put(className, remappedName);
 				}
 			}
 		}
+
+		Set<String> candidates = new HashSet<>(remappedNames.values());
+		Set<String> takenNames = new HashSet<>();
+
+		for (MappingTree.ClassMapping classDef : mappingsWithSrg.getClasses()) {
+			String name = classDef.getName(to);
+
+			if (candidates.contains(name)) {
+				takenNames.add(name);
+			}
+		}
+
+		remappedNames.forEach((className, remappedName) -> {
+			if (takenNames.contains(remappedName)) {
+				// https://github.com/MinecraftForge/MinecraftForge/blob/b027a92dd287d6810a9fdae4d4b1e1432d7dc9cc/patches/minecraft/net/minecraft/Util.java.patch#L8
+				action.accept(className, remappedName + "_UNBREAK");
+			} else {
+				action.accept(className, remappedName);
+			}
+		});
 	}
 }
@@ -26,7 +26,6 @@ package net.fabricmc.loom.util.srg;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -40,20 +39,12 @@ import java.util.regex.Pattern;
 
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
-import org.apache.commons.io.IOUtils;
-import org.cadixdev.lorenz.MappingSet;
-import org.cadixdev.lorenz.io.srg.tsrg.TSrgReader;
-import org.cadixdev.lorenz.model.ClassMapping;
-import org.cadixdev.lorenz.model.FieldMapping;
-import org.cadixdev.lorenz.model.InnerClassMapping;
-import org.cadixdev.lorenz.model.MethodMapping;
-import org.cadixdev.lorenz.model.TopLevelClassMapping;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.util.FileSystemUtil;
-import net.fabricmc.mappingio.MappingReader;
-import net.fabricmc.mappingio.tree.MappingTree;
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.format.TsrgReader;
 import net.fabricmc.stitch.commands.tinyv2.TinyClass;
 import net.fabricmc.stitch.commands.tinyv2.TinyField;
 import net.fabricmc.stitch.commands.tinyv2.TinyFile;
@@ -71,9 +62,9 @@ public class MCPReader {
 	}
 
 	public TinyFile read(Path mcpJar) throws IOException {
-		Map<MemberToken, String> srgTokens = readSrg();
 		TinyFile intermediaryTiny = TinyV2Reader.read(intermediaryTinyPath);
-		Map<String, String> intermediaryToMCPMap = createIntermediaryToMCPMap(intermediaryTiny, srgTokens);
+		// The SRG tokens are only needed to build this map, don't keep them around
+		Map<String, String> intermediaryToMCPMap = createIntermediaryToMCPMap(intermediaryTiny, readSrg());
 		Map<String, String[]> intermediaryToDocsMap = new HashMap<>();
 		Map<String, Map<Integer, String>> intermediaryToParamsMap = new HashMap<>();
 
@@ -185,43 +176,13 @@ public class MCPReader {
 		Map<MemberToken, String> tokens = new HashMap<>();
 
 		try (BufferedReader reader = Files.newBufferedReader(srgTsrgPath, StandardCharsets.UTF_8)) {
-			String content = IOUtils.toString(reader);
-
-			if (content.startsWith("tsrg2")) {
-				readTsrg2(tokens, content);
-			} else {
-				MappingSet mappingSet = new TSrgReader(new StringReader(content)).read();
-
-				for (TopLevelClassMapping classMapping : mappingSet.getTopLevelClassMappings()) {
-					appendClass(tokens, classMapping);
-				}
-			}
+			// Stream the tokens straight out of the reader instead of building a mapping tree first
+			TsrgReader.read(reader, new MappingStringPool().visitor(new SrgTokenCollector(tokens)));
 		}
 
 		return tokens;
 	}
 
-	private void readTsrg2(Map<MemberToken, String> tokens, String content) throws IOException {
-		MemoryMappingTree tree = new MemoryMappingTree();
-		MappingReader.read(new StringReader(content), tree);
-		int obfIndex = tree.getNamespaceId("obf");
-		int srgIndex = tree.getNamespaceId("srg");
-
-		for (MappingTree.ClassMapping classDef : tree.getClasses()) {
-			MemberToken ofClass = MemberToken.ofClass(classDef.getName(obfIndex));
-			tokens.put(ofClass, classDef.getName(srgIndex));
-
-			for (MappingTree.FieldMapping fieldDef : classDef.getFields()) {
-				tokens.put(MemberToken.ofField(ofClass, fieldDef.getName(obfIndex)), fieldDef.getName(srgIndex));
-			}
-
-			for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
-				tokens.put(MemberToken.ofMethod(ofClass, methodDef.getName(obfIndex), methodDef.getDesc(obfIndex)),
-						methodDef.getName(srgIndex));
-			}
-		}
-	}
-
 	private void injectMcp(Path mcpJar, Map<String, String> intermediaryToSrgMap, Map<String, String[]> intermediaryToDocsMap, Map<String, Map<Integer, String>> intermediaryToParamsMap)
 			throws IOException, CsvValidationException {
 		Map<String, List<String>> srgToIntermediary = inverseMap(intermediaryToSrgMap);
@@ -318,23 +279,6 @@ public class MCPReader {
 		return map;
 	}
 
-	private void appendClass(Map<MemberToken, String> tokens, ClassMapping<?, ?> classMapping) {
-		MemberToken ofClass = MemberToken.ofClass(classMapping.getFullObfuscatedName());
-		tokens.put(ofClass, classMapping.getFullDeobfuscatedName());
-
-		for (FieldMapping fieldMapping : classMapping.getFieldMappings()) {
-			tokens.put(MemberToken.ofField(ofClass, fieldMapping.getObfuscatedName()), fieldMapping.getDeobfuscatedName());
-		}
-
-		for (MethodMapping methodMapping : classMapping.getMethodMappings()) {
-			tokens.put(MemberToken.ofMethod(ofClass, methodMapping.getObfuscatedName(), methodMapping.getObfuscatedDescriptor()), methodMapping.getDeobfuscatedName());
-		}
-
-		for (InnerClassMapping mapping : classMapping.getInnerClassMappings()) {
-			appendClass(tokens, mapping);
-		}
-	}
-
 	private record MemberToken(
 			TokenType type,
 			@Nullable MCPReader.MemberToken owner,
@@ -354,6 +298,65 @@ public class MCPReader {
 		}
 	}
 
+	/**
+	 * Collects the SRG names of a tsrg or tsrg2 file into tokens.
+	 */
+	private static final class SrgTokenCollector implements MappingVisitor {
+		private final Map<MemberToken, String> tokens;
+		private int srgNamespace;
+		private MemberToken currentClass;
+		private MemberToken currentMember;
+
+		private SrgTokenCollector(Map<MemberToken, String> tokens) {
+			this.tokens = tokens;
+		}
+
+		@Override
+		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) {
+			// tsrg v1 files have no namespace names, their only destination is srg
+			srgNamespace = Math.max(dstNamespaces.indexOf("srg"), 0);
+		}
+
+		@Override
+		public boolean visitClass(String srcName) {
+			currentClass = currentMember = MemberToken.ofClass(srcName);
+			return true;
+		}
+
+		@Override
+		public boolean visitField(String srcName, String srcDesc) {
+			currentMember = MemberToken.ofField(currentClass, srcName);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethod(String srcName, String srcDesc) {
+			currentMember = MemberToken.ofMethod(currentClass, srcName, srcDesc);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+			return false;
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			return false;
+		}
+
+		@Override
+		public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+			if (namespace == srgNamespace && targetKind != MappedElementKind.METHOD_ARG && targetKind != MappedElementKind.METHOD_VAR) {
+				tokens.put(currentMember, name);
+			}
+		}
+
+		@Override
+		public void visitComment(MappedElementKind targetKind, String comment) {
+		}
+	}
+
 	private enum TokenType {
 		CLASS,
 		METHOD,
@@ -0,0 +1,113 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.srg;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
+
+/**
+ * A pool of names and descriptors shared between mapping trees read for the same merge.
+ *
+ * <p>The SRG, tiny and extra mappings mostly repeat the same official names and descriptors,
+ * and every reader creates a new string for each of them. Reading them through the same pool
+ * keeps a single instance of each, which the merged output then references as well.
+ *
+ * <p>Comments are not pooled, as they are rarely repeated. This is not thread safe.
+ */
+public final class MappingStringPool {
+	private final Map<String, String> strings = new HashMap<>();
+
+	@Nullable
+	public String intern(@Nullable String string) {
+		if (string == null) {
+			return null;
+		}
+
+		String existing = strings.putIfAbsent(string, string);
+		return existing != null ? existing : string;
+	}
+
+	/**
+	 * @return the number of distinct strings in this pool
+	 */
+	public int size() {
+		return strings.size();
+	}
+
+	/**
+	 * Creates a visitor that interns all names and descriptors passed to it before forwarding them.
+	 */
+	public MappingVisitor visitor(MappingVisitor next) {
+		return new InterningVisitor(next);
+	}
+
+	private final class InterningVisitor extends ForwardingMappingVisitor {
+		private InterningVisitor(MappingVisitor next) {
+			super(next);
+		}
+
+		@Override
+		public boolean visitClass(String srcName) throws IOException {
+			return super.visitClass(intern(srcName));
+		}
+
+		@Override
+		public boolean visitField(String srcName, String srcDesc) throws IOException {
+			return super.visitField(intern(srcName), intern(srcDesc));
+		}
+
+		@Override
+		public boolean visitMethod(String srcName, String srcDesc) throws IOException {
+			return super.visitMethod(intern(srcName), intern(srcDesc));
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) throws IOException {
+			return super.visitMethodArg(argPosition, lvIndex, intern(srcName));
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) throws IOException {
+			return super.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, intern(srcName));
+		}
+
+		@Override
+		public void visitDstName(MappedElementKind targetKind, int namespace, String name) throws IOException {
+			super.visitDstName(targetKind, namespace, intern(name));
+		}
+
+		@Override
+		public void visitDstDesc(MappedElementKind targetKind, int namespace, String desc) throws IOException {
+			super.visitDstDesc(targetKind, namespace, intern(desc));
+		}
+	}
+}
@@ -29,27 +29,24 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.util.MappingException;
 import net.fabricmc.loom.util.function.CollectionUtil;
-import net.fabricmc.mappingio.FlatMappingVisitor;
+import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
 import net.fabricmc.mappingio.adapter.MappingNsRenamer;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
-import net.fabricmc.mappingio.adapter.RegularAsFlatMappingVisitor;
 import net.fabricmc.mappingio.format.MappingFormat;
 import net.fabricmc.mappingio.format.Tiny2Writer;
 import net.fabricmc.mappingio.format.TsrgReader;
@@ -60,48 +57,37 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 /**
  * Merges a Tiny file with an SRG file.
  *
+ * <p>All input mappings are read through a shared {@link MappingStringPool}, and the merged mappings
+ * are streamed into a {@link MappingVisitor} instead of being built up in an intermediate tree.
+ * Method name conflicts are resolved in a first pass over the inputs, so that the second pass
+ * can skip the rejected methods while writing.
+ *
  * @author Juuz
  */
 public final class SrgMerger {
 	private static final List<String> INPUT_NAMESPACES = List.of("official", "intermediary", "named");
+	private final MappingStringPool pool = new MappingStringPool();
 	private final MemoryMappingTree srg;
 	private final MemoryMappingTree src;
-	private final MemoryMappingTree output;
-	private final FlatMappingVisitor flatOutput;
+	private final List<String> dstNamespaces;
 	private final boolean lenient;
-	private final @Nullable MemoryMappingTree extra;
-	private final ListMultimap<SrgMethodKey, MethodData> methodsBySrgName;
+	private final Set<MemberKey> unobfuscatedExtraMethods;
+	private @Nullable Set<MemberKey> rejectedMethods;
 
 	private SrgMerger(Path srg, Path tiny, @Nullable ExtraMappings extraMappings, boolean lenient) throws IOException {
+		this.lenient = lenient;
+		// Only a few methods of the extra mappings are needed, read them first so that the full tree can be dropped.
+		this.unobfuscatedExtraMethods = extraMappings != null ? readUnobfuscatedMethods(extraMappings) : Set.of();
 		this.srg = readSrg(srg);
 		this.src = new MemoryMappingTree();
-		this.output = new MemoryMappingTree();
-		this.flatOutput = new RegularAsFlatMappingVisitor(output);
-		this.lenient = lenient;
-		this.methodsBySrgName = ArrayListMultimap.create();
-
-		if (extraMappings != null) {
-			this.extra = new MemoryMappingTree();
-			MappingSourceNsSwitch nsSwitch = new MappingSourceNsSwitch(extra, "official");
-			MappingVisitor visitor = nsSwitch;
-
-			if (!extraMappings.hasCorrectNamespaces()) {
-				Map<String, String> namespaces = Map.of(
-						extraMappings.obfuscatedNamespace(), MappingsNamespace.OFFICIAL.toString(),
-						extraMappings.deobfuscatedNamespace(), MappingsNamespace.NAMED.toString()
-				);
-				visitor = new MappingNsRenamer(visitor, namespaces);
-			}
-
-			MappingReader.read(extraMappings.path(), extraMappings.format(), visitor);
-		} else {
-			this.extra = null;
-		}
 
-		MappingReader.read(tiny, this.src);
+		MappingReader.read(tiny, pool.visitor(this.src));
 		checkInputNamespaces(tiny);
 
-		this.output.visitNamespaces(this.src.getSrcNamespace(), Stream.concat(Stream.of("srg"), this.src.getDstNamespaces().stream()).collect(Collectors.toList()));
+		List<String> dstNamespaces = new ArrayList<>();
+		dstNamespaces.add(MappingsNamespace.SRG.toString());
+		dstNamespaces.addAll(this.src.getDstNamespaces());
+		this.dstNamespaces = List.copyOf(dstNamespaces);
 	}
 
 	private void checkInputNamespaces(Path tiny) {
@@ -118,7 +104,7 @@ public final class SrgMerger {
 	 * will be the srg name of the mapping element.
 	 */
 	private String[] createDstNameArray(MappingTree.ElementMappingView srg) {
-		String[] dstNames = new String[output.getDstNamespaces().size()];
+		String[] dstNames = new String[dstNamespaces.size()];
 		dstNames[0] = srg.getDstName(0);
 		return dstNames;
 	}
@@ -142,39 +128,119 @@ public final class SrgMerger {
 	}
 
 	public MemoryMappingTree merge() throws IOException {
-		for (MappingTree.ClassMapping srgClass : srg.getClasses()) {
-			String[] dstNames = createDstNameArray(srgClass);
-			MappingTree.ClassMapping tinyClass = src.getClass(srgClass.getSrcName());
-			String comment = null;
-
-			if (tinyClass != null) {
-				copyDstNames(dstNames, tinyClass);
-				comment = tinyClass.getComment();
-			} else if (lenient) {
-				// Tiny class not found, we'll just use srg names
-				fillMappings(dstNames, srgClass);
-			} else {
-				throw new MappingException("Could not find class " + srgClass.getSrcName() + "|" + srgClass.getDstName(0));
+		MemoryMappingTree output = new MemoryMappingTree();
+		accept(output);
+		return output;
+	}
+
+	/**
+	 * Streams the merged mappings into a visitor.
+	 * All errors are thrown before anything is passed to the visitor.
+	 */
+	public void accept(MappingVisitor visitor) throws IOException {
+		prepare();
+
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(src.getSrcNamespace(), dstNamespaces);
+			}
+
+			if (visitor.visitContent()) {
+				for (MappingTree.ClassMapping srgClass : srg.getClasses()) {
+					mergeClass(visitor, srgClass);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	private void prepare() {
+		if (rejectedMethods == null) {
+			rejectedMethods = findRejectedMethods();
+		}
+	}
+
+	private @Nullable MappingTree.ClassMapping findTinyClass(MappingTree.ClassMapping srgClass) {
+		MappingTree.ClassMapping tinyClass = src.getClass(srgClass.getSrcName());
+
+		if (tinyClass == null && !lenient) {
+			throw new MappingException("Could not find class " + srgClass.getSrcName() + "|" + srgClass.getDstName(0));
+		}
+
+		return tinyClass;
+	}
+
+	private void mergeClass(MappingVisitor visitor, MappingTree.ClassMapping srgClass) throws IOException {
+		String[] dstNames = createDstNameArray(srgClass);
+		MappingTree.ClassMapping tinyClass = findTinyClass(srgClass);
+		String comment = null;
+
+		if (tinyClass != null) {
+			copyDstNames(dstNames, tinyClass);
+			comment = tinyClass.getComment();
+		} else {
+			// Tiny class not found, we'll just use srg names
+			fillMappings(dstNames, srgClass);
+		}
+
+		if (!visitor.visitClass(srgClass.getSrcName()) || !visitElement(visitor, MappedElementKind.CLASS, dstNames, comment)) {
+			return;
+		}
+
+		for (MappingTree.FieldMapping srgField : srgClass.getFields()) {
+			MergedField field = mergeField(srgClass, srgField, tinyClass);
+
+			if (field != null && visitor.visitField(srgField.getSrcName(), field.srcDesc())) {
+				visitElement(visitor, MappedElementKind.FIELD, field.dstNames(), field.comment());
 			}
+		}
 
-			flatOutput.visitClass(srgClass.getSrcName(), dstNames);
-			if (comment != null) flatOutput.visitClassComment(srgClass.getSrcName(), comment);
+		for (MappingTree.MethodMapping srgMethod : srgClass.getMethods()) {
+			MergedMethod method = mergeMethod(srgClass, srgMethod, tinyClass);
 
-			for (MappingTree.FieldMapping field : srgClass.getFields()) {
-				mergeField(srgClass, field, tinyClass);
+			if (method == null || isRejected(srgClass, srgMethod)) {
+				continue;
 			}
 
-			for (MappingTree.MethodMapping method : srgClass.getMethods()) {
-				mergeMethod(srgClass, method, tinyClass);
+			if (!visitor.visitMethod(srgMethod.getSrcName(), srgMethod.getSrcDesc()) || !visitElement(visitor, MappedElementKind.METHOD, method.dstNames(), method.comment())) {
+				continue;
+			}
+
+			if (method.tinyMethod() != null) {
+				for (MappingTree.MethodArgMapping arg : method.tinyMethod().getArgs()) {
+					String[] argDstNames = new String[dstNamespaces.size()];
+					copyDstNames(argDstNames, arg);
+
+					if (visitor.visitMethodArg(arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName())) {
+						visitElement(visitor, MappedElementKind.METHOD_ARG, argDstNames, arg.getComment());
+					}
+				}
 			}
 		}
+	}
 
-		resolveConflicts();
+	private boolean isRejected(MappingTree.ClassMapping srgClass, MappingTree.MethodMapping srgMethod) {
+		return !rejectedMethods.isEmpty() && rejectedMethods.contains(new MemberKey(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc()));
+	}
 
-		return output;
+	private static boolean visitElement(MappingVisitor visitor, MappedElementKind kind, String[] dstNames, @Nullable String comment) throws IOException {
+		for (int i = 0; i < dstNames.length; i++) {
+			if (dstNames[i] != null) {
+				visitor.visitDstName(kind, i, dstNames[i]);
+			}
+		}
+
+		if (!visitor.visitElementContent(kind)) {
+			return false;
+		}
+
+		if (comment != null) {
+			visitor.visitComment(kind, comment);
+		}
+
+		return true;
 	}
 
-	private void mergeField(MappingTree.ClassMapping srgClass, MappingTree.FieldMapping srgField, @Nullable MappingTree.ClassMapping tinyClass) throws IOException {
+	private @Nullable MergedField mergeField(MappingTree.ClassMapping srgClass, MappingTree.FieldMapping srgField, @Nullable MappingTree.ClassMapping tinyClass) {
 		String[] dstNames = createDstNameArray(srgField);
 		MappingTree.FieldMapping tinyField = null;
 		String srcDesc = srgField.getSrcDesc();
@@ -199,14 +265,15 @@ public final class SrgMerger {
 		}
 
 		if (srcDesc != null) {
-			flatOutput.visitField(srgClass.getSrcName(), srgField.getSrcName(), srcDesc, dstNames);
-			if (comment != null) flatOutput.visitFieldComment(srgClass.getSrcName(), srgField.getSrcName(), srcDesc, comment);
+			return new MergedField(srcDesc, dstNames, comment);
 		} else if (!lenient) {
 			throw new MappingException("Could not find descriptor for field " + srgClass.getDstName(0) + '.' + srgField.getDstName(0));
 		}
+
+		return null;
 	}
 
-	private void mergeMethod(MappingTree.ClassMapping srgClass, MappingTree.MethodMapping srgMethod, @Nullable MappingTree.ClassMapping tinyClass) throws IOException {
+	private @Nullable MergedMethod mergeMethod(MappingTree.ClassMapping srgClass, MappingTree.MethodMapping srgMethod, @Nullable MappingTree.ClassMapping tinyClass) {
 		String[] dstNames = createDstNameArray(srgMethod);
 		MappingTree.MethodMapping tinyMethod = null;
 		String intermediaryName, namedName;
@@ -227,70 +294,68 @@ public final class SrgMerger {
 			if (srgMethod.getSrcName().equals(srgMethod.getDstName(0))) {
 				// These are only methods like <init> or toString which have the same name in every NS.
 				// We can safely ignore those.
-				return;
+				return null;
 			}
 
-			@Nullable MappingTree.MethodMapping fillMethod = null;
-
-			if (extra != null) {
-				MappingTree.MethodMapping extraMethod = extra.getMethod(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc());
-
-				if (extraMethod != null && extraMethod.getSrcName().equals(extraMethod.getDstName(0))) {
-					fillMethod = extraMethod;
-				}
-			}
-
-			if (fillMethod != null) {
-				fillMappings(dstNames, fillMethod);
-				intermediaryName = namedName = fillMethod.getSrcName();
+			if (unobfuscatedExtraMethods.contains(new MemberKey(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc()))) {
+				fillMappings(dstNames, srgMethod);
+				intermediaryName = namedName = srgMethod.getSrcName();
 			} else {
 				// Do not allow missing methods as these are typically subclass methods and cause issues where
 				// class B extends A, and overrides a method from the superclass. Then the subclass method
 				// DOES get a srg name but not a yarn/intermediary name.
-				return;
+				return null;
 			}
 		}
 
-		if (!srgMethod.getSrcName().equals(dstNames[0])) { // ignore <init> and the likes
-			methodsBySrgName.put(
-					new SrgMethodKey(dstNames[0], srgMethod.getSrcDesc()),
-					new MethodData(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(), tinyMethod != null, intermediaryName, namedName)
-			);
-		}
+		return new MergedMethod(dstNames, tinyMethod, intermediaryName, namedName, comment);
+	}
+
+	/**
+	 * Finds the methods that are dropped from the output because they conflict with other methods
+	 * mapping to the same SRG name. Fields are merged as well, so that all errors are thrown here.
+	 */
+	private Set<MemberKey> findRejectedMethods() {
+		Map<SrgMethodKey, MethodData> methodsBySrgName = new HashMap<>();
+		Map<SrgMethodKey, List<MethodData>> sharedSrgNames = new HashMap<>();
 
-		flatOutput.visitMethod(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(), dstNames);
-		if (comment != null) flatOutput.visitMethodComment(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(), comment);
+		for (MappingTree.ClassMapping srgClass : srg.getClasses()) {
+			MappingTree.ClassMapping tinyClass = findTinyClass(srgClass);
 
-		if (tinyMethod != null) {
-			for (MappingTree.MethodArgMapping arg : tinyMethod.getArgs()) {
-				String[] argDstNames = new String[output.getDstNamespaces().size()];
-				copyDstNames(argDstNames, arg);
-				flatOutput.visitMethodArg(
-						srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(),
-						arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName(), argDstNames
-				);
-
-				if (arg.getComment() != null) {
-					flatOutput.visitMethodArgComment(
-							srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(),
-							arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName(),
-							arg.getComment()
-					);
+			for (MappingTree.FieldMapping srgField : srgClass.getFields()) {
+				mergeField(srgClass, srgField, tinyClass);
+			}
+
+			for (MappingTree.MethodMapping srgMethod : srgClass.getMethods()) {
+				MergedMethod method = mergeMethod(srgClass, srgMethod, tinyClass);
+
+				if (method == null || srgMethod.getSrcName().equals(method.dstNames()[0])) { // ignore <init> and the likes
+					continue;
+				}
+
+				SrgMethodKey key = new SrgMethodKey(method.dstNames()[0], srgMethod.getSrcDesc());
+				MethodData data = new MethodData(srgClass.getSrcName(), srgMethod.getSrcName(), srgMethod.getSrcDesc(), method.tinyMethod() != null, method.intermediaryName(), method.namedName());
+				MethodData previous = methodsBySrgName.putIfAbsent(key, data);
+
+				if (previous != null) {
+					sharedSrgNames.computeIfAbsent(key, k -> new ArrayList<>(List.of(previous))).add(data);
 				}
 			}
 		}
+
+		return resolveConflicts(sharedSrgNames);
 	}
 
 	/**
 	 * Resolves conflicts where multiple methods map to an SRG method.
 	 * We will prefer the ones with the Tiny mappings.
 	 */
-	private void resolveConflicts() {
+	private Set<MemberKey> resolveConflicts(Map<SrgMethodKey, List<MethodData>> sharedSrgNames) {
+		Set<MemberKey> rejected = new HashSet<>();
 		List<String> conflicts = new ArrayList<>();
 
-		for (SrgMethodKey srg : methodsBySrgName.keySet()) {
-			List<MethodData> methods = methodsBySrgName.get(srg);
-			if (methods.size() == 1) continue;
+		for (Map.Entry<SrgMethodKey, List<MethodData>> entry : sharedSrgNames.entrySet()) {
+			List<MethodData> methods = entry.getValue();
 
 			// Determine whether the names conflict
 			Set<String> foundNamedNames = new HashSet<>();
@@ -305,14 +370,13 @@ public final class SrgMerger {
 			}
 
 			// Find preferred method
-			@Nullable MethodData preferred = findPreferredMethod(methods, conflicts::add);
+			@Nullable MethodData preferred = findPreferredMethod(entry.getKey(), methods, conflicts::add);
 			if (preferred == null) continue;
 
 			// Remove non-preferred methods
 			for (MethodData method : methods) {
 				if (method != preferred) {
-					MappingTree.ClassMapping clazz = output.getClass(method.obfOwner());
-					clazz.getMethods().removeIf(m -> m.getSrcName().equals(method.obfName()) && m.getSrcDesc().equals(method.obfDesc()));
+					rejected.add(new MemberKey(method.obfOwner(), method.obfName(), method.obfDesc()));
 				}
 			}
 		}
@@ -320,9 +384,11 @@ public final class SrgMerger {
 		if (!conflicts.isEmpty()) {
 			throw new MappingException("Unfixable conflicts:\n" + String.join("\n", conflicts));
 		}
+
+		return rejected;
 	}
 
-	private @Nullable MethodData findPreferredMethod(List<MethodData> methods, Consumer<String> conflictReporter) {
+	private @Nullable MethodData findPreferredMethod(SrgMethodKey srg, List<MethodData> methods, Consumer<String> conflictReporter) {
 		List<MethodData> hasTiny = CollectionUtil.filter(methods, MethodData::hasTiny);
 
 		// Record conflicts if needed
@@ -382,12 +448,12 @@ public final class SrgMerger {
 	 */
 	public static void mergeSrg(Path srg, Path tiny, Path out, @Nullable ExtraMappings extraMappings, boolean lenient)
 			throws IOException, MappingException {
-		MemoryMappingTree tree = mergeSrg(srg, tiny, extraMappings, lenient);
+		SrgMerger merger = new SrgMerger(srg, tiny, extraMappings, lenient);
+		// Fail before the output file is touched
+		merger.prepare();
 
 		try (Tiny2Writer writer = new Tiny2Writer(Files.newBufferedWriter(out), false)) {
-			tree.accept(writer);
-		} catch (IOException e) {
-			e.printStackTrace();
+			merger.accept(writer);
 		}
 	}
 
@@ -424,15 +490,35 @@ public final class SrgMerger {
 	private MemoryMappingTree readSrg(Path srg) throws IOException {
 		try (BufferedReader reader = Files.newBufferedReader(srg)) {
 			MemoryMappingTree tsrg = new MemoryMappingTree();
-			MemoryMappingTree temp = new MemoryMappingTree();
-			TsrgReader.read(reader, temp);
+			TsrgReader.read(reader, new SrgNamespaceRenamer(pool.visitor(tsrg)));
+			return tsrg;
+		}
+	}
+
+	private Set<MemberKey> readUnobfuscatedMethods(ExtraMappings extraMappings) throws IOException {
+		MemoryMappingTree extra = new MemoryMappingTree();
+		MappingVisitor visitor = new MappingSourceNsSwitch(extra, MappingsNamespace.OFFICIAL.toString());
+
+		if (!extraMappings.hasCorrectNamespaces()) {
 			Map<String, String> namespaces = Map.of(
-					temp.getSrcNamespace(), MappingsNamespace.OFFICIAL.toString(),
-					temp.getDstNamespaces().get(0), MappingsNamespace.SRG.toString()
+					extraMappings.obfuscatedNamespace(), MappingsNamespace.OFFICIAL.toString(),
+					extraMappings.deobfuscatedNamespace(), MappingsNamespace.NAMED.toString()
 			);
-			temp.accept(new MappingNsRenamer(tsrg, namespaces));
-			return tsrg;
+			visitor = new MappingNsRenamer(visitor, namespaces);
 		}
+
+		MappingReader.read(extraMappings.path(), extraMappings.format(), pool.visitor(visitor));
+		Set<MemberKey> methods = new HashSet<>();
+
+		for (MappingTree.ClassMapping extraClass : extra.getClasses()) {
+			for (MappingTree.MethodMapping extraMethod : extraClass.getMethods()) {
+				if (extraMethod.getSrcName().equals(extraMethod.getDstName(0))) {
+					methods.add(new MemberKey(extraClass.getSrcName(), extraMethod.getSrcName(), extraMethod.getSrcDesc()));
+				}
+			}
+		}
+
+		return methods;
 	}
 
 	public record ExtraMappings(Path path, MappingFormat format, String obfuscatedNamespace, String deobfuscatedNamespace) {
@@ -458,4 +544,29 @@ public final class SrgMerger {
 			return "%s.%s%s => %s/%s (%s)".formatted(obfOwner, obfName, obfDesc, intermediaryName, namedName, hasTiny ? "tiny" : "filled");
 		}
 	}
+
+	private record MemberKey(String owner, String name, String desc) {
+	}
+
+	private record MergedField(String srcDesc, String[] dstNames, @Nullable String comment) {
+	}
+
+	private record MergedMethod(String[] dstNames, @Nullable MappingTree.MethodMapping tinyMethod, String intermediaryName, String namedName, @Nullable String comment) {
+	}
+
+	/**
+	 * Renames the namespaces of a tsrg file to {@code official} and {@code srg} while it is being read.
+	 */
+	private static final class SrgNamespaceRenamer extends ForwardingMappingVisitor {
+		private SrgNamespaceRenamer(MappingVisitor next) {
+			super(next);
+		}
+
+		@Override
+		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) throws IOException {
+			List<String> renamed = new ArrayList<>(dstNamespaces);
+			renamed.set(0, MappingsNamespace.SRG.toString());
+			super.visitNamespaces(MappingsNamespace.OFFICIAL.toString(), renamed);
+		}
+	}
 }
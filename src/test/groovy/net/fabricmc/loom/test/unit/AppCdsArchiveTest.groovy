@@ -0,0 +1,152 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.task.AppCdsArchive
+
+class AppCdsArchiveTest extends Specification {
+	private static final String JAVA = "/usr/lib/jvm/java-17 17.0.6+10"
+
+	@TempDir
+	Path tempDir
+
+	def "archive is created and then reused"() {
+		setup:
+		def archive = new AppCdsArchive(tempDir.resolve("appcds"), "runClient")
+		def classpath = [createJar("a.jar", "a"), createJar("b.jar", "b")]
+		def key = AppCdsArchive.computeKey(classpath, JAVA)
+
+		when:
+		def args = archive.getJvmArgs(key)
+
+		then:
+		args == ["-XX:ArchiveClassesAtExit=" + archive.getArchive(key).toAbsolutePath()]
+
+		when:
+		// Written by the JVM when the game exits
+		Files.write(archive.getArchive(key), [1, 2, 3] as byte[])
+		args = archive.getJvmArgs(AppCdsArchive.computeKey(classpath, JAVA))
+
+		then:
+		args == ["-XX:SharedArchiveFile=" + archive.getArchive(key).toAbsolutePath()]
+	}
+
+	def "classpath changes invalidate the archive"() {
+		setup:
+		def archive = new AppCdsArchive(tempDir.resolve("appcds"), "runClient")
+		def jar = createJar("a.jar", "a")
+		def key = AppCdsArchive.computeKey([jar], JAVA)
+		Files.write(archive.getArchive(key), [1, 2, 3] as byte[])
+
+		when:
+		jar.text = "changed"
+		def newKey = AppCdsArchive.computeKey([jar], JAVA)
+		def args = archive.getJvmArgs(newKey)
+
+		then:
+		newKey != key
+		args == ["-XX:ArchiveClassesAtExit=" + archive.getArchive(newKey).toAbsolutePath()]
+		// The outdated archive is deleted
+		Files.notExists(archive.getArchive(key))
+	}
+
+	def "key depends on the classpath and java runtime"() {
+		setup:
+		def a = createJar("a.jar", "a")
+		def b = createJar("b.jar", "b")
+		def dir = Files.createDirectories(tempDir.resolve("classes")).toFile()
+		def key = AppCdsArchive.computeKey([a, b, dir], JAVA)
+
+		expect:
+		AppCdsArchive.computeKey([a, b, dir], JAVA) == key
+		AppCdsArchive.computeKey([b, a, dir], JAVA) != key
+		AppCdsArchive.computeKey([a, dir], JAVA) != key
+		AppCdsArchive.computeKey([a, b, dir], "/usr/lib/jvm/java-17 17.0.7+7") != key
+
+		when:
+		// Classes in directories are never archived, so their contents don't matter
+		new File(dir, "Test.class").bytes = [1, 2, 3] as byte[]
+
+		then:
+		AppCdsArchive.computeKey([a, b, dir], JAVA) == key
+	}
+
+	def "archives of other run configs are kept"() {
+		setup:
+		def directory = tempDir.resolve("appcds")
+		def client = new AppCdsArchive(directory, "runClient")
+		def server = new AppCdsArchive(directory, "runServer")
+		def clientKey = AppCdsArchive.computeKey([createJar("a.jar", "a")], JAVA)
+		def serverKey = AppCdsArchive.computeKey([createJar("b.jar", "b")], JAVA)
+		Files.createDirectories(directory)
+		Files.write(server.getArchive(serverKey), [1, 2, 3] as byte[])
+
+		when:
+		client.getJvmArgs(clientKey)
+
+		then:
+		Files.exists(server.getArchive(serverKey))
+	}
+
+	def "empty archives are recreated"() {
+		setup:
+		def archive = new AppCdsArchive(tempDir.resolve("appcds"), "runClient")
+		def key = AppCdsArchive.computeKey([createJar("a.jar", "a")], JAVA)
+		Files.createDirectories(tempDir.resolve("appcds"))
+		Files.createFile(archive.getArchive(key))
+
+		when:
+		def args = archive.getJvmArgs(key)
+
+		then:
+		args == ["-XX:ArchiveClassesAtExit=" + archive.getArchive(key).toAbsolutePath()]
+	}
+
+	def "directories are moved after jars"() {
+		setup:
+		def classes = Files.createDirectories(tempDir.resolve("classes")).toFile()
+		def resources = Files.createDirectories(tempDir.resolve("resources")).toFile()
+		def a = createJar("a.jar", "a")
+		def b = createJar("b.jar", "b")
+
+		when:
+		def ordered = AppCdsArchive.orderClasspath([classes, a, resources, b])
+
+		then:
+		ordered == [a, b, classes, resources]
+	}
+
+	private File createJar(String name, String content) {
+		def file = tempDir.resolve(name).toFile()
+		file.text = content
+		return file
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.accesswidener.ClassMemberIndex
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+
+class ClassMemberIndexTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "finds declared classes and members"() {
+		given:
+		def jar = createJar("minecraft.jar", [
+				createClass("net/minecraft/Entity", "java/lang/Object", [], ["age"], ["tick"]),
+		])
+
+		when:
+		def index = ClassMemberIndex.getOrCreate(tempDir.resolve("index"), [jar])
+
+		then:
+		index.hasClass("net/minecraft/Entity")
+		!index.hasClass("net/minecraft/Missing")
+		// A class name that is a prefix of another one
+		!index.hasClass("net/minecraft/Ent")
+		index.resolveField("net/minecraft/Entity", "age", "I") == "net/minecraft/Entity"
+		index.resolveMethod("net/minecraft/Entity", "tick", "()V") == "net/minecraft/Entity"
+		index.resolveMethod("net/minecraft/Entity", "<init>", "()V") == "net/minecraft/Entity"
+		// Wrong descriptors
+		index.resolveField("net/minecraft/Entity", "age", "J") == null
+		index.resolveMethod("net/minecraft/Entity", "tick", "(I)V") == null
+		// Fields and methods are separate
+		index.resolveMethod("net/minecraft/Entity", "age", "I") == null
+		index.getSuperTypes("net/minecraft/Entity") == ["java/lang/Object"]
+	}
+
+	def "resolves inherited members"() {
+		given:
+		def jar = createJar("minecraft.jar", [
+				createClass("net/minecraft/Ticking", null, [], [], ["tick"], true),
+				createClass("net/minecraft/Entity", "java/lang/Object", ["net/minecraft/Ticking"], ["age"], ["remove"]),
+				createClass("net/minecraft/Mob", "net/minecraft/Entity", [], ["target"], []),
+				createClass("net/minecraft/Zombie", "net/minecraft/Mob", [], [], ["remove"]),
+		])
+
+		when:
+		def index = ClassMemberIndex.getOrCreate(tempDir.resolve("index"), [jar])
+
+		then:
+		index.resolveField("net/minecraft/Zombie", "age", "I") == "net/minecraft/Entity"
+		index.resolveField("net/minecraft/Zombie", "target", "I") == "net/minecraft/Mob"
+		// Interface methods
+		index.resolveMethod("net/minecraft/Zombie", "tick", "()V") == "net/minecraft/Ticking"
+		// The closest declaration wins
+		index.resolveMethod("net/minecraft/Zombie", "remove", "()V") == "net/minecraft/Zombie"
+		index.resolveMethod("net/minecraft/Mob", "remove", "()V") == "net/minecraft/Entity"
+		// Members of sub classes are not visible
+		index.resolveField("net/minecraft/Entity", "target", "I") == null
+		index.getSuperTypes("net/minecraft/Entity") as Set == ["java/lang/Object", "net/minecraft/Ticking"] as Set
+	}
+
+	def "the first jar containing a class wins"() {
+		given:
+		def first = createJar("first.jar", [createClass("net/minecraft/Entity", "java/lang/Object", [], ["age"], [])])
+		def second = createJar("second.jar", [
+				createClass("net/minecraft/Entity", "java/lang/Object", [], ["removed"], []),
+				createClass("net/minecraft/Other", "java/lang/Object", [], [], []),
+		])
+
+		when:
+		def index = ClassMemberIndex.getOrCreate(tempDir.resolve("index"), [first, second])
+
+		then:
+		index.resolveField("net/minecraft/Entity", "age", "I") != null
+		index.resolveField("net/minecraft/Entity", "removed", "I") == null
+		index.hasClass("net/minecraft/Other")
+	}
+
+	def "reuses the index until the jar changes"() {
+		given:
+		def directory = tempDir.resolve("index")
+		def jar = createJar("minecraft.jar", [createClass("net/minecraft/Entity", "java/lang/Object", [], ["age"], [])])
+
+		when:
+		ClassMemberIndex.getOrCreate(directory, [jar])
+		def indexFiles = listIndexes(directory)
+		def lastModified = Files.getLastModifiedTime(indexFiles[0])
+		def index = ClassMemberIndex.getOrCreate(directory, [jar])
+
+		then:
+		indexFiles.size() == 1
+		listIndexes(directory) == indexFiles
+		Files.getLastModifiedTime(indexFiles[0]) == lastModified
+		index.resolveField("net/minecraft/Entity", "age", "I") != null
+
+		when:
+		Files.delete(jar)
+		createJar("minecraft.jar", [createClass("net/minecraft/Entity", "java/lang/Object", [], ["health"], [])])
+		index = ClassMemberIndex.getOrCreate(directory, [jar])
+
+		then:
+		// The stale index is replaced
+		listIndexes(directory).size() == 1
+		listIndexes(directory) != indexFiles
+		index.resolveField("net/minecraft/Entity", "age", "I") == null
+		index.resolveField("net/minecraft/Entity", "health", "I") == "net/minecraft/Entity"
+	}
+
+	private static List<Path> listIndexes(Path directory) {
+		Files.list(directory).withCloseable { it.toList() }
+	}
+
+	private Path createJar(String name, List<Pair<String, byte[]>> classes) {
+		def jar = tempDir.resolve(name)
+		ZipUtils.add(jar, classes)
+		return jar
+	}
+
+	private static Pair<String, byte[]> createClass(String name, String superName, List<String> interfaces, List<String> fields, List<String> methods, boolean isInterface = false) {
+		def writer = new ClassWriter(0)
+		int access = Opcodes.ACC_PUBLIC | (isInterface ? Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT : 0)
+		writer.visit(Opcodes.V17, access, name, null, superName ?: "java/lang/Object", interfaces as String[])
+
+		fields.each {
+			writer.visitField(Opcodes.ACC_PUBLIC, it, "I", null, null).visitEnd()
+		}
+
+		if (!isInterface) {
+			writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null).visitEnd()
+		}
+
+		methods.each {
+			writer.visitMethod(Opcodes.ACC_PUBLIC | (isInterface ? Opcodes.ACC_ABSTRACT : 0), it, "()V", null, null).visitEnd()
+		}
+
+		writer.visitEnd()
+		return new Pair<>(name + ".class", writer.toByteArray())
+	}
+}
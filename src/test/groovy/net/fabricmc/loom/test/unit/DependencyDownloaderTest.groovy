@@ -0,0 +1,211 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.gradle.api.Project
+import org.gradle.api.artifacts.DependencyResolutionListener
+import org.gradle.api.artifacts.ResolvableDependencies
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.DependencyDownloader
+
+class DependencyDownloaderTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "resolves each notation once per build"() {
+		setup:
+		def repo = createRepository()
+		def root = createProject("root", null, repo)
+		def projects = [root, createProject("a", root, repo), createProject("b", root, repo)]
+		def resolutions = countResolutions(root)
+
+		when:
+		def files = projects.collect { DependencyDownloader.download(it, "test.tools:tool:1.0.0").files }
+		def eager = projects.collect { DependencyDownloader.download(it, "test.tools:tool:1.0.0", true, true).files }
+
+		then:
+		resolutions.get() == 1
+		files.every { it == files[0] }
+		eager.every { it == files[0] }
+		files[0]*.name as Set == ["tool-1.0.0.jar", "library-1.0.0.jar"] as Set
+
+		when:
+		def intransitive = projects.collect { DependencyDownloader.download(it, "test.tools:tool:1.0.0", false, false).files }
+
+		then:
+		resolutions.get() == 2
+		intransitive.every { it*.name == ["tool-1.0.0.jar"] }
+	}
+
+	def "reuses intransitive resolutions of fixed versions across builds"() {
+		setup:
+		enablePersistentResolutions()
+		def repo = createRepository()
+		def root = createProject("root", null, repo)
+		def files = DependencyDownloader.download(createProject("a", root, repo), "test.tools:tool:1.0.0", false, false).files
+		DependencyDownloader.download(root, "test.tools:tool:1.0.0").files
+
+		when:
+		// A new build, resolving the transitive dependencies again as their versions may be dynamic
+		def newRoot = createProject("root", null, repo)
+		def resolutions = countResolutions(newRoot)
+		def reused = DependencyDownloader.download(createProject("b", newRoot, repo), "test.tools:tool:1.0.0", false, false).files
+		def transitive = DependencyDownloader.download(newRoot, "test.tools:tool:1.0.0").files
+
+		then:
+		resolutions.get() == 1
+		reused == files
+		transitive*.name as Set == ["tool-1.0.0.jar", "library-1.0.0.jar"] as Set
+	}
+
+	def "does not reuse resolutions from other repositories"() {
+		setup:
+		enablePersistentResolutions()
+		def repo = createRepository()
+		def root = createProject("root", null, repo)
+		def files = DependencyDownloader.download(root, "test.tools:tool:1.0.0", false, false).files
+		def otherRepo = createRepository("other-repo")
+
+		when:
+		def newRoot = createProject("root", null, otherRepo)
+		def resolutions = countResolutions(newRoot)
+		def other = DependencyDownloader.download(newRoot, "test.tools:tool:1.0.0", false, false).files
+
+		then:
+		resolutions.get() == 1
+		other != files
+		other*.toPath() == [otherRepo.resolve("test/tools/tool/1.0.0/tool-1.0.0.jar")]
+	}
+
+	def "does not reuse resolutions across builds unless enabled"() {
+		setup:
+		if (verification) {
+			enablePersistentResolutions()
+			Files.createDirectories(tempDir.resolve("root/gradle")).resolve("verification-metadata.xml").text = "<verification-metadata/>"
+		}
+
+		def repo = createRepository()
+		DependencyDownloader.download(createProject("root", null, repo), "test.tools:tool:1.0.0", false, false).files
+
+		when:
+		def newRoot = createProject("root", null, repo)
+		def resolutions = countResolutions(newRoot)
+		DependencyDownloader.download(newRoot, "test.tools:tool:1.0.0", false, false).files
+
+		then:
+		resolutions.get() == 1
+
+		where:
+		verification << [false, true]
+	}
+
+	def "detects fixed versions"() {
+		expect:
+		DependencyDownloader.isFixedVersion(notation) == fixed
+
+		where:
+		notation                                  | fixed
+		"net.minecraftforge:installertools:1.3.0" | true
+		"de.oceanlabs.mcp:mcp_config:1.20@zip"    | true
+		"com.example:tool:1.0:fatjar"             | true
+		"com.example:tool:1.+"                    | false
+		"com.example:tool:[1.0,2.0)"              | false
+		"com.example:tool:latest.release"         | false
+		"com.example:tool:1.0-SNAPSHOT"           | false
+		"com.example:tool"                        | false
+	}
+
+	private void enablePersistentResolutions() {
+		Files.createDirectories(tempDir.resolve("root")).resolve("gradle.properties").text = "fabric.loom.persistentDependencyResolutions=true\n"
+	}
+
+	private Path createRepository(String name = "repo") {
+		def repo = tempDir.resolve(name)
+		createModule(repo, "library", "")
+		createModule(repo, "tool", """
+	<dependencies>
+		<dependency>
+			<groupId>test.tools</groupId>
+			<artifactId>library</artifactId>
+			<version>1.0.0</version>
+		</dependency>
+	</dependencies>""")
+		return repo
+	}
+
+	private static void createModule(Path repo, String name, String dependencies) {
+		def dir = Files.createDirectories(repo.resolve("test/tools/$name/1.0.0"))
+		dir.resolve("$name-1.0.0.pom").text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+	<modelVersion>4.0.0</modelVersion>
+	<groupId>test.tools</groupId>
+	<artifactId>$name</artifactId>
+	<version>1.0.0</version>$dependencies
+</project>
+"""
+		dir.resolve("$name-1.0.0.jar").text = name
+	}
+
+	private Project createProject(String name, Project parent, Path repo) {
+		def projectDir = parent != null ? parent.projectDir.toPath().resolve(name) : tempDir.resolve(name)
+		def builder = ProjectBuilder.builder()
+				.withName(name)
+				.withProjectDir(Files.createDirectories(projectDir).toFile())
+
+		if (parent != null) {
+			builder.withParent(parent)
+		}
+
+		def project = builder.build()
+
+		if (repo != null) {
+			project.repositories.maven { it.url = repo.toUri() }
+		}
+
+		return project
+	}
+
+	private static AtomicInteger countResolutions(Project project) {
+		def count = new AtomicInteger()
+		project.gradle.addListener(new DependencyResolutionListener() {
+					@Override
+					void beforeResolve(ResolvableDependencies dependencies) {
+						count.incrementAndGet()
+					}
+
+					@Override
+					void afterResolve(ResolvableDependencies dependencies) {
+					}
+				})
+		return count
+	}
+}
@@ -24,13 +24,21 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.net.UnixDomainSocketAddress
+import java.nio.ByteBuffer
+import java.nio.channels.SocketChannel
 import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import java.util.function.Consumer
 
 import spock.lang.Specification
 import spock.lang.Timeout
 
 import net.fabricmc.loom.util.ipc.IPCClient
+import net.fabricmc.loom.util.ipc.IPCFrames
 import net.fabricmc.loom.util.ipc.IPCServer
 
 @Timeout(20)
@@ -63,4 +71,141 @@ class IPCTest extends Specification {
 		received[0] == "Test"
 		received[1] == "Hello"
 	}
+
+	def "messages are batched in order"() {
+		given:
+		def path = createPath()
+		def received = new CopyOnWriteArrayList<String>()
+		def ipcServer = new IPCServer(path, received.&add)
+		def messages = (0..<10000).collect { "message $it".toString() }
+
+		when:
+		long dropped
+
+		new IPCClient(path).withCloseable { client ->
+			messages.each { client.accept(it) }
+			dropped = client.droppedMessages
+		}
+
+		waitFor { received.size() == messages.size() }
+		ipcServer.close()
+
+		then:
+		dropped == 0
+		received == messages
+	}
+
+	def "accepting never blocks on a slow server"() {
+		given:
+		def path = createPath()
+		def received = new CopyOnWriteArrayList<String>()
+		def release = new CountDownLatch(1)
+		def ipcServer = new IPCServer(path, { str ->
+			release.await()
+			received << str
+		} as Consumer<String>)
+
+		when:
+		def client = new IPCClient(path, 16)
+		(0..<100000).each { client.accept("message $it") }
+		def dropped = client.droppedMessages
+		release.countDown()
+		client.close()
+
+		waitFor { received.size() == 100000 - dropped }
+		ipcServer.close()
+
+		then:
+		dropped > 0
+		received.size() == 100000 - dropped
+	}
+
+	def "partial frames are reassembled"() {
+		given:
+		def path = createPath()
+		def received = new CopyOnWriteArrayList<String>()
+		def ipcServer = new IPCServer(path, received.&add)
+		def frame = IPCFrames.encode(["Hello", "Wörld", ""])
+
+		when:
+		SocketChannel.open(UnixDomainSocketAddress.of(path)).withCloseable { channel ->
+			// Write the frame one byte at a time
+			while (frame.hasRemaining()) {
+				channel.write(ByteBuffer.wrap([frame.get()] as byte[]))
+				Thread.sleep(1)
+			}
+		}
+
+		waitFor { received.size() == 3 }
+		ipcServer.close()
+
+		then:
+		received == ["Hello", "Wörld", ""]
+	}
+
+	def "worker dying in the middle of a frame"() {
+		given:
+		def path = createPath()
+		def received = new CopyOnWriteArrayList<String>()
+		def ipcServer = new IPCServer(path, received.&add)
+		def complete = IPCFrames.encode(["Test"])
+		def partial = IPCFrames.encode(["Never", "Finished"])
+
+		when:
+		SocketChannel.open(UnixDomainSocketAddress.of(path)).withCloseable { channel ->
+			channel.write(complete)
+			channel.write(partial.limit(partial.limit() - 3))
+		}
+
+		waitFor { received.size() == 1 }
+		Thread.sleep(100)
+		ipcServer.close()
+
+		then:
+		received == ["Test"]
+	}
+
+	def "long batches are split and long messages truncated"() {
+		given:
+		def path = createPath()
+		def received = new CopyOnWriteArrayList<String>()
+		def ipcServer = new IPCServer(path, received.&add)
+		def large = (0..<3).collect { it.toString().repeat(6 * 1024 * 1024) }
+		// Offset by one byte so that the limit falls inside a character
+		def oversized = "x" + "ä".repeat(IPCFrames.MAX_FRAME_LENGTH)
+
+		when:
+		new IPCClient(path).withCloseable { client ->
+			large.each { client.accept(it) }
+			client.accept(oversized)
+			client.accept("Test")
+		}
+
+		waitFor { received.size() == 5 }
+		ipcServer.close()
+
+		then:
+		received.subList(0, 3) == large
+		received[3].length() == IPCFrames.MAX_MESSAGE_LENGTH.intdiv(2)
+		oversized.startsWith(received[3])
+		received[4] == "Test"
+	}
+
+	private static Path createPath() {
+		def path = Files.createTempFile("loom", "ipc")
+		Files.deleteIfExists(path)
+		return path
+	}
+
+	private static void waitFor(Closure<Boolean> condition) {
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+
+		while (!condition()) {
+			if (System.nanoTime() > end) {
+				throw new AssertionError("Timed out")
+			}
+
+			Thread.sleep(1)
+		}
+	}
 }
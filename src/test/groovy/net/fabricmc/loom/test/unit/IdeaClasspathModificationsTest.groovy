@@ -56,6 +56,31 @@ class IdeaClasspathModificationsTest extends Specification {
 		output == EXPECTED2
 	}
 
+	def "keeps the rest of the xml"() {
+		given:
+		def input = '''<?xml version="1.0" encoding="UTF-8"?>
+<component name="ProjectRunConfigurationManager">
+  <!-- <configuration> in a comment -->
+  <configuration name="a > b" type='Application'>
+    <option name="VM_PARAMETERS" value="" /><classpathModifications />
+  </configuration>
+</component>
+'''
+
+		when:
+		def output = IdeaSyncTask.setClasspathModificationsInXml(input, ["/path/to/a&b.jar"])
+
+		then:
+		output == '''<?xml version="1.0" encoding="UTF-8"?>
+<component name="ProjectRunConfigurationManager">
+  <!-- <configuration> in a comment -->
+  <configuration name="a > b" type='Application'>
+    <option name="VM_PARAMETERS" value="" />
+  <classpathModifications><entry exclude="true" path="/path/to/a&amp;b.jar"/></classpathModifications></configuration>
+</component>
+'''
+	}
+
 	private String fromDummy() {
 		String dummyConfig
 
@@ -76,40 +101,40 @@ class IdeaClasspathModificationsTest extends Specification {
 	@Language("XML")
 	private static final String EXPECTED = '''
 <component name="ProjectRunConfigurationManager">
-  <configuration default="false" factoryName="Application" name="Minecraft Client" type="Application">
-    <option name="MAIN_CLASS_NAME" value="net.minecraft.client.Main"/>
-    <module name="main.test"/>
-    <option name="PROGRAM_PARAMETERS" value=""/>
-    <option name="VM_PARAMETERS" value=""/>
-    <option name="WORKING_DIRECTORY" value="$PROJECT_DIR$/.run/"/>
+  <configuration default="false" name="Minecraft Client" type="Application" factoryName="Application">
+    <option name="MAIN_CLASS_NAME" value="net.minecraft.client.Main" />
+    <module name="main.test" />
+    <option name="PROGRAM_PARAMETERS" value="" />
+    <option name="VM_PARAMETERS" value="" />
+    <option name="WORKING_DIRECTORY" value="$PROJECT_DIR$/.run/" />
     <method v="2">
-      <option enabled="true" name="Make"/>
+      <option name="Make" enabled="true" />
     </method>
     <envs>
       %IDEA_ENV_VARS%
     </envs>
-    <shortenClasspath name="ARGS_FILE"/>
+    <shortenClasspath name="ARGS_FILE" />
   <classpathModifications><entry exclude="true" path="/path/to/file.jar"/></classpathModifications></configuration>
 </component>
-'''.trim()
+'''.stripLeading()
 
 	@Language("XML")
 	private static final String EXPECTED2 = '''
 <component name="ProjectRunConfigurationManager">
-  <configuration default="false" factoryName="Application" name="Minecraft Client" type="Application">
-    <option name="MAIN_CLASS_NAME" value="net.minecraft.client.Main"/>
-    <module name="main.test"/>
-    <option name="PROGRAM_PARAMETERS" value=""/>
-    <option name="VM_PARAMETERS" value=""/>
-    <option name="WORKING_DIRECTORY" value="$PROJECT_DIR$/.run/"/>
+  <configuration default="false" name="Minecraft Client" type="Application" factoryName="Application">
+    <option name="MAIN_CLASS_NAME" value="net.minecraft.client.Main" />
+    <module name="main.test" />
+    <option name="PROGRAM_PARAMETERS" value="" />
+    <option name="VM_PARAMETERS" value="" />
+    <option name="WORKING_DIRECTORY" value="$PROJECT_DIR$/.run/" />
     <method v="2">
-      <option enabled="true" name="Make"/>
+      <option name="Make" enabled="true" />
     </method>
     <envs>
       %IDEA_ENV_VARS%
     </envs>
-    <shortenClasspath name="ARGS_FILE"/>
+    <shortenClasspath name="ARGS_FILE" />
   <classpathModifications><entry exclude="true" path="/path/to/file.jar"/><entry exclude="true" path="/path/to/another.jar"/></classpathModifications></configuration>
 </component>
-'''.trim()
+'''.stripLeading()
 }
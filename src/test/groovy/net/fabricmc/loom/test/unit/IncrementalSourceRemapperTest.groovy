@@ -0,0 +1,171 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.cadixdev.lorenz.MappingSet
+import org.cadixdev.mercury.Mercury
+import org.cadixdev.mercury.remapper.MercuryRemapper
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.IncrementalSourceRemapper
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class IncrementalSourceRemapperTest extends Specification {
+	private static final String A = """package test;
+
+public class A {
+	public lib.Old old;
+}
+"""
+	private static final String B = """package test;
+
+public class B {
+	public A a;
+}
+"""
+	private static final String C = """package test;
+
+public class C {
+}
+"""
+
+	@TempDir
+	Path tempDir
+
+	def "remaps everything on the first run"() {
+		given:
+		def source = createJar(["test/A.java": A, "test/B.java": B, "test/C.java": C, "assets/test.txt": "test"])
+		def destination = tempDir.resolve("output.jar")
+
+		when:
+		def remapped = remap(source, destination, "key")
+
+		then:
+		remapped == 3
+		def output = readJar(destination)
+		output.keySet() == ["test/A.java", "test/B.java", "test/C.java", "assets/test.txt"] as Set
+		output["test/A.java"].contains("lib.New old")
+		output["assets/test.txt"] == "test"
+	}
+
+	def "remaps everything when a source file changes"() {
+		given:
+		def destination = tempDir.resolve("output.jar")
+		remap(createJar(["test/A.java": A, "test/B.java": B, "test/C.java": C]), destination, "key")
+
+		when:
+		def changedA = A.replace("public lib.Old old;", "public lib.Old old;\n\tpublic lib.Old other;")
+		def remapped = remap(createJar(["test/A.java": changedA, "test/B.java": B, "test/C.java": C]), destination, "key")
+
+		then:
+		remapped == 3
+		readJar(destination)["test/A.java"].contains("lib.New other")
+	}
+
+	def "only remaps the files missing from the previous output"() {
+		given:
+		def source = createJar(["test/A.java": A, "test/B.java": B, "test/C.java": C])
+		def destination = tempDir.resolve("output.jar")
+		remap(source, destination, "key")
+		def previousOutput = readJar(destination)
+		createZip(destination, previousOutput.findAll { it.key != "test/A.java" })
+
+		when:
+		def remapped = remap(source, destination, "key")
+
+		then:
+		remapped == 1
+		readJar(destination) == previousOutput
+	}
+
+	def "reuses everything when nothing changed"() {
+		given:
+		def source = createJar(["test/A.java": A, "test/B.java": B, "test/C.java": C])
+		def destination = tempDir.resolve("output.jar")
+		remap(source, destination, "key")
+		def previousOutput = readJar(destination)
+
+		when:
+		def remapped = remap(source, destination, "key")
+
+		then:
+		remapped == 0
+		readJar(destination) == previousOutput
+	}
+
+	def "remaps everything when the cache key changes"() {
+		given:
+		def source = createJar(["test/A.java": A, "test/B.java": B, "test/C.java": C])
+		def destination = tempDir.resolve("output.jar")
+		remap(source, destination, "key")
+
+		when:
+		def remapped = remap(source, destination, "other")
+
+		then:
+		remapped == 3
+	}
+
+	private int remap(Path source, Path destination, String cacheKey) {
+		def libraryDir = tempDir.resolve("library")
+		Files.createDirectories(libraryDir.resolve("lib"))
+		libraryDir.resolve("lib/Old.java").text = "package lib;\n\npublic class Old {\n}\n"
+
+		def mappings = MappingSet.create()
+		mappings.getOrCreateClassMapping("lib/Old").deobfuscatedName = "lib/New"
+
+		def rewriter = { Path inputDir, Path sourceDir, Path outputDir ->
+			def mercury = new Mercury()
+			mercury.gracefulClasspathChecks = true
+			mercury.processors.add(MercuryRemapper.create(mappings))
+			mercury.sourcePath.add(libraryDir)
+
+			if (inputDir != sourceDir) {
+				mercury.sourcePath.add(sourceDir)
+			}
+
+			mercury.rewrite(inputDir, outputDir)
+			return true
+		} as IncrementalSourceRemapper.Rewriter
+
+		return IncrementalSourceRemapper.remap(source, destination, tempDir.resolve("index.json"), cacheKey, rewriter)
+	}
+
+	private Path createJar(Map<String, String> files) {
+		return createZip(tempDir.resolve("input.jar"), files)
+	}
+
+	private static Map<String, String> readJar(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().toList().findAll { !it.directory }.collectEntries { [it.name, new String(zip.getInputStream(it).bytes)] }
+		}
+	}
+}
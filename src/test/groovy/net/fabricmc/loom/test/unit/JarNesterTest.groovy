@@ -0,0 +1,120 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import com.google.gson.JsonObject
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.LoomGradlePlugin
+import net.fabricmc.loom.build.nesting.IncludedJarFactory
+import net.fabricmc.loom.build.nesting.JarNester
+import net.fabricmc.loom.util.ModPlatform
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class JarNesterTest extends Specification {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JarNesterTest)
+
+	@TempDir
+	Path tempDir
+
+	def "nests fabric jars"() {
+		given:
+		def modJar = createZip(tempDir.resolve("mod.jar"), [
+				"fabric.mod.json": '{"schemaVersion": 1, "id": "mod", "version": "1.0.0"}',
+				"Mod.class": "class",
+		])
+		def library = createZip(tempDir.resolve("library.jar"), ["fabric.mod.json": '{"schemaVersion": 1, "id": "library", "version": "1.0.0"}'])
+
+		when:
+		JarNester.nestJars([library.toFile()], [], modJar.toFile(), ModPlatform.FABRIC, LOGGER)
+
+		then:
+		new ZipFile(modJar.toFile()).withCloseable { zip ->
+			def json = LoomGradlePlugin.GSON.fromJson(new String(zip.getInputStream(zip.getEntry("fabric.mod.json")).bytes), JsonObject)
+			assert json.getAsJsonArray("jars")*.getAsJsonObject()*.get("file")*.asString == ["META-INF/jars/library.jar"]
+			assert new String(zip.getInputStream(zip.getEntry("Mod.class")).bytes) == "class"
+
+			def nested = zip.getEntry("META-INF/jars/library.jar")
+			assert nested.method == ZipEntry.STORED
+			assert zip.getInputStream(nested).bytes == Files.readAllBytes(library)
+			true
+		}
+	}
+
+	def "nests forge jars"() {
+		given:
+		def modJar = createZip(tempDir.resolve("mod.jar"), [
+				"META-INF/mods.toml": 'modLoader="javafml"',
+				"META-INF/jarjar/metadata.json": '{"jars": []}',
+		])
+		def library = createZip(tempDir.resolve("library.jar"), ["Library.class": "class"])
+		def nestedFile = new IncludedJarFactory.NestedFile(new IncludedJarFactory.Metadata("com.example", "library", "1.0.0", null), library.toFile())
+
+		when:
+		JarNester.nestJars([library.toFile()], [nestedFile], modJar.toFile(), ModPlatform.FORGE, LOGGER)
+
+		then:
+		new ZipFile(modJar.toFile()).withCloseable { zip ->
+			def json = LoomGradlePlugin.GSON.fromJson(new String(zip.getInputStream(zip.getEntry("META-INF/jarjar/metadata.json")).bytes), JsonObject)
+			def jar = json.getAsJsonArray("jars").get(0).asJsonObject
+			assert jar.get("path").asString == "META-INF/jars/library.jar"
+			assert jar.getAsJsonObject("identifier").get("artifact").asString == "library"
+			assert zip.getInputStream(zip.getEntry("META-INF/jars/library.jar")).bytes == Files.readAllBytes(library)
+			true
+		}
+	}
+
+	def "does not read nested jars into memory"() {
+		given:
+		def modJar = createZip(tempDir.resolve("mod.jar"), ["fabric.mod.json": '{"schemaVersion": 1, "id": "mod", "version": "1.0.0"}'])
+		def payload = new byte[32 * 1024 * 1024]
+		new Random(42).nextBytes(payload)
+		def library = createZip(tempDir.resolve("library.jar"), ["fabric.mod.json": '{"schemaVersion": 1, "id": "library", "version": "1.0.0"}', "payload.bin": payload])
+		def threadBean = ManagementFactory.threadMXBean as com.sun.management.ThreadMXBean
+		payload = null
+
+		when:
+		long before = threadBean.currentThreadAllocatedBytes
+		JarNester.nestJars([library.toFile()], [], modJar.toFile(), ModPlatform.FABRIC, LOGGER)
+		long allocated = threadBean.currentThreadAllocatedBytes - before
+
+		then:
+		// Well below the size of the nested jar, which used to be read as a whole
+		allocated < 8 * 1024 * 1024
+		new ZipFile(modJar.toFile()).withCloseable { zip ->
+			zip.getEntry("META-INF/jars/library.jar").size == Files.size(library)
+		}
+	}
+}
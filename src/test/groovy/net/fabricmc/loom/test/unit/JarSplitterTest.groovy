@@ -24,9 +24,22 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.util.jar.Attributes
+import java.util.jar.Manifest
+import java.util.stream.Stream
+import java.util.zip.ZipFile
+
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import net.fabricmc.loom.configuration.mods.JarSplitter
+import net.fabricmc.loom.task.AbstractRemapJarTask
+import net.fabricmc.loom.util.FileSystemUtil
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
 
 class JarSplitterTest extends Specification {
 	public static final String SPLIT_INPUT_JAR_URL = "https://maven.fabricmc.net/net/fabricmc/fabric-api/fabric-lifecycle-events-v1/2.1.0%2B33fbc738a9/fabric-lifecycle-events-v1-2.1.0%2B33fbc738a9.jar"
@@ -36,6 +49,9 @@ class JarSplitterTest extends Specification {
 
 	public static final File workingDir = new File("build/test/split")
 
+	@TempDir
+	Path tempDir
+
 	def "analyse: split"() {
 		given:
 		def inputJar = downloadJarIfNotExists(SPLIT_INPUT_JAR_URL, "split.jar")
@@ -87,6 +103,163 @@ class JarSplitterTest extends Specification {
 		clientOutputJar.exists()
 	}
 
+	def "analyse: local jars"() {
+		given:
+		def inputJar = createSplitJar(tempDir.resolve("input.jar"), entries, clientEntries)
+		when:
+		def target = new JarSplitter(inputJar).analyseTarget()
+		then:
+		target == expected
+		where:
+		entries                                      | clientEntries            | expected
+		["common/A.class", "client/B.class"]         | ["client/B.class"]       | JarSplitter.Target.SPLIT
+		["client/B.class", "META-INF/SIGNER.SF"]     | ["client/B.class"]       | JarSplitter.Target.CLIENT_ONLY
+		["common/A.class"]                           | []                       | JarSplitter.Target.COMMON_ONLY
+	}
+
+	def "split matches the previous splitter"() {
+		given:
+		def inputJar = createSplitJar(tempDir.resolve("input.jar"), [
+				"common/A.class",
+				"common/nested/deep/C.class",
+				"client/B.class",
+				"assets/mod/client.png",
+				"data/mod/common.json",
+				"META-INF/SIGNER.SF",
+				"META-INF/SIGNER.RSA",
+				"META-INF/mods.toml",
+		], ["client/B.class", "assets/mod/client.png"])
+		when:
+		new JarSplitter(inputJar).split(tempDir.resolve("common.jar"), tempDir.resolve("client.jar"))
+		legacySplit(inputJar, tempDir.resolve("legacy-common.jar"), tempDir.resolve("legacy-client.jar"))
+		then:
+		def common = readEntries(tempDir.resolve("common.jar"))
+		def client = readEntries(tempDir.resolve("client.jar"))
+		common.keySet() == readEntries(tempDir.resolve("legacy-common.jar")).keySet()
+		client.keySet() == readEntries(tempDir.resolve("legacy-client.jar")).keySet()
+		readEntries(tempDir.resolve("legacy-common.jar")).every { name, bytes -> Arrays.equals(common[name], bytes) }
+		readEntries(tempDir.resolve("legacy-client.jar")).every { name, bytes -> Arrays.equals(client[name], bytes) }
+
+		client.keySet() == ["META-INF/MANIFEST.MF", "client/B.class", "assets/mod/client.png"] as Set
+		new Manifest(new ByteArrayInputStream(common["META-INF/MANIFEST.MF"])).mainAttributes.getValue(JarSplitter.MANIFEST_SPLIT_ENV_NAME_KEY) == "common"
+		new Manifest(new ByteArrayInputStream(common["META-INF/MANIFEST.MF"])).entries.isEmpty()
+		// The manifest comes first so that JarInputStream can read it
+		new ZipFile(tempDir.resolve("client.jar").toFile()).withCloseable { it.entries().nextElement().name } == "META-INF/MANIFEST.MF"
+	}
+
+	def "split is skipped for the same input"() {
+		given:
+		def inputJar = createSplitJar(tempDir.resolve("input.jar"), ["common/A.class", "client/B.class"], ["client/B.class"])
+		def commonJar = tempDir.resolve("common.jar")
+		def clientJar = tempDir.resolve("client.jar")
+		def splitter = new JarSplitter(inputJar)
+		when:
+		def first = splitter.split(commonJar, clientJar)
+		def commonModified = Files.getLastModifiedTime(commonJar)
+		def second = splitter.split(commonJar, clientJar)
+		then:
+		first
+		!second
+		Files.getLastModifiedTime(commonJar) == commonModified
+	}
+
+	def "split runs again when the input or outputs change"() {
+		given:
+		def inputJar = createSplitJar(tempDir.resolve("input.jar"), ["common/A.class", "client/B.class"], ["client/B.class"])
+		def commonJar = tempDir.resolve("common.jar")
+		def clientJar = tempDir.resolve("client.jar")
+		new JarSplitter(inputJar).split(commonJar, clientJar)
+		when:
+		Files.delete(clientJar)
+		def afterDelete = new JarSplitter(inputJar).split(commonJar, clientJar)
+
+		def changedJar = createSplitJar(tempDir.resolve("changed.jar"), ["common/A.class", "common/D.class", "client/B.class"], ["client/B.class"])
+		Files.move(changedJar, inputJar, StandardCopyOption.REPLACE_EXISTING)
+		def afterChange = new JarSplitter(inputJar).split(commonJar, clientJar)
+		then:
+		afterDelete
+		Files.exists(clientJar)
+		afterChange
+		readEntries(commonJar).containsKey("common/D.class")
+	}
+
+	private static Path createSplitJar(Path path, List<String> entries, List<String> clientEntries) {
+		def manifest = new Manifest()
+		manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+		manifest.mainAttributes.putValue(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_KEY, "true")
+		manifest.mainAttributes.putValue(AbstractRemapJarTask.MANIFEST_CLIENT_ENTRIES_KEY, clientEntries.join(";"))
+		manifest.mainAttributes.put(Attributes.Name.SIGNATURE_VERSION, "1.0")
+		manifest.entries.put("common/A.class", new Attributes().tap { putValue("SHA-256-Digest", "abc") })
+		def manifestBytes = new ByteArrayOutputStream().tap { manifest.write(it) }.toByteArray()
+
+		def files = [new Pair<>(AbstractRemapJarTask.MANIFEST_PATH, manifestBytes)]
+		files.addAll(entries.collect { new Pair<>(it, ("content of " + it).bytes) })
+		ZipUtils.add(path, files)
+		return path
+	}
+
+	private static Map<String, byte[]> readEntries(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().toList()
+					.findAll { !it.directory }
+					.collectEntries { [it.name, zip.getInputStream(it).withCloseable { input -> input.readAllBytes() }] }
+		}
+	}
+
+	// The splitter as it was before it was rewritten to copy raw entries: a zip file system walk
+	private static void legacySplit(Path inputJar, Path commonOutputJar, Path clientOutputJar) {
+		FileSystemUtil.getJarFileSystem(inputJar).withCloseable { input ->
+			def manifest = input.fromInputStream({ new Manifest(it) }, AbstractRemapJarTask.MANIFEST_PATH)
+			def clientEntries = manifest.mainAttributes.getValue(AbstractRemapJarTask.MANIFEST_CLIENT_ENTRIES_KEY).split(";") as List
+
+			FileSystemUtil.getJarFileSystem(commonOutputJar, true).withCloseable { commonOutput ->
+				FileSystemUtil.getJarFileSystem(clientOutputJar, true).withCloseable { clientOutput ->
+					Stream<Path> walk = Files.walk(input.get().getPath("/"))
+
+					walk.withCloseable {
+						walk.filter { Files.isRegularFile(it) }.each { entry ->
+							def relativePath = input.get().getPath("/").relativize(entry)
+							def fileName = relativePath.fileName.toString()
+
+							if (relativePath.startsWith("META-INF") && (fileName.endsWith(".SF") || fileName.endsWith(".DSA") || fileName.endsWith(".RSA") || fileName.startsWith("SIG-"))) {
+								return
+							}
+
+							def entryPath = relativePath.toString()
+
+							if (entryPath == AbstractRemapJarTask.MANIFEST_PATH) {
+								return
+							}
+
+							def outputEntry = (clientEntries.contains(entryPath) ? clientOutput : commonOutput).getPath(entryPath)
+
+							if (outputEntry.parent != null) {
+								Files.createDirectories(outputEntry.parent)
+							}
+
+							Files.copy(entry, outputEntry, StandardCopyOption.COPY_ATTRIBUTES)
+						}
+					}
+
+					def outManifest = new Manifest(manifest)
+					outManifest.entries.values().each { attrs -> attrs.keySet().removeIf { it.toString().endsWith("-Digest") || it.toString().contains("-Digest-") || it.toString() == "Magic" } }
+					outManifest.entries.values().removeIf { it.isEmpty() }
+					outManifest.mainAttributes.remove(Attributes.Name.SIGNATURE_VERSION)
+					outManifest.mainAttributes.remove(AbstractRemapJarTask.MANIFEST_SPLIT_ENV_NAME)
+					outManifest.mainAttributes.remove(AbstractRemapJarTask.MANIFEST_CLIENT_ENTRIES_NAME)
+
+					[(commonOutput): "common", (clientOutput): "client"].each { output, env ->
+						def envManifest = new Manifest(outManifest)
+						envManifest.mainAttributes.putValue(JarSplitter.MANIFEST_SPLIT_ENV_NAME_KEY, env)
+						def path = output.getPath(AbstractRemapJarTask.MANIFEST_PATH)
+						Files.createDirectories(path.parent)
+						Files.write(path, new ByteArrayOutputStream().tap { envManifest.write(it) }.toByteArray())
+					}
+				}
+			}
+		}
+	}
+
 	File downloadJarIfNotExists(String url, String name) {
 		File dst = new File(workingDir, name)
 
@@ -0,0 +1,89 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.providers.BundleMetadata
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger
+import net.fabricmc.loom.test.util.GradleTestUtil
+import net.fabricmc.stitch.merge.JarMerger
+
+class MinecraftJarMergerTest extends Specification {
+	public static final File mcJarDir = File.createTempDir()
+
+	def "merge matches stitch"() {
+		given:
+		def clientJar = downloadJarIfNotExists(MinecraftJarSplitterTest.CLIENT_JAR_URL, "client.jar")
+		def serverBundleJar = downloadJarIfNotExists(MinecraftJarSplitterTest.SERVER_BUNDLE_JAR_URL, "server_bundle.jar")
+		def serverJar = new File(mcJarDir, "server.jar")
+
+		def loomJar = new File(mcJarDir, "merged-loom.jar")
+		def stitchJar = new File(mcJarDir, "merged-stitch.jar")
+
+		when:
+		def serverBundleMetadata = BundleMetadata.fromJar(serverBundleJar.toPath())
+		serverBundleMetadata.versions().find().unpackEntry(serverBundleJar.toPath(), serverJar.toPath(), GradleTestUtil.mockProject())
+
+		new MinecraftJarMerger(clientJar.toPath(), serverJar.toPath(), loomJar.toPath()).withCloseable {
+			it.enableSyntheticParamsOffset()
+			it.merge()
+		}
+
+		new JarMerger(clientJar, serverJar, stitchJar).withCloseable {
+			it.enableSyntheticParamsOffset()
+			it.merge()
+		}
+
+		def loomEntries = readEntries(loomJar.toPath())
+		def stitchEntries = readEntries(stitchJar.toPath())
+
+		then:
+		loomEntries.keySet() == stitchEntries.keySet()
+		stitchEntries.every { name, bytes -> Arrays.equals(loomEntries[name], bytes) }
+	}
+
+	private static Map<String, byte[]> readEntries(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().toList()
+					.findAll { !it.directory }
+					.collectEntries { [it.name, zip.getInputStream(it).withCloseable { input -> input.readAllBytes() }] }
+		}
+	}
+
+	File downloadJarIfNotExists(String url, String name) {
+		File dst = new File(mcJarDir, name)
+
+		if (!dst.exists()) {
+			dst.parentFile.mkdirs()
+			dst << new URL(url).newInputStream()
+		}
+
+		return dst
+	}
+}
@@ -24,6 +24,8 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.util.zip.ZipFile
+
 import spock.lang.Specification
 
 import net.fabricmc.loom.configuration.providers.BundleMetadata
@@ -54,8 +56,21 @@ class MinecraftJarSplitterTest extends Specification {
 		new MinecraftJarSplitter(clientJar.toPath(), serverJar.toPath()).withCloseable {
 			it.split(clientOnlyJar.toPath(), commonJar.toPath())
 		}
+
+		def serverEntries = entryNames(serverJar)
+		def clientOnlyEntries = entryNames(clientOnlyJar)
+		def commonEntries = entryNames(commonJar)
 		then:
 		serverBundleMetadata.versions().size() == 1
+		clientOnlyEntries.intersect(commonEntries) == ["META-INF/MANIFEST.MF"] as Set
+		commonEntries.every { it == "META-INF/MANIFEST.MF" || serverEntries.contains(it) }
+		!clientOnlyEntries.any { it != "META-INF/MANIFEST.MF" && serverEntries.contains(it) }
+	}
+
+	Set<String> entryNames(File jar) {
+		new ZipFile(jar).withCloseable { zip ->
+			zip.entries().toList().findAll { !it.directory }*.name as Set
+		}
 	}
 
 	File downloadJarIfNotExists(String url, String name) {
@@ -0,0 +1,169 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.task.AbstractRunTask
+import net.fabricmc.loom.task.NativesExtractor
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class NativesExtractorTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "extract natives"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def lwjgl = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl", "META-INF/MANIFEST.MF": "Manifest-Version: 1.0"])
+		def glfw = createZip(tempDir.resolve("glfw.jar"), ["linux/x64/libglfw.so": "glfw"])
+
+		when:
+		def extracted = new NativesExtractor(natives).extract([lwjgl, glfw])
+
+		then:
+		extracted == 2
+		natives.resolve("liblwjgl.so").text == "lwjgl"
+		natives.resolve("linux/x64/libglfw.so").text == "glfw"
+		Files.notExists(natives.resolve("META-INF"))
+	}
+
+	def "warm extraction does not read the natives"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def jar = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl"])
+		new NativesExtractor(natives).extract([jar])
+		def extractedTime = Files.getLastModifiedTime(natives.resolve("liblwjgl.so"))
+
+		// Replace the jar with garbage of the same size and time, reading it would fail
+		def time = Files.getLastModifiedTime(jar)
+		jar.bytes = new byte[Files.size(jar)]
+		Files.setLastModifiedTime(jar, time)
+
+		when:
+		def extracted = new NativesExtractor(natives).extract([jar])
+
+		then:
+		extracted == 0
+		natives.resolve("liblwjgl.so").text == "lwjgl"
+		Files.getLastModifiedTime(natives.resolve("liblwjgl.so")) == extractedTime
+	}
+
+	def "only changed natives are extracted"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def lwjgl = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl", "liblwjgl_old.so": "old"])
+		def glfw = createZip(tempDir.resolve("glfw.jar"), ["libglfw.so": "glfw"])
+		new NativesExtractor(natives).extract([lwjgl, glfw])
+
+		when:
+		Files.delete(lwjgl)
+		createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl 2"])
+		def extracted = new NativesExtractor(natives).extract([lwjgl, glfw])
+
+		then:
+		extracted == 1
+		natives.resolve("liblwjgl.so").text == "lwjgl 2"
+		natives.resolve("libglfw.so").text == "glfw"
+		// Files no longer in the jar are removed
+		Files.notExists(natives.resolve("liblwjgl_old.so"))
+	}
+
+	def "touched natives are not extracted again"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def jar = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl"])
+		new NativesExtractor(natives).extract([jar])
+
+		when:
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10000))
+		def extracted = new NativesExtractor(natives).extract([jar])
+
+		then:
+		extracted == 0
+	}
+
+	def "removed natives are deleted"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def lwjgl = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl"])
+		def glfw = createZip(tempDir.resolve("glfw.jar"), ["libglfw.so": "glfw"])
+		new NativesExtractor(natives).extract([lwjgl, glfw])
+
+		when:
+		def extracted = new NativesExtractor(natives).extract([lwjgl])
+
+		then:
+		extracted == 0
+		Files.exists(natives.resolve("liblwjgl.so"))
+		Files.notExists(natives.resolve("libglfw.so"))
+	}
+
+	def "missing files are extracted again"() {
+		setup:
+		def natives = tempDir.resolve("natives")
+		def jar = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl"])
+		new NativesExtractor(natives).extract([jar])
+
+		when:
+		Files.delete(natives.resolve("liblwjgl.so"))
+		def extracted = new NativesExtractor(natives).extract([jar])
+
+		then:
+		extracted == 1
+		natives.resolve("liblwjgl.so").text == "lwjgl"
+	}
+
+	def "unknown files are cleared on the first extraction"() {
+		setup:
+		def natives = Files.createDirectories(tempDir.resolve("natives"))
+		natives.resolve("stale.so").text = "stale"
+		def jar = createZip(tempDir.resolve("lwjgl.jar"), ["liblwjgl.so": "lwjgl"])
+
+		when:
+		new NativesExtractor(natives).extract([jar])
+
+		then:
+		Files.notExists(natives.resolve("stale.so"))
+		Files.exists(natives.resolve("liblwjgl.so"))
+	}
+
+	def "arg file is only written when the classpath changes"() {
+		setup:
+		def argsFile = tempDir.resolve("argfiles/runClient.args")
+
+		expect:
+		AbstractRunTask.writeArgFile(argsFile, "-classpath\na.jar")
+		!AbstractRunTask.writeArgFile(argsFile, "-classpath\na.jar")
+		AbstractRunTask.writeArgFile(argsFile, "-classpath\na.jar:b.jar")
+		argsFile.text == "-classpath\na.jar:b.jar"
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.build.nesting.IncludedJarFactory
+import net.fabricmc.loom.build.nesting.NestableJarCache
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+
+class NestableJarCacheTest extends Specification {
+	private static final IncludedJarFactory.Metadata METADATA = new IncludedJarFactory.Metadata("com.example", "library", "1.0.0", null)
+	private static final String MOD_JSON = '{"schemaVersion":1,"id":"com_example_library"}'
+
+	@TempDir
+	Path tempDir
+
+	def "wraps a jar with a mod json"() {
+		given:
+		def input = createJar("input/library-1.0.0.jar", "Hello")
+
+		when:
+		def output = NestableJarCache.getOrCreate(tempDir.resolve("cache"), input, METADATA, MOD_JSON)
+
+		then:
+		output.fileName.toString() == "library-1.0.0.jar"
+		new String(ZipUtils.unpack(output, "fabric.mod.json")) == MOD_JSON
+		new String(ZipUtils.unpack(output, "data.txt")) == "Hello"
+		// The input is left untouched
+		!ZipUtils.contains(input, "fabric.mod.json")
+	}
+
+	def "reuses a previously wrapped jar"() {
+		given:
+		def cache = tempDir.resolve("cache")
+		def input = createJar("input/library-1.0.0.jar", "Hello")
+		def output = NestableJarCache.getOrCreate(cache, input, METADATA, MOD_JSON)
+		def lastModified = Files.getLastModifiedTime(output)
+
+		when:
+		// Another project including the same jar, from another location
+		def copy = tempDir.resolve("other/library-1.0.0.jar")
+		Files.createDirectories(copy.parent)
+		Files.copy(input, copy)
+		def reused = NestableJarCache.getOrCreate(cache, copy, METADATA, MOD_JSON)
+
+		then:
+		reused == output
+		Files.getLastModifiedTime(reused) == lastModified
+	}
+
+	def "different inputs do not collide"() {
+		given:
+		def cache = tempDir.resolve("cache")
+		def input = createJar("a/library-1.0.0.jar", "Hello")
+		def otherInput = createJar("b/library-1.0.0.jar", "World")
+		def otherMetadata = new IncludedJarFactory.Metadata("com.example", "library", "1.0.0", "sources")
+
+		when:
+		def output = NestableJarCache.getOrCreate(cache, input, METADATA, MOD_JSON)
+		def otherContent = NestableJarCache.getOrCreate(cache, otherInput, METADATA, MOD_JSON)
+		def otherClassifier = NestableJarCache.getOrCreate(cache, input, otherMetadata, MOD_JSON)
+
+		then:
+		[output, otherContent, otherClassifier].toSet().size() == 3
+		new String(ZipUtils.unpack(output, "data.txt")) == "Hello"
+		new String(ZipUtils.unpack(otherContent, "data.txt")) == "World"
+	}
+
+	def "concurrent projects produce a single jar"() {
+		given:
+		def cache = tempDir.resolve("cache")
+		def projects = 8
+		def library = createJar("library-1.0.0.jar", "Hello")
+		def inputs = (0..<projects).collect {
+			def input = tempDir.resolve("project$it/libs/library-1.0.0.jar")
+			Files.createDirectories(input.parent)
+			Files.copy(library, input)
+		}
+		def executor = Executors.newFixedThreadPool(projects)
+		def start = new CountDownLatch(1)
+
+		when:
+		def futures = inputs.collect { input ->
+			executor.submit({
+				start.await()
+				NestableJarCache.getOrCreate(cache, input, METADATA, MOD_JSON)
+			} as Callable<Path>)
+		}
+		start.countDown()
+		def outputs = futures.collect { it.get(1, TimeUnit.MINUTES) }
+
+		then:
+		outputs.toSet().size() == 1
+		new String(ZipUtils.unpack(outputs[0], "fabric.mod.json")) == MOD_JSON
+		new String(ZipUtils.unpack(outputs[0], "data.txt")) == "Hello"
+		// No temporary files are left behind
+		Files.list(outputs[0].parent).withCloseable { it.toList() } == [outputs[0]]
+
+		cleanup:
+		executor.shutdownNow()
+	}
+
+	def "deletes jars that have not been used for a while"() {
+		given:
+		def cache = tempDir.resolve("cache")
+		def unused = NestableJarCache.getOrCreate(cache, createJar("a/library-1.0.0.jar", "Hello"), METADATA, MOD_JSON)
+		def used = NestableJarCache.getOrCreate(cache, createJar("b/library-1.0.0.jar", "World"), METADATA, MOD_JSON)
+		def longAgo = FileTime.from(Instant.now().minus(NestableJarCache.MAX_AGE).minus(Duration.ofDays(1)))
+		Files.setLastModifiedTime(unused.parent, longAgo)
+		Files.setLastModifiedTime(used.parent, longAgo)
+
+		when:
+		// Using a jar marks it as used again
+		NestableJarCache.getOrCreate(cache, tempDir.resolve("b/library-1.0.0.jar"), METADATA, MOD_JSON)
+		NestableJarCache.cleanup(cache, Instant.now().minus(NestableJarCache.MAX_AGE))
+
+		then:
+		Files.notExists(unused.parent)
+		Files.exists(used)
+	}
+
+	private Path createJar(String name, String content) {
+		def jar = tempDir.resolve(name)
+		Files.createDirectories(jar.parent)
+		ZipUtils.add(jar, [new Pair<>("data.txt", content.bytes)])
+		return jar
+	}
+}
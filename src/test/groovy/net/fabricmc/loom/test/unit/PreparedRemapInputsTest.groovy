@@ -0,0 +1,80 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.task.service.PreparedRemapInputs
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class PreparedRemapInputsTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "prepares jars that did not change"() {
+		given:
+		def cacheDir = tempDir.resolve("cache")
+		def input = createZip(tempDir.resolve("input.jar"), ["a/A.class": "A", "a/B.class": "B", "assets/icon.png": "icon"])
+
+		when:
+		def first = PreparedRemapInputs.getInput(cacheDir, input)
+		def second = PreparedRemapInputs.getInput(cacheDir, input)
+		def third = PreparedRemapInputs.getInput(cacheDir, input)
+
+		then:
+		first == input
+		second != input
+		third == second
+		new ZipFile(second.toFile()).withCloseable { zip ->
+			assert zip.entries().toList()*.name == ["a/A.class", "a/B.class"]
+			assert zip.entries().toList().every { it.method == ZipEntry.STORED }
+			assert new String(zip.getInputStream(zip.getEntry("a/B.class")).bytes) == "B"
+			true
+		}
+	}
+
+	def "jars that changed are read directly"() {
+		given:
+		def cacheDir = tempDir.resolve("cache")
+		def input = createZip(tempDir.resolve("input.jar"), ["a/A.class": "A"])
+		PreparedRemapInputs.getInput(cacheDir, input)
+		def prepared = PreparedRemapInputs.getInput(cacheDir, input)
+
+		when:
+		createZip(tempDir.resolve("input.jar"), ["a/A.class": "Changed"])
+		def changed = PreparedRemapInputs.getInput(cacheDir, input)
+
+		then:
+		changed == input
+		Files.notExists(prepared)
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.RawZipFile
+import net.fabricmc.loom.util.RawZipWriter
+
+class RawZipTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "copy raw entries"() {
+		given:
+		def input = tempDir.resolve("input.zip")
+		def output = tempDir.resolve("output.zip")
+		def data = new byte[100_000]
+		new Random(42).nextBytes(data)
+
+		new ZipOutputStream(Files.newOutputStream(input)).withCloseable { out ->
+			out.putNextEntry(new ZipEntry("dir/"))
+			out.closeEntry()
+			// Written with a data descriptor, as the sizes are not known up front
+			out.putNextEntry(new ZipEntry("dir/random.bin"))
+			out.write(data)
+			out.closeEntry()
+			out.putNextEntry(new ZipEntry("text.txt"))
+			out.write("Hello World".bytes)
+			out.closeEntry()
+		}
+
+		when:
+		RawZipFile.open(input).withCloseable { zip ->
+			new RawZipWriter(output).withCloseable { writer ->
+				writer.write("new.txt", "New entry".bytes, System.currentTimeMillis())
+
+				for (def entry : zip.entries()) {
+					if (!entry.directory) {
+						writer.copy(zip, entry)
+					}
+				}
+			}
+		}
+
+		then:
+		new ZipFile(output.toFile()).withCloseable { zip ->
+			assert zip.entries().toList()*.name == ["new.txt", "dir/random.bin", "text.txt"]
+			assert zip.getInputStream(zip.getEntry("new.txt")).bytes == "New entry".bytes
+			assert zip.getInputStream(zip.getEntry("dir/random.bin")).bytes == data
+			assert zip.getInputStream(zip.getEntry("text.txt")).bytes == "Hello World".bytes
+			true
+		}
+		RawZipFile.open(output).withCloseable { zip ->
+			zip.fileNames == ["new.txt", "dir/random.bin", "text.txt"] && zip.readBytes(zip.getEntry("dir/random.bin")) == data
+		}
+	}
+
+	def "duplicate entries are rejected"() {
+		given:
+		def output = tempDir.resolve("duplicate.zip")
+
+		when:
+		new RawZipWriter(output).withCloseable { writer ->
+			writer.write("a.txt", "a".bytes, 0)
+			writer.write("a.txt", "b".bytes, 0)
+		}
+
+		then:
+		thrown ZipException
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.ide.idea.RunConfigFingerprints
+
+import static net.fabricmc.loom.configuration.ide.idea.RunConfigFingerprints.Result.GENERATED
+import static net.fabricmc.loom.configuration.ide.idea.RunConfigFingerprints.Result.PATCHED
+import static net.fabricmc.loom.configuration.ide.idea.RunConfigFingerprints.Result.UP_TO_DATE
+
+class RunConfigFingerprintsTest extends Specification {
+	private static final String CLIENT = '<component><configuration name="Minecraft Client"></configuration></component>'
+	private static final String CLIENT_RENAMED = '<component><configuration name="Client"></configuration></component>'
+
+	@TempDir
+	Path tempDir
+
+	def "fingerprints are stable"() {
+		expect:
+		RunConfigFingerprints.fingerprint(CLIENT, ["/a.jar", "/b.jar"]) == RunConfigFingerprints.fingerprint(CLIENT, ["/a.jar", "/b.jar"])
+		RunConfigFingerprints.fingerprint(CLIENT, null) == RunConfigFingerprints.fingerprint(CLIENT, null)
+
+		RunConfigFingerprints.fingerprint(CLIENT, ["/a.jar", "/b.jar"]) != RunConfigFingerprints.fingerprint(CLIENT, ["/b.jar", "/a.jar"])
+		RunConfigFingerprints.fingerprint(CLIENT, ["/a.jar/b.jar"]) != RunConfigFingerprints.fingerprint(CLIENT, ["/a.jar", "/b.jar"])
+		RunConfigFingerprints.fingerprint(CLIENT, []) != RunConfigFingerprints.fingerprint(CLIENT, null)
+		RunConfigFingerprints.fingerprint(CLIENT, null) != RunConfigFingerprints.fingerprint(CLIENT_RENAMED, null)
+	}
+
+	def "skips unchanged run configurations"() {
+		given:
+		def index = tempDir.resolve("index.json")
+		def runConfig = tempDir.resolve("runConfigurations/Minecraft_Client.xml")
+		def fingerprints = RunConfigFingerprints.read(index)
+
+		when:
+		def first = fingerprints.sync(runConfig, CLIENT, ["/a.jar"])
+		fingerprints.write()
+		def second = RunConfigFingerprints.read(index).sync(runConfig, CLIENT, ["/a.jar"])
+
+		then:
+		first == GENERATED
+		second == UP_TO_DATE
+		Files.readString(runConfig).contains('<entry exclude="true" path="/a.jar"/>')
+	}
+
+	def "regenerates changed run configurations"() {
+		given:
+		def runConfig = tempDir.resolve("Minecraft_Client.xml")
+		def fingerprints = RunConfigFingerprints.read(tempDir.resolve("index.json"))
+		fingerprints.sync(runConfig, CLIENT, null)
+
+		when:
+		def renamed = fingerprints.sync(runConfig, CLIENT_RENAMED, null)
+		def excluded = fingerprints.sync(runConfig, CLIENT_RENAMED, ["/a.jar"])
+
+		then:
+		renamed == GENERATED
+		excluded == GENERATED
+		Files.readString(runConfig) == '<component><configuration name="Client"><classpathModifications><entry exclude="true" path="/a.jar"/></classpathModifications></configuration></component>'
+	}
+
+	def "keeps edited run configurations"() {
+		given:
+		def runConfig = tempDir.resolve("Minecraft_Client.xml")
+		def fingerprints = RunConfigFingerprints.read(tempDir.resolve("index.json"))
+		fingerprints.sync(runConfig, CLIENT, ["/a.jar"])
+
+		// Edited from the IDE
+		Files.writeString(runConfig, '<component><configuration name="Edited"></configuration></component>')
+		Files.setLastModifiedTime(runConfig, FileTime.fromMillis(Files.getLastModifiedTime(runConfig).toMillis() + 10_000))
+
+		when:
+		def result = fingerprints.sync(runConfig, CLIENT_RENAMED, ["/b.jar"])
+
+		then:
+		result == PATCHED
+		Files.readString(runConfig) == '<component><configuration name="Edited"><classpathModifications><entry exclude="true" path="/b.jar"/></classpathModifications></configuration></component>'
+	}
+}
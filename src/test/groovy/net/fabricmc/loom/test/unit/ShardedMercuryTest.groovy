@@ -0,0 +1,124 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import org.cadixdev.lorenz.MappingSet
+import org.cadixdev.mercury.Mercury
+import org.cadixdev.mercury.remapper.MercuryRemapper
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ShardedMercury
+
+class ShardedMercuryTest extends Specification {
+	private static final int PACKAGES = 6
+	private static final int CLASSES = 5
+
+	@TempDir
+	Path tempDir
+
+	def "packages are kept together"() {
+		setup:
+		def input = createSources(tempDir.resolve("input"))
+
+		when:
+		def shards = ShardedMercury.shard(input, 4)
+
+		then:
+		shards.size() == 4
+		shards.flatten().size() == PACKAGES * CLASSES
+		def shardsByPackage = [:].withDefault { [] as Set }
+		shards.eachWithIndex { shard, i -> shard.each { shardsByPackage[it.parent] << i } }
+		shardsByPackage.size() == PACKAGES
+		shardsByPackage.values().every { it.size() == 1 }
+	}
+
+	def "sharded output matches a single Mercury instance"() {
+		setup:
+		def input = createSources(tempDir.resolve("input"))
+		def mappings = createMappings()
+
+		when:
+		new ShardedMercury({ createMercury(mappings) }, 1).rewrite(input, tempDir.resolve("single"))
+		new ShardedMercury({ createMercury(mappings) }, 4).rewrite(input, tempDir.resolve("sharded"))
+
+		then:
+		def expected = readTree(tempDir.resolve("single"))
+		expected.size() == PACKAGES * CLASSES
+		readTree(tempDir.resolve("sharded")) == expected
+		// References across shards are remapped too
+		expected.any { name, source -> name.startsWith("test/p1/") && source.contains("test.p0.Renamed0") }
+	}
+
+	private static Path createSources(Path dir) {
+		for (int p = 0; p < PACKAGES; p++) {
+			def packageDir = Files.createDirectories(dir.resolve("test/p$p"))
+
+			for (int c = 0; c < CLASSES; c++) {
+				def other = "test.p${(p + PACKAGES - 1) % PACKAGES}.Class$c"
+				packageDir.resolve("Class${c}.java").text = """package test.p$p;
+
+public class Class$c {
+	public $other other;
+
+	public $other get() {
+		return other;
+	}
+}
+"""
+			}
+		}
+
+		return dir
+	}
+
+	private static MappingSet createMappings() {
+		def mappings = MappingSet.create()
+
+		for (int p = 0; p < PACKAGES; p++) {
+			mappings.getOrCreateClassMapping("test/p$p/Class0").deobfuscatedName = "test/p$p/Renamed0"
+		}
+
+		return mappings
+	}
+
+	private static Mercury createMercury(MappingSet mappings) {
+		def mercury = new Mercury()
+		mercury.gracefulClasspathChecks = true
+		mercury.processors.add(MercuryRemapper.create(mappings.copy()))
+		return mercury
+	}
+
+	private static Map<String, String> readTree(Path dir) {
+		Files.walk(dir).withCloseable { stream ->
+			stream.filter { Files.isRegularFile(it) }
+					.toList()
+					.collectEntries { [dir.relativize(it).toString().replace('\\', '/'), it.text] }
+		}
+	}
+}
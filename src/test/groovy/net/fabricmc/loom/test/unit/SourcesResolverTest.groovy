@@ -0,0 +1,157 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import groovy.json.JsonSlurper
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.mods.SourcesResolver
+
+class SourcesResolverTest extends Specification {
+	private static final int MODULE_COUNT = 200
+
+	@TempDir
+	Path tempDir
+
+	def "sources are resolved in one batch and indexed"() {
+		setup:
+		def repo = createRepository()
+		def indexFile = tempDir.resolve("sources-index.json")
+		def project = createProject("project", repo)
+		def components = resolveComponents(project)
+
+		when:
+		def sources = new SourcesResolver(project, indexFile, false).findSources(components)
+
+		then:
+		components.size() == MODULE_COUNT
+		sources.size() == MODULE_COUNT / 2
+		sources.every { id, path -> path.fileName.toString() == "${id.module}-${id.version}-sources.jar" }
+		sources.keySet().every { (it.module.substring(4) as int) % 2 == 0 }
+
+		when:
+		// No repositories, so the results can only come from the index
+		def offlineProject = createProject("offline", null)
+		def indexed = new SourcesResolver(offlineProject, indexFile, false).findSources(components)
+
+		then:
+		indexed == sources
+
+		when:
+		def refreshed = new SourcesResolver(offlineProject, indexFile, true).findSources(components)
+
+		then:
+		refreshed.isEmpty()
+	}
+
+	def "sources removed from the cache are resolved again"() {
+		setup:
+		def repo = createRepository()
+		def indexFile = tempDir.resolve("sources-index.json")
+		def project = createProject("project", repo)
+		def components = resolveComponents(project)
+		def sources = new SourcesResolver(project, indexFile, false).findSources(components)
+		def removed = sources.keySet().first()
+
+		when:
+		Files.delete(sources[removed])
+		def offlineProject = createProject("offline", null)
+		def indexed = new SourcesResolver(offlineProject, indexFile, false).findSources(components)
+
+		then:
+		indexed.size() == sources.size() - 1
+		!indexed.containsKey(removed)
+	}
+
+	def "missing sources are not indexed while offline"() {
+		setup:
+		def repo = createRepository()
+		def indexFile = tempDir.resolve("sources-index.json")
+		def project = createProject("project", repo)
+		def components = resolveComponents(project)
+		project.gradle.startParameter.offline = true
+
+		when:
+		def sources = new SourcesResolver(project, indexFile, false).findSources(components)
+		def index = new JsonSlurper().parse(indexFile.toFile()) as Map<String, String>
+
+		then:
+		sources.size() == MODULE_COUNT / 2
+		index.size() == sources.size()
+		!index.containsValue("")
+	}
+
+	private Path createRepository() {
+		def repo = tempDir.resolve("repo")
+
+		for (int i = 0; i < MODULE_COUNT; i++) {
+			def name = "mod-$i"
+			def dir = Files.createDirectories(repo.resolve("test/mods/$name/1.0.0"))
+			dir.resolve("$name-1.0.0.pom").text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+	<modelVersion>4.0.0</modelVersion>
+	<groupId>test.mods</groupId>
+	<artifactId>$name</artifactId>
+	<version>1.0.0</version>
+</project>
+"""
+			dir.resolve("$name-1.0.0.jar").text = "jar"
+
+			if (i % 2 == 0) {
+				dir.resolve("$name-1.0.0-sources.jar").text = "sources"
+			}
+		}
+
+		return repo
+	}
+
+	private createProject(String name, Path repo) {
+		def project = ProjectBuilder.builder()
+				.withName(name)
+				.withProjectDir(Files.createDirectories(tempDir.resolve(name)).toFile())
+				.build()
+
+		if (repo != null) {
+			project.repositories.maven { it.url = repo.toUri() }
+		}
+
+		return project
+	}
+
+	private static resolveComponents(project) {
+		def configuration = project.configurations.create("mods")
+
+		for (int i = 0; i < MODULE_COUNT; i++) {
+			project.dependencies.add("mods", "test.mods:mod-$i:1.0.0")
+		}
+
+		return configuration.resolvedConfiguration.resolvedArtifacts.collect { it.id.componentIdentifier }
+	}
+}
@@ -24,13 +24,23 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
 import org.spongepowered.asm.mixin.Mixin
 import org.spongepowered.asm.mixin.gen.Accessor
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import net.fabricmc.loom.task.ValidateMixinNameTask
 
 class ValidateMixinNameTest extends Specification {
+	private static final String WRONG_NAME_ERROR = "net/fabricmc/loom/test/unit/TestWrongName -> TestMixin"
+
+	@TempDir
+	Path tempDir
+
 	def "TestMixin"() {
 		when:
 		def mixin = getMixin(TestMixin.class)
@@ -68,6 +78,78 @@ class ValidateMixinNameTest extends Specification {
 		mixin == null
 	}
 
+	def "Incremental add"() {
+		setup:
+		def valid = writeClass("TestMixin.class", TestMixin.class)
+		def results = ValidateMixinNameTask.validate([:], [valid], [])
+
+		when:
+		def invalid = writeClass("TestWrongName.class", TestWrongName.class)
+		results = ValidateMixinNameTask.validate(results, [invalid], [])
+
+		then:
+		results.keySet() == [valid.absolutePath, invalid.absolutePath] as Set
+		ValidateMixinNameTask.getErrors(results) == [WRONG_NAME_ERROR]
+	}
+
+	def "Incremental modify"() {
+		setup:
+		def file = writeClass("TestMixin.class", TestMixin.class)
+		def unchanged = writeClass("TestAccessor.class", TestAccessor.class)
+		def results = ValidateMixinNameTask.validate([:], [file, unchanged], [])
+
+		when:
+		writeClass("TestMixin.class", TestWrongName.class)
+		results = ValidateMixinNameTask.validate(results, [file], [])
+
+		then:
+		results.size() == 2
+		ValidateMixinNameTask.getErrors(results) == [WRONG_NAME_ERROR]
+
+		when:
+		writeClass("TestMixin.class", TestMixin.class)
+		results = ValidateMixinNameTask.validate(results, [file], [])
+
+		then:
+		results.size() == 2
+		ValidateMixinNameTask.getErrors(results).isEmpty()
+	}
+
+	def "Incremental delete"() {
+		setup:
+		def valid = writeClass("TestMixin.class", TestMixin.class)
+		def invalid = writeClass("TestWrongName.class", TestWrongName.class)
+		def results = ValidateMixinNameTask.validate([:], [valid, invalid], [])
+
+		when:
+		Files.delete(invalid.toPath())
+		results = ValidateMixinNameTask.validate(results, [], [invalid.absolutePath])
+
+		then:
+		results.keySet() == [valid.absolutePath] as Set
+		ValidateMixinNameTask.getErrors(results).isEmpty()
+	}
+
+	def "Unchanged classes are not read again"() {
+		setup:
+		def file = writeClass("TestWrongName.class", TestWrongName.class)
+		def results = ValidateMixinNameTask.validate([:], [file], [])
+
+		when:
+		// The stored result is reused even though the class can no longer be read
+		Files.delete(file.toPath())
+		results = ValidateMixinNameTask.validate(results, [], [])
+
+		then:
+		ValidateMixinNameTask.getErrors(results) == [WRONG_NAME_ERROR]
+	}
+
+	File writeClass(String name, Class<?> clazz) {
+		def path = tempDir.resolve(name)
+		getInput(clazz).withCloseable { Files.copy(it, path, StandardCopyOption.REPLACE_EXISTING) }
+		return path.toFile()
+	}
+
 	static ValidateMixinNameTask.Mixin getMixin(Class<?> clazz) {
 		return getInput(clazz).withCloseable {
 			return ValidateMixinNameTask.getMixin(it)
@@ -93,6 +175,10 @@ interface TestAccessor {
 	Object getNothing();
 }
 
+@Mixin(Test.class)
+class TestWrongName {
+}
+
 @Mixin([Test.class, Test.Inner.class])
 class TestManyTargetsMixin {
 }
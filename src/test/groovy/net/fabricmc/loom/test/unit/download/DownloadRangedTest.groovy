@@ -0,0 +1,296 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.download
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import com.google.common.hash.Hashing
+import groovy.json.JsonSlurper
+import io.javalin.http.Context
+import io.javalin.http.HttpStatus
+
+import net.fabricmc.loom.util.download.Download
+import net.fabricmc.loom.util.download.DownloadException
+
+class DownloadRangedTest extends DownloadTest {
+	static final int CHUNK_SIZE = 4 * 1024 * 1024
+	static final String ETAG = '"ranged"'
+
+	def "Ranged: Parallel chunks"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 2 + 12345)
+		List<String> ranges = Collections.synchronizedList([])
+
+		server.get("/ranged/parallel") {
+			ranges.add(it.req.getHeader("Range"))
+			serveRange(it, data)
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/parallel")
+				.sha1(sha1(data))
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		ranges.size() == 3
+		ranges.every { it != null }
+		partialFiles(output).isEmpty()
+	}
+
+	def "Ranged: Server without range support"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 2)
+		int requestCount = 0
+
+		server.get("/ranged/unsupported") {
+			// Ignores the range header and always sends the whole file.
+			it.result(data)
+			requestCount++
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/unsupported")
+				.sha1(sha1(data))
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		requestCount == 1
+		partialFiles(output).isEmpty()
+	}
+
+	def "Ranged: Range not satisfiable"() {
+		setup:
+		List<String> ranges = Collections.synchronizedList([])
+
+		server.get("/ranged/empty") {
+			ranges.add(it.req.getHeader("Range"))
+
+			if (it.req.getHeader("Range") != null) {
+				it.status(416)
+				it.header("Content-Range", "bytes */0")
+			} else {
+				it.result(new byte[0])
+			}
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/empty")
+				.downloadPath(output)
+
+		then:
+		Files.size(output) == 0
+		ranges.size() == 2
+		ranges[1] == null
+		partialFiles(output).isEmpty()
+	}
+
+	def "Ranged: Disabled"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 2)
+		List<String> ranges = Collections.synchronizedList([])
+
+		server.get("/ranged/disabled") {
+			ranges.add(it.req.getHeader("Range"))
+			serveRange(it, data)
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/disabled")
+				.ranged(false)
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		ranges == [null]
+	}
+
+	def "Ranged: Dropped connection"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 3)
+		List<String> ranges = Collections.synchronizedList([])
+		boolean dropped = false
+
+		server.get("/ranged/dropped") {
+			def range = it.req.getHeader("Range")
+			ranges.add(range)
+
+			if (!dropped && range == "bytes=$CHUNK_SIZE-${CHUNK_SIZE * 2 - 1}".toString()) {
+				// Promise the whole chunk but only send half of it.
+				dropped = true
+				it.status(HttpStatus.PARTIAL_CONTENT)
+				it.header("ETag", ETAG)
+				it.header("Content-Range", "bytes $CHUNK_SIZE-${CHUNK_SIZE * 2 - 1}/${data.length}")
+				it.header("Content-Length", CHUNK_SIZE.toString())
+				it.result(Arrays.copyOfRange(data, CHUNK_SIZE, CHUNK_SIZE + (int) (CHUNK_SIZE / 2)))
+				return
+			}
+
+			serveRange(it, data)
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/dropped")
+				.sha1(sha1(data))
+				.downloadPath(output)
+
+		then:
+		dropped
+		Files.readAllBytes(output) == data
+		ranges.size() > 3
+		partialFiles(output).isEmpty()
+	}
+
+	def "Ranged: Resume after failed attempt"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 2)
+		boolean failing = true
+		List<String> ranges = Collections.synchronizedList([])
+
+		server.get("/ranged/resume") {
+			def range = it.req.getHeader("Range")
+			ranges.add(range)
+
+			if (failing && range.startsWith("bytes=$CHUNK_SIZE-")) {
+				// Drop the connection before any data is sent.
+				it.status(HttpStatus.PARTIAL_CONTENT)
+				it.header("ETag", ETAG)
+				it.header("Content-Range", "bytes $CHUNK_SIZE-${CHUNK_SIZE * 2 - 1}/${data.length}")
+				it.header("Content-Length", CHUNK_SIZE.toString())
+				it.result(new byte[0])
+				return
+			}
+
+			serveRange(it, data)
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/resume")
+				.maxRetries(1)
+				.downloadPath(output)
+
+		then:
+		thrown DownloadException
+		Files.notExists(output)
+		partialFiles(output).size() == 2
+		new JsonSlurper().parse(output.resolveSibling("file.jar.part.json").toFile()).completedChunks == [0]
+
+		when:
+		failing = false
+		ranges.clear()
+		Download.create("$PATH/ranged/resume")
+				.sha1(sha1(data))
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		partialFiles(output).isEmpty()
+		// The first chunk is always requested to check the file is unchanged, only the missing chunk is downloaded again.
+		ranges == [
+			"bytes=0-${CHUNK_SIZE - 1}".toString(),
+			"bytes=$CHUNK_SIZE-${CHUNK_SIZE * 2 - 1}".toString()
+		]
+	}
+
+	def "Ranged: Remote file changed"() {
+		setup:
+		byte[] data = randomBytes(CHUNK_SIZE * 2)
+		byte[] changedData = randomBytes(CHUNK_SIZE * 2)
+		int requestCount = 0
+
+		server.get("/ranged/changed") {
+			requestCount++
+
+			if (requestCount == 1) {
+				serveRange(it, data)
+			} else {
+				// The ETag no longer matches the If-Range header, so the whole new file is sent.
+				it.header("ETag", '"changed"')
+				it.result(changedData)
+			}
+		}
+
+		def output = new File(File.createTempDir(), "file.jar").toPath()
+
+		when:
+		Download.create("$PATH/ranged/changed")
+				.maxRetries(1)
+				.downloadPath(output)
+
+		then:
+		thrown DownloadException
+		partialFiles(output).isEmpty()
+	}
+
+	static void serveRange(Context ctx, byte[] data) {
+		ctx.header("ETag", ETAG)
+		def range = ctx.req.getHeader("Range")
+
+		if (range == null) {
+			ctx.result(data)
+			return
+		}
+
+		def matcher = range =~ /^bytes=(\d+)-(\d+)$/
+		assert matcher.matches()
+		int start = matcher.group(1) as int
+		int end = Math.min(matcher.group(2) as int, data.length - 1)
+
+		ctx.status(HttpStatus.PARTIAL_CONTENT)
+		ctx.header("Content-Range", "bytes $start-$end/${data.length}")
+		ctx.result(Arrays.copyOfRange(data, start, end + 1))
+	}
+
+	static byte[] randomBytes(int length) {
+		byte[] data = new byte[length]
+		new Random(length).nextBytes(data)
+		return data
+	}
+
+	static String sha1(byte[] data) {
+		return Hashing.sha1().hashBytes(data).toString()
+	}
+
+	static List<Path> partialFiles(Path output) {
+		return [
+			output.resolveSibling(output.fileName.toString() + ".part"),
+			output.resolveSibling(output.fileName.toString() + ".part.json")
+		].findAll { Files.exists(it) }
+	}
+}
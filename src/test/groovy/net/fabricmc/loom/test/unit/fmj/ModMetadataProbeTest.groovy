@@ -0,0 +1,104 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.fmj
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ModPlatform
+import net.fabricmc.loom.util.fmj.FabricModJsonFactory
+import net.fabricmc.loom.util.fmj.ModMetadataProbe
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class ModMetadataProbeTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "finds every metadata file"() {
+		given:
+		def jar = createZip(tempDir.resolve("mod.jar"), [
+				"fabric.mod.json": '{"schemaVersion": 1, "id": "test", "version": "1"}',
+				"quilt.mod.json": '{}',
+				"META-INF/mods.toml": 'modLoader="javafml"',
+				"Test.class": "",
+		])
+
+		when:
+		def result = ModMetadataProbe.probe(jar)
+
+		then:
+		result.contains("fabric.mod.json")
+		result.contains("quilt.mod.json")
+		result.contains("META-INF/mods.toml")
+		!result.contains("architectury.common.json")
+		!result.contains("Test.class")
+		new String(result.read("quilt.mod.json")) == "{}"
+		result.read("architectury.common.json") == null
+	}
+
+	def "classifies mod jars per platform"() {
+		given:
+		def jar = createZip(tempDir.resolve("mod.jar"), files)
+
+		expect:
+		FabricModJsonFactory.isModJar(jar, ModPlatform.FABRIC) == fabric
+		FabricModJsonFactory.isModJar(jar, ModPlatform.QUILT) == quilt
+		FabricModJsonFactory.isModJar(jar, ModPlatform.FORGE) == forge
+
+		where:
+		files                                   | fabric | quilt | forge
+		["fabric.mod.json": "{}"]               | true   | true  | false
+		["quilt.mod.json": "{}"]                | false  | true  | false
+		["META-INF/mods.toml": ""]              | false  | false | true
+		["architectury.common.json": "{}"]      | false  | false | false
+		["com/example/Library.class": ""]       | false  | false | false
+	}
+
+	def "remembers results until the jar changes"() {
+		given:
+		def jar = createZip(tempDir.resolve("mod.jar"), ["fabric.mod.json": "{}"])
+
+		when:
+		def first = ModMetadataProbe.probe(jar)
+
+		then:
+		ModMetadataProbe.probe(jar).is(first)
+
+		when:
+		createZip(tempDir.resolve("mod.jar"), ["quilt.mod.json": "{}"])
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000))
+		def second = ModMetadataProbe.probe(jar)
+
+		then:
+		!second.is(first)
+		!second.contains("fabric.mod.json")
+		second.contains("quilt.mod.json")
+	}
+}
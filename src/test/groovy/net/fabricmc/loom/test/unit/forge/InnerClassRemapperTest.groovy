@@ -0,0 +1,180 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import com.google.common.collect.HashBiMap
+import dev.architectury.tinyremapper.IMappingProvider
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.FileSystemUtil
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.srg.InnerClassRemapper
+import net.fabricmc.mappingio.format.Tiny2Reader
+import net.fabricmc.mappingio.tree.MappingTree
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class InnerClassRemapperTest extends Specification {
+	private static final String MAPPINGS = """\
+tiny\t2\t0\tofficial\tnamed
+c\ta\tpkg/Outer
+c\tb\tpkg/Other
+c\tb\$c\tpkg/Other\$Mapped
+c\tx\tpkg/Other\$d
+"""
+
+	@TempDir
+	Path tempDir
+
+	def "read class names"() {
+		given:
+		def jar = createJar()
+
+		when:
+		def classNames = InnerClassRemapper.readClassNames(jar)
+
+		then:
+		classNames == legacyReadClassNames(jar)
+		classNames == ["a\$1", "a\$Inner", "b\$c", "b\$d", "z\$1", "pkg/y\$z"] as Set
+	}
+
+	def "matches the previous implementation"() {
+		given:
+		def jar = createJar()
+		def mappings = new MemoryMappingTree()
+		Tiny2Reader.read(new StringReader(MAPPINGS), mappings)
+		def classNames = InnerClassRemapper.readClassNames(jar)
+
+		when:
+		def remapped = [:]
+		InnerClassRemapper.of(classNames, mappings, "official", "named").load(collector(remapped))
+
+		def expected = [:]
+		legacyRemapInnerClass(classNames, mappings, "official", "named") { from, to -> expected[from] = to }
+
+		then:
+		remapped == expected
+		remapped == [
+				"a\$1": "pkg/Outer\$1",
+				"a\$Inner": "pkg/Outer\$Inner",
+				"b\$d": "pkg/Other\$d_UNBREAK",
+		]
+	}
+
+	def "uses the current names of a mutated tree"() {
+		given:
+		def jar = createJar()
+		def mappings = new MemoryMappingTree()
+		Tiny2Reader.read(new StringReader(MAPPINGS), mappings)
+		def classNames = InnerClassRemapper.readClassNames(jar)
+		InnerClassRemapper.of(classNames, mappings, "official", "named").load(collector([:]))
+
+		when:
+		mappings.getClass("a").setDstName("pkg/Renamed", mappings.getNamespaceId("named"))
+		def remapped = [:]
+		InnerClassRemapper.of(classNames, mappings, "official", "named").load(collector(remapped))
+
+		then:
+		remapped["a\$Inner"] == "pkg/Renamed\$Inner"
+	}
+
+	def "fails on duplicate target names"() {
+		given:
+		def mappings = new MemoryMappingTree()
+		Tiny2Reader.read(new StringReader(MAPPINGS + "c\te\tpkg/Outer\n"), mappings)
+
+		when:
+		// a and e both map to pkg/Outer
+		InnerClassRemapper.of(["a\$1", "e\$1"] as Set, mappings, "official", "named").load(collector([:]))
+
+		then:
+		thrown(IllegalArgumentException)
+	}
+
+	def "only looks up the outer classes of the jar"() {
+		given:
+		def mappings = new MemoryMappingTree()
+		// e is not an outer class of the jar, so its duplicate target name doesn't matter
+		Tiny2Reader.read(new StringReader(MAPPINGS + "c\te\tpkg/Outer\n"), mappings)
+
+		when:
+		def remapped = [:]
+		InnerClassRemapper.of(["a\$1"] as Set, mappings, "official", "named").load(collector(remapped))
+
+		then:
+		remapped == ["a\$1": "pkg/Outer\$1"]
+	}
+
+	private static IMappingProvider.MappingAcceptor collector(Map<String, String> classes) {
+		return [acceptClass: { String from, String to -> classes[from] = to }] as IMappingProvider.MappingAcceptor
+	}
+
+	private Path createJar() {
+		def jar = tempDir.resolve("input.jar")
+		def entries = ["a", "a\$1", "a\$Inner", "b", "b\$c", "b\$d", "z\$1", "pkg/y\$z"].collect { new Pair<>(it + ".class", new byte[0]) }
+		entries.add(new Pair<>("assets/not\$class.txt", new byte[0]))
+		ZipUtils.add(jar, entries)
+		return jar
+	}
+
+	// The implementation before the class name index.
+	private static Set<String> legacyReadClassNames(Path jar) {
+		Set<String> set = new HashSet<>()
+
+		FileSystemUtil.getJarFileSystem(jar, false).withCloseable { fs ->
+			Files.walk(fs.getPath("/")).each { path ->
+				String name = path.toString()
+				if (name.startsWith("/")) name = name.substring(1)
+
+				if (!Files.isDirectory(path) && name.contains("\$") && name.endsWith(".class")) {
+					set.add(name.substring(0, name.length() - 6))
+				}
+			}
+		}
+
+		return set
+	}
+
+	private static void legacyRemapInnerClass(Set<String> classNames, MappingTree mappings, String from, String to, Closure action) {
+		def availableClasses = HashBiMap.create(mappings.classes.collectEntries { [it.getName(from), it.getName(to)] })
+
+		for (String className : classNames) {
+			if (!availableClasses.containsKey(className)) {
+				String parentName = className.substring(0, className.indexOf('$'))
+				String childName = className.substring(className.indexOf('$') + 1)
+				String remappedParentName = availableClasses.getOrDefault(parentName, parentName)
+				String remappedName = remappedParentName + "\$" + childName
+
+				if (className != remappedName) {
+					action(className, availableClasses.containsValue(remappedName) ? remappedName + "_UNBREAK" : remappedName)
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.regex.Pattern
+import java.util.zip.ZipFile
+
+import de.oceanlabs.mcp.mcinjector.adaptors.ParameterAnnotationFixer
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.forge.PatchedJarFixer
+import net.fabricmc.loom.util.FileSystemUtil
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+
+class PatchedJarFixerTest extends Specification {
+	private static final List<String> CLASSPATH_CLASSES = [
+			"org/objectweb/asm/ClassReader.class",
+			"org/objectweb/asm/ClassWriter.class",
+			"org/objectweb/asm/tree/ClassNode.class",
+			"com/google/common/collect/ImmutableList.class",
+			"com/google/common/collect/ImmutableList\$Builder.class",
+	]
+
+	@TempDir
+	Path tempDir
+
+	def "single pass matches multi pass output"() {
+		setup:
+		def clean = tempDir.resolve("clean.jar")
+		def patched = tempDir.resolve("patched.jar")
+		def output = tempDir.resolve("output.jar")
+		def expected = tempDir.resolve("expected.jar")
+		createJars(clean, patched)
+
+		when:
+		PatchedJarFixer.fix(clean, patched, output, fixParameterAnnotations)
+		Files.copy(patched, expected)
+		legacyFix(clean, expected, fixParameterAnnotations)
+
+		then:
+		def actualEntries = readEntries(output)
+		actualEntries.keySet() == readEntries(expected).keySet()
+		readEntries(expected).every { name, bytes -> Arrays.equals(actualEntries[name], bytes) }
+
+		// The class missing from the patched jar is restored
+		actualEntries.containsKey("org/objectweb/asm/ClassWriter.class")
+		// Non-class files pass through untouched
+		new String(actualEntries["assets/test.txt"]) == "Hello World"
+		// Vignette names are gone, others are kept
+		localNames(actualEntries["test/Vignette.class"]) == ["this", "keep"]
+
+		where:
+		fixParameterAnnotations << [false, true]
+	}
+
+	private static void createJars(Path clean, Path patched) {
+		def cleanEntries = CLASSPATH_CLASSES.collectEntries { [it, readResource(it)] }
+		cleanEntries["test/Vignette.class"] = createVignetteClass()
+		ZipUtils.add(clean, cleanEntries.collect { new Pair<>(it.key, it.value) })
+
+		def patchedEntries = new LinkedHashMap<>(cleanEntries)
+		patchedEntries.remove("org/objectweb/asm/ClassWriter.class")
+		patchedEntries["assets/test.txt"] = "Hello World".bytes
+		ZipUtils.add(patched, patchedEntries.collect { new Pair<>(it.key, it.value) })
+	}
+
+	private static byte[] readResource(String name) {
+		PatchedJarFixerTest.classLoader.getResourceAsStream(name).withCloseable { it.readAllBytes() }
+	}
+
+	private static byte[] createVignetteClass() {
+		def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "test/Vignette", null, "java/lang/Object", null)
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "add", "(II)I", null, null)
+		method.visitParameter("p_12345_1_", 0)
+		method.visitParameter("keep", 0)
+		method.visitCode()
+		def start = new Label()
+		def end = new Label()
+		method.visitLabel(start)
+		method.visitVarInsn(Opcodes.ILOAD, 1)
+		method.visitVarInsn(Opcodes.ILOAD, 2)
+		method.visitInsn(Opcodes.IADD)
+		method.visitInsn(Opcodes.IRETURN)
+		method.visitLabel(end)
+		method.visitLocalVariable("this", "Ltest/Vignette;", null, start, end, 0)
+		method.visitLocalVariable("p_12345_1_", "I", null, start, end, 1)
+		method.visitLocalVariable("keep", "I", null, start, end, 2)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static Map<String, byte[]> readEntries(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().toList()
+					.findAll { !it.directory }
+					.collectEntries { [it.name, zip.getInputStream(it).withCloseable { input -> input.readAllBytes() }] }
+		}
+	}
+
+	private static List<String> localNames(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node.methods.find { it.name == "add" }.localVariables*.name
+	}
+
+	// The post-patch fixups as they were applied before they were fused: one file system pass per step.
+	private static void legacyFix(Path clean, Path target, boolean fixParameterAnnotations) {
+		FileSystemUtil.getJarFileSystem(clean, false).withCloseable { cleanFs ->
+			FileSystemUtil.getJarFileSystem(target, false).withCloseable { targetFs ->
+				Files.walk(cleanFs.getPath("/")).filter { it.toString().endsWith(".class") }.each {
+					def targetPath = targetFs.getPath(it.toString())
+
+					if (Files.notExists(targetPath)) {
+						Files.createDirectories(targetPath.parent)
+						Files.copy(it, targetPath)
+					}
+				}
+			}
+		}
+
+		legacyTransformClasses(target) { byte[] bytes ->
+			def pattern = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?")
+			def writer = new ClassWriter(0)
+			new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9, writer) {
+				@Override
+				MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+					return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+						@Override
+						void visitParameter(String parameterName, int parameterAccess) {
+							super.visitParameter(pattern.matcher(parameterName).matches() ? null : parameterName, parameterAccess)
+						}
+
+						@Override
+						void visitLocalVariable(String localName, String localDescriptor, String localSignature, Label start, Label end, int index) {
+							if (!pattern.matcher(localName).matches()) {
+								super.visitLocalVariable(localName, localDescriptor, localSignature, start, end, index)
+							}
+						}
+					}
+				}
+			}, 0)
+			return writer.toByteArray()
+		}
+
+		if (fixParameterAnnotations) {
+			legacyTransformClasses(target) { byte[] bytes ->
+				def node = new ClassNode()
+				new ClassReader(bytes).accept(new ParameterAnnotationFixer(node, null), 0)
+				def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+				node.accept(writer)
+				return writer.toByteArray()
+			}
+		}
+	}
+
+	private static void legacyTransformClasses(Path jar, Closure<byte[]> transformer) {
+		FileSystemUtil.getJarFileSystem(jar, false).withCloseable { fs ->
+			Files.walk(fs.getPath("/")).filter { it.toString().endsWith(".class") }.toList().each {
+				byte[] bytes = Files.readAllBytes(it)
+				byte[] out = transformer(bytes)
+
+				if (!Arrays.equals(bytes, out)) {
+					Files.delete(it)
+					Files.write(it, out)
+				}
+			}
+		}
+	}
+}
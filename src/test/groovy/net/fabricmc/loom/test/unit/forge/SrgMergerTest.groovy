@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.test.unit.forge
 
+import java.lang.management.ManagementFactory
 import java.nio.file.Files
 import java.nio.file.Path
 
@@ -31,8 +32,11 @@ import spock.lang.Specification
 import spock.lang.TempDir
 
 import net.fabricmc.loom.util.srg.SrgMerger
+import net.fabricmc.mappingio.MappingReader
 import net.fabricmc.mappingio.MappingUtil
 import net.fabricmc.mappingio.format.MappingFormat
+import net.fabricmc.mappingio.tree.MappingTree
+import net.fabricmc.mappingio.tree.MemoryMappingTree
 
 class SrgMergerTest extends Specification {
 	@TempDir
@@ -64,6 +68,44 @@ class SrgMergerTest extends Specification {
 		Files.readAllLines(output) == expected
 	}
 
+	def "merged mappings share name and descriptor instances"() {
+		setup:
+		def srg = writeRealisticTsrg(mappingsDir.resolve("joined.tsrg"))
+		def tiny = writeRealisticTiny(mappingsDir.resolve("mappings.tiny"))
+
+		when:
+		def tree = SrgMerger.mergeSrg(srg, tiny, null, false)
+		def strings = collectStrings(tree)
+
+		then:
+		tree.classes.size() == REALISTIC_CLASS_COUNT
+		// Every equal name or descriptor is the same instance
+		Collections.newSetFromMap(new IdentityHashMap<String, Boolean>()).tap { addAll(strings) }.size() == new HashSet<>(strings).size()
+	}
+
+	def "merged mappings retain less heap than a plain tree"() {
+		setup:
+		def srg = writeRealisticTsrg(mappingsDir.resolve("joined.tsrg"))
+		def tiny = writeRealisticTiny(mappingsDir.resolve("mappings.tiny"))
+		def output = mappingsDir.resolve("output.tiny")
+		SrgMerger.mergeSrg(srg, tiny, output, null, false)
+
+		when:
+		long before = usedHeapAfterGc()
+		def merged = SrgMerger.mergeSrg(srg, tiny, null, false)
+		long mergedRetained = usedHeapAfterGc() - before
+
+		// The same mappings read without sharing any strings, as the merger used to produce them
+		def plain = new MemoryMappingTree()
+		before = usedHeapAfterGc()
+		MappingReader.read(output, plain)
+		long plainRetained = usedHeapAfterGc() - before
+
+		then:
+		merged.classes.size() == plain.classes.size()
+		mergedRetained < plainRetained
+	}
+
 	private def merge(SrgMerger.ExtraMappings extraMappings, Path output) {
 		def srgInput = extractTempFile("srgInput.tsrg")
 		def tinyInput = extractTempFile("tinyInput.tiny")
@@ -91,4 +133,120 @@ class SrgMergerTest extends Specification {
 
 		return output
 	}
+
+	private static final int REALISTIC_CLASS_COUNT = 2000
+	private static final int REALISTIC_FIELD_COUNT = 10
+	private static final int REALISTIC_METHOD_COUNT = 15
+
+	private static String obfName(int index) {
+		def name = new StringBuilder()
+
+		for (int i = index; i >= 0; i = i.intdiv(26) - 1) {
+			name.insert(0, (char) (97 + i % 26))
+		}
+
+		return name.toString()
+	}
+
+	// Descriptors referencing other classes, repeated across classes as in real mappings
+	private static String obfMethodDesc(int classIndex, int method) {
+		switch (method % 4) {
+		case 0: return "()V"
+		case 1: return "(I)I"
+		case 2: return "(L" + obfName((classIndex + method) % REALISTIC_CLASS_COUNT) + ";)V"
+		default: return "()L" + obfName((classIndex * 7 + method) % REALISTIC_CLASS_COUNT) + ";"
+		}
+	}
+
+	// Writes tsrg v1 mappings in the shape of modern Forge: mojmap-like class names and f_/m_ member names
+	private static Path writeRealisticTsrg(Path path) {
+		Files.newBufferedWriter(path).withCloseable { writer ->
+			int id = 0
+
+			for (int i = 0; i < REALISTIC_CLASS_COUNT; i++) {
+				writer.write(obfName(i) + " net/minecraft/world/level/Thing" + i + "\n")
+
+				for (int j = 0; j < REALISTIC_FIELD_COUNT; j++) {
+					writer.write("\t" + obfName(j) + " f_" + (id++) + "_\n")
+				}
+
+				writer.write("\t<init> ()V <init>\n")
+
+				for (int j = 0; j < REALISTIC_METHOD_COUNT; j++) {
+					writer.write("\t" + obfName(j) + " " + obfMethodDesc(i, j) + " m_" + (id++) + "_\n")
+				}
+			}
+		}
+
+		return path
+	}
+
+	private static Path writeRealisticTiny(Path path) {
+		Files.newBufferedWriter(path).withCloseable { writer ->
+			writer.write("tiny\t2\t0\tofficial\tintermediary\tnamed\n")
+			int id = 0
+
+			for (int i = 0; i < REALISTIC_CLASS_COUNT; i++) {
+				writer.write("c\t" + obfName(i) + "\tnet/minecraft/class_" + i + "\tnet/minecraft/world/level/Thing" + i + "\n")
+
+				for (int j = 0; j < REALISTIC_FIELD_COUNT; j++) {
+					writer.write("\tf\tI\t" + obfName(j) + "\tfield_" + (id++) + "\tvalue" + j + "\n")
+				}
+
+				for (int j = 0; j < REALISTIC_METHOD_COUNT; j++) {
+					writer.write("\tm\t" + obfMethodDesc(i, j) + "\t" + obfName(j) + "\tmethod_" + (id++) + "\tgetValue" + j + "\n")
+
+					if (j % 4 == 1 || j % 4 == 2) {
+						writer.write("\t\tp\t1\t\t\tvalue\n")
+					}
+				}
+			}
+		}
+
+		return path
+	}
+
+	private static List<String> collectStrings(MappingTree tree) {
+		List<String> strings = []
+
+		for (MappingTree.ClassMapping clazz : tree.classes) {
+			addNames(strings, tree, clazz)
+
+			for (MappingTree.FieldMapping field : clazz.fields) {
+				addNames(strings, tree, field)
+				strings.add(field.srcDesc)
+			}
+
+			for (MappingTree.MethodMapping method : clazz.methods) {
+				addNames(strings, tree, method)
+				strings.add(method.srcDesc)
+
+				for (MappingTree.MethodArgMapping arg : method.args) {
+					addNames(strings, tree, arg)
+				}
+			}
+		}
+
+		strings.removeAll([null])
+		return strings
+	}
+
+	private static void addNames(List<String> strings, MappingTree tree, MappingTree.ElementMapping element) {
+		strings.add(element.srcName)
+
+		for (int i = 0; i < tree.dstNamespaces.size(); i++) {
+			strings.add(element.getDstName(i))
+		}
+	}
+
+	private static long usedHeapAfterGc() {
+		def memory = ManagementFactory.memoryMXBean
+
+		for (int i = 0; i < 3; i++) {
+			System.gc()
+			Thread.sleep(50)
+		}
+
+		return memory.heapMemoryUsage.used
+	}
 }
@@ -27,13 +27,18 @@ package net.fabricmc.loom.test.unit.kotlin
 import dev.architectury.tinyremapper.api.TrClass
 import dev.architectury.tinyremapper.api.TrEnvironment
 import dev.architectury.tinyremapper.api.TrRemapper
+import kotlin.Unit
+import kotlinx.metadata.jvm.KotlinClassMetadata
 import org.objectweb.asm.ClassReader
 import org.objectweb.asm.tree.ClassNode
 import spock.lang.Specification
 
 import net.fabricmc.loom.util.kotlin.KotlinClasspath
+import net.fabricmc.loom.util.kotlin.KotlinClasspathService
 import net.fabricmc.loom.util.kotlin.KotlinPluginUtils
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService
+import net.fabricmc.loom.util.service.ScopedSharedServiceManager
 
 class KotlinRemapperClassloaderTest extends Specification {
 	private static String KOTLIN_VERSION = "1.6.10"
@@ -70,6 +75,30 @@ class KotlinRemapperClassloaderTest extends Specification {
 		visitor.runtimeKotlinVersion == KOTLIN_VERSION
 	}
 
+	def "Classloader is shared per version and closed with the service manager"() {
+		given:
+		def serviceManager = new ScopedSharedServiceManager()
+		def classpath = Set.of(Unit.protectionDomain.codeSource.location, KotlinClassMetadata.protectionDomain.codeSource.location)
+		def kotlinClasspath = new KotlinClasspathService(classpath, KOTLIN_VERSION, KOTLIN_METADATA_VERSION)
+		def otherKotlinClasspath = new KotlinClasspathService(classpath, "1.7.0", KOTLIN_METADATA_VERSION)
+
+		when:
+		def first = KotlinRemapperClassloaderService.getOrCreate(serviceManager, kotlinClasspath)
+		def second = KotlinRemapperClassloaderService.getOrCreate(serviceManager, kotlinClasspath)
+		def other = KotlinRemapperClassloaderService.getOrCreate(serviceManager, otherKotlinClasspath)
+		def classLoader = first.tinyRemapperExtension.class.classLoader
+		def loadedBeforeClose = classLoader.getResource("kotlin/Unit.class")
+		serviceManager.close()
+
+		then:
+		first.is(second)
+		!first.is(other)
+		first.tinyRemapperExtension.is(second.tinyRemapperExtension)
+		classLoader instanceof KotlinRemapperClassloader
+		loadedBeforeClose != null
+		classLoader.getResource("kotlin/Unit.class") == null
+	}
+
 	private class TestKotlinClasspath implements KotlinClasspath {
 		@Override
 		String version() {
@@ -0,0 +1,171 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import net.fabricmc.loom.api.mappings.layered.MappingContext
+import net.fabricmc.loom.api.mappings.layered.MappingLayer
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace
+import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor
+import net.fabricmc.mappingio.MappedElementKind
+import net.fabricmc.mappingio.MappingVisitor
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class LayeredMappingsCacheTest extends LayeredMappingsSpecification {
+	static Map<String, Integer> visits = [:]
+
+	Path cacheDir
+
+	def setup() {
+		visits.clear()
+		cacheDir = new File(tempDir, "cache").toPath()
+	}
+
+	def "Reuses cached prefix layers when the last layer changes"() {
+		when:
+		def first = getCachedMappings(base(), named("a"), named("b"))
+		def second = getCachedMappings(base(), named("a"), named("c"))
+
+		then:
+		visits == [base: 1, a: 1, b: 1, c: 1]
+		Files.list(cacheDir).count() == 2 // [base] and [base, a]
+
+		when:
+		def expected = getLayeredMappings(base(), named("a"), named("c"))
+
+		then:
+		getTiny(second) == getTiny(expected)
+		getTiny(first) != getTiny(second)
+	}
+
+	def "Changing a layer invalidates the following layers"() {
+		when:
+		getCachedMappings(base(), named("a"), named("b"))
+		def mappings = getCachedMappings(base(), named("a2"), named("b"))
+
+		then:
+		visits == [base: 1, a: 1, b: 2, a2: 1]
+		getTiny(mappings) == getTiny(getLayeredMappings(base(), named("a2"), named("b")))
+	}
+
+	def "Unchanged layers are fully reused"() {
+		when:
+		getCachedMappings(base(), named("a"), named("b"))
+		getCachedMappings(base(), named("a"), named("b"))
+
+		then:
+		// The full set of layers is cached by the mappings jar, only its prefixes are cached by the processor.
+		visits == [base: 1, a: 1, b: 2]
+	}
+
+	def "Layers hash depends on the order of the specs"() {
+		when:
+		def processor1 = new LayeredMappingsProcessor(new LayeredMappingSpec([base(), named("a"), named("b")]))
+		def processor2 = new LayeredMappingsProcessor(new LayeredMappingSpec([base(), named("b"), named("a")]))
+
+		then:
+		processor1.getLayersHash(1) == processor2.getLayersHash(1)
+		processor1.getLayersHash(2) != processor2.getLayersHash(2)
+		processor1.getLayersHash(3) != processor2.getLayersHash(3)
+	}
+
+	MemoryMappingTree getCachedMappings(MappingsSpec<? extends MappingLayer>... specs) {
+		def processor = new LayeredMappingsProcessor(new LayeredMappingSpec(specs.toList()), cacheDir)
+		return processor.getMappings(processor.resolveLayers(mappingContext))
+	}
+
+	static TestLayerSpec base() {
+		return new TestLayerSpec("base", MappingsNamespace.OFFICIAL)
+	}
+
+	static TestLayerSpec named(String name) {
+		return new TestLayerSpec(name, MappingsNamespace.NAMED)
+	}
+
+	static class TestLayerSpec implements MappingsSpec<TestLayer> {
+		final String name
+		final MappingsNamespace sourceNamespace
+
+		TestLayerSpec(String name, MappingsNamespace sourceNamespace) {
+			this.name = name
+			this.sourceNamespace = sourceNamespace
+		}
+
+		@Override
+		TestLayer createLayer(MappingContext context) {
+			return new TestLayer(name, sourceNamespace)
+		}
+
+		@Override
+		int hashCode() {
+			return Objects.hash(name, sourceNamespace.toString())
+		}
+
+		@Override
+		boolean equals(Object obj) {
+			return obj instanceof TestLayerSpec && obj.name == name && obj.sourceNamespace == sourceNamespace
+		}
+	}
+
+	static class TestLayer implements MappingLayer {
+		final String name
+		final MappingsNamespace sourceNamespace
+
+		TestLayer(String name, MappingsNamespace sourceNamespace) {
+			this.name = name
+			this.sourceNamespace = sourceNamespace
+		}
+
+		@Override
+		MappingsNamespace getSourceNamespace() {
+			return sourceNamespace
+		}
+
+		@Override
+		void visit(MappingVisitor visitor) throws IOException {
+			visits.merge(name, 1, Integer::sum)
+
+			if (sourceNamespace == MappingsNamespace.OFFICIAL) {
+				visitor.visitNamespaces("official", ["intermediary", "named"])
+				visitor.visitClass("a")
+				visitor.visitDstName(MappedElementKind.CLASS, 0, "net/minecraft/class_1")
+				visitor.visitDstName(MappedElementKind.CLASS, 1, "net/minecraft/Foo")
+			} else {
+				visitor.visitNamespaces("named", ["intermediary", "official"])
+				visitor.visitClass("net/minecraft/Foo")
+				visitor.visitMethod("method_" + name, "()V")
+				visitor.visitDstName(MappedElementKind.METHOD, 0, "method_" + name.hashCode())
+				visitor.visitDstName(MappedElementKind.METHOD, 1, "m" + name)
+				visitor.visitComment(MappedElementKind.METHOD, "Added by layer " + name)
+			}
+
+			visitor.visitEnd()
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.processor
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor.InjectedInterface
+import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjector
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class InterfaceInjectorTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "injects interfaces"() {
+		given:
+		def jar = createJar(["a/A", "a/B"])
+		def cacheFile = tempDir.resolve("cache")
+
+		when:
+		def transformed = InterfaceInjector.inject(jar, [
+				"a/A.class": [inject("a/A", "a/Foo"), inject("a/A", "a/Bar")],
+				"a/Missing.class": [inject("a/Missing", "a/Foo")]
+		], cacheFile)
+
+		then:
+		transformed == 1
+		getInterfaces(jar, "a/A") == ["a/Foo", "a/Bar"]
+		getInterfaces(jar, "a/B") == []
+		readEntry(jar, "assets/data.txt") == "data"
+	}
+
+	def "only transforms classes with different injections"() {
+		given:
+		def jar = createJar(["a/A", "a/B", "a/C"])
+		def cacheFile = tempDir.resolve("cache")
+		InterfaceInjector.inject(jar, [
+				"a/A.class": [inject("a/A", "a/Foo")],
+				"a/B.class": [inject("a/B", "a/Foo")]
+		], cacheFile)
+
+		when:
+		jar = createJar(["a/A", "a/B", "a/C"])
+		def transformed = InterfaceInjector.inject(jar, [
+				"a/A.class": [inject("a/A", "a/Foo")],
+				"a/B.class": [inject("a/B", "a/Bar")],
+				"a/C.class": [inject("a/C", "a/Foo")]
+		], cacheFile)
+
+		then:
+		transformed == 2
+		getInterfaces(jar, "a/A") == ["a/Foo"]
+		getInterfaces(jar, "a/B") == ["a/Bar"]
+		getInterfaces(jar, "a/C") == ["a/Foo"]
+	}
+
+	def "transforms classes that changed"() {
+		given:
+		def jar = createJar(["a/A"])
+		def cacheFile = tempDir.resolve("cache")
+		def injections = ["a/A.class": [inject("a/A", "a/Foo")]]
+		InterfaceInjector.inject(jar, injections, cacheFile)
+
+		when:
+		jar = createJar(["a/A"], "a/Base")
+		def transformed = InterfaceInjector.inject(jar, injections, cacheFile)
+
+		then:
+		transformed == 1
+		new ClassReader(readBytes(jar, "a/A.class")).superName == "a/Base"
+	}
+
+	private static InjectedInterface inject(String className, String ifaceName) {
+		return new InjectedInterface("modid", className, ifaceName)
+	}
+
+	private Path createJar(List<String> classNames, String superName = "java/lang/Object") {
+		Map<String, Object> entries = classNames.collectEntries { name ->
+			def writer = new ClassWriter(0)
+			writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, null)
+			writer.visitEnd()
+
+			[name + ".class", writer.toByteArray()]
+		}
+		entries["assets/data.txt"] = "data".bytes
+
+		return createZip(tempDir.resolve("test.jar"), entries)
+	}
+
+	private static List<String> getInterfaces(Path jar, String className) {
+		return new ClassReader(readBytes(jar, className + ".class")).interfaces.toList()
+	}
+
+	private static String readEntry(Path jar, String name) {
+		return new String(readBytes(jar, name))
+	}
+
+	private static byte[] readBytes(Path jar, String name) {
+		return new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.getInputStream(zip.getEntry(name)).bytes
+		}
+	}
+}
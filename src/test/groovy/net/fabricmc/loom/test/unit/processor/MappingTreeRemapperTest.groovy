@@ -0,0 +1,160 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.processor
+
+import java.nio.file.Path
+import java.util.function.Supplier
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.accesswidener.AccessWidenerReader
+import net.fabricmc.accesswidener.AccessWidenerRemapper
+import net.fabricmc.accesswidener.AccessWidenerVisitor
+import net.fabricmc.loom.util.MappingTreeRemapper
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.mappingio.format.Tiny2Reader
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class MappingTreeRemapperTest extends Specification {
+	private static final String MAPPINGS = """\
+tiny\t2\t0\tintermediary\tnamed
+c\tnet/minecraft/class_1\tnet/minecraft/Entity
+\tf\tI\tfield_1\tage
+\tm\t(Lnet/minecraft/class_1;)V\tmethod_1\tcopyFrom
+c\tnet/minecraft/class_2\tnet/minecraft/Zombie
+\tm\t()V\tmethod_2\ttick
+c\tnet/minecraft/class_3\t
+c\tnet/minecraft/class_5\tnet/minecraft/Base
+\tf\tI\tfield_3\tbaseField
+\tm\t()V\tmethod_3\tbaseMethod
+c\tnet/minecraft/class_6\tnet/minecraft/Interface
+\tf\tI\tfield_3\tinterfaceField
+\tm\t()V\tmethod_3\tinterfaceMethod
+"""
+
+	@TempDir
+	Path tempDir
+
+	def "remaps names without reading the hierarchy"() {
+		given:
+		def hierarchyReads = 0
+		def remapper = create { hierarchyReads++; [:] }
+
+		expect:
+		remapper.map("net/minecraft/class_1") == "net/minecraft/Entity"
+		remapper.map("net/minecraft/class_3") == "net/minecraft/class_3"
+		remapper.map("java/lang/Object") == "java/lang/Object"
+		remapper.mapFieldName("net/minecraft/class_1", "field_1", "I") == "age"
+		remapper.mapMethodName("net/minecraft/class_1", "method_1", "(Lnet/minecraft/class_1;)V") == "copyFrom"
+		remapper.mapMethodDesc("(Lnet/minecraft/class_1;)V") == "(Lnet/minecraft/Entity;)V"
+		// Names that are never mapped don't need the hierarchy
+		remapper.mapMethodName("net/minecraft/class_2", "<init>", "()V") == "<init>"
+		remapper.mapFieldName("net/minecraft/class_2", "unmapped", "I") == "unmapped"
+		hierarchyReads == 0
+	}
+
+	def "remaps inherited members using the hierarchy"() {
+		given:
+		def jar = tempDir.resolve("minecraft.jar")
+		ZipUtils.add(jar, [
+				new Pair<>("net/minecraft/class_1.class", createClass("net/minecraft/class_1", "java/lang/Object")),
+				new Pair<>("net/minecraft/class_2.class", createClass("net/minecraft/class_2", "net/minecraft/class_1")),
+				new Pair<>("net/minecraft/class_3.class", createClass("net/minecraft/class_3", "net/minecraft/class_2")),
+		])
+		def remapper = create { MappingTreeRemapper.readHierarchy([jar]) }
+
+		expect:
+		remapper.mapFieldName("net/minecraft/class_3", "field_1", "I") == "age"
+		remapper.mapMethodName("net/minecraft/class_3", "method_2", "()V") == "tick"
+		remapper.mapMethodName("net/minecraft/class_3", "method_1", "(Lnet/minecraft/class_1;)V") == "copyFrom"
+		// A different descriptor is a different method
+		remapper.mapMethodName("net/minecraft/class_3", "method_2", "(I)V") == "method_2"
+	}
+
+	def "resolves inherited members in the same order as the JVM"() {
+		given:
+		// class_4 extends class_5 implements class_6
+		def remapper = create { ["net/minecraft/class_4": ["net/minecraft/class_6", "net/minecraft/class_5"] as String[]] }
+
+		expect:
+		// Fields are looked up on the interfaces first, methods on the super class
+		remapper.mapFieldName("net/minecraft/class_4", "field_3", "I") == "interfaceField"
+		remapper.mapMethodName("net/minecraft/class_4", "method_3", "()V") == "baseMethod"
+	}
+
+	def "remaps access wideners"() {
+		given:
+		def entries = []
+		def recorder = new AccessWidenerVisitor() {
+			@Override
+			void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
+				entries << "$access class $name".toString()
+			}
+
+			@Override
+			void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+				entries << "$access method $owner $name$descriptor".toString()
+			}
+
+			@Override
+			void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+				entries << "$access field $owner $name $descriptor".toString()
+			}
+		}
+		def visitor = new AccessWidenerRemapper(recorder, create { [:] }, "intermediary", "named")
+
+		when:
+		new AccessWidenerReader(visitor).read("""\
+accessWidener\tv2\tintermediary
+accessible\tclass\tnet/minecraft/class_2
+mutable\tfield\tnet/minecraft/class_1\tfield_1\tI
+accessible\tmethod\tnet/minecraft/class_1\tmethod_1\t(Lnet/minecraft/class_1;)V
+""".bytes)
+
+		then:
+		entries == [
+				"ACCESSIBLE class net/minecraft/Zombie",
+				"MUTABLE field net/minecraft/Entity age I",
+				"ACCESSIBLE method net/minecraft/Entity copyFrom(Lnet/minecraft/Entity;)V",
+		]
+	}
+
+	private static MappingTreeRemapper create(Closure<Map<String, String[]>> hierarchy) {
+		def mappings = new MemoryMappingTree()
+		Tiny2Reader.read(new StringReader(MAPPINGS), mappings)
+		return MappingTreeRemapper.create(mappings, "intermediary", "named", hierarchy as Supplier<Map<String, String[]>>)
+	}
+
+	private static byte[] createClass(String name, String superName) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
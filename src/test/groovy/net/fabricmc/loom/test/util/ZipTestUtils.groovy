@@ -35,14 +35,26 @@ import net.fabricmc.loom.util.FileSystemUtil
 class ZipTestUtils {
 	static Path createZip(Map<String, String> entries) {
 		def file = Files.createTempFile("loom-test", ".zip")
-		Files.delete(file)
+		return createZip(file, entries)
+	}
+
+	/**
+	 * Creates or replaces a zip, the entry values can be strings or byte arrays.
+	 */
+	static Path createZip(Path file, Map<String, ?> entries) {
+		Files.deleteIfExists(file)
 
 		FileSystemUtil.getJarFileSystem(file, true).withCloseable { zip ->
 			entries.forEach { path, value ->
 				def fsPath = zip.getPath(path)
 				def fsPathParent = fsPath.getParent()
 				if (fsPathParent != null) Files.createDirectories(fsPathParent)
-				Files.writeString(fsPath, value, StandardCharsets.UTF_8)
+
+				if (value instanceof byte[]) {
+					Files.write(fsPath, value)
+				} else {
+					Files.writeString(fsPath, value as String, StandardCharsets.UTF_8)
+				}
 			}
 		}
 